@@ -0,0 +1,148 @@
+package it.polimi.ingsw.communication.socket;
+
+import it.polimi.ingsw.communication.UpdateBuilder;
+import it.polimi.ingsw.communication.protocol.ProtocolMessage;
+import it.polimi.ingsw.communication.protocol.Update;
+import it.polimi.ingsw.server.model.AmmoCube;
+import it.polimi.ingsw.server.model.board.Configurations;
+import it.polimi.ingsw.server.model.board.GameBoard;
+import it.polimi.ingsw.server.model.board.KillshotTrack;
+import it.polimi.ingsw.server.model.board.Square;
+import it.polimi.ingsw.server.model.cards.PowerupCard;
+import it.polimi.ingsw.server.model.cards.WeaponCard;
+import it.polimi.ingsw.server.model.player.Player;
+import it.polimi.ingsw.server.persistency.FromFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what is done for each full update of a match: building the
+ * updates from the board and the players, encoding them with Gson in a
+ * {@linkplain ProtocolMessage}, and encoding them again reusing the
+ * encodings of the single updates as the socket connections do.
+ * <p>
+ * The five players are placed with a fixed seed and have damage, marks,
+ * powerups and weapons; the cards on the board come from the decks, that
+ * are shuffled with the same seed, so every run encodes the same state.
+ *
+ * @author Abbo Giulio A.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateEncodingBenchmark {
+    /**
+     * The seed used for the decks and the state of the players.
+     */
+    private static final long SEED = 2019;
+    /**
+     * The number of players in the match.
+     */
+    private static final int PLAYERS = 5;
+    /**
+     * The configuration of the board.
+     */
+    @Param({"STANDARD1", "STANDARD2", "ADVISED34", "ADVISED45"})
+    private Configurations configuration;
+    /**
+     * The builder of a full update.
+     */
+    private UpdateBuilder builder;
+    /**
+     * The updates already built.
+     */
+    private Update[] updates;
+
+    /**
+     * Creates the board and the players and prepares a full update.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        String id = Integer.toString(configuration.getId());
+        GameBoard board = new GameBoard(new KillshotTrack(), FromFile.maps().get(id),
+                FromFile.maps().getTopology(id), SEED);
+        List<Square> squares = new ArrayList<>(board.getAllSquares());
+        squares.sort(Comparator.comparing(Square::getID));
+        List<PowerupCard> powerups = new ArrayList<>(FromFile.powerups().getAll());
+        powerups.sort(Comparator.comparing(PowerupCard::getId));
+        List<WeaponCard> weapons = new ArrayList<>(FromFile.weapons().getAll());
+        weapons.sort(Comparator.comparing(WeaponCard::getId));
+
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = new Player("player" + i);
+            player.setPosition(squares.get(random.nextInt(squares.size())));
+            player.addAmmo(Arrays.asList(AmmoCube.BLUE, AmmoCube.BLUE, AmmoCube.RED,
+                    AmmoCube.RED, AmmoCube.YELLOW, AmmoCube.YELLOW));
+            for (int j = 0; j < 2; j++) {
+                WeaponCard weapon = weapons.get(random.nextInt(weapons.size()));
+                if (player.canAfford(weapon.getCost(), true) && !player.getAllWeapons().contains(weapon))
+                    player.buy(weapon, null);
+            }
+            player.addPowerup(powerups.get(random.nextInt(powerups.size())));
+            players.add(player);
+        }
+        for (Player player : players) {
+            player.giveDamage(Collections.singletonList(players.get(random.nextInt(PLAYERS))));
+            player.giveMark(Collections.singletonList(players.get(random.nextInt(PLAYERS))));
+        }
+
+        /*The same full update sent by the controller*/
+        builder = new UpdateBuilder()
+                .setAmmoCards(board)
+                .setWeaponsOnBoard(board)
+                .setWeaponDrawable(!board.isWeaponDeckEmpty())
+                .setKillshotTrack(board.getKillshotTrack())
+                .setMatchFrenzy(false)
+                .setPlayers(players);
+        for (Player p : players) {
+            builder.setPlayerPosition(p, p.getPosition())
+                    .setActiveCubes(p, p.getAmmoCubes())
+                    .setIsPlayerFrenzy(p, p.isFrenzy())
+                    .setSkullsOnBoard(p, p.getSkulls())
+                    .setPlayerDamage(p, p.getPlayerBoard().getDamage())
+                    .setPlayerMarks(p, p.getPlayerBoard().getMarks())
+                    .setIsConnected(p, true)
+                    .setLoadedWeapons(p, p.getLoadedWeapons())
+                    .setUnloadedWeapon(p, p.getReloadableWeapons())
+                    .setPowerupsInHand(p, p.getAllPowerup());
+        }
+        updates = builder.build();
+    }
+
+    /**
+     * Measures building the updates.
+     *
+     * @return the updates
+     */
+    @Benchmark
+    public Update[] build() {
+        return builder.build();
+    }
+
+    /**
+     * Measures encoding the whole message with Gson.
+     *
+     * @return the encoded message
+     */
+    @Benchmark
+    public String encode() {
+        return JsonCodec.encode(new ProtocolMessage(updates));
+    }
+
+    /**
+     * Measures encoding the message reusing the encodings of the updates.
+     *
+     * @return the encoded message
+     */
+    @Benchmark
+    public String encodeUpdates() {
+        return JsonCodec.encodeUpdates(updates);
+    }
+}
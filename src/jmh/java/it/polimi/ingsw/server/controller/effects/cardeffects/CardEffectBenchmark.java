@@ -0,0 +1,124 @@
+package it.polimi.ingsw.server.controller.effects.cardeffects;
+
+import it.polimi.ingsw.communication.ToClientException;
+import it.polimi.ingsw.server.controller.effects.EffectInterface;
+import it.polimi.ingsw.server.model.Damageable;
+import it.polimi.ingsw.server.model.board.Configurations;
+import it.polimi.ingsw.server.model.board.GameBoard;
+import it.polimi.ingsw.server.model.board.KillshotTrack;
+import it.polimi.ingsw.server.model.board.Square;
+import it.polimi.ingsw.server.model.player.Player;
+import it.polimi.ingsw.server.persistency.FromFile;
+import it.polimi.ingsw.server.simulation.RandomStrategy;
+import it.polimi.ingsw.server.simulation.SimulatedClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a complete run of the effects of some weapons, from the search of
+ * the targets to the damage, with the choices taken by a {@linkplain
+ * SimulatedClient}.
+ * The effects cover the different ways of finding targets: a single target
+ * in the square, targets on different squares, a direction ignoring walls,
+ * a whole room, a direction with two squares, up to two visible targets and
+ * everyone in the square.
+ * <p>
+ * Before each run the subject and four opponents are placed again on the
+ * same squares, drawn with a fixed seed, with no damage; the choices use a
+ * fixed seed too, so every run is the same.
+ *
+ * @author Abbo Giulio A.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardEffectBenchmark {
+    /**
+     * The seed used for the decks, for placing the players and for the
+     * choices.
+     */
+    private static final long SEED = 2019;
+    /**
+     * The number of opponents of the subject.
+     */
+    private static final int OPPONENTS = 4;
+    /**
+     * The configuration of the board.
+     */
+    @Param({"STANDARD1", "STANDARD2", "ADVISED34", "ADVISED45"})
+    private Configurations configuration;
+    /**
+     * The id of the effect in the effects file.
+     */
+    @Param({"sledgehammer", "shockwave", "railgun", "furnace", "flamethrower", "machineGun", "electroscythe"})
+    private String effectId;
+    /**
+     * The effect to run.
+     */
+    private EffectInterface effect;
+    /**
+     * The board of the configuration.
+     */
+    private GameBoard board;
+    /**
+     * The squares of the configuration, ordered by id.
+     */
+    private List<Square> squares;
+    /**
+     * The player running the effect.
+     */
+    private Player subject;
+    /**
+     * All the players, the subject included.
+     */
+    private List<Damageable> players;
+
+    /**
+     * Loads the effect and creates the board.
+     */
+    @Setup
+    public void setUp() {
+        effect = FromFile.effects().get(effectId);
+        String id = Integer.toString(configuration.getId());
+        board = new GameBoard(new KillshotTrack(), FromFile.maps().get(id), FromFile.maps().getTopology(id), SEED);
+        squares = new ArrayList<>(board.getAllSquares());
+        squares.sort(Comparator.comparing(Square::getID));
+    }
+
+    /**
+     * Places new players, so that each run starts from the same state.
+     */
+    @Setup(Level.Invocation)
+    public void placePlayers() {
+        Random random = new Random(SEED);
+        subject = new Player("subject", new SimulatedClient("subject", new RandomStrategy(SEED)), null);
+        subject.setPosition(squares.get(random.nextInt(squares.size())));
+        players = new ArrayList<>();
+        players.add(subject);
+        for (int i = 0; i < OPPONENTS; i++) {
+            Player opponent = new Player("opponent" + i);
+            opponent.setPosition(squares.get(random.nextInt(squares.size())));
+            players.add(opponent);
+        }
+    }
+
+    /**
+     * Measures a run of the effect.
+     *
+     * @return the players, after the effect
+     * @throws ToClientException if there is a choice without options
+     */
+    @Benchmark
+    public List<Damageable> runEffect() throws ToClientException {
+        effect.runEffect(subject, players, board, new ArrayList<>(), new ArrayList<>());
+        return players;
+    }
+}
@@ -0,0 +1,133 @@
+package it.polimi.ingsw.server.controller.effects.cardeffects;
+
+import it.polimi.ingsw.server.model.Damageable;
+import it.polimi.ingsw.server.model.board.GameBoard;
+import it.polimi.ingsw.server.model.board.KillshotTrack;
+import it.polimi.ingsw.server.model.board.Room;
+import it.polimi.ingsw.server.model.board.Square;
+import it.polimi.ingsw.server.model.player.Player;
+import it.polimi.ingsw.server.persistency.FromFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@linkplain TargetsCombinator} against the previous
+ * generation, that removed one element at a time and discarded the
+ * duplicates.
+ * The 5 players board has the 4 opponents of the subject as targets; the
+ * crowded board has 9 targets, as many as a board full of turrets.
+ *
+ * @author Abbo Giulio A.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TargetsCombinatorBenchmark {
+    /**
+     * The seed used for placing the targets.
+     */
+    private static final long SEED = 2019;
+    /**
+     * The number of targets on the board.
+     */
+    @Param({"4", "9"})
+    private int targetsNumber;
+    /**
+     * The range of targets to choose, as "min-max" with -1 for no maximum.
+     */
+    @Param({"1-1", "1-3", "1--1"})
+    private String range;
+    /**
+     * Whether the targets must be on different squares.
+     */
+    @Param({"false", "true"})
+    private boolean differentSquares;
+    /**
+     * The targets to combine.
+     */
+    private List<Damageable> targets;
+    /**
+     * The combinator for the targets.
+     */
+    private TargetsCombinator combinator;
+    /**
+     * The minimum number of targets.
+     */
+    private int min;
+    /**
+     * The maximum number of targets.
+     */
+    private int max;
+
+    /**
+     * Places the targets on the board.
+     */
+    @Setup
+    public void setUp() {
+        List<Room> configuration = FromFile.maps().get("3");
+        GameBoard board = new GameBoard(new KillshotTrack(), configuration);
+        List<Square> squares = new ArrayList<>(board.getAllSquares());
+        squares.sort((a, b) -> a.getID().compareTo(b.getID()));
+        Random random = new Random(SEED);
+
+        targets = new ArrayList<>();
+        for (int i = 0; i < targetsNumber; i++) {
+            Player target = new Player("target" + i);
+            target.setPosition(squares.get(random.nextInt(squares.size())));
+            targets.add(target);
+        }
+
+        String[] bounds = range.split("-", 2);
+        min = Integer.parseInt(bounds[0]);
+        max = Integer.parseInt(bounds[1]) < 0 ? targetsNumber : Integer.parseInt(bounds[1]);
+        combinator = new TargetsCombinator(squares.get(0), differentSquares, false, false, board);
+    }
+
+    /**
+     * Measures the combinator.
+     *
+     * @return the combinations
+     */
+    @Benchmark
+    public List<List<Damageable>> combinator() {
+        return combinator.combinations(targets, min, max);
+    }
+
+    /**
+     * Measures the previous generation, filtering at the end.
+     *
+     * @return the combinations
+     */
+    @Benchmark
+    public List<List<Damageable>> removal() {
+        List<List<Damageable>> collector = new ArrayList<>();
+        remove(targets, collector);
+        collector.removeIf(c -> differentSquares &&
+                c.stream().map(Damageable::getPosition).distinct().count() != c.size());
+        return collector;
+    }
+
+    /**
+     * The previous recursive generation.
+     *
+     * @param elements  the elements of the combinations
+     * @param collector where the combinations are stored
+     */
+    private void remove(List<Damageable> elements, List<List<Damageable>> collector) {
+        if (elements.size() >= min && elements.size() <= max && !collector.contains(elements))
+            collector.add(elements);
+        if (elements.size() > min)
+            for (Damageable d : elements) {
+                List<Damageable> sublist = new ArrayList<>(elements);
+                sublist.remove(d);
+                remove(sublist, collector);
+            }
+    }
+}
@@ -0,0 +1,81 @@
+package it.polimi.ingsw.server.model.board;
+
+import it.polimi.ingsw.server.persistency.FromFile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the queries asked to the {@linkplain GameBoard} by the effects:
+ * the squares reachable from each square and the room of each square.
+ * The board is the one used by the matches, with the shared topology.
+ *
+ * @author Abbo Giulio A.
+ * @see MinimumDistanceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardQueriesBenchmark {
+    /**
+     * The seed used for the decks of the board.
+     */
+    private static final long SEED = 2019;
+    /**
+     * The farthest distance asked, as in a move of three squares.
+     */
+    private static final int MAX_DISTANCE = 3;
+    /**
+     * The configuration of the board.
+     */
+    @Param({"STANDARD1", "STANDARD2", "ADVISED34", "ADVISED45"})
+    private Configurations configuration;
+    /**
+     * The board of the configuration.
+     */
+    private GameBoard board;
+    /**
+     * The squares of the configuration, ordered by id.
+     */
+    private Square[] squares;
+
+    /**
+     * Loads the configuration and creates the board.
+     */
+    @Setup
+    public void setUp() {
+        String id = Integer.toString(configuration.getId());
+        board = new GameBoard(new KillshotTrack(), FromFile.maps().get(id), FromFile.maps().getTopology(id), SEED);
+        squares = board.getAllSquares().stream()
+                .sorted(Comparator.comparing(Square::getID)).toArray(Square[]::new);
+    }
+
+    /**
+     * Measures the destinations from all the squares, up to each distance,
+     * in any direction as asked by the moves.
+     *
+     * @param hole consumes the destinations
+     */
+    @Benchmark
+    public void validDestinations(Blackhole hole) {
+        for (Square square : squares)
+            for (int distance = 1; distance <= MAX_DISTANCE; distance++)
+                hole.consume(board.getValidDestinations(square, distance, false));
+    }
+
+    /**
+     * Measures the room of all the squares.
+     *
+     * @param hole consumes the rooms
+     */
+    @Benchmark
+    public void room(Blackhole hole) {
+        for (Square square : squares)
+            hole.consume(board.getRoom(square));
+    }
+}
@@ -0,0 +1,89 @@
+package it.polimi.ingsw.server.model.board;
+
+import it.polimi.ingsw.server.persistency.FromFile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@linkplain GameBoard#minimumDistance(Square, Square, Boolean)}
+ * computed with a visit for each query against the precomputed
+ * {@linkplain DistanceMatrix}.
+ * Each invocation asks the distance of all the couples of squares of the
+ * configuration, following the walls and ignoring them.
+ *
+ * @author Abbo Giulio A.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinimumDistanceBenchmark {
+    /**
+     * The configuration of the board.
+     */
+    @Param({"STANDARD1", "STANDARD2", "ADVISED34", "ADVISED45"})
+    private Configurations configuration;
+    /**
+     * The board without precomputed distances.
+     */
+    private GameBoard visit;
+    /**
+     * The board with precomputed distances.
+     */
+    private GameBoard matrix;
+    /**
+     * The squares of the configuration.
+     */
+    private Square[] squares;
+
+    /**
+     * Loads the configuration and creates the boards.
+     */
+    @Setup
+    public void setUp() {
+        String id = Integer.toString(configuration.getId());
+        List<Room> rooms = FromFile.maps().get(id);
+        visit = new GameBoard(new KillshotTrack(), rooms, null);
+        matrix = new GameBoard(new KillshotTrack(), rooms, FromFile.maps().getTopology(id));
+        squares = visit.getAllSquares().toArray(new Square[0]);
+    }
+
+    /**
+     * Asks all the distances to the board.
+     *
+     * @param board the board to ask
+     * @param hole  consumes the distances
+     */
+    private void allPairs(GameBoard board, Blackhole hole) {
+        for (Square a : squares)
+            for (Square b : squares) {
+                hole.consume(board.minimumDistance(a, b, false));
+                hole.consume(board.minimumDistance(a, b, true));
+            }
+    }
+
+    /**
+     * Measures the distances computed with a visit.
+     *
+     * @param hole consumes the distances
+     */
+    @Benchmark
+    public void visit(Blackhole hole) {
+        allPairs(visit, hole);
+    }
+
+    /**
+     * Measures the precomputed distances.
+     *
+     * @param hole consumes the distances
+     */
+    @Benchmark
+    public void matrix(Blackhole hole) {
+        allPairs(matrix, hole);
+    }
+}
@@ -0,0 +1,79 @@
+package it.polimi.ingsw.server.model.cards;
+
+import com.google.gson.Gson;
+import it.polimi.ingsw.server.controller.effects.Action;
+import it.polimi.ingsw.server.persistency.FromFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@linkplain WeaponCard#getPossibleSequences()} on the cards of
+ * the loader, whose sequences are compiled, against the same cards read
+ * again from the file, that resolve the effects at each call.
+ * The weapons have from two to seven sequences.
+ *
+ * @author Abbo Giulio A.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeaponSequencesBenchmark {
+    /**
+     * The position of the json for weapon cards.
+     */
+    private static final String WEAPON_CARDS = "/it/polimi/ingsw/server/persistency/weaponcards.json";
+    /**
+     * The id of the weapon: sledgehammer, cyberblade, rocket launcher and
+     * plasma gun.
+     */
+    @Param({"AD_weapons_IT_022", "AD_weapons_IT_023", "AD_weapons_IT_0211", "AD_weapons_IT_0219"})
+    private String weaponId;
+    /**
+     * The card with compiled sequences.
+     */
+    private WeaponCard compiled;
+    /**
+     * The same card, without compiled sequences.
+     */
+    private WeaponCard resolved;
+
+    /**
+     * Gets the card from the loader and reads it again from the file.
+     */
+    @Setup
+    public void setUp() {
+        compiled = FromFile.weapons().get(weaponId);
+        WeaponCard[] cards = new Gson().fromJson(new InputStreamReader(
+                WeaponSequencesBenchmark.class.getResourceAsStream(WEAPON_CARDS)), WeaponCard[].class);
+        resolved = Arrays.stream(cards).filter(c -> c.getId().equals(weaponId)).findFirst()
+                .orElseThrow(IllegalStateException::new);
+        resolved.runPermutation();
+    }
+
+    /**
+     * Measures the compiled sequences.
+     *
+     * @return the sequences
+     */
+    @Benchmark
+    public List<Action> compiled() {
+        return compiled.getPossibleSequences();
+    }
+
+    /**
+     * Measures the sequences resolved at each call.
+     *
+     * @return the sequences
+     */
+    @Benchmark
+    public List<Action> resolved() {
+        return resolved.getPossibleSequences();
+    }
+}
@@ -0,0 +1,109 @@
+package it.polimi.ingsw.server.model.player;
+
+import it.polimi.ingsw.server.model.AmmoCube;
+import it.polimi.ingsw.server.model.cards.PowerupCard;
+import it.polimi.ingsw.server.model.cards.WeaponCard;
+import it.polimi.ingsw.server.persistency.FromFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the checks on what a player can pay, asked for each weapon in a
+ * market and each weapon to reload: the cubes alone, and the powerups of
+ * the {@linkplain HandManager} when the cubes are not enough.
+ * The cubes and the powerups of the player are drawn with a fixed seed;
+ * the costs are those of all the weapons.
+ *
+ * @author Abbo Giulio A.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentBenchmark {
+    /**
+     * The seed used for the cubes and the powerups.
+     */
+    private static final long SEED = 2019;
+    /**
+     * The colors of the cubes that can be owned.
+     */
+    private static final AmmoCube[] COLORS = {AmmoCube.BLUE, AmmoCube.RED, AmmoCube.YELLOW};
+    /**
+     * The number of cubes drawn, some could be discarded.
+     */
+    @Param({"1", "4"})
+    private int cubes;
+    /**
+     * The number of powerups in the hand.
+     */
+    @Param({"0", "3"})
+    private int powerups;
+    /**
+     * The player paying.
+     */
+    private Player player;
+    /**
+     * The costs of all the weapons.
+     */
+    private List<List<AmmoCube>> costs;
+
+    /**
+     * Fills the ammo box and the hand of the player.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        AmmoBox ammoBox = new AmmoBox();
+        for (int i = 0; i < cubes; i++)
+            ammoBox.addAmmo(COLORS[random.nextInt(COLORS.length)]);
+        HandManager hand = new HandManager();
+        List<PowerupCard> deck = new ArrayList<>(FromFile.powerups().getAll());
+        deck.sort(Comparator.comparing(PowerupCard::getId));
+        for (int i = 0; i < powerups; i++)
+            hand.addPowerup(deck.get(random.nextInt(deck.size())));
+        player = new Player(hand, ammoBox, new NormalPlayerBoard(), null);
+
+        costs = new ArrayList<>();
+        FromFile.weapons().getAll().stream()
+                .sorted(Comparator.comparing(WeaponCard::getId))
+                .forEach(w -> costs.add(w.getCost()));
+    }
+
+    /**
+     * Measures the weapons that can be bought, as in a market, accepting
+     * more than one powerup.
+     *
+     * @return the number of weapons that can be bought
+     */
+    @Benchmark
+    public int withPowerups() {
+        int affordable = 0;
+        for (List<AmmoCube> cost : costs)
+            if (player.canAfford(cost, true) || !player.canAffordWithPowerups(cost, true).isEmpty())
+                affordable++;
+        return affordable;
+    }
+
+    /**
+     * Measures the weapons that can be reloaded, paying with at most one
+     * powerup.
+     *
+     * @return the number of weapons that can be reloaded
+     */
+    @Benchmark
+    public int withOnePowerup() {
+        int affordable = 0;
+        for (List<AmmoCube> cost : costs)
+            if (player.canAfford(cost, false) || !player.canAffordWithOnePowerup(cost, false).isEmpty())
+                affordable++;
+        return affordable;
+    }
+}
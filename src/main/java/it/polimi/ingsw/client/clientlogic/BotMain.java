@@ -0,0 +1,160 @@
+package it.polimi.ingsw.client.clientlogic;
+
+import it.polimi.ingsw.client.interaction.Bot;
+import it.polimi.ingsw.client.resources.R;
+import it.polimi.ingsw.communication.socket.SocketFromServer;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.rmi.NoSuchObjectException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Starts many {@linkplain Bot}s, connected to the same server, and waits
+ * for all their matches to be over.
+ * This is used to load the server without users.
+ * <p>
+ * The server address is read from the settings; the number of bots, the
+ * milliseconds before each choice, the share of bots using RMI instead of
+ * sockets and the minutes to wait for the matches can be given as
+ * arguments, otherwise they are read from the settings.
+ *
+ * @author Abbo Giulio A.
+ * @see Bot
+ * @see ClientMain
+ */
+public class BotMain {
+    /**
+     * The prefix of the names of the bots.
+     */
+    private static final String NAME = "bot";
+
+    /**
+     * Hiding the public constructor.
+     */
+    private BotMain() {
+    }
+
+    /**
+     * Starts the bots and waits for their matches.
+     *
+     * @param args Usage: java BotMain [bots] [millis for choice] [rmi share]
+     *             [minutes to wait]
+     */
+    public static void main(String[] args) {
+        Properties settings = R.properties("settings");
+        int bots = Integer.parseInt(argument(args, 0, settings.getProperty("botCount")));
+        boolean allOver = play(settings.getProperty("host"),
+                Integer.parseInt(settings.getProperty("clientSocketPort")), NAME, bots,
+                Long.parseLong(argument(args, 1, settings.getProperty("botMillisForChoice"))),
+                Double.parseDouble(argument(args, 2, settings.getProperty("botRmiShare"))),
+                Long.parseLong(argument(args, 3, settings.getProperty("botMinutesForMatches"))));
+        System.exit(allOver ? 0 : 1);
+    }
+
+    /**
+     * Connects the bots, waits for their matches and closes the connections.
+     *
+     * @param host            the address of the server
+     * @param port            the socket port of the server
+     * @param name            the prefix of the names of the bots
+     * @param bots            the number of bots
+     * @param millisForChoice the milliseconds waited before each choice
+     * @param rmiShare        the share of bots using RMI, from 0 to 1
+     * @param minutes         the minutes to wait for the matches
+     * @return true if the matches of all the bots are over
+     */
+    static boolean play(String host, int port, String name, int bots, long millisForChoice,
+                        double rmiShare, long minutes) {
+        /*Connecting the bots, spreading the RMI ones among the socket ones*/
+        List<Bot> started = new ArrayList<>();
+        List<ClientController> controllers = new ArrayList<>();
+        List<SocketFromServer> sockets = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < bots; i++) {
+            Bot bot = new Bot(name + i, millisForChoice, i);
+            MatchState model = new MatchState();
+            bot.setModel(model);
+            try {
+                ClientController controller = new ClientController(model, bot);
+                controllers.add(controller);
+                if ((int) ((i + 1) * rmiShare) > (int) (i * rmiShare))
+                    controller.setRmi(host);
+                else
+                    sockets.add(connect(controller, bot, host, port));
+                started.add(bot);
+            } catch (IOException e) {
+                ClientMain.LOG.log(Level.WARNING, "Could not connect " + name + i, e);
+            }
+        }
+
+        /*Waiting for all the matches*/
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(minutes);
+        int over = 0;
+        try {
+            for (Bot bot : started)
+                if (bot.awaitGameOver(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS))
+                    over++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ClientMain.LOG.log(Level.INFO, "{0} of {1} bots finished in {2} s, {3} answers", new Object[]{
+                over, bots, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start),
+                started.stream().mapToInt(Bot::getAnswers).sum()});
+
+        /*Closing the connections*/
+        sockets.forEach(SocketFromServer::stopListening);
+        for (ClientController controller : controllers)
+            try {
+                UnicastRemoteObject.unexportObject(controller, true);
+            } catch (NoSuchObjectException e) {
+                /*Already not exported: ignoring*/
+            }
+        return over == bots;
+    }
+
+    /**
+     * Connects a bot through a socket and listens on a new thread.
+     * When the connection is lost the bot quits, the other bots are not
+     * affected.
+     *
+     * @param controller the controller of the bot
+     * @param bot        the bot
+     * @param host       the address of the server
+     * @param port       the port of the server
+     * @return the connection
+     * @throws IOException if the connection can not be opened
+     */
+    private static SocketFromServer connect(ClientController controller, Bot bot,
+                                            String host, int port) throws IOException {
+        SocketFromServer fromServer = new SocketFromServer(controller, new Socket(host, port));
+        new Thread(() -> {
+            try {
+                fromServer.startListening();
+            } catch (IOException e) {
+                if (!bot.isOver())
+                    ClientMain.LOG.log(Level.WARNING, "Socket exception", e);
+            } finally {
+                bot.quit();
+            }
+        }).start();
+        return fromServer;
+    }
+
+    /**
+     * Returns an argument, or the default if it was not given.
+     *
+     * @param args     the arguments from the command line
+     * @param position the position of the argument
+     * @param fallback the value if the argument was not given
+     * @return the argument or the default
+     */
+    static String argument(String[] args, int position, String fallback) {
+        return args.length > position ? args[position] : fallback;
+    }
+}
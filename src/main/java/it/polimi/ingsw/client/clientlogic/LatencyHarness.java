@@ -0,0 +1,128 @@
+package it.polimi.ingsw.client.clientlogic;
+
+import it.polimi.ingsw.client.resources.R;
+import it.polimi.ingsw.communication.LatencyHistogram;
+import it.polimi.ingsw.communication.LatencyRecorder;
+import it.polimi.ingsw.server.serverlogic.ServerMain;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.logging.Level;
+
+/**
+ * Measures the latency of the messages from the server to the clients.
+ * The server is started in this process, on loopback, and {@linkplain
+ * it.polimi.ingsw.client.interaction.Bot}s play against it: first all
+ * through sockets, then all through RMI. For each transport the number of
+ * concurrent matches grows at each stage, as listed in the ramp.
+ * <p>
+ * The latency is the time from the server sending a message to the
+ * server reading the answer, as recorded by {@linkplain LatencyRecorder};
+ * it includes the time the bots wait before each choice, that should be
+ * zero. For each stage, transport and kind of message a distribution is
+ * written in the HDR histogram format, with milliseconds as unit, and a
+ * line with the count, the 50th, 99th and 99.9th percentiles and the
+ * maximum is added to a summary.
+ * <p>
+ * The ramp, as comma separated numbers of matches, and the directory of
+ * the reports can be given as arguments, otherwise they are read from the
+ * settings.
+ *
+ * @author Abbo Giulio A.
+ * @see BotMain
+ */
+public class LatencyHarness {
+    /**
+     * The number of players in each match.
+     */
+    private static final int PLAYERS = 5;
+    /**
+     * The nanoseconds in a millisecond, the unit of the reports.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+    /**
+     * The name of the summary file.
+     */
+    private static final String SUMMARY = "summary.csv";
+
+    /**
+     * Hiding the public constructor.
+     */
+    private LatencyHarness() {
+    }
+
+    /**
+     * Starts the server, plays the stages and writes the reports.
+     *
+     * @param args Usage: java LatencyHarness [matches,matches,...] [report
+     *             directory]
+     */
+    public static void main(String[] args) {
+        Properties settings = R.properties("settings");
+        String[] ramp = BotMain.argument(args, 0, settings.getProperty("latencyRamp")).split(",");
+        File directory = new File(BotMain.argument(args, 1, settings.getProperty("latencyReportDirectory")));
+        long millisForChoice = Long.parseLong(settings.getProperty("latencyMillisForChoice"));
+        long minutes = Long.parseLong(settings.getProperty("latencyMinutesForStage"));
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        int port = Integer.parseInt(settings.getProperty("serverSocketPort"));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            ClientMain.LOG.log(Level.SEVERE, "Can not create {0}", directory);
+            System.exit(-1);
+        }
+
+        ServerMain.main(new String[0]);
+        boolean allOver = true;
+        try (PrintStream summary = new PrintStream(new File(directory, SUMMARY))) {
+            summary.println("transport,matches,kind,count,p50,p99,p999,max");
+            for (LatencyRecorder.Transport transport : LatencyRecorder.Transport.values())
+                for (String stage : ramp) {
+                    int matches = Integer.parseInt(stage.trim());
+                    LatencyRecorder recorder = new LatencyRecorder();
+                    LatencyRecorder.install(recorder);
+                    String name = transport.name().toLowerCase(Locale.ROOT) + matches + "_";
+                    allOver &= BotMain.play(host, port, name, matches * PLAYERS, millisForChoice,
+                            transport == LatencyRecorder.Transport.RMI ? 1 : 0, minutes);
+                    LatencyRecorder.install(null);
+                    report(recorder, transport, matches, directory, summary);
+                }
+        } catch (FileNotFoundException e) {
+            ClientMain.LOG.log(Level.SEVERE, "Can not write the reports", e);
+            allOver = false;
+        }
+        System.exit(allOver ? 0 : 1);
+    }
+
+    /**
+     * Writes the reports of a stage.
+     *
+     * @param recorder  the latencies of the stage
+     * @param transport the transport used by the bots
+     * @param matches   the number of concurrent matches
+     * @param directory the directory of the reports
+     * @param summary   the summary of all the stages
+     * @throws FileNotFoundException if a report can not be written
+     */
+    private static void report(LatencyRecorder recorder, LatencyRecorder.Transport transport, int matches,
+                               File directory, PrintStream summary) throws FileNotFoundException {
+        String prefix = transport.name().toLowerCase(Locale.ROOT) + "-" + matches + "-";
+        for (LatencyRecorder.Kind kind : LatencyRecorder.Kind.values()) {
+            LatencyHistogram histogram = recorder.get(transport, kind);
+            try (PrintStream out = new PrintStream(new File(directory,
+                    prefix + kind.name().toLowerCase(Locale.ROOT) + ".hgrm"))) {
+                histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+            String line = String.format(Locale.ROOT, "%s,%d,%s,%d,%.3f,%.3f,%.3f,%.3f", transport, matches, kind,
+                    histogram.getCount(),
+                    histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                    histogram.getMax() / NANOS_PER_MILLI);
+            summary.println(line);
+            ClientMain.LOG.info(line);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package it.polimi.ingsw.client.clientlogic;
 
+import it.polimi.ingsw.communication.protocol.Update;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -160,6 +162,16 @@ public class PlayerState {
         this.powerups = powerups;
     }
 
+    /**
+     * Returns whether the powerups of this player are hidden: only the owner
+     * knows them, the others know how many they are.
+     *
+     * @return true if only the number of the powerups is known
+     */
+    public boolean arePowerupsHidden() {
+        return powerups.contains(Update.HIDDEN);
+    }
+
     public List<String> getUnloadedWeapons() {
         return unloadedWeapons;
     }
@@ -0,0 +1,250 @@
+package it.polimi.ingsw.client.interaction;
+
+import it.polimi.ingsw.client.clientlogic.ClientController;
+import it.polimi.ingsw.client.clientlogic.MatchState;
+import it.polimi.ingsw.communication.protocol.Notification;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interface without a user, that answers every question with a valid
+ * choice after a fixed delay.
+ * The choices are random, except for the targets: the bot prefers the
+ * options that hit more targets, so that the matches end sooner.
+ * This is used to load the server with many matches at the same time.
+ *
+ * @author Abbo Giulio A.
+ * @see it.polimi.ingsw.client.clientlogic.BotMain
+ */
+public class Bot implements InteractionInterface {
+    /**
+     * The name of the bot, a number is added if it is already taken.
+     */
+    private final String name;
+    /**
+     * The milliseconds waited before each choice.
+     */
+    private final long millisForChoice;
+    /**
+     * The source of the random choices.
+     */
+    private final Random random;
+    /**
+     * Released when the match is over or the bot quits.
+     */
+    private final CountDownLatch over;
+    /**
+     * The number of times the name was asked.
+     */
+    private int attempts;
+    /**
+     * The number of questions answered.
+     */
+    private int answers;
+    /**
+     * The state of the match.
+     */
+    private MatchState model;
+
+    /**
+     * Creates a bot with the provided name and delay.
+     *
+     * @param name            the name of the bot
+     * @param millisForChoice the milliseconds waited before each choice
+     * @param seed            the seed of the random choices
+     */
+    public Bot(String name, long millisForChoice, long seed) {
+        this.name = name;
+        this.millisForChoice = millisForChoice;
+        random = new Random(seed);
+        over = new CountDownLatch(1);
+    }
+
+    /**
+     * Waits for the match to be over.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of {@code timeout}
+     * @return true if the match is over, false if the time elapsed
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitGameOver(long timeout, TimeUnit unit) throws InterruptedException {
+        return over.await(timeout, unit);
+    }
+
+    /**
+     * Returns whether the match of this bot is over.
+     *
+     * @return true if the match is over or the bot quit
+     */
+    public boolean isOver() {
+        return over.getCount() == 0;
+    }
+
+    /**
+     * Returns the number of questions answered by this bot.
+     *
+     * @return the number of questions answered
+     */
+    public synchronized int getAnswers() {
+        return answers;
+    }
+
+    /**
+     * Stops waiting for the match, for example because the connection was
+     * lost.
+     */
+    public void quit() {
+        over.countDown();
+    }
+
+    /**
+     * Waits the delay and returns a random option.
+     *
+     * @param optionKeys the possible answers
+     * @return the index of the answer, -1 if there are no options
+     */
+    private int pick(List<List<String>> optionKeys) {
+        think();
+        synchronized (this) {
+            answers++;
+            return optionKeys.isEmpty() ? -1 : random.nextInt(optionKeys.size());
+        }
+    }
+
+    /**
+     * Waits the delay before a choice.
+     */
+    private void think() {
+        if (millisForChoice <= 0)
+            return;
+        try {
+            Thread.sleep(millisForChoice);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The bot checks whether the winners are known.
+     */
+    @Override
+    public void notifyUpdatedState() {
+        if (model != null && !model.getWinners().isEmpty())
+            over.countDown();
+    }
+
+    @Override
+    public int chooseEffectSequence(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    @Override
+    public int chooseSpawn(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    @Override
+    public int choosePowerup(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    @Override
+    public int chooseDestination(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    @Override
+    public int chooseWeapon(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    @Override
+    public int chooseWeaponToBuy(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    @Override
+    public int chooseWeaponToDiscard(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    @Override
+    public int chooseWeaponToReload(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    @Override
+    public int chooseAction(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    @Override
+    public int choosePowerupForPaying(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    @Override
+    public int chooseUseTagBack(List<List<String>> optionKeys) {
+        return pick(optionKeys);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The bot chooses randomly among the options with the most targets.
+     */
+    @Override
+    public int chooseTarget(List<List<String>> optionKeys) {
+        think();
+        int most = optionKeys.stream().mapToInt(List::size).max().orElse(0);
+        synchronized (this) {
+            answers++;
+            int[] best = new int[optionKeys.size()];
+            int found = 0;
+            for (int i = 0; i < optionKeys.size(); i++)
+                if (optionKeys.get(i).size() == most)
+                    best[found++] = i;
+            return found == 0 ? -1 : best[random.nextInt(found)];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * After the first attempt, a number is added to the name.
+     */
+    @Override
+    public synchronized String askName() {
+        attempts++;
+        return attempts == 1 ? name : name + "_" + attempts;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The bot only checks if the match is over.
+     */
+    @Override
+    public void sendNotification(String notificationKey) {
+        if (Notification.NotificationType.GAME_OVER.name().equals(notificationKey) ||
+                Notification.NotificationType.QUIT.name().equals(notificationKey))
+            over.countDown();
+    }
+
+    @Override
+    public void setController(ClientController controller) {
+        /*The bot is connected by who creates it*/
+    }
+
+    @Override
+    public void setModel(MatchState model) {
+        this.model = model;
+        model.subscribe(this);
+    }
+}
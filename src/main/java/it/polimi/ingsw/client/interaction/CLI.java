@@ -1041,11 +1041,13 @@ public class CLI implements InteractionInterface {
      * @param p represents the single player's current state
      */
     private void drawPowerups(StringBuilder temp, PlayerState p) {
-        if (p.getPowerups().size() > 2)
+        if (p.getPowerups().size() > 2 && !p.arePowerupsHidden())
             temp.append(lineSeparator).append("| ");
         temp.append("powerups: ");
         if(p.getPowerups().isEmpty())
             temp.append("none");
+        else if (p.arePowerupsHidden())
+            temp.append(p.getPowerups().size());
         else {
             for (String s : p.getPowerups())
                 temp.append("[ ").append(R.string(s)).append(" ]");
@@ -2,6 +2,7 @@ package it.polimi.ingsw.client.interaction.GUI;
 
 import it.polimi.ingsw.client.clientlogic.MatchState;
 import it.polimi.ingsw.client.clientlogic.PlayerState;
+import it.polimi.ingsw.communication.protocol.Update;
 import javafx.scene.layout.StackPane;
 import it.polimi.ingsw.client.resources.R;
 import javafx.application.Platform;
@@ -30,6 +31,10 @@ import java.util.stream.Collectors;
  */
 public class GamePane extends StackPane {
 
+    /**
+     * The image shown for each powerup whose card is hidden.
+     */
+    private static final String POWERUP_BACK = "AD_powerups_IT_02";
 
     private static HBox answerBox;
     private static Text questionText;
@@ -198,7 +203,8 @@ public class GamePane extends StackPane {
             topLabel.setFont(R.font("AllertaStencil-Regular.ttf", 20));
             topLabel.setTextFill(Color.WHITE);
             vboxRightCards.getChildren().add(topLabel);
-            powerupCardIDs.forEach(powerupCardID -> vboxRightCards.getChildren().add(getCard(powerupCardID, false)));
+            powerupCardIDs.forEach(powerupCardID -> vboxRightCards.getChildren().add(getCard(
+                    Update.HIDDEN.equals(powerupCardID) ? POWERUP_BACK : powerupCardID, false)));
             for (int i = powerupCardIDs.size(); i < 3 && isPowerup; i++) {
                 vboxRightCards.getChildren().add(getCard("refuse", false));
             }
@@ -583,6 +589,8 @@ public class GamePane extends StackPane {
                     .filter(s -> s.getNickname().equals(text.getText()))
                     .collect(Collectors.toList()).get(0);
             updateWeaponCards(hooveredPlayerState.getLoadedWeapons(), hooveredPlayerState.getUnloadedWeapons());
+            updatePowerupCards(hooveredPlayerState.getPowerups(),
+                    hooveredPlayerState.getNickname() + "'s " + R.string("powerup"), true);
             updatePlayerBoard(playerBoardGrid,
                     hooveredPlayerState.getDamage(),
                     hooveredPlayerState.getSkullNumber());
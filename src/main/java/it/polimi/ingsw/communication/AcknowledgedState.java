@@ -0,0 +1,72 @@
+package it.polimi.ingsw.communication;
+
+import it.polimi.ingsw.communication.protocol.Update;
+
+import java.util.*;
+
+/**
+ * This remembers the last value of each field acknowledged by a client, so
+ * that only the fields that changed are sent again.
+ * A field is identified by its {@linkplain Update.UpdateType} and by the
+ * player involved, if any.
+ *
+ * @author Abbo Giulio A.
+ * @see User
+ */
+class AcknowledgedState {
+    /**
+     * The types that are events rather than state: they are always sent.
+     */
+    private static final Set<Update.UpdateType> ALWAYS_SENT = EnumSet.of(
+            Update.UpdateType.HALL_TIMER,
+            Update.UpdateType.GAME_OVER);
+    /**
+     * The last values acknowledged, by type and by player; the fields that
+     * do not involve a player have a null key.
+     */
+    private final Map<Update.UpdateType, Map<String, List<String>>> values;
+
+    /**
+     * Creates an empty state: the first updates will be sent entirely.
+     */
+    AcknowledgedState() {
+        values = new EnumMap<>(Update.UpdateType.class);
+    }
+
+    /**
+     * Returns the updates whose value is different from the one acknowledged.
+     *
+     * @param updates the updates that should be sent
+     * @return the updates that need to be sent, in the same order
+     */
+    synchronized Update[] changed(Update[] updates) {
+        List<Update> changed = new ArrayList<>(updates.length);
+        for (Update update : updates) {
+            Map<String, List<String>> byPlayer = values.get(update.getType());
+            if (ALWAYS_SENT.contains(update.getType()) || byPlayer == null ||
+                    !byPlayer.containsKey(update.getNickname()) ||
+                    !Objects.equals(byPlayer.get(update.getNickname()), update.getNewValue()))
+                changed.add(update);
+        }
+        return changed.size() == updates.length ? updates : changed.toArray(new Update[0]);
+    }
+
+    /**
+     * Records the provided updates as acknowledged by the client.
+     *
+     * @param updates the updates received by the client
+     */
+    synchronized void acknowledge(Update[] updates) {
+        for (Update update : updates)
+            values.computeIfAbsent(update.getType(), t -> new HashMap<>())
+                    .put(update.getNickname(), update.getNewValue());
+    }
+
+    /**
+     * Forgets everything, the next updates will be sent entirely.
+     * This must be used when it is not known what the client received.
+     */
+    synchronized void clear() {
+        values.clear();
+    }
+}
@@ -0,0 +1,247 @@
+package it.polimi.ingsw.communication;
+
+import it.polimi.ingsw.server.serverlogic.ServerMain;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This runs the interactions with the clients for the whole server.
+ * The interactions are executed by a bounded pool of threads, while a single
+ * timer thread enforces the deadlines: when an interaction is late it is
+ * cancelled, interrupting the thread that is running it. The time of an
+ * interaction starts when a thread runs it, not while it waits for a free
+ * one.
+ * <p>
+ * A thread blocked reading from a socket is not woken up by the interrupt:
+ * the caller can provide what to do when the time is over, such as closing
+ * the connection.
+ *
+ * @author Abbo Giulio A.
+ * @see User
+ */
+public class InteractionScheduler {
+    /**
+     * The threads used when nothing else is specified.
+     */
+    public static final int DEFAULT_THREADS = 256;
+    /**
+     * Seconds between two reports of the metrics in the log.
+     */
+    private static final int REPORT_PERIOD = 60;
+    /**
+     * The threads that run the interactions.
+     */
+    private final ThreadPoolExecutor workers;
+    /**
+     * The thread that cancels the interactions when their time is over.
+     */
+    private final ScheduledThreadPoolExecutor deadlines;
+    /**
+     * How many interactions have been cancelled because of their deadline.
+     */
+    private final AtomicLong timedOut;
+    /**
+     * How many interactions have been submitted.
+     */
+    private final AtomicLong submitted;
+
+    /**
+     * Creates a scheduler with the provided number of threads.
+     *
+     * @param threads the maximum number of interactions running at one time
+     */
+    public InteractionScheduler(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "interaction-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers.allowCoreThreadTimeOut(true);
+
+        deadlines = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "interaction-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        deadlines.setRemoveOnCancelPolicy(true);
+        deadlines.scheduleAtFixedRate(() -> ServerMain.getLog().fine(this::report),
+                REPORT_PERIOD, REPORT_PERIOD, TimeUnit.SECONDS);
+
+        timedOut = new AtomicLong();
+        submitted = new AtomicLong();
+    }
+
+    /**
+     * Runs the provided interaction and waits for its result.
+     * If it is not over within the provided time, it is cancelled.
+     *
+     * @param callable the interaction with the client
+     * @param seconds  the time the interaction has
+     * @param <T>      the type returned by the interaction
+     * @return the result of the interaction
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws ExecutionException   if the interaction throws an exception
+     * @throws TimeoutException     if the interaction is not over in time
+     */
+    public <T> T call(Callable<T> callable, int seconds)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return call(callable, seconds, () -> {
+            /*Nothing else to do*/
+        });
+    }
+
+    /**
+     * Runs the provided interaction and waits for its result.
+     * If it is not over within the provided time since it started running,
+     * it is cancelled and the provided action is run on the timer thread.
+     *
+     * @param callable  the interaction with the client
+     * @param seconds   the time the interaction has
+     * @param onTimeout run when the time is over, to unblock the interaction
+     * @param <T>       the type returned by the interaction
+     * @return the result of the interaction
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws ExecutionException   if the interaction throws an exception
+     * @throws TimeoutException     if the interaction is not over in time
+     */
+    public <T> T call(Callable<T> callable, int seconds, Runnable onTimeout)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        submitted.incrementAndGet();
+        Interaction<T> task = new Interaction<>(callable, seconds, onTimeout);
+        workers.execute(task);
+
+        try {
+            return task.get();
+        } catch (CancellationException e) {
+            if (!task.expired)
+                throw e;
+            timedOut.incrementAndGet();
+            throw new TimeoutException("Interaction cancelled after " + seconds + " seconds");
+        } catch (InterruptedException e) {
+
+            /*Nobody is waiting anymore: cancelling*/
+            task.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns how many interactions are waiting for a free thread.
+     *
+     * @return the number of interactions queued
+     */
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * Returns how many interactions are running.
+     *
+     * @return the number of interactions running
+     */
+    public int getActiveCount() {
+        return workers.getActiveCount();
+    }
+
+    /**
+     * Returns how many interactions have been submitted.
+     *
+     * @return the number of interactions submitted
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * Returns how many interactions have been cancelled because of their
+     * deadline.
+     *
+     * @return the number of interactions timed out
+     */
+    public long getTimedOutCount() {
+        return timedOut.get();
+    }
+
+    /**
+     * Returns a line with the current metrics.
+     *
+     * @return the metrics of this scheduler
+     */
+    public String report() {
+        return "Interactions: queued " + getQueueDepth() + ", running " + getActiveCount() +
+                ", submitted " + getSubmittedCount() + ", timed out " + getTimedOutCount();
+    }
+
+    /**
+     * Stops accepting interactions and cancels the ones running.
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+        deadlines.shutdownNow();
+    }
+
+    /**
+     * An interaction whose deadline is set when a thread starts running it.
+     *
+     * @param <T> the type returned by the interaction
+     */
+    private class Interaction<T> extends FutureTask<T> {
+        /**
+         * The time the interaction has once running.
+         */
+        private final int seconds;
+        /**
+         * Run when the time is over.
+         */
+        private final Runnable onTimeout;
+        /**
+         * The deadline, null until the interaction runs.
+         */
+        private volatile ScheduledFuture<?> deadline;
+        /**
+         * Whether the interaction was cancelled because of its deadline.
+         */
+        private volatile boolean expired;
+
+        /**
+         * Creates an interaction that is not running yet.
+         *
+         * @param callable  the interaction with the client
+         * @param seconds   the time the interaction has once running
+         * @param onTimeout run when the time is over
+         */
+        Interaction(Callable<T> callable, int seconds, Runnable onTimeout) {
+            super(callable);
+            this.seconds = seconds;
+            this.onTimeout = onTimeout;
+        }
+
+        @Override
+        public void run() {
+            if (isDone())
+                return;
+            deadline = deadlines.schedule(this::expire, seconds, TimeUnit.SECONDS);
+            super.run();
+        }
+
+        /**
+         * Cancels the interaction because its time is over and unblocks it.
+         */
+        private void expire() {
+            expired = true;
+            if (cancel(true))
+                onTimeout.run();
+        }
+
+        @Override
+        protected void done() {
+            ScheduledFuture<?> scheduled = deadline;
+            if (scheduled != null)
+                scheduled.cancel(false);
+        }
+    }
+}
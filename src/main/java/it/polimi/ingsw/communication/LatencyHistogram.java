@@ -0,0 +1,273 @@
+package it.polimi.ingsw.communication;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Counts latencies in buckets whose width grows with the value, so that
+ * every value is kept with an error below one percent and the memory does
+ * not depend on the number of values.
+ * The values can be recorded by many threads at the same time.
+ * <p>
+ * The distribution is written in the format of the HDR histograms, that
+ * can be read by their plotters.
+ *
+ * @author Abbo Giulio A.
+ * @see LatencyRecorder
+ */
+public class LatencyHistogram {
+    /**
+     * The bits of precision of each value.
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+    /**
+     * The number of values counted exactly, from zero.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * The number of buckets for each power of two above the exact values.
+     */
+    private static final int HALF = SUB_BUCKETS / 2;
+    /**
+     * The number of powers of two above the exact values, enough for hours
+     * in nanoseconds.
+     */
+    private static final int EXPONENTS = 40;
+    /**
+     * The number of lines for each half of the remaining distribution.
+     */
+    private static final int TICKS_PER_HALF = 5;
+    /**
+     * The count of the values in each bucket.
+     */
+    private final AtomicLongArray counts;
+    /**
+     * The number of values recorded.
+     */
+    private final AtomicLong total;
+    /**
+     * The sum of the values recorded.
+     */
+    private final AtomicLong sum;
+    /**
+     * The highest value recorded.
+     */
+    private final LongAccumulator max;
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(SUB_BUCKETS + EXPONENTS * HALF);
+        total = new AtomicLong();
+        sum = new AtomicLong();
+        max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param value a value, not negative
+     * @return the index of its bucket
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return Math.min(SUB_BUCKETS + (exponent - 1) * HALF + (int) (value >>> exponent) - HALF,
+                SUB_BUCKETS + EXPONENTS * HALF - 1);
+    }
+
+    /**
+     * Returns the lowest value counted in a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the lowest value of the bucket
+     */
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int exponent = (index - SUB_BUCKETS) / HALF + 1;
+        return ((long) (index - SUB_BUCKETS) % HALF + HALF) << exponent;
+    }
+
+    /**
+     * Records a value.
+     * Negative values are recorded as zero.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        long recorded = Math.max(0, value);
+        counts.incrementAndGet(index(recorded));
+        sum.addAndGet(recorded);
+        max.accumulate(recorded);
+        total.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the number of values recorded
+     */
+    public long getCount() {
+        return total.get();
+    }
+
+    /**
+     * Returns the sum of the values recorded.
+     *
+     * @return the sum, zero if nothing was recorded
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * Returns the highest value recorded.
+     *
+     * @return the highest value, zero if nothing was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return the mean, zero if nothing was recorded
+     */
+    public double getMean() {
+        long count = total.get();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * Returns the value below which the provided percentage of the values
+     * falls.
+     * The value is the highest of its bucket, never above the maximum.
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the value at the percentile, zero if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = snapshot();
+        long count = 0;
+        for (long c : snapshot)
+            count += c;
+        if (count == 0)
+            return 0;
+        return highestValue(indexAtFraction(snapshot, count, percentile / 100));
+    }
+
+    /**
+     * Writes the distribution of the values, as the HDR histograms do: one
+     * line for each percentile, closer as they approach the maximum, and a
+     * footer with mean, deviation, maximum and count.
+     *
+     * @param out       where to write
+     * @param unitScale the value of one unit of the output, for example
+     *                  1000000 to write nanoseconds as milliseconds
+     */
+    public void outputPercentileDistribution(PrintStream out, double unitScale) {
+        long[] snapshot = snapshot();
+        long count = 0;
+        for (long c : snapshot)
+            count += c;
+        out.format(Locale.ROOT, "%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount",
+                "1/(1-Percentile)");
+
+        /*Each half of the remaining values gets the same number of lines*/
+        boolean last = count == 0;
+        for (int halvings = 0; !last; halvings++) {
+            double base = 1 - Math.pow(0.5, halvings);
+            double step = Math.pow(0.5, halvings + 1) / TICKS_PER_HALF;
+            for (int tick = 0; tick < TICKS_PER_HALF && !last; tick++) {
+                double fraction = base + tick * step;
+                int index = indexAtFraction(snapshot, count, fraction);
+                long below = 0;
+                for (int i = 0; i <= index; i++)
+                    below += snapshot[i];
+                last = below == count;
+                if (last)
+                    out.format(Locale.ROOT, "%12.3f %2.12f %10d%n", highestValue(index) / unitScale, 1.0, count);
+                else
+                    out.format(Locale.ROOT, "%12.3f %2.12f %10d %14.2f%n", highestValue(index) / unitScale,
+                            fraction, below, 1 / (1 - fraction));
+            }
+        }
+
+        out.format(Locale.ROOT, "#[Mean    = %12.3f, StdDeviation   = %12.3f]%n",
+                getMean() / unitScale, deviation(snapshot, count) / unitScale);
+        out.format(Locale.ROOT, "#[Max     = %12.3f, Total count    = %12d]%n", getMax() / unitScale, count);
+        out.format(Locale.ROOT, "#[Buckets = %12d, SubBuckets     = %12d]%n", EXPONENTS, SUB_BUCKETS);
+    }
+
+    /**
+     * Copies the counts, so that they do not change while being read.
+     *
+     * @return the counts of each bucket
+     */
+    private long[] snapshot() {
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++)
+            snapshot[i] = counts.get(i);
+        return snapshot;
+    }
+
+    /**
+     * Returns the highest value counted in a bucket, never above the
+     * maximum.
+     *
+     * @param index the index of the bucket
+     * @return the highest value of the bucket
+     */
+    private long highestValue(int index) {
+        if (index + 1 >= counts.length())
+            return getMax();
+        return Math.min(lowestValue(index + 1) - 1, getMax());
+    }
+
+    /**
+     * Returns the bucket containing the value at a fraction of the values.
+     *
+     * @param snapshot the counts of each bucket
+     * @param count    the number of values
+     * @param fraction the fraction, from 0 to 1
+     * @return the index of the bucket
+     */
+    private static int indexAtFraction(long[] snapshot, long count, double fraction) {
+        long target = Math.max(1, (long) Math.ceil(Math.min(fraction, 1) * count));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= target)
+                return i;
+        }
+        return snapshot.length - 1;
+    }
+
+    /**
+     * Returns the standard deviation, taking the middle of each bucket as
+     * its values.
+     *
+     * @param snapshot the counts of each bucket
+     * @param count    the number of values
+     * @return the standard deviation
+     */
+    private double deviation(long[] snapshot, long count) {
+        if (count == 0)
+            return 0;
+        double mean = getMean();
+        double squares = 0;
+        for (int i = 0; i < snapshot.length; i++)
+            if (snapshot[i] > 0) {
+                double middle = (lowestValue(i) + highestValue(i)) / 2.0;
+                squares += (middle - mean) * (middle - mean) * snapshot[i];
+            }
+        return Math.sqrt(squares / count);
+    }
+}
@@ -0,0 +1,104 @@
+package it.polimi.ingsw.communication;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Collects the round trip times of the messages sent to the clients, for
+ * each transport and each kind of message.
+ * The transports record their messages only while a recorder is installed,
+ * otherwise they only read the clock.
+ *
+ * @author Abbo Giulio A.
+ * @see LatencyHistogram
+ */
+public class LatencyRecorder {
+    /**
+     * The recorder in use, null if the latencies are not collected.
+     */
+    private static volatile LatencyRecorder installed;
+    /**
+     * The histograms of the latencies, in nanoseconds.
+     */
+    private final Map<Transport, Map<Kind, LatencyHistogram>> histograms;
+
+    /**
+     * Creates a recorder with empty histograms.
+     */
+    public LatencyRecorder() {
+        histograms = new EnumMap<>(Transport.class);
+        for (Transport transport : Transport.values()) {
+            Map<Kind, LatencyHistogram> kinds = new EnumMap<>(Kind.class);
+            for (Kind kind : Kind.values())
+                kinds.put(kind, new LatencyHistogram());
+            histograms.put(transport, kinds);
+        }
+    }
+
+    /**
+     * Sets the recorder that collects the latencies from now on.
+     *
+     * @param recorder the recorder, or null to stop collecting
+     */
+    public static void install(LatencyRecorder recorder) {
+        installed = recorder;
+    }
+
+    /**
+     * Records the time elapsed since {@code start} in the installed
+     * recorder, if any.
+     *
+     * @param transport the transport of the message
+     * @param kind      the kind of message
+     * @param start     the {@linkplain System#nanoTime()} when the message
+     *                  was sent
+     */
+    public static void record(Transport transport, Kind kind, long start) {
+        LatencyRecorder recorder = installed;
+        if (recorder != null)
+            recorder.get(transport, kind).record(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the latencies of a kind of message on a transport.
+     *
+     * @param transport the transport
+     * @param kind      the kind of message
+     * @return the histogram of the latencies, in nanoseconds
+     */
+    public LatencyHistogram get(Transport transport, Kind kind) {
+        return histograms.get(transport).get(kind);
+    }
+
+    /**
+     * The transports to the clients.
+     */
+    public enum Transport {
+        /**
+         * Messages sent through a socket.
+         */
+        SOCKET,
+        /**
+         * Remote calls to the object of the client.
+         */
+        RMI
+    }
+
+    /**
+     * The kinds of messages, by what the client does before answering.
+     */
+    public enum Kind {
+        /**
+         * A question with options, answered with a choice.
+         */
+        QUESTION,
+        /**
+         * Updates of the match, acknowledged.
+         */
+        UPDATE,
+        /**
+         * A notification, acknowledged.
+         */
+        NOTIFICATION
+    }
+}
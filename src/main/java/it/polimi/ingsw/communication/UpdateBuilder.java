@@ -107,6 +107,23 @@ public class UpdateBuilder {
      * Represents the current player
      */
     private Player current;
+    /**
+     * The updates already built, returned as they are by {@linkplain #build()}.
+     */
+    private Update[] prebuilt;
+
+    /**
+     * Creates a builder that will return the provided updates; the setters
+     * of the returned builder have no effect.
+     *
+     * @param updates the updates already built
+     * @return a builder for the provided updates
+     */
+    public static UpdateBuilder of(Update[] updates) {
+        UpdateBuilder builder = new UpdateBuilder();
+        builder.prebuilt = updates;
+        return builder;
+    }
 
     public UpdateBuilder setConfigurationId(Integer configurationId) {
         this.configurationId = configurationId;
@@ -248,6 +265,8 @@ public class UpdateBuilder {
      * @return an array with the updates created
      */
     public Update[] build() {
+        if (prebuilt != null)
+            return prebuilt;
         List<Update> updates = new ArrayList<>();
         singleAdd(updates, configurationId, Update.UpdateType.CONFIGURATION_ID,
                 o -> Integer.toString(o));
@@ -1,31 +1,53 @@
 package it.polimi.ingsw.communication;
 
+import it.polimi.ingsw.communication.protocol.MessageType;
 import it.polimi.ingsw.communication.protocol.Notification;
+import it.polimi.ingsw.communication.protocol.Update;
+import it.polimi.ingsw.communication.rmi.RmiToClient;
+import it.polimi.ingsw.communication.socket.SocketToClient;
 import it.polimi.ingsw.server.controller.effects.Action;
 import it.polimi.ingsw.server.model.Damageable;
 import it.polimi.ingsw.server.model.board.Square;
 import it.polimi.ingsw.server.model.cards.PowerupCard;
 import it.polimi.ingsw.server.model.cards.WeaponCard;
+import it.polimi.ingsw.server.metrics.ServerMetrics;
 import it.polimi.ingsw.server.serverlogic.Nicknames;
 import it.polimi.ingsw.server.serverlogic.ServerMain;
 import it.polimi.ingsw.server.serverlogic.SuspensionListener;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This is the middle man between the server and the actual client.
  * This will takes care of checking timeouts and connections lost.
  * This also asks to choose the username.
+ * <p>
+ * A user whose name starts with {@linkplain #SPECTATOR_PREFIX} is a
+ * spectator: it does not take a nickname and only receives the updates of
+ * a match.
+ * <p>
+ * The users connected, the time they take to answer, the timeouts and the
+ * suspensions are counted in the {@link ServerMetrics}.
  *
  * @author Fahed B. Tej
  * @author Abbo Giulio A.
  */
 public class User implements ToClientInterface {
+    /**
+     * The beginning of the names of the spectators.
+     */
+    public static final String SPECTATOR_PREFIX = "@";
     /**
      * How much time the user has for making a choice.
      */
     private static int waitingTime;
+    /**
+     * Runs the interactions of all the users.
+     */
+    private static InteractionScheduler scheduler;
     /**
      * User's name.
      */
@@ -46,6 +68,19 @@ public class User implements ToClientInterface {
      * The underlying ToClientInterface
      */
     private ToClientInterface toClient;
+    /**
+     * The values of the fields that the client has received.
+     */
+    private final AcknowledgedState acknowledged;
+    /**
+     * The transport of the connection, null if it is neither a socket nor
+     * RMI.
+     */
+    private final LatencyRecorder.Transport transport;
+    /**
+     * Whether the user is counted among the connected ones.
+     */
+    private final AtomicBoolean counted;
 
     /**
      * Constructs a User with the provided interface and the server
@@ -58,6 +93,14 @@ public class User implements ToClientInterface {
         serverSuspensionListener = Nicknames.getInstance();
         matchSuspensionListener = null;
         name = null;
+        acknowledged = new AcknowledgedState();
+        if (toClient instanceof SocketToClient)
+            transport = LatencyRecorder.Transport.SOCKET;
+        else if (toClient instanceof RmiToClient)
+            transport = LatencyRecorder.Transport.RMI;
+        else
+            transport = null;
+        counted = new AtomicBoolean();
     }
 
     /**
@@ -69,6 +112,28 @@ public class User implements ToClientInterface {
         User.waitingTime = waitingTime;
     }
 
+    /**
+     * Sets the scheduler that will run the interactions of all the users.
+     *
+     * @param scheduler the scheduler for the interactions
+     */
+    public static synchronized void setScheduler(InteractionScheduler scheduler) {
+        User.scheduler = scheduler;
+    }
+
+    /**
+     * Returns the scheduler that runs the interactions of all the users.
+     * If it has not been set, one with
+     * {@linkplain InteractionScheduler#DEFAULT_THREADS} threads is created.
+     *
+     * @return the scheduler for the interactions
+     */
+    public static synchronized InteractionScheduler getScheduler() {
+        if (scheduler == null)
+            scheduler = new InteractionScheduler(InteractionScheduler.DEFAULT_THREADS);
+        return scheduler;
+    }
+
     /**
      * Makes the user choose a name and adds it to the hall.
      */
@@ -82,6 +147,19 @@ public class User implements ToClientInterface {
             return;
         }
 
+        /*Spectators do not take a nickname*/
+        if (name.startsWith(SPECTATOR_PREFIX)) {
+            try {
+                toClient.sendNotification(Notification.NotificationType.USERNAME_AVAILABLE);
+            } catch (ToClientException e) {
+                return;
+            }
+            ServerMain.getLog().info(() -> "Spectating: " + name);
+            countConnected(true);
+            ServerMain.getDeathMatchHall().addSpectator(this);
+            return;
+        }
+
         /*Checking if a nickname is already taken*/
         int result = Nicknames.getInstance().addNickname(name);
         switch (result) {
@@ -98,6 +176,7 @@ public class User implements ToClientInterface {
                 }
 
                 /*Retrieving the matchSuspensionListener and notifying it*/
+                countConnected(true);
                 ServerMain.getDeathMatchHall().notifyMatchesPlayerResumption(name, this);
                 break;
 
@@ -112,6 +191,7 @@ public class User implements ToClientInterface {
                     return;
                 }
                 ServerMain.getLog().info(() -> "Connected: " + name);
+                countConnected(true);
                 ServerMain.getDeathMatchHall().addUser(this);
                 break;
 
@@ -151,10 +231,27 @@ public class User implements ToClientInterface {
         this.matchSuspensionListener = matchSuspensionListener;
     }
 
+    /**
+     * Counts this user among the connected ones or stops counting it.
+     *
+     * @param connected true if the user connected, false if it was
+     *                  suspended
+     */
+    private void countConnected(boolean connected) {
+        if (transport == null || counted.getAndSet(connected) == connected)
+            return;
+        if (connected)
+            ServerMetrics.connected(transport).increment();
+        else
+            ServerMetrics.connected(transport).decrement();
+    }
+
     /**
      * This is done in order to handle the timing of the interactions in a
      * single place.
+     * The time the client takes to answer is recorded by type of message.
      *
+     * @param type     the type of the message sent
      * @param callable the function that will interact with the user, should
      *                 throw {@linkplain ToClientException} in case of problems
      * @param <T>      the type returned by the {@code callable} parameter
@@ -165,10 +262,13 @@ public class User implements ToClientInterface {
      *                           allow calling methods to handle the
      *                           disconnection)
      */
-    private <T> T genericInteraction(Callable<T> callable) throws ToClientException, ChoiceRefusedException {
-        Future<T> task = Executors.newSingleThreadExecutor().submit(callable);
+    private <T> T genericInteraction(MessageType type, Callable<T> callable)
+            throws ToClientException, ChoiceRefusedException {
+        long start = System.nanoTime();
         try {
-            return task.get(waitingTime, TimeUnit.SECONDS);
+            T result = getScheduler().call(callable, waitingTime, this::closeConnection);
+            ServerMetrics.interaction(type).recordSince(start);
+            return result;
         } catch (InterruptedException e) {
 
             /*Computation canceled: interrupt*/
@@ -178,6 +278,8 @@ public class User implements ToClientInterface {
             if (e.getCause().getClass().equals(ToClientException.class)) {
 
                 /*Over with exception: suspending the player*/
+                ServerMetrics.suspensions(false).increment();
+                countConnected(false);
                 serverSuspensionListener.playerSuspension(name);
                 if (matchSuspensionListener != null)
                     matchSuspensionListener.playerSuspension(name);
@@ -186,6 +288,7 @@ public class User implements ToClientInterface {
             if (e.getCause().getClass().equals(ChoiceRefusedException.class)) {
 
                 /*User refused*/
+                ServerMetrics.interaction(type).recordSince(start);
                 throw new ChoiceRefusedException();
             }
 
@@ -194,7 +297,21 @@ public class User implements ToClientInterface {
         } catch (TimeoutException e) {
 
             /*Over because time out: closing connection and suspending*/
-            toClient.quit();
+            ServerMetrics.timeouts(type).increment();
+            if (!(toClient instanceof SocketToClient)) {
+                try {
+                    getScheduler().call(() -> {
+                        toClient.quit();
+                        return null;
+                    }, waitingTime);
+                } catch (ExecutionException | TimeoutException ignored) {
+                    /*The client is already unreachable*/
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            ServerMetrics.suspensions(true).increment();
+            countConnected(false);
             serverSuspensionListener.playerSuspension(name);
             if (matchSuspensionListener != null)
                 matchSuspensionListener.playerSuspension(name);
@@ -202,6 +319,16 @@ public class User implements ToClientInterface {
         }
     }
 
+    /**
+     * Closes the socket of a client that did not answer in time, so that the
+     * thread blocked reading its answer is released; such a client is not
+     * asked to quit. The other transports are left to the interruption.
+     */
+    private void closeConnection() {
+        if (toClient instanceof SocketToClient)
+            ((SocketToClient) toClient).close();
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -210,7 +337,7 @@ public class User implements ToClientInterface {
     @Override
     public Action chooseEffectsSequence(List<Action> options) throws ToClientException {
         try {
-            return genericInteraction(() -> toClient.chooseEffectsSequence(options));
+            return genericInteraction(MessageType.EFFECTS_SEQUENCE, () -> toClient.chooseEffectsSequence(options));
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
         }
@@ -224,7 +351,7 @@ public class User implements ToClientInterface {
     @Override
     public PowerupCard chooseSpawn(List<PowerupCard> options) throws ToClientException {
         try {
-            return genericInteraction(() -> toClient.chooseSpawn(options));
+            return genericInteraction(MessageType.SPAWN, () -> toClient.chooseSpawn(options));
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
         }
@@ -237,7 +364,7 @@ public class User implements ToClientInterface {
      */
     @Override
     public PowerupCard choosePowerup(List<PowerupCard> options) throws ToClientException, ChoiceRefusedException {
-        return genericInteraction(() -> toClient.choosePowerup(options));
+        return genericInteraction(MessageType.POWERUP, () -> toClient.choosePowerup(options));
     }
 
     /**
@@ -248,7 +375,7 @@ public class User implements ToClientInterface {
     @Override
     public Square chooseDestination(List<Square> options) throws ToClientException {
         try {
-            return genericInteraction(() -> toClient.chooseDestination(options));
+            return genericInteraction(MessageType.DESTINATION, () -> toClient.chooseDestination(options));
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
         }
@@ -262,7 +389,7 @@ public class User implements ToClientInterface {
     @Override
     public WeaponCard chooseWeaponCard(List<WeaponCard> options) throws ToClientException {
         try {
-            return genericInteraction(() -> toClient.chooseWeaponCard(options));
+            return genericInteraction(MessageType.WEAPON, () -> toClient.chooseWeaponCard(options));
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
         }
@@ -276,7 +403,7 @@ public class User implements ToClientInterface {
     @Override
     public WeaponCard chooseWeaponToBuy(List<WeaponCard> options) throws ToClientException {
         try {
-            return genericInteraction(() -> toClient.chooseWeaponToBuy(options));
+            return genericInteraction(MessageType.WEAPON_TO_BUY, () -> toClient.chooseWeaponToBuy(options));
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
         }
@@ -290,7 +417,7 @@ public class User implements ToClientInterface {
     @Override
     public WeaponCard chooseWeaponToDiscard(List<WeaponCard> options) throws ToClientException {
         try {
-            return genericInteraction(() -> toClient.chooseWeaponToDiscard(options));
+            return genericInteraction(MessageType.WEAPON_TO_DISCARD, () -> toClient.chooseWeaponToDiscard(options));
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
         }
@@ -303,7 +430,7 @@ public class User implements ToClientInterface {
      */
     @Override
     public WeaponCard chooseWeaponToReload(List<WeaponCard> options) throws ToClientException, ChoiceRefusedException {
-        return genericInteraction(() -> toClient.chooseWeaponToReload(options));
+        return genericInteraction(MessageType.WEAPON_TO_RELOAD, () -> toClient.chooseWeaponToReload(options));
     }
 
     /**
@@ -314,7 +441,7 @@ public class User implements ToClientInterface {
     @Override
     public Action chooseAction(List<Action> options) throws ToClientException {
         try {
-            return genericInteraction(() -> toClient.chooseAction(options));
+            return genericInteraction(MessageType.ACTION, () -> toClient.chooseAction(options));
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
         }
@@ -328,7 +455,7 @@ public class User implements ToClientInterface {
     @Override
     public PowerupCard choosePowerupForPaying(List<PowerupCard> options) throws ToClientException {
         try {
-            return genericInteraction(() -> toClient.choosePowerupForPaying(options));
+            return genericInteraction(MessageType.POWERUP_FOR_PAYING, () -> toClient.choosePowerupForPaying(options));
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
         }
@@ -341,7 +468,7 @@ public class User implements ToClientInterface {
      */
     @Override
     public PowerupCard askUseTagback(List<PowerupCard> options) throws ToClientException, ChoiceRefusedException {
-        return genericInteraction(() -> toClient.askUseTagback(options));
+        return genericInteraction(MessageType.USE_TAGBACK, () -> toClient.askUseTagback(options));
     }
 
     /**
@@ -352,7 +479,7 @@ public class User implements ToClientInterface {
     @Override
     public List<Damageable> chooseTarget(List<List<Damageable>> options) throws ToClientException {
         try {
-            return genericInteraction(() -> toClient.chooseTarget(options));
+            return genericInteraction(MessageType.TARGET, () -> toClient.chooseTarget(options));
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
         }
@@ -366,7 +493,7 @@ public class User implements ToClientInterface {
     @Override
     public String chooseUserName() throws ToClientException {
         try {
-            return genericInteraction(() -> toClient.chooseUserName());
+            return genericInteraction(MessageType.NICKNAME, () -> toClient.chooseUserName());
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
         }
@@ -380,7 +507,7 @@ public class User implements ToClientInterface {
     @Override
     public void quit() throws ToClientException {
         try {
-            genericInteraction(() -> {
+            genericInteraction(MessageType.NOTIFICATION, () -> {
                 toClient.quit();
                 return null;
             });
@@ -397,7 +524,7 @@ public class User implements ToClientInterface {
     @Override
     public void sendNotification(Notification.NotificationType type) throws ToClientException {
         try {
-            genericInteraction(() -> {
+            genericInteraction(MessageType.NOTIFICATION, () -> {
                 toClient.sendNotification(type);
                 return null;
             });
@@ -409,19 +536,47 @@ public class User implements ToClientInterface {
     /**
      * {@inheritDoc}
      * <p>
+     * Only the fields that differ from the ones acknowledged by the client
+     * are sent, nothing is sent if none changed; since each user has its own
+     * connection, a reconnecting client receives a full snapshot.
+     * The private fields of the other players are sent hidden, with only
+     * the number of their elements.
      * The client will have {@linkplain #waitingTime} seconds to send an ack.
      *
-     * @param update
+     * @param update the update to send
      */
     @Override
     public void sendUpdate(UpdateBuilder update) throws ToClientException {
+        Update[] changed = acknowledged.changed(visible(update.build()));
+        if (changed.length == 0)
+            return;
         try {
-            genericInteraction(() -> {
-                toClient.sendUpdate(update);
+            genericInteraction(MessageType.UPDATE, () -> {
+                toClient.sendUpdate(UpdateBuilder.of(changed));
                 return null;
             });
         } catch (ChoiceRefusedException e) {
             throw new UnsupportedOperationException(e);
+        } catch (ToClientException e) {
+
+            /*Unknown what the client received: sending everything next time*/
+            acknowledged.clear();
+            throw e;
         }
+        acknowledged.acknowledge(changed);
+    }
+
+    /**
+     * Returns the updates as this user receives them, with the private
+     * fields of the other players hidden.
+     *
+     * @param updates the updates to check
+     * @return the same array if all of them are visible, a new one otherwise
+     */
+    private Update[] visible(Update[] updates) {
+        for (Update u : updates)
+            if (!u.isVisibleTo(name))
+                return Arrays.stream(updates).map(v -> v.visibleTo(name)).toArray(Update[]::new);
+        return updates;
     }
 }
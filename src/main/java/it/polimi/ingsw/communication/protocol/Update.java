@@ -3,6 +3,7 @@ package it.polimi.ingsw.communication.protocol;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * This represents an update element.
@@ -16,19 +17,34 @@ public class Update implements Serializable {
      * The separator that must be put between elements of the same sequence.
      */
     public static final String SEPARATOR = "|@|";
+    /**
+     * The element sent in place of each element of a private field to the
+     * players not involved, so that they only know how many there are.
+     */
+    public static final String HIDDEN = "hidden";
 
     /**
      * The type of this update, the field modified.
      */
-    private UpdateType type;
+    private final UpdateType type;
     /**
      * The new value for the field affected.
      */
-    private List<String> newValue;
+    private final List<String> newValue;
     /**
      * Identifies the receiver of the update.
      */
-    private String nickname;
+    private final String nickname;
+    /**
+     * The encoding of this update, computed by the first receiver; it is
+     * neither serialized nor sent.
+     */
+    private transient volatile String encoded;
+    /**
+     * This update as received by the players not involved, computed by the
+     * first of them; it is neither serialized nor sent.
+     */
+    private transient volatile Update hidden;
 
     /**
      * Creates an update that involves a specific player.
@@ -50,8 +66,7 @@ public class Update implements Serializable {
      * @param newValue the new value for the field
      */
     public Update(UpdateType type, List<String> newValue) {
-        this.type = type;
-        this.newValue = newValue;
+        this(type, newValue, null);
     }
 
     /**
@@ -93,6 +108,56 @@ public class Update implements Serializable {
         return nickname;
     }
 
+    /**
+     * Returns the encoding of this update, computed with the provided
+     * encoder only the first time: an update does not change, so the
+     * receivers of a broadcast share the same encoding.
+     * Threads asking at the same time may both compute it, without locking.
+     *
+     * @param encoder encodes the update, always the same
+     * @return the encoding of this update
+     */
+    public String encodeOnce(Function<Update, String> encoder) {
+        String result = encoded;
+        if (result == null) {
+            result = encoder.apply(this);
+            encoded = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the provided player can receive this update.
+     * The private fields are received only by the player involved.
+     *
+     * @param receiver the name of the player that would receive this
+     * @return true if the player can receive this update
+     */
+    public boolean isVisibleTo(String receiver) {
+        return !type.isPrivate() || nickname == null || nickname.equals(receiver);
+    }
+
+    /**
+     * Returns this update as the provided player receives it.
+     * The elements of a private field are replaced by {@linkplain #HIDDEN}
+     * for the players not involved; the receivers share the same copy.
+     *
+     * @param receiver the name of the player that would receive this, null
+     *                 for a spectator
+     * @return this update if it is visible to the player, the hidden copy
+     * otherwise
+     */
+    public Update visibleTo(String receiver) {
+        if (isVisibleTo(receiver))
+            return this;
+        Update result = hidden;
+        if (result == null) {
+            result = new Update(type, Collections.nCopies(newValue.size(), HIDDEN), nickname);
+            hidden = result;
+        }
+        return result;
+    }
+
     /**
      * The available field that can be modified.
      */
@@ -100,86 +165,110 @@ public class Update implements Serializable {
         /**
          * The configuration of the game board.
          */
-        CONFIGURATION_ID,
+        CONFIGURATION_ID(false),
         /**
          * The ammo cards on the board.
          */
-        AMMO_CARD_ARRAY,
+        AMMO_CARD_ARRAY(false),
         /**
          * The weapons in the markets on the board.
          */
-        WEAPON_CARD_ARRAY,
+        WEAPON_CARD_ARRAY(false),
         /**
          * Whether there are still cards in the weapon deck.
          */
-        IS_WEAPON_DECK_DRAWABLE,
+        IS_WEAPON_DECK_DRAWABLE(false),
         /**
          * The elements in the killshot track.
          * Each element of the {@linkplain #newValue} array will correspond
          * to a space in the killshot track; if multiple elements are in the
          * same space, they are separated by {@linkplain #SEPARATOR}.
          */
-        KILLSHOT_TRACK,
+        KILLSHOT_TRACK(false),
         /**
          * Whether frenzy mode is active.
          */
-        IS_ACTION_TILE_FRENZY,
+        IS_ACTION_TILE_FRENZY(false),
         /**
          * The sequence followed in the turns; the first element of
          * {@linkplain #newValue} is the "first player".
          */
-        TURN_POSITION,
+        TURN_POSITION(false),
         /**
          * The position of the players on the board.
          */
-        SQUARE_POSITION,
+        SQUARE_POSITION(false),
         /**
          * The active ammo cubes for the player, BLUE, RED, YELLOW.
          */
-        AMMO_CUBE_ARRAY,
+        AMMO_CUBE_ARRAY(false),
         /**
          * Whether the player's board is frenzy.
          */
-        IS_PLAYER_BOARD_FRENZY,
+        IS_PLAYER_BOARD_FRENZY(false),
         /**
          * The number of skulls on the player's board.
          */
-        SKULL_NUMBER,
+        SKULL_NUMBER(false),
         /**
          * The list of players that damaged this player.
          */
-        DAMAGE_ARRAY,
+        DAMAGE_ARRAY(false),
         /**
          * The list of players that marked this player.
          */
-        MARKS_ARRAY,
+        MARKS_ARRAY(false),
         /**
          * The cards in a player's hand.
          */
-        LOADED_WEAPONS,
+        LOADED_WEAPONS(false),
         /**
          * The unloaded weapons.
          */
-        UNLOADED_WEAPON,
+        UNLOADED_WEAPON(false),
         /**
-         * The cards in a player's hand.
+         * The powerups in a player's hand, only the owner receives them;
+         * the others receive how many they are.
          */
-        POWERUPS,
+        POWERUPS(true),
         /**
          * The list of connected players.
          */
-        CONNECTED_PLAYERS,
+        CONNECTED_PLAYERS(false),
         /**
          * Time for Hall
          */
-        HALL_TIMER,
+        HALL_TIMER(false),
         /**
          * Game over, the list of players is ordered, the first is the winner.
          */
-        GAME_OVER,
+        GAME_OVER(false),
         /**
          * The player provided in {@linkplain #newValue} is the current player.
          */
-        CURRENT_PLAYER
+        CURRENT_PLAYER(false);
+
+        /**
+         * Whether only the player involved can receive the field.
+         */
+        private final boolean isPrivate;
+
+        /**
+         * Creates a type of field.
+         *
+         * @param isPrivate whether only the player involved can receive it
+         */
+        UpdateType(boolean isPrivate) {
+            this.isPrivate = isPrivate;
+        }
+
+        /**
+         * Returns whether only the player involved can receive the field.
+         *
+         * @return true if the field is private
+         */
+        public boolean isPrivate() {
+            return isPrivate;
+        }
     }
 }
@@ -49,10 +49,12 @@ public class RmiToClient implements ToClientInterface {
             ServerMain.getLog().severe("Sending empty options list");
 
         try {
+            long start = System.nanoTime();
             int choice = client.handleQuestion(type, options.stream()
                     .map(a -> a.toArray(new String[]{}))
                     .collect(Collectors.toList())
                     .toArray(new String[][]{{}}));
+            LatencyRecorder.record(LatencyRecorder.Transport.RMI, LatencyRecorder.Kind.QUESTION, start);
 
             /*Checking if the answer is valid*/
             if (choice >= 0 && choice < options.size())
@@ -276,7 +278,9 @@ public class RmiToClient implements ToClientInterface {
     @Override
     public void sendNotification(Notification.NotificationType type) throws ToClientException {
         try {
+            long start = System.nanoTime();
             client.handleNotifications(new Notification[]{new Notification(type)});
+            LatencyRecorder.record(LatencyRecorder.Transport.RMI, LatencyRecorder.Kind.NOTIFICATION, start);
         } catch (RemoteException e) {
             throw new ToClientException("Rmi exception in notifications", e);
         }
@@ -292,7 +296,9 @@ public class RmiToClient implements ToClientInterface {
     @Override
     public void sendUpdate(UpdateBuilder update) throws ToClientException {
         try {
+            long start = System.nanoTime();
             client.handleUpdates(update.build());
+            LatencyRecorder.record(LatencyRecorder.Transport.RMI, LatencyRecorder.Kind.UPDATE, start);
         } catch (RemoteException e) {
             throw new ToClientException("Rmi exception in updates", e);
         }
@@ -0,0 +1,285 @@
+package it.polimi.ingsw.communication.socket;
+
+import it.polimi.ingsw.communication.protocol.MessageType;
+import it.polimi.ingsw.communication.protocol.Notification;
+import it.polimi.ingsw.communication.protocol.ProtocolMessage;
+import it.polimi.ingsw.communication.protocol.Update;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Converts the messages to and from compact binary frames, an alternative
+ * to the JSON lines that is agreed upon during the greeting.
+ * <p>
+ * A frame is a four bytes big-endian length followed by the payload; since
+ * frames are far smaller than 16 MiB, the first byte is always zero and a
+ * frame can not be mistaken for a JSON line, which starts with {@code '{'}.
+ * The payload starts with the table of the distinct strings in the message:
+ * every card, square and player name is written once and then referred to
+ * by its index. Enums are written as their ordinal, numbers as variable
+ * length integers.
+ *
+ * @author Abbo Giulio A.
+ * @see JsonCodec
+ */
+final class BinaryCodec {
+    /**
+     * The answer to the greeting of the clients that support this codec.
+     */
+    static final String NAME = "binary";
+    /**
+     * The largest payload accepted, in bytes.
+     */
+    static final int MAX_FRAME = 1 << 20;
+    /**
+     * Set in the header if the message has a user choice.
+     */
+    private static final int USER_CHOICE = 1;
+    /**
+     * Set in the header if the message has notifications.
+     */
+    private static final int NOTIFICATIONS = 2;
+    /**
+     * Set in the header if the message has updates.
+     */
+    private static final int UPDATES = 4;
+    /**
+     * Set in the header if the message has options.
+     */
+    private static final int OPTIONS = 8;
+
+    /**
+     * This class only has static methods.
+     */
+    private BinaryCodec() {
+    }
+
+    /**
+     * Encodes the provided message in a payload.
+     *
+     * @param message the message to encode
+     * @return the payload, without the length
+     */
+    static byte[] encode(ProtocolMessage message) {
+        Map<String, Integer> table = new LinkedHashMap<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        int flags = (message.getUserChoice() != null ? USER_CHOICE : 0) |
+                (message.getNotifications() != null ? NOTIFICATIONS : 0) |
+                (message.getUpdates() != null ? UPDATES : 0) |
+                (message.getOptions() != null ? OPTIONS : 0);
+        body.write(message.getCommand().ordinal());
+        body.write(flags);
+
+        if (message.getUserChoice() != null)
+            writeString(body, table, message.getUserChoice());
+        if (message.getNotifications() != null) {
+            writeInt(body, message.getNotifications().length);
+            for (Notification n : message.getNotifications())
+                writeInt(body, n.getType() == null ? 0 : n.getType().ordinal() + 1);
+        }
+        if (message.getUpdates() != null) {
+            writeInt(body, message.getUpdates().length);
+            for (Update u : message.getUpdates()) {
+                writeInt(body, u.getType().ordinal());
+                writeString(body, table, u.getNickname());
+                writeStrings(body, table, u.getNewValue());
+            }
+        }
+        if (message.getOptions() != null) {
+            writeInt(body, message.getOptions().length);
+            for (String[] option : message.getOptions())
+                writeStrings(body, table, Arrays.asList(option));
+        }
+
+        /*The table goes before the body*/
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(body.size() + 16 * table.size());
+        writeInt(payload, table.size());
+        for (String s : table.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeInt(payload, bytes.length);
+            payload.write(bytes, 0, bytes.length);
+        }
+        byte[] bytes = body.toByteArray();
+        payload.write(bytes, 0, bytes.length);
+        return payload.toByteArray();
+    }
+
+    /**
+     * Decodes the provided payload.
+     *
+     * @param payload the payload, without the length
+     * @return the message in the payload
+     * @throws IOException if the payload is malformed
+     */
+    static ProtocolMessage decode(byte[] payload) throws IOException {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            String[] table = new String[readInt(in)];
+            for (int i = 0; i < table.length; i++) {
+                byte[] bytes = new byte[readInt(in)];
+                in.readFully(bytes);
+                table[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            MessageType command = MessageType.values()[in.readUnsignedByte()];
+            int flags = in.readUnsignedByte();
+
+            if ((flags & NOTIFICATIONS) != 0) {
+                Notification[] notifications = new Notification[readInt(in)];
+                for (int i = 0; i < notifications.length; i++) {
+                    int type = readInt(in);
+                    notifications[i] = new Notification(type == 0 ? null :
+                            Notification.NotificationType.values()[type - 1]);
+                }
+                return new ProtocolMessage(notifications);
+            }
+            if ((flags & UPDATES) != 0) {
+                Update[] updates = new Update[readInt(in)];
+                for (int i = 0; i < updates.length; i++) {
+                    Update.UpdateType type = Update.UpdateType.values()[readInt(in)];
+                    String nickname = readString(in, table);
+                    updates[i] = new Update(type, readStrings(in, table), nickname);
+                }
+                return new ProtocolMessage(updates);
+            }
+            if ((flags & OPTIONS) != 0) {
+                List<List<String>> options = new ArrayList<>();
+                int size = readInt(in);
+                for (int i = 0; i < size; i++)
+                    options.add(readStrings(in, table));
+                return new ProtocolMessage(command, options);
+            }
+            if ((flags & USER_CHOICE) != 0)
+                return new ProtocolMessage(command, readString(in, table));
+            return new ProtocolMessage(command);
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Malformed frame", e);
+        }
+    }
+
+    /**
+     * Writes the provided payload with its length.
+     *
+     * @param out     the stream to write to, it is not flushed
+     * @param payload the payload to write
+     * @throws IOException if the stream can not be written
+     */
+    static void writeFrame(OutputStream out, byte[] payload) throws IOException {
+        out.write(payload.length >>> 24);
+        out.write(payload.length >>> 16);
+        out.write(payload.length >>> 8);
+        out.write(payload.length);
+        out.write(payload);
+    }
+
+    /**
+     * Reads a payload preceded by its length.
+     *
+     * @param in the stream to read from
+     * @return the payload read
+     * @throws IOException if the stream ends or the length is not valid
+     */
+    static byte[] readFrame(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int length = data.readInt();
+        if (length < 0 || length > MAX_FRAME)
+            throw new IOException("Frame too long: " + length);
+        byte[] payload = new byte[length];
+        data.readFully(payload);
+        return payload;
+    }
+
+    /**
+     * Writes a reference to the provided string, adding it to the table.
+     * References are shifted by one, zero stands for null.
+     *
+     * @param out   the stream to write to
+     * @param table the strings in the message, with their indexes
+     * @param s     the string to write
+     */
+    private static void writeString(ByteArrayOutputStream out, Map<String, Integer> table, String s) {
+        if (s == null) {
+            writeInt(out, 0);
+            return;
+        }
+        writeInt(out, table.computeIfAbsent(s, k -> table.size()) + 1);
+    }
+
+    /**
+     * Writes the size of the provided strings and a reference for each one.
+     *
+     * @param out     the stream to write to
+     * @param table   the strings in the message, with their indexes
+     * @param strings the strings to write
+     */
+    private static void writeStrings(ByteArrayOutputStream out, Map<String, Integer> table, List<String> strings) {
+        writeInt(out, strings.size());
+        for (String s : strings)
+            writeString(out, table, s);
+    }
+
+    /**
+     * Reads a reference written by {@linkplain #writeString}.
+     *
+     * @param in    the stream to read from
+     * @param table the strings in the message
+     * @return the string referred
+     * @throws IOException if the stream ends
+     */
+    private static String readString(DataInputStream in, String[] table) throws IOException {
+        int index = readInt(in);
+        return index == 0 ? null : table[index - 1];
+    }
+
+    /**
+     * Reads the strings written by {@linkplain #writeStrings}.
+     *
+     * @param in    the stream to read from
+     * @param table the strings in the message
+     * @return the strings referred
+     * @throws IOException if the stream ends
+     */
+    private static List<String> readStrings(DataInputStream in, String[] table) throws IOException {
+        int size = readInt(in);
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            strings.add(readString(in, table));
+        return strings;
+    }
+
+    /**
+     * Writes a non negative integer in seven bits groups, the highest bit
+     * tells if another group follows.
+     *
+     * @param out   the stream to write to
+     * @param value the integer to write
+     */
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads an integer written by {@linkplain #writeInt}.
+     *
+     * @param in the stream to read from
+     * @return the integer read
+     * @throws IOException if the stream ends or the integer is malformed
+     */
+    private static int readInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed integer");
+    }
+}
@@ -0,0 +1,97 @@
+package it.polimi.ingsw.communication.socket;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A blocking connection that keeps the same buffered streams for its whole
+ * life, so that no buffer is allocated for each message and no read-ahead
+ * byte is lost between two exchanges.
+ *
+ * @author Abbo Giulio A.
+ * @see SocketToClient
+ */
+class BlockingClientChannel implements ClientChannel {
+    /**
+     * The socket of the connection.
+     */
+    private final Socket socket;
+    /**
+     * The size of the buffers; a full update fits in it.
+     */
+    private static final int BUFFER_SIZE = 16384;
+    /**
+     * The buffered input of the socket, used directly for the frames.
+     */
+    private final InputStream rawIn;
+    /**
+     * The buffered output of the socket, used directly for the frames.
+     */
+    private final OutputStream rawOut;
+    /**
+     * Reads the answers from the socket.
+     */
+    private final BufferedReader in;
+    /**
+     * Writes the messages to the socket.
+     */
+    private final BufferedWriter out;
+
+    /**
+     * Creates the streams for the provided socket.
+     *
+     * @param socket the connected socket
+     * @throws IOException if the streams of the socket can not be opened
+     */
+    BlockingClientChannel(Socket socket) throws IOException {
+        this.socket = socket;
+        rawIn = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+        rawOut = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+        in = new BufferedReader(new InputStreamReader(rawIn, StandardCharsets.UTF_8), BUFFER_SIZE);
+        out = new BufferedWriter(new OutputStreamWriter(rawOut, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * This blocks until the answer is read.
+     */
+    @Override
+    public String exchange(String line) throws IOException {
+
+        /*Sending*/
+        out.write(line);
+        out.newLine();
+        out.flush();
+
+        /*Waiting answer*/
+        String input = in.readLine();
+        if (input == null)
+            throw new EOFException("End of stream");
+        return input;
+    }
+
+    /**
+     * {@inheritDoc}
+     * This blocks until the answer is read.
+     */
+    @Override
+    public byte[] exchange(byte[] payload) throws IOException {
+        BinaryCodec.writeFrame(rawOut, payload);
+        rawOut.flush();
+        return BinaryCodec.readFrame(rawIn);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Closing the socket makes a blocked read fail.
+     */
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            /*Ignoring errors*/
+        }
+    }
+}
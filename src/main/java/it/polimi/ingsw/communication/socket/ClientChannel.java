@@ -0,0 +1,42 @@
+package it.polimi.ingsw.communication.socket;
+
+import java.io.IOException;
+
+/**
+ * Represents the medium used by a {@linkplain SocketToClient} for exchanging
+ * messages with the client.
+ * Messages are either JSON lines or binary frames, as agreed during the
+ * greeting: once a frame has been exchanged, no more lines are exchanged.
+ * Every message sent is answered by exactly one message of the same kind,
+ * the caller must ensure that only one exchange happens at one time.
+ *
+ * @author Abbo Giulio A.
+ * @see SocketToClient
+ * @see BinaryCodec
+ */
+interface ClientChannel {
+    /**
+     * Sends the provided line and waits for the client's answer.
+     *
+     * @param line the line to be sent, without the line terminator
+     * @return the line received as answer, without the line terminator
+     * @throws IOException if the connection is lost or closed
+     */
+    String exchange(String line) throws IOException;
+
+    /**
+     * Sends the provided payload in a frame and waits for the client's
+     * answer.
+     *
+     * @param payload the payload to be sent, without the length
+     * @return the payload received as answer, without the length
+     * @throws IOException if the connection is lost or closed
+     */
+    byte[] exchange(byte[] payload) throws IOException;
+
+    /**
+     * Closes the connection; an exchange waiting for an answer fails.
+     * This can be called by any thread, even during an exchange.
+     */
+    void close();
+}
@@ -0,0 +1,84 @@
+package it.polimi.ingsw.communication.socket;
+
+import com.google.gson.Gson;
+import it.polimi.ingsw.communication.protocol.ProtocolMessage;
+import it.polimi.ingsw.communication.protocol.Update;
+
+/**
+ * Converts the messages to and from the JSON lines sent through the sockets.
+ * <p>
+ * The updates of a broadcast are the same objects for every receiver, so
+ * the encoding of each {@linkplain Update} is computed once and kept in the
+ * update itself: the line for a receiver is just the concatenation of the
+ * encodings of the updates it has to receive, and no lock is shared
+ * between the matches.
+ *
+ * @author Abbo Giulio A.
+ * @see SocketToClient
+ * @see SocketFromServer
+ */
+final class JsonCodec {
+    /**
+     * The converter for the messages, shared by all the connections.
+     */
+    private static final Gson GSON = new Gson();
+    /**
+     * The beginning of an update message, up to the opening of the array.
+     */
+    private static final String UPDATES_PREFIX;
+    /**
+     * The end of an update message, from the closing of the array.
+     */
+    private static final String UPDATES_SUFFIX;
+
+    static {
+        String empty = GSON.toJson(new ProtocolMessage(new Update[0]));
+        int array = empty.indexOf("[]");
+        UPDATES_PREFIX = empty.substring(0, array + 1);
+        UPDATES_SUFFIX = empty.substring(array + 1);
+    }
+
+    /**
+     * This class only has static methods.
+     */
+    private JsonCodec() {
+    }
+
+    /**
+     * Encodes the provided message in a single line.
+     *
+     * @param message the message to encode
+     * @return the JSON line for the message
+     */
+    static String encode(ProtocolMessage message) {
+        return GSON.toJson(message);
+    }
+
+    /**
+     * Encodes an update message with the provided updates in a single line,
+     * equal to the one produced by {@linkplain #encode(ProtocolMessage)}.
+     *
+     * @param updates the updates to be sent
+     * @return the JSON line for the message
+     */
+    static String encodeUpdates(Update[] updates) {
+        StringBuilder line = new StringBuilder(UPDATES_PREFIX);
+        for (int i = 0; i < updates.length; i++) {
+            if (i > 0)
+                line.append(',');
+            line.append(updates[i].encodeOnce(GSON::toJson));
+        }
+        return line.append(UPDATES_SUFFIX).toString();
+    }
+
+    /**
+     * Decodes a line received.
+     *
+     * @param line the JSON line
+     * @return the message in the line
+     * @throws com.google.gson.JsonSyntaxException if the line is malformed
+     */
+    static ProtocolMessage decode(String line) {
+        return GSON.fromJson(line, ProtocolMessage.class);
+    }
+}
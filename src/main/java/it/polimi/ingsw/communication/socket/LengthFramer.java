@@ -0,0 +1,77 @@
+package it.polimi.ingsw.communication.socket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This splits a stream of bytes, received in arbitrary chunks, into the
+ * payloads of the frames written by {@linkplain BinaryCodec#writeFrame}.
+ *
+ * @author Abbo Giulio A.
+ * @see LineFramer
+ */
+class LengthFramer {
+    /**
+     * The length of the frame being read.
+     */
+    private final ByteBuffer header;
+    /**
+     * The payload being read, null while reading the length.
+     */
+    private ByteBuffer payload;
+
+    /**
+     * Creates a framer waiting for the length of a frame.
+     */
+    LengthFramer() {
+        header = ByteBuffer.allocate(Integer.BYTES);
+        payload = null;
+    }
+
+    /**
+     * Consumes all the bytes remaining in the provided buffer and returns the
+     * payloads completed by them.
+     *
+     * @param chunk the bytes received, ready to be read
+     * @return the completed payloads, in order, possibly empty
+     * @throws IOException if a length is not valid
+     */
+    List<byte[]> feed(ByteBuffer chunk) throws IOException {
+        List<byte[]> frames = new ArrayList<>(1);
+        while (chunk.hasRemaining()) {
+            if (payload == null) {
+                transfer(chunk, header);
+                if (header.hasRemaining())
+                    break;
+                header.flip();
+                int length = header.getInt();
+                header.clear();
+                if (length < 0 || length > BinaryCodec.MAX_FRAME)
+                    throw new IOException("Frame too long: " + length);
+                payload = ByteBuffer.allocate(length);
+            }
+            transfer(chunk, payload);
+            if (!payload.hasRemaining()) {
+                frames.add(payload.array());
+                payload = null;
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Moves as many bytes as possible from the source to the destination.
+     *
+     * @param source      the buffer to read from
+     * @param destination the buffer to write to
+     */
+    private static void transfer(ByteBuffer source, ByteBuffer destination) {
+        int count = Math.min(source.remaining(), destination.remaining());
+        ByteBuffer slice = source.slice();
+        slice.limit(count);
+        destination.put(slice);
+        source.position(source.position() + count);
+    }
+}
@@ -0,0 +1,69 @@
+package it.polimi.ingsw.communication.socket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This splits a stream of bytes, received in arbitrary chunks, into lines.
+ * Lines are terminated by {@code '\n'}, an optional preceding {@code '\r'} is
+ * dropped; the bytes are decoded as UTF-8 only when the line is complete, so
+ * multi-byte characters split between two chunks are handled correctly.
+ *
+ * @author Abbo Giulio A.
+ */
+class LineFramer {
+    /**
+     * The longest line accepted, in bytes.
+     */
+    static final int MAX_LINE_LENGTH = 1 << 20;
+    /**
+     * The bytes of the line not yet terminated.
+     */
+    private byte[] pending;
+    /**
+     * How many bytes in {@linkplain #pending} are used.
+     */
+    private int length;
+
+    /**
+     * Creates a framer with an empty buffer.
+     */
+    LineFramer() {
+        pending = new byte[1024];
+        length = 0;
+    }
+
+    /**
+     * Consumes all the bytes remaining in the provided buffer and returns the
+     * lines completed by them.
+     *
+     * @param chunk the bytes received, ready to be read
+     * @return the completed lines, in order, possibly empty
+     * @throws IOException if a line is longer than {@linkplain #MAX_LINE_LENGTH}
+     */
+    List<String> feed(ByteBuffer chunk) throws IOException {
+        List<String> lines = new ArrayList<>(1);
+        while (chunk.hasRemaining()) {
+            byte b = chunk.get();
+            if (b == '\n') {
+                int end = length > 0 && pending[length - 1] == '\r' ? length - 1 : length;
+                lines.add(new String(pending, 0, end, StandardCharsets.UTF_8));
+                length = 0;
+                continue;
+            }
+
+            /*Growing the buffer if necessary*/
+            if (length == pending.length) {
+                if (length >= MAX_LINE_LENGTH)
+                    throw new IOException("Line too long");
+                pending = Arrays.copyOf(pending, Math.min(length * 2, MAX_LINE_LENGTH));
+            }
+            pending[length++] = b;
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,210 @@
+package it.polimi.ingsw.communication.socket;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A non-blocking connection handled by a {@linkplain NioSocketDispatcher}.
+ * The reads and the writes are performed by the selector thread; the thread
+ * calling {@linkplain #exchange(String)} or {@linkplain #exchange(byte[])}
+ * only waits for the answer, so no thread is tied to the connection while it
+ * is idle.
+ *
+ * @author Abbo Giulio A.
+ * @see NioSocketDispatcher
+ */
+class NioClientChannel implements ClientChannel {
+    /**
+     * Put in {@linkplain #answers} when the connection is closed, it is
+     * compared by reference.
+     */
+    private static final Object CLOSED = new Object();
+    /**
+     * The channel of the connection.
+     */
+    private final SocketChannel channel;
+    /**
+     * The dispatcher whose selector handles this.
+     */
+    private final NioSocketDispatcher dispatcher;
+    /**
+     * Splits the bytes received into lines.
+     */
+    private final LineFramer lines;
+    /**
+     * Splits the bytes received into frames.
+     */
+    private final LengthFramer frames;
+    /**
+     * The buffer used by the selector thread for reading.
+     */
+    private final ByteBuffer readBuffer;
+    /**
+     * The bytes waiting to be written by the selector thread.
+     */
+    private final Queue<ByteBuffer> outbound;
+    /**
+     * The lines or the payloads received and not yet consumed.
+     */
+    private final BlockingQueue<Object> answers;
+    /**
+     * The key of the channel, set once it is registered.
+     */
+    private SelectionKey key;
+    /**
+     * Whether frames are exchanged instead of lines.
+     */
+    private volatile boolean binary;
+    /**
+     * Whether the connection has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates a new connection on the provided channel.
+     *
+     * @param channel    the non-blocking channel of the connection
+     * @param dispatcher the dispatcher that will handle the channel
+     */
+    NioClientChannel(SocketChannel channel, NioSocketDispatcher dispatcher) {
+        this.channel = channel;
+        this.dispatcher = dispatcher;
+        lines = new LineFramer();
+        frames = new LengthFramer();
+        readBuffer = ByteBuffer.allocate(8192);
+        outbound = new ConcurrentLinkedQueue<>();
+        answers = new LinkedBlockingQueue<>();
+        binary = false;
+        closed = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The line is queued for the selector thread, then this waits until a
+     * line is received or the connection is closed.
+     */
+    @Override
+    public String exchange(String line) throws IOException {
+        return (String) exchange(ByteBuffer.wrap((line + '\n').getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The frame is queued for the selector thread, then this waits until a
+     * frame is received or the connection is closed.
+     */
+    @Override
+    public byte[] exchange(byte[] payload) throws IOException {
+
+        /*The client answers only after this is sent: switching is safe*/
+        binary = true;
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + payload.length);
+        frame.putInt(payload.length).put(payload).flip();
+        return (byte[]) exchange(frame);
+    }
+
+    /**
+     * Queues the provided bytes and waits for the answer.
+     *
+     * @param bytes the bytes to be sent
+     * @return the line or the payload received
+     * @throws IOException if the connection is lost or closed
+     */
+    private Object exchange(ByteBuffer bytes) throws IOException {
+        if (closed)
+            throw new IOException("Connection closed");
+        outbound.add(bytes);
+        dispatcher.requestWrite(this);
+
+        Object answer;
+        try {
+            answer = answers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting the answer");
+        }
+
+        /*Leaving the marker for the next callers*/
+        if (answer == CLOSED) {
+            answers.add(CLOSED);
+            throw new IOException("Connection closed");
+        }
+        return answer;
+    }
+
+    /**
+     * Sets the key of the registered channel.
+     *
+     * @param key the key of the channel
+     */
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Returns the key of the registered channel.
+     *
+     * @return the key of the channel
+     */
+    SelectionKey getKey() {
+        return key;
+    }
+
+    /**
+     * Reads what is available on the channel, called by the selector thread.
+     *
+     * @throws IOException if the connection is lost
+     */
+    void read() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0)
+            throw new IOException("End of stream");
+        readBuffer.flip();
+        if (binary)
+            answers.addAll(frames.feed(readBuffer));
+        else
+            answers.addAll(lines.feed(readBuffer));
+        readBuffer.clear();
+    }
+
+    /**
+     * Writes as many queued bytes as possible, called by the selector thread.
+     *
+     * @return whether everything queued has been written
+     * @throws IOException if the connection is lost
+     */
+    boolean write() throws IOException {
+        ByteBuffer head;
+        while ((head = outbound.peek()) != null) {
+            channel.write(head);
+            if (head.hasRemaining())
+                return false;
+            outbound.poll();
+        }
+        return true;
+    }
+
+    /**
+     * Closes the connection and wakes up the thread waiting for an answer.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (key != null)
+            key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            /*Ignoring errors*/
+        }
+        answers.add(CLOSED);
+    }
+}
@@ -0,0 +1,188 @@
+package it.polimi.ingsw.communication.socket;
+
+import it.polimi.ingsw.communication.ToClientException;
+import it.polimi.ingsw.communication.User;
+import it.polimi.ingsw.server.serverlogic.ServerMain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This thread listens for socket connections using a single
+ * {@linkplain Selector} for accepting, reading and writing.
+ * Unlike {@linkplain SocketDispatcher}, no thread is created for each
+ * connection: the login of the new users is handled by a bounded pool and the
+ * following interactions by the threads that need them.
+ *
+ * @author Abbo Giulio A.
+ * @see NioClientChannel
+ */
+public class NioSocketDispatcher extends Thread {
+    /**
+     * How many logins can be handled at the same time.
+     */
+    private static final int LOGIN_THREADS = 32;
+    /**
+     * The channel that will receive the connections.
+     */
+    private final ServerSocketChannel serverChannel;
+    /**
+     * The connections that have bytes waiting to be written.
+     */
+    private final Queue<NioClientChannel> pendingWrites;
+    /**
+     * The threads that call {@linkplain User#init()} for the new connections.
+     */
+    private final ExecutorService logins;
+    /**
+     * The selector for all the channels, null until this starts running.
+     */
+    private volatile Selector selector;
+    /**
+     * Whether this is running; when false the thread ends its execution.
+     */
+    private volatile boolean listening;
+
+    /**
+     * Constructor that sets the attributes for this.
+     *
+     * @param serverChannel the bound channel that will receive the connections
+     */
+    public NioSocketDispatcher(ServerSocketChannel serverChannel) {
+        super("nio-dispatcher");
+        this.serverChannel = serverChannel;
+        pendingWrites = new ConcurrentLinkedQueue<>();
+        AtomicInteger count = new AtomicInteger();
+        logins = Executors.newFixedThreadPool(LOGIN_THREADS,
+                r -> new Thread(r, "nio-login-" + count.incrementAndGet()));
+        listening = true;
+    }
+
+    /**
+     * Starts listening on the channel, on new connection a
+     * {@linkplain User} with a {@linkplain SocketToClient} is created and
+     * {@linkplain User#init()} is called from the login pool.
+     */
+    @Override
+    public void run() {
+        try (serverChannel; Selector opened = Selector.open()) {
+            selector = opened;
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            ServerMain.getLog().info("Socket is ready and listening.");
+
+            while (listening) {
+                selector.select();
+                registerPendingWrites();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+
+            /*Closing all the connections left*/
+            selector.keys().stream()
+                    .map(SelectionKey::attachment)
+                    .filter(NioClientChannel.class::isInstance)
+                    .forEach(c -> ((NioClientChannel) c).close());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error with the socket", e);
+        } finally {
+            logins.shutdownNow();
+        }
+    }
+
+    /**
+     * Handles a key selected.
+     *
+     * @param key the key ready for some operations
+     * @throws IOException if there are problems with the server channel
+     */
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid())
+            return;
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+
+        NioClientChannel connection = (NioClientChannel) key.attachment();
+        try {
+            if (key.isReadable())
+                connection.read();
+            if (key.isValid() && key.isWritable() && connection.write())
+                key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException | CancelledKeyException e) {
+            ServerMain.getLog().info("Socket connection closed.");
+            connection.close();
+        }
+    }
+
+    /**
+     * Accepts a new connection and starts the login.
+     *
+     * @throws IOException if there are problems with the server channel
+     */
+    private void accept() throws IOException {
+        SocketChannel client = serverChannel.accept();
+        if (client == null)
+            return;
+        client.configureBlocking(false);
+
+        NioClientChannel connection = new NioClientChannel(client, this);
+        connection.setKey(client.register(selector, SelectionKey.OP_READ, connection));
+        logins.execute(() -> {
+            try {
+                new User(new SocketToClient(connection)).init();
+            } catch (ToClientException e) {
+                ServerMain.getLog().severe("Socket died.");
+            }
+        });
+    }
+
+    /**
+     * Sets the write interest of the connections with bytes to be written.
+     * This must be called by the selector thread.
+     */
+    private void registerPendingWrites() {
+        NioClientChannel connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            SelectionKey key = connection.getKey();
+            if (key != null && key.isValid())
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Notifies the selector thread that the provided connection has bytes to
+     * be written.
+     *
+     * @param connection the connection with bytes to be written
+     */
+    void requestWrite(NioClientChannel connection) {
+        pendingWrites.add(connection);
+        Selector current = selector;
+        if (current != null)
+            current.wakeup();
+    }
+
+    /**
+     * Stops listening through the channel.
+     */
+    public void stopListening() {
+        listening = false;
+        Selector current = selector;
+        if (current != null)
+            current.wakeup();
+    }
+}
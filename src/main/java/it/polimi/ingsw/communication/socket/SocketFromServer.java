@@ -1,14 +1,13 @@
 package it.polimi.ingsw.communication.socket;
 
-import com.google.gson.Gson;
 import it.polimi.ingsw.client.clientlogic.ClientController;
+import it.polimi.ingsw.communication.protocol.Notification;
 import it.polimi.ingsw.communication.protocol.ProtocolMessage;
 
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.*;
 import java.net.Socket;
-import java.util.Scanner;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * This class handles the communication through socket, client side.
@@ -40,47 +39,106 @@ public class SocketFromServer {
      * Waits for commands.
      * On new commands, calls the appropriate methods of the controller and
      * sends back to the server the user choice.
+     * <p>
+     * The greeting is answered asking for the {@linkplain BinaryCodec}; each
+     * message is answered with the same encoding it used, which is told by
+     * its first byte.
      *
      * @throws IOException if the socket can not be opened or connection is lost
      */
     public void startListening() throws IOException {
-        try (Scanner in = new Scanner(new InputStreamReader(socket.getInputStream()));
-             PrintWriter out = new PrintWriter(socket.getOutputStream(), true)
+        try (InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())
         ) {
-            while (in.hasNextLine()) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(1024);
+            while (true) {
+
+                /*Checking the encoding of the next message*/
+                in.mark(1);
+                int first = in.read();
+                if (first < 0)
+                    return;
+                in.reset();
+                boolean binary = first == 0;
 
                 /*Parsing each input*/
-                String input = in.nextLine();
-                if (input == null)
-                    continue;
-                ProtocolMessage message = new Gson().fromJson(input, ProtocolMessage.class);
+                ProtocolMessage message;
+                if (binary) {
+                    message = BinaryCodec.decode(BinaryCodec.readFrame(in));
+                } else {
+                    String input = readLine(in, line);
+                    if (input == null)
+                        return;
+                    if (input.isEmpty())
+                        continue;
+                    message = JsonCodec.decode(input);
+                }
 
                 /*Handling the message and returning the answer*/
-                ProtocolMessage answer;
-                switch (message.getCommand()) {
-                    case UPDATE:
-                        controller.handleUpdates(message.getUpdates());
-                        answer = new ProtocolMessage(message.getCommand());
-                        break;
-                    case NOTIFICATION:
-                        controller.handleNotifications(message.getNotifications());
-                        answer = new ProtocolMessage(message.getCommand());
-                        break;
-                    default:
-                        if (message.getCommand().hasOptions())
-                            answer = new ProtocolMessage(message.getCommand(),
-                                    Integer.toString(controller.handleQuestion(
-                                            message.getCommand(),
-                                            message.getOptions())));
-                        else
-                            answer = new ProtocolMessage(message.getCommand(),
-                                    controller.handleQuestion(message.getCommand()));
-                }
-                out.println(new Gson().toJson(answer));
+                ProtocolMessage answer = handle(message);
+                if (binary)
+                    BinaryCodec.writeFrame(out, BinaryCodec.encode(answer));
+                else
+                    out.write((JsonCodec.encode(answer) + '\n').getBytes(StandardCharsets.UTF_8));
+                out.flush();
             }
+        } catch (IOException e) {
+
+            /*Socket.close() was intentional: ignoring errors*/
+            if (!socket.isClosed())
+                throw e;
         }
     }
 
+    /**
+     * Calls the appropriate methods of the controller and returns the answer
+     * for the server.
+     *
+     * @param message the message received
+     * @return the answer for the message
+     */
+    private ProtocolMessage handle(ProtocolMessage message) {
+        switch (message.getCommand()) {
+            case UPDATE:
+                controller.handleUpdates(message.getUpdates());
+                return new ProtocolMessage(message.getCommand());
+            case NOTIFICATION:
+                controller.handleNotifications(message.getNotifications());
+                if (Arrays.stream(message.getNotifications())
+                        .anyMatch(n -> n.getType() == Notification.NotificationType.GREET))
+                    return new ProtocolMessage(message.getCommand(), BinaryCodec.NAME);
+                return new ProtocolMessage(message.getCommand());
+            default:
+                if (message.getCommand().hasOptions())
+                    return new ProtocolMessage(message.getCommand(),
+                            Integer.toString(controller.handleQuestion(
+                                    message.getCommand(),
+                                    message.getOptions())));
+                return new ProtocolMessage(message.getCommand(),
+                        controller.handleQuestion(message.getCommand()));
+        }
+    }
+
+    /**
+     * Reads a line terminated by {@code '\n'}, dropping a preceding
+     * {@code '\r'}.
+     *
+     * @param in     the stream to read from
+     * @param buffer the buffer used for the bytes of the line, it is reset
+     * @return the line, or null if the stream ended before any byte
+     * @throws IOException if the stream can not be read
+     */
+    private static String readLine(InputStream in, ByteArrayOutputStream buffer) throws IOException {
+        buffer.reset();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n')
+            buffer.write(b);
+        if (b < 0 && buffer.size() == 0)
+            return null;
+        String line = buffer.toString(StandardCharsets.UTF_8.name());
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
     /**
      * Stops listening to the socket.
      */
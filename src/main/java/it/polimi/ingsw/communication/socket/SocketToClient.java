@@ -1,6 +1,5 @@
 package it.polimi.ingsw.communication.socket;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import it.polimi.ingsw.communication.*;
 import it.polimi.ingsw.communication.protocol.MessageType;
@@ -11,11 +10,9 @@ import it.polimi.ingsw.server.model.Damageable;
 import it.polimi.ingsw.server.model.board.Square;
 import it.polimi.ingsw.server.model.cards.PowerupCard;
 import it.polimi.ingsw.server.model.cards.WeaponCard;
+import it.polimi.ingsw.server.metrics.ServerMetrics;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
 import java.util.List;
 
@@ -29,9 +26,17 @@ import java.util.List;
  */
 public class SocketToClient implements ToClientInterface {
     /**
-     * The socket through which communicate.
+     * Whether the clients that ask for it can use the binary codec.
      */
-    private final Socket socket;
+    private static boolean binaryAllowed = true;
+    /**
+     * The channel through which communicate.
+     */
+    private final ClientChannel channel;
+    /**
+     * Whether the messages are binary frames instead of JSON lines.
+     */
+    private boolean binary;
 
     /**
      * This sets the socket and sends a test notification.
@@ -39,12 +44,50 @@ public class SocketToClient implements ToClientInterface {
      * @param socket the socket through which communicate
      */
     public SocketToClient(Socket socket) throws ToClientException {
-        this.socket = socket;
-        sendNotification(Notification.NotificationType.GREET);
+        this(openChannel(socket));
+    }
+
+    /**
+     * This sets the channel and sends a test notification.
+     * If the client answers asking for the {@linkplain BinaryCodec} and it
+     * is allowed, the following messages will be binary frames.
+     *
+     * @param channel the channel through which communicate
+     */
+    SocketToClient(ClientChannel channel) throws ToClientException {
+        this.channel = channel;
+        binary = false;
+        ProtocolMessage answer = send(new ProtocolMessage(new Notification[]{
+                new Notification(Notification.NotificationType.GREET)}));
+        binary = binaryAllowed && BinaryCodec.NAME.equals(answer.getUserChoice());
+    }
+
+    /**
+     * Sets whether the clients that ask for it can use the binary codec.
+     *
+     * @param binaryAllowed true if the binary codec can be used
+     */
+    public static void setBinaryAllowed(boolean binaryAllowed) {
+        SocketToClient.binaryAllowed = binaryAllowed;
     }
 
     /**
-     * Sends the provided message through the socket ans returns the response.
+     * Opens a persistent channel on the provided socket.
+     *
+     * @param socket the socket through which communicate
+     * @return the channel for the socket
+     * @throws ToClientException if the streams of the socket can not be opened
+     */
+    private static ClientChannel openChannel(Socket socket) throws ToClientException {
+        try {
+            return new BlockingClientChannel(socket);
+        } catch (IOException e) {
+            throw new ToClientException("Socket exception", e);
+        }
+    }
+
+    /**
+     * Sends the provided message through the channel ans returns the response.
      * This should be used when there are no options tho choose from.
      *
      * @param message the message to be sent
@@ -52,33 +95,52 @@ public class SocketToClient implements ToClientInterface {
      * @throws ToClientException if there are problems with the socket
      */
     private ProtocolMessage send(ProtocolMessage message) throws ToClientException {
+        if (binary)
+            return send(BinaryCodec.encode(message));
+        return send(JsonCodec.encode(message));
+    }
+
+    /**
+     * Sends the provided line through the channel ans returns the response.
+     *
+     * @param line the encoded message to be sent
+     * @return the client's answer
+     * @throws ToClientException if there are problems with the socket
+     */
+    private ProtocolMessage send(String line) throws ToClientException {
         ProtocolMessage answer;
-        synchronized (socket) {
+        synchronized (channel) {
             try {
-
-                /*Setting up*/
-                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-
-                /*Sending*/
-                out.println(new Gson().toJson(message));
-
-                /*Waiting answer*/
-                String input = null;
-                while (input == null)
-                    input = in.readLine();
-                answer = new Gson().fromJson(input, ProtocolMessage.class);
+                answer = JsonCodec.decode(channel.exchange(line));
             } catch (IOException e) {
                 throw new ToClientException("Socket exception", e);
             } catch (JsonSyntaxException e) {
 
                 /*Ignoring the answer, asking again*/
-                return send(message);
+                return send(line);
             }
         }
         return answer;
     }
 
+    /**
+     * Sends the provided payload through the channel ans returns the
+     * response.
+     *
+     * @param payload the encoded message to be sent
+     * @return the client's answer
+     * @throws ToClientException if there are problems with the socket
+     */
+    private ProtocolMessage send(byte[] payload) throws ToClientException {
+        synchronized (channel) {
+            try {
+                return BinaryCodec.decode(channel.exchange(payload));
+            } catch (IOException e) {
+                throw new ToClientException("Socket exception", e);
+            }
+        }
+    }
+
     /**
      * Handles the communication when there are options attached to the message.
      *
@@ -88,8 +150,11 @@ public class SocketToClient implements ToClientInterface {
      * @throws ToClientException if there are problems with the socket
      */
     private int sendAndCheck(MessageType command, List<? extends List<String>> options) throws ToClientException {
+        long start = System.nanoTime();
+        ProtocolMessage answer = send(new ProtocolMessage(command, options));
+        LatencyRecorder.record(LatencyRecorder.Transport.SOCKET, LatencyRecorder.Kind.QUESTION, start);
         try {
-            int choice = Integer.parseInt(send(new ProtocolMessage(command, options)).getUserChoice());
+            int choice = Integer.parseInt(answer.getUserChoice());
 
             /*Checking if the answer is valid*/
             if (choice >= 0 && choice < options.size())
@@ -304,6 +369,15 @@ public class SocketToClient implements ToClientInterface {
         sendNotification(Notification.NotificationType.QUIT);
     }
 
+    /**
+     * Closes the connection without waiting for the exchange in progress,
+     * that fails; the following exchanges fail too.
+     * This is used when the client did not answer in time.
+     */
+    public void close() {
+        channel.close();
+    }
+
     /**
      * {@inheritDoc}
      * This stops the execution until the clients sends an ack.
@@ -312,19 +386,59 @@ public class SocketToClient implements ToClientInterface {
      */
     @Override
     public void sendNotification(Notification.NotificationType notification) throws ToClientException {
+        long start = System.nanoTime();
         send(new ProtocolMessage(new Notification[]{
                 new Notification(notification)}));
+        LatencyRecorder.record(LatencyRecorder.Transport.SOCKET, LatencyRecorder.Kind.NOTIFICATION, start);
     }
 
     /**
      * {@inheritDoc}
      * This stops the execution until the clients sends an ack.
+     * With JSON, the encoding of each update is shared with the other
+     * receivers.
+     * The size of the encoded update is recorded in the
+     * {@link ServerMetrics}.
      *
-     * @param update
+     * @param update the update to send
      * @throws ToClientException if there are problems with the socket
      */
     @Override
     public void sendUpdate(UpdateBuilder update) throws ToClientException {
-        send(new ProtocolMessage(update.build()));
+        long start = System.nanoTime();
+        if (binary) {
+            byte[] payload = BinaryCodec.encode(new ProtocolMessage(update.build()));
+            ServerMetrics.updateBytes().record(payload.length);
+            send(payload);
+        } else {
+            String line = JsonCodec.encodeUpdates(update.build());
+            ServerMetrics.updateBytes().record(encodedLength(line) + 1L);
+            send(line);
+        }
+        LatencyRecorder.record(LatencyRecorder.Transport.SOCKET, LatencyRecorder.Kind.UPDATE, start);
+    }
+
+    /**
+     * Returns the length of the provided line encoded in UTF-8, without
+     * encoding it.
+     *
+     * @param line the line
+     * @return the number of bytes
+     */
+    private static int encodedLength(String line) {
+        int length = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < 0x80)
+                length++;
+            else if (c < 0x800)
+                length += 2;
+            else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else
+                length += 3;
+        }
+        return length;
     }
 }
@@ -0,0 +1,259 @@
+package it.polimi.ingsw.server.controller;
+
+import it.polimi.ingsw.communication.ToClientException;
+import it.polimi.ingsw.communication.ToClientInterface;
+import it.polimi.ingsw.communication.UpdateBuilder;
+import it.polimi.ingsw.communication.protocol.Notification;
+import it.polimi.ingsw.server.model.player.Player;
+import it.polimi.ingsw.server.serverlogic.ServerMain;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Sends updates and notifications to the players of a match concurrently.
+ * <p>
+ * Each player has a lane: what is sent to the same player keeps its order,
+ * while different players are served at the same time. The caller waits for
+ * the acks only until a deadline; the players that did not answer in time are
+ * marked as lagging and their sends go on in background. An update for a
+ * player whose lane is still busy is not queued: the player will receive a
+ * full update as soon as the lane is free, or before the next notification.
+ * <p>
+ * Each broadcaster has its own threads, one for each player, so that the
+ * slow clients of a match never delay the broadcasts of the others; the
+ * threads end when they are idle or the broadcaster is closed.
+ *
+ * @author Abbo Giulio A.
+ * @see DeathmatchController
+ */
+class Broadcaster {
+    /**
+     * Numbers the threads of all the broadcasters.
+     */
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    /**
+     * Seconds an idle thread waits for a send before ending.
+     */
+    private static final int KEEP_ALIVE = 60;
+    /**
+     * How long a broadcast waits for the acks, in milliseconds.
+     */
+    private static int deadline = 1000;
+    /**
+     * The threads that send to the players.
+     */
+    private final ThreadPoolExecutor senders;
+    /**
+     * The last send scheduled for each player.
+     */
+    private final Map<Player, CompletableFuture<Void>> lanes;
+    /**
+     * The players that missed an update, they need a full one.
+     */
+    private final Set<Player> stale;
+    /**
+     * The players that did not ack the last broadcast in time.
+     */
+    private final Set<Player> lagging;
+    /**
+     * The latency of the last delivery to each player, in milliseconds.
+     */
+    private final Map<String, Long> latencies;
+
+    /**
+     * Creates a broadcaster with every lane free.
+     *
+     * @param players the number of players, each lane blocks a thread
+     *                while it waits for an ack
+     */
+    Broadcaster(int players) {
+        int threads = Math.max(players, 1);
+        senders = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "broadcast-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        senders.allowCoreThreadTimeOut(true);
+        lanes = new HashMap<>();
+        stale = new HashSet<>();
+        lagging = ConcurrentHashMap.newKeySet();
+        latencies = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Sets how long the broadcasts wait for the acks.
+     *
+     * @param millis the deadline in milliseconds
+     */
+    static void setDeadline(int millis) {
+        deadline = millis;
+    }
+
+    /**
+     * Sends the provided update to the receivers.
+     * The receivers whose lane is busy will receive a full update later.
+     *
+     * @param receivers the players that will receive the update
+     * @param update    the update, already built
+     * @param full      provides a full update, only called if needed
+     */
+    void update(Collection<Player> receivers, UpdateBuilder update, Supplier<UpdateBuilder> full) {
+        List<Player> sent = new ArrayList<>();
+        List<CompletableFuture<Void>> acks = new ArrayList<>();
+        UpdateBuilder fullUpdate = null;
+        synchronized (this) {
+            for (Player p : receivers) {
+                CompletableFuture<Void> lane = lanes.get(p);
+                if (lane != null && !lane.isDone()) {
+
+                    /*Still busy with a previous send: skipping*/
+                    stale.add(p);
+                    continue;
+                }
+
+                UpdateBuilder toSend = update;
+                if (stale.remove(p)) {
+                    if (fullUpdate == null)
+                        fullUpdate = UpdateBuilder.of(full.get().build());
+                    toSend = fullUpdate;
+                }
+                UpdateBuilder finalUpdate = toSend;
+                sent.add(p);
+                acks.add(enqueue(p, c -> c.sendUpdate(finalUpdate)));
+            }
+        }
+        await(sent, acks);
+    }
+
+    /**
+     * Sends the provided notification to the receivers, after what has
+     * already been sent to them.
+     * The receivers that missed an update first receive a full one, so that
+     * nothing they missed comes after the notification.
+     *
+     * @param receivers    the players that will receive the notification
+     * @param notification the notification to send
+     * @param full         provides a full update, only called if needed
+     */
+    void notify(Collection<Player> receivers, Notification.NotificationType notification,
+                Supplier<UpdateBuilder> full) {
+        List<Player> sent = new ArrayList<>(receivers);
+        List<CompletableFuture<Void>> acks = new ArrayList<>();
+        UpdateBuilder fullUpdate = null;
+        synchronized (this) {
+            for (Player p : sent) {
+                if (stale.remove(p)) {
+                    if (fullUpdate == null)
+                        fullUpdate = UpdateBuilder.of(full.get().build());
+                    UpdateBuilder finalUpdate = fullUpdate;
+                    enqueue(p, c -> c.sendUpdate(finalUpdate));
+                }
+                acks.add(enqueue(p, c -> c.sendNotification(notification)));
+            }
+        }
+        await(sent, acks);
+    }
+
+    /**
+     * Stops the threads once the sends already scheduled are over.
+     */
+    void close() {
+        senders.shutdown();
+    }
+
+    /**
+     * Appends a send to the lane of the provided player.
+     *
+     * @param player      the receiver
+     * @param interaction the send
+     * @return the future completed when the send is over
+     */
+    private CompletableFuture<Void> enqueue(Player player, Interaction interaction) {
+        CompletableFuture<Void> lane = lanes.getOrDefault(player, CompletableFuture.completedFuture(null))
+                .thenRunAsync(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        interaction.run(player.getToClient());
+                    } catch (ToClientException ignored) {
+                        /*Ignored because the user has already been suspended*/
+                    } catch (RuntimeException e) {
+
+                        /*Keeping the lane alive: a failed future would skip the next sends*/
+                        ServerMain.getLog().log(Level.WARNING, e, () -> "Send to " + player.getName() + " failed");
+                    }
+                    latencies.put(player.getName(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }, senders);
+        lanes.put(player, lane);
+        return lane;
+    }
+
+    /**
+     * Waits for the acks until the deadline, then marks the players that are
+     * late as lagging.
+     *
+     * @param players the receivers, in the same order of the acks
+     * @param acks    the futures of the sends
+     */
+    private void await(List<Player> players, List<CompletableFuture<Void>> acks) {
+        try {
+            CompletableFuture.allOf(acks.toArray(new CompletableFuture<?>[0]))
+                    .get(deadline, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            /*Checking who is late below*/
+        }
+
+        for (int i = 0; i < players.size(); i++) {
+            Player p = players.get(i);
+            if (acks.get(i).isDone()) {
+                if (lagging.remove(p))
+                    ServerMain.getLog().info(() -> p.getName() + " is no longer lagging");
+                ServerMain.getLog().fine(() -> "Delivered to " + p.getName() +
+                        " in " + latencies.get(p.getName()) + " ms");
+            } else if (lagging.add(p)) {
+                ServerMain.getLog().info(() -> p.getName() + " is lagging");
+            }
+        }
+    }
+
+    /**
+     * Returns the players that did not ack the last broadcast in time.
+     *
+     * @return the names of the lagging players
+     */
+    Set<String> getLagging() {
+        Set<String> names = new HashSet<>();
+        lagging.forEach(p -> names.add(p.getName()));
+        return names;
+    }
+
+    /**
+     * Returns the latency of the last delivery to each player.
+     *
+     * @return the latencies in milliseconds, by player name
+     */
+    Map<String, Long> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+
+    /**
+     * A send to a client.
+     */
+    @FunctionalInterface
+    private interface Interaction {
+        /**
+         * Sends something through the provided interface.
+         *
+         * @param toClient the interface of the receiver
+         * @throws ToClientException if the client is unreachable
+         */
+        void run(ToClientInterface toClient) throws ToClientException;
+    }
+}
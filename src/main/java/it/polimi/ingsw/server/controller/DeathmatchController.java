@@ -1,9 +1,9 @@
 package it.polimi.ingsw.server.controller;
 
-import it.polimi.ingsw.communication.ToClientException;
 import it.polimi.ingsw.communication.ToClientInterface;
 import it.polimi.ingsw.communication.UpdateBuilder;
 import it.polimi.ingsw.communication.User;
+import it.polimi.ingsw.communication.protocol.MessageType;
 import it.polimi.ingsw.communication.protocol.Notification;
 import it.polimi.ingsw.server.controller.turns.*;
 import it.polimi.ingsw.server.model.AmmoCube;
@@ -11,12 +11,18 @@ import it.polimi.ingsw.server.model.Damageable;
 import it.polimi.ingsw.server.model.board.Configurations;
 import it.polimi.ingsw.server.model.board.GameBoard;
 import it.polimi.ingsw.server.model.board.KillshotTrack;
+import it.polimi.ingsw.server.metrics.ServerMetrics;
 import it.polimi.ingsw.server.model.player.Player;
-import it.polimi.ingsw.server.persistency.FromFile;
+import it.polimi.ingsw.server.persistency.*;
 import it.polimi.ingsw.server.serverlogic.ServerMain;
 import it.polimi.ingsw.server.serverlogic.SuspensionListener;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 /**
@@ -37,7 +43,28 @@ import java.util.stream.Collectors;
  * {@link GameBoard}.
  * <p>
  * As a {@link SuspensionListener}, this will be notified when a player is
- * suspended, and will ensure that will skip his turns.
+ * suspended, and will ensure that will skip his turns. The suspensions and
+ * the resumptions notified by other threads, such as the ones sending the
+ * updates, are applied by the thread of the match after the next answer or
+ * at the start of the next turn: they are recorded where the replay of the
+ * journal applies them.
+ * <p>
+ * A {@link MatchListener} is notified of the start of each turn and of the
+ * end of the match; the default one removes the match from the hall.
+ * <p>
+ * A match can keep a {@link MatchJournal}: the seed of the decks, the
+ * answers of the players, the suspensions and the turns are recorded, so
+ * that the match can be {@linkplain #recover(MatchJournal, MatchListener)
+ * recovered} by playing it again until the last record and then going on
+ * with the players that reconnect.
+ * <p>
+ * At the end of each turn a {@link MatchSnapshot} of the match is taken and
+ * written in background: a match is recovered from its last snapshot,
+ * replaying only the records that follow it.
+ * <p>
+ * Spectators can watch the match: they receive the public part of the
+ * updates sent to the players through a {@link SpectatorFeed}, which never
+ * slows the match down.
  *
  * @author Fahed B. Tej
  * @author Abbo Giulio A.
@@ -62,8 +89,83 @@ public class DeathmatchController implements SuspensionListener, ScoreListener {
      * Damageable objects killed in the turn, they will eventually be scored.
      */
     private List<Damageable> killedInTurn;
+    /**
+     * Sends the updates and the notifications to the players.
+     */
+    private final Broadcaster broadcaster;
+    /**
+     * Streams the updates to the spectators.
+     */
+    private final SpectatorFeed spectators;
+    /**
+     * Follows the turns and the end of the match.
+     */
+    private final MatchListener listener;
     private boolean gameOver;
     private boolean frenzy;
+    /**
+     * The suspensions and the resumptions notified by other threads, still
+     * to be applied by the thread of the match.
+     */
+    private final Queue<Runnable> pending;
+    /**
+     * The thread running the match, null before the start.
+     */
+    private volatile Thread matchThread;
+    /**
+     * Seconds the players of a recovered match have to reconnect.
+     */
+    private static int secondsForReconnection = 60;
+    /**
+     * The journal of the match, null if it is not recorded.
+     */
+    private final MatchJournal journal;
+    /**
+     * The interfaces of the players that record their answers, by name;
+     * empty if the match is not recorded.
+     */
+    private final Map<String, JournalingClient> journaled;
+    /**
+     * The records still to replay, empty when the match is live.
+     */
+    private final Deque<JournalRecord> replay;
+    /**
+     * Whether the match is being replayed from its journal.
+     */
+    private volatile boolean replaying;
+    /**
+     * The record expected when the match diverged from the journal, null if
+     * it did not.
+     */
+    private String divergence;
+    /**
+     * The seed of the decks.
+     */
+    private final long seed;
+    /**
+     * Writes the snapshots of the match, null if the match is not recorded.
+     */
+    private final SnapshotWriter snapshots;
+    /**
+     * The phase of the match.
+     */
+    private Phase phase;
+    /**
+     * The iterator over the players of the phase, null before the start.
+     */
+    private PlayerIterator iterator;
+    /**
+     * The player of the current turn.
+     */
+    private Player currentPlayer;
+    /**
+     * The players by score once the match is over, null before.
+     */
+    private List<Player> winners;
+    /**
+     * The position of the player who triggered the final frenzy.
+     */
+    private int whoTriggered;
 
     /**
      * Constructs a controller with the provided parameters.
@@ -75,17 +177,299 @@ public class DeathmatchController implements SuspensionListener, ScoreListener {
      * @param configuration the configuration of the squares on the board
      */
     public DeathmatchController(List<? extends User> users, int skullsLeft, Configurations configuration) {
+        this(byName(users), skullsLeft, configuration, new HallListener());
+    }
+
+    /**
+     * Constructs a controller like {@link #DeathmatchController(List, int,
+     * Configurations)} whose decks are shuffled from the provided seed and
+     * that records the match in the provided journal.
+     *
+     * @param users         the users that will be the players of the game
+     * @param skullsLeft    the number of initial skulls on the board
+     * @param configuration the configuration of the squares on the board
+     * @param seed          the seed of the decks
+     * @param journal       the empty journal of the match, null if the match
+     *                      is not recorded
+     */
+    public DeathmatchController(List<? extends User> users, int skullsLeft, Configurations configuration,
+                                long seed, MatchJournal journal) {
+        this(byName(users), skullsLeft, configuration, new HallListener(), seed, journal);
+    }
 
-        /*Constructing the players from the users*/
+    /**
+     * Constructs a controller whose players communicate through the
+     * provided interfaces, without a {@link User} and outside the hall.
+     * The order of the map will determine the order of the turns.
+     *
+     * @param clients       the interfaces of the players, by name
+     * @param skullsLeft    the number of initial skulls on the board
+     * @param configuration the configuration of the squares on the board
+     * @param listener      notified of the turns and of the end of the match
+     */
+    public DeathmatchController(Map<String, ? extends ToClientInterface> clients, int skullsLeft,
+                                Configurations configuration, MatchListener listener) {
+        this(clients, skullsLeft, configuration, listener, new Random().nextLong(), null);
+    }
+
+    /**
+     * Constructs a controller whose decks are shuffled from the provided
+     * seed and that records the match in the provided journal.
+     * The order of the map will determine the order of the turns.
+     *
+     * @param clients       the interfaces of the players, by name
+     * @param skullsLeft    the number of initial skulls on the board
+     * @param configuration the configuration of the squares on the board
+     * @param listener      notified of the turns and of the end of the match
+     * @param seed          the seed of the decks
+     * @param journal       the empty journal of the match, null if the match
+     *                      is not recorded
+     */
+    public DeathmatchController(Map<String, ? extends ToClientInterface> clients, int skullsLeft,
+                                Configurations configuration, MatchListener listener, long seed,
+                                MatchJournal journal) {
+        this(clients, skullsLeft, configuration, listener, seed, journal, null);
+        record(JournalRecord.start(new ArrayList<>(clients.keySet()), skullsLeft, configuration.getId(), seed));
+    }
+
+    /**
+     * Constructs a controller that replays the provided records before
+     * going on.
+     *
+     * @param clients       the interfaces of the players, by name; null if
+     *                      the player is not connected
+     * @param skullsLeft    the number of initial skulls on the board
+     * @param configuration the configuration of the squares on the board
+     * @param listener      notified of the turns and of the end of the match
+     * @param seed          the seed of the decks
+     * @param journal       the journal of the match, null if the match is
+     *                      not recorded
+     * @param toReplay      the records after the start, null if the match
+     *                      is not rebuilt from a journal
+     */
+    private DeathmatchController(Map<String, ? extends ToClientInterface> clients, int skullsLeft,
+                                 Configurations configuration, MatchListener listener, long seed,
+                                 MatchJournal journal, List<JournalRecord> toReplay) {
+        this.journal = journal;
+        this.seed = seed;
+        snapshots = journal == null ? null : new SnapshotWriter(MatchSnapshot.fileOf(journal.getFile()));
+        replay = toReplay == null ? new ArrayDeque<>() : new ArrayDeque<>(toReplay);
+        replaying = toReplay != null;
+        journaled = new LinkedHashMap<>();
+
+        /*Constructing the players from the clients, recording their answers if needed*/
         players = new ArrayList<>();
-        users.forEach(u -> players.add(new Player(u.getName(), u, this)));
+        clients.forEach((name, client) -> {
+            if (journal == null && !replaying) {
+                players.add(new Player(name, client, this));
+                return;
+            }
+            JournalingClient recording = new JournalingClient(name, client, this);
+            journaled.put(name, recording);
+            players.add(new Player(name, recording, this));
+        });
+        this.listener = listener;
 
-        board = new GameBoard(new KillshotTrack(skullsLeft), FromFile.maps().get(Integer.toString(configuration.getId())));
+        String map = Integer.toString(configuration.getId());
+        board = new GameBoard(new KillshotTrack(skullsLeft), FromFile.maps().get(map),
+                FromFile.maps().getTopology(map), seed);
 
         suspendedPlayers = new ArrayList<>();
         killedInTurn = new ArrayList<>();
+        pending = new ConcurrentLinkedQueue<>();
+        broadcaster = new Broadcaster(players.size());
+        spectators = new SpectatorFeed();
+        spectators.publish(new UpdateBuilder().setConfigurationId(configuration.getId()).build());
         gameOver = false;
         frenzy = false;
+        phase = Phase.FIRST;
+    }
+
+    /**
+     * Sets how long the broadcasts wait for the acks of the players before
+     * marking them as lagging.
+     *
+     * @param millis the deadline in milliseconds
+     */
+    public static void setBroadcastDeadline(int millis) {
+        Broadcaster.setDeadline(millis);
+    }
+
+    /**
+     * Sets how long the players of a recovered match have to reconnect
+     * before being suspended.
+     *
+     * @param seconds the time to reconnect in seconds
+     */
+    public static void setSecondsForReconnection(int seconds) {
+        secondsForReconnection = seconds;
+    }
+
+    /**
+     * Rebuilds a match from its journal.
+     * When {@linkplain #start() started}, the match is played again from the
+     * records without asking the players, then it goes on from the last
+     * record; the players join again through {@link #playerUpdate(String,
+     * ToClientInterface)} and the new records are appended to the journal.
+     * <p>
+     * If the match has a snapshot, its state is restored and only the
+     * records after it are played again; a snapshot that can not be
+     * restored is ignored.
+     *
+     * @param journal  the journal of the match, opened after a restart
+     * @param listener notified of the turns and of the end of the match
+     * @return the controller of the match
+     * @throws IllegalArgumentException if the journal does not start with
+     *                                  the start of a match
+     */
+    public static DeathmatchController recover(MatchJournal journal, MatchListener listener) {
+        List<JournalRecord> records = journal.getRecords();
+        MatchSnapshot snapshot = readSnapshot(journal);
+        if (snapshot != null) {
+            DeathmatchController recovered = rebuild(records, snapshot.getRecords(), listener, journal);
+            if (recovered.restore(snapshot)) {
+                ServerMain.getLog().info(() -> "Snapshot restored after " + snapshot.getRecords() + " of " +
+                        records.size() + " records: " + journal.getFile());
+                return recovered;
+            }
+        }
+        return rebuild(records, 1, listener, journal);
+    }
+
+    /**
+     * Reads the snapshot of the match recorded in the provided journal.
+     *
+     * @param journal the journal of the match
+     * @return the snapshot, null if there is none or it is not of the match
+     * in the journal
+     */
+    private static MatchSnapshot readSnapshot(MatchJournal journal) {
+        List<JournalRecord> records = journal.getRecords();
+        Path file = MatchSnapshot.fileOf(journal.getFile());
+        MatchSnapshot snapshot;
+        try {
+            snapshot = MatchSnapshot.read(file);
+        } catch (IOException e) {
+            ServerMain.getLog().log(Level.WARNING, "Snapshot not read", e);
+            return null;
+        }
+        if (snapshot == null || records.isEmpty() || records.get(0).getType() != JournalRecord.Type.START)
+            return null;
+
+        /*The journal could have lost the last records, if the system stopped before they were written*/
+        if (snapshot.getSeed() != records.get(0).getSeed() || snapshot.getRecords() < 1 ||
+                snapshot.getRecords() > records.size()) {
+            ServerMain.getLog().warning(() -> "Snapshot not matching the journal: " + file);
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Rebuilds a match from its records, without players and without a
+     * journal.
+     * When {@linkplain #start() started}, the match is played again as fast
+     * as possible: the questions are answered from the records and nothing
+     * is sent. If the records are over before the end of the match, the
+     * players are suspended at their next question.
+     *
+     * @param records  the records of the match, the last one can be its end
+     * @param listener notified of the turns and of the end of the match
+     * @return the controller of the match
+     * @throws IllegalArgumentException if the records do not start with the
+     *                                  start of a match
+     */
+    public static DeathmatchController replay(List<JournalRecord> records, MatchListener listener) {
+        if (!records.isEmpty() && records.get(records.size() - 1).getType() == JournalRecord.Type.END)
+            records = records.subList(0, records.size() - 1);
+        return rebuild(records, 1, listener, null);
+    }
+
+    /**
+     * Rebuilds a match from its records.
+     *
+     * @param records  the records of the match
+     * @param from     the position of the first record to replay
+     * @param listener notified of the turns and of the end of the match
+     * @param journal  the journal where the match goes on, null if it is not
+     *                 recorded
+     * @return the controller of the match
+     * @throws IllegalArgumentException if the records do not start with the
+     *                                  start of a match
+     */
+    private static DeathmatchController rebuild(List<JournalRecord> records, int from, MatchListener listener,
+                                                MatchJournal journal) {
+        if (records.isEmpty() || records.get(0).getType() != JournalRecord.Type.START)
+            throw new IllegalArgumentException("Not the journal of a match" +
+                    (journal == null ? "" : ": " + journal.getFile()));
+
+        JournalRecord start = records.get(0);
+        Map<String, ToClientInterface> clients = new LinkedHashMap<>();
+        start.getPlayers().forEach(name -> clients.put(name, null));
+        return new DeathmatchController(clients, start.getSkulls(), Configurations.of(start.getConfiguration()),
+                listener, start.getSeed(), journal, records.subList(from, records.size()));
+    }
+
+    /**
+     * Rebuilds a match from its journal, removing it from the hall when it is
+     * over.
+     *
+     * @param journal the journal of the match, opened after a restart
+     * @return the controller of the match
+     * @throws IllegalArgumentException if the journal does not start with
+     *                                  the start of a match
+     */
+    public static DeathmatchController recover(MatchJournal journal) {
+        return recover(journal, new HallListener());
+    }
+
+    /**
+     * Returns the names of the players, in the order of the turns.
+     *
+     * @return the names of the players
+     */
+    public List<String> getPlayerNames() {
+        return players.stream().map(Player::getName).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the file of the journal of the match.
+     *
+     * @return the file of the journal, null if the match is not recorded
+     */
+    public Path getJournalFile() {
+        return journal == null ? null : journal.getFile();
+    }
+
+    /**
+     * Adds a spectator to the match.
+     * The spectator receives the public state of the match and then the
+     * public part of the updates, until the match is over.
+     *
+     * @param spectator the interface of the spectator
+     */
+    public void addSpectator(ToClientInterface spectator) {
+        spectators.subscribe(spectator);
+    }
+
+    /**
+     * Returns the number of spectators of the match.
+     *
+     * @return the spectators watching the match
+     */
+    public int getSpectators() {
+        return spectators.size();
+    }
+
+    /**
+     * Returns where the match went differently from the records it was
+     * rebuilt from.
+     *
+     * @return the record that was expected, as a string, or null if the
+     * match followed its records
+     */
+    public String getDivergence() {
+        return divergence;
     }
 
     /**
@@ -97,44 +481,60 @@ public class DeathmatchController implements SuspensionListener, ScoreListener {
      * <li>Final scoring</li></ul>
      */
     public void start() {
+        matchThread = Thread.currentThread();
+        if (replaying)
+            replaySuspensions();
         updateAllPlayers(fullUpdate());
-        Player currentPlayer = players.get(0);
-        updateAllPlayers(new UpdateBuilder().setCurrent(currentPlayer));
-
-        /*First turn for the players not suspended*/
-        Iterator<Player> iterator = new PlayerIterator(players.get(0), false);
-        while (iterator.hasNext()) {
-            currentPlayer = iterator.next();
+        if (iterator == null) {
+            currentPlayer = players.get(0);
             updateAllPlayers(new UpdateBuilder().setCurrent(currentPlayer));
-            new FirstTurn(this::updateAllPlayers).startTurn(currentPlayer, new ArrayList<>(players), board);
-            if (!suspendedPlayers.contains(currentPlayer))
-                turn(new NormalTurn(this::updateAllPlayers), currentPlayer);
+            iterator = new PlayerIterator(players.get(0), false);
         }
 
-        /*Ensuring that all the players are on the board, the default is the blue spawn*/
-        for (Player p : players)
-            if (p.getPosition() == null)
-                p.setPosition(board.findSpawn(AmmoCube.BLUE));
+        if (phase == Phase.FIRST) {
 
-        /*A series of normal turns interrupted by Final Frenzy*/
-        iterator = new PlayerIterator(players.get(0), true);
-        while (!board.checkFinalFrenzy() && iterator.hasNext()) {
-            currentPlayer = iterator.next();
-            updateAllPlayers(new UpdateBuilder().setCurrent(currentPlayer));
-            turn(new NormalTurn(this::updateAllPlayers), currentPlayer);
+            /*First turn for the players not suspended*/
+            while (iterator.hasNext()) {
+                currentPlayer = iterator.next();
+                turnStarted(currentPlayer);
+                updateAllPlayers(new UpdateBuilder().setCurrent(currentPlayer));
+                new FirstTurn(this::updateAllPlayers).startTurn(currentPlayer, new ArrayList<>(players), board);
+                if (!suspendedPlayers.contains(currentPlayer))
+                    turn(new NormalTurn(this::updateAllPlayers), currentPlayer);
+            }
+
+            /*Ensuring that all the players are on the board, the default is the blue spawn*/
+            for (Player p : players)
+                if (p.getPosition() == null)
+                    p.setPosition(board.findSpawn(AmmoCube.BLUE));
+            phase = Phase.NORMAL;
+            iterator = new PlayerIterator(players.get(0), true);
         }
 
-        /*Setting up final frenzy*/
-        int whoTriggered = players.indexOf(currentPlayer);
-        currentPlayer = (gameOver) ? currentPlayer : iterator.next();
-        frenzy = true;
-        players.forEach(Player::setupFinalFrenzy);
-        updateAllPlayers(fullUpdate());
+        if (phase == Phase.NORMAL) {
+
+            /*A series of normal turns interrupted by Final Frenzy*/
+            while (!board.checkFinalFrenzy() && iterator.hasNext()) {
+                currentPlayer = iterator.next();
+                turnStarted(currentPlayer);
+                updateAllPlayers(new UpdateBuilder().setCurrent(currentPlayer));
+                turn(new NormalTurn(this::updateAllPlayers), currentPlayer);
+            }
+
+            /*Setting up final frenzy*/
+            whoTriggered = players.indexOf(currentPlayer);
+            currentPlayer = (gameOver) ? currentPlayer : iterator.next();
+            frenzy = true;
+            players.forEach(Player::setupFinalFrenzy);
+            updateAllPlayers(fullUpdate());
+            phase = Phase.FRENZY;
+            iterator = new PlayerIterator(currentPlayer, false);
+        }
 
         /*Final frenzy from the player after who started it*/
-        iterator = new PlayerIterator(currentPlayer, false);
         while (iterator.hasNext()) {
             currentPlayer = iterator.next();
+            turnStarted(currentPlayer);
             updateAllPlayers(new UpdateBuilder().setCurrent(currentPlayer));
             if (players.indexOf(currentPlayer) > whoTriggered) {
 
@@ -155,48 +555,227 @@ public class DeathmatchController implements SuspensionListener, ScoreListener {
         scoreBoard();
 
         /*Notifying who won and ending the match*/
-        updateAllPlayers(new UpdateBuilder().setWinners(players.stream()
-                .sorted(Comparator.comparingInt(Player::getScore)).collect(Collectors.toList())));
-        ServerMain.getDeathMatchHall().removeMatch(this);
+        winners = players.stream()
+                .sorted(Comparator.comparingInt(Player::getScore)).collect(Collectors.toList());
+        updateAllPlayers(new UpdateBuilder().setWinners(winners));
+        record(JournalRecord.end(players.stream().map(Player::getScore).collect(Collectors.toList())));
+        if (journal != null) {
+            journal.close();
+            snapshots.delete();
+        }
+        listener.matchOver(this, new ArrayList<>(players));
         notifyAllPlayers(Notification.NotificationType.QUIT);
+        broadcaster.close();
+        spectators.close();
+    }
+
+    /**
+     * Notifies the listener of the start of a turn and records it, or checks
+     * it against the journal while replaying.
+     * The journal is written on the storage at each turn. This is called
+     * right after choosing the player, before anything is sent, so that no
+     * other record comes in between.
+     *
+     * @param current the player that will play the turn
+     */
+    private void turnStarted(Player current) {
+        listener.turnStarted(current);
+        if (replaying) {
+            JournalRecord next = replay.peek();
+            if (next != null && next.getType() == JournalRecord.Type.TURN &&
+                    current.getName().equals(next.getPlayer())) {
+                replay.poll();
+                replaySuspensions();
+            } else {
+                diverged(next);
+            }
+        } else if (journal != null) {
+            journal.append(JournalRecord.turn(current.getName()));
+            journal.force();
+        }
+        applyPending();
+    }
+
+    /**
+     * Runs the provided change of the suspensions now if called by the
+     * thread of the match, otherwise leaves it to that thread.
+     *
+     * @param change the suspension or resumption
+     */
+    private void onMatchThread(Runnable change) {
+        if (Thread.currentThread() == matchThread)
+            change.run();
+        else
+            pending.add(change);
+    }
+
+    /**
+     * Applies the suspensions and the resumptions notified by other threads.
+     * This is only done by the thread of the match once the replay is over,
+     * right after a record, so that replaying the journal applies them at the
+     * same point.
+     */
+    void applyPending() {
+        if (replaying || Thread.currentThread() != matchThread)
+            return;
+        Runnable change = pending.poll();
+        while (change != null) {
+            change.run();
+            change = pending.poll();
+        }
+    }
+
+    /**
+     * Appends the provided record to the journal, if the match is recorded
+     * and is not being replayed.
+     *
+     * @param record the record
+     */
+    void record(JournalRecord record) {
+        if (journal != null && !replaying)
+            journal.append(record);
+    }
+
+    /**
+     * Returns whether the match is being replayed from its journal.
+     *
+     * @return true until the replay is over
+     */
+    boolean isReplaying() {
+        return replaying;
+    }
+
+    /**
+     * Returns the next answer of the provided player while replaying.
+     *
+     * @param player   the name of the player asked
+     * @param question the question asked
+     * @return the record of the answer, null if the match is live
+     */
+    JournalRecord replay(String player, MessageType question) {
+        if (!replaying)
+            return null;
+        JournalRecord next = replay.peek();
+        if (next != null && player.equals(next.getPlayer()) && question == next.getQuestion() &&
+                (next.getType() == JournalRecord.Type.CHOICE || next.getType() == JournalRecord.Type.REFUSED ||
+                        next.getType() == JournalRecord.Type.FAILED)) {
+            replay.poll();
+            replaySuspensions();
+            return next;
+        }
+        diverged(next);
+        return null;
+    }
+
+    /**
+     * Applies the suspensions that follow in the journal; if the journal is
+     * over, the match goes on live.
+     */
+    private void replaySuspensions() {
+        while (!replay.isEmpty() && (replay.peek().getType() == JournalRecord.Type.SUSPENDED ||
+                replay.peek().getType() == JournalRecord.Type.RESUMED)) {
+            JournalRecord next = replay.poll();
+            for (Player p : players)
+                if (p.getName().equals(next.getPlayer())) {
+                    if (next.getType() == JournalRecord.Type.SUSPENDED)
+                        suspend(p);
+                    else
+                        suspendedPlayers.remove(p);
+                }
+        }
+        if (replay.isEmpty())
+            goLive();
+    }
+
+    /**
+     * Stops replaying because the match went differently from the journal:
+     * the match goes on live from here.
+     *
+     * @param expected the record that was expected, null if the journal is
+     *                 over
+     */
+    void diverged(JournalRecord expected) {
+        if (!replaying)
+            return;
+        divergence = String.valueOf(expected);
+        ServerMain.getLog().log(Level.SEVERE, () -> "Journal diverged at " + expected +
+                (journal == null ? "" : " in " + journal.getFile()));
+        replay.clear();
+        goLive();
+    }
+
+    /**
+     * Ends the replay: the players that reconnected meanwhile resume, the
+     * others have some time to reconnect; nobody can reconnect to a match
+     * without a journal.
+     */
+    private void goLive() {
+        replaying = false;
+        if (journal == null)
+            return;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(secondsForReconnection);
+        for (Player p : players) {
+            JournalingClient client = journaled.get(p.getName());
+            client.setDeadline(deadline);
+            if (client.hasClient() && suspendedPlayers.remove(p))
+                record(JournalRecord.suspension(p.getName(), false));
+        }
+        ServerMain.getLog().info(() -> "Match recovered: " + getPlayerNames());
+        updateAllPlayers(fullUpdate());
     }
 
     /**
      * Notifies all not suspended players.
+     * The notification is sent to everyone concurrently; nothing is sent
+     * while replaying the journal.
      *
      * @param notificationType the notification to send
      */
     private void notifyAllPlayers(Notification.NotificationType notificationType) {
-        for (Player p : players) {
-            if (!suspendedPlayers.contains(p)) {
-                try {
-                    p.getToClient().sendNotification(notificationType);
-                } catch (ToClientException ignored) {
-                    /*Ignored because there is nothing to recover from*/
-                }
-            }
-        }
+        if (replaying)
+            return;
+        broadcaster.notify(connectedPlayers(), notificationType, this::fullUpdate);
     }
 
     /**
-     * Updates all not suspended players.
+     * Updates all not suspended players and the spectators.
+     * The updates are built once and the same objects are sent to everyone
+     * concurrently; a player that is still busy with a previous update will
+     * receive a full one later.
+     * Nothing is sent while replaying the journal.
      *
      * @param update the update to send
      */
     private void updateAllPlayers(UpdateBuilder update) {
-        if (update == null) update = fullUpdate();
-        for (Player p : players) {
-            if (!suspendedPlayers.contains(p)) {
-                try {
-                    p.getToClient().sendUpdate(update);
-                } catch (ToClientException ignored) {
-                    /*Ignored because there is nothing to recover from*/
-                }
-            }
-        }
+        if (replaying)
+            return;
+        UpdateBuilder built = UpdateBuilder.of((update == null ? fullUpdate() : update).build());
+        spectators.publish(built.build());
+        broadcaster.update(connectedPlayers(), built, this::fullUpdate);
+    }
+
+    /**
+     * Returns the players that are not suspended.
+     *
+     * @return the players that are not suspended
+     */
+    private List<Player> connectedPlayers() {
+        List<Player> connected = new ArrayList<>(players);
+        connected.removeAll(suspendedPlayers);
+        return connected;
     }
 
+    /**
+     * Returns an update with the whole state of the match, already built.
+     * It has the current player, or the winners once the match is over, so
+     * that a player who missed some updates catches up with the turns too.
+     * The time taken to build it is recorded in the {@link ServerMetrics};
+     * while replaying the journal it is not built, since it is not sent.
+     *
+     * @return the update with the whole state of the match
+     */
     private UpdateBuilder fullUpdate() {
+        long start = System.nanoTime();
         UpdateBuilder updateBuilder = new UpdateBuilder()
                 .setAmmoCards(board)
                 .setWeaponsOnBoard(board)
@@ -216,18 +795,28 @@ public class DeathmatchController implements SuspensionListener, ScoreListener {
                     .setUnloadedWeapon(p, p.getReloadableWeapons())
                     .setPowerupsInHand(p, p.getAllPowerup());
         }
-        return updateBuilder;
+        if (winners == null)
+            updateBuilder.setCurrent(currentPlayer);
+        else
+            updateBuilder.setWinners(winners);
+        if (replaying)
+            return updateBuilder;
+        UpdateBuilder built = UpdateBuilder.of(updateBuilder.build());
+        ServerMetrics.fullUpdates().recordSince(start);
+        return built;
     }
 
     /**
      * Deals with the provided turn of the current player.
      * This also scores all the killed players and respawns them.
-     * After this the board will be ready for the next turn.
+     * After this the board will be ready for the next turn; its duration is
+     * recorded in the {@link ServerMetrics}.
      *
      * @param turnInterface the turn that will be run
      * @param currentPlayer the player that will run this turn
      */
     private void turn(TurnInterface turnInterface, Player currentPlayer) {
+        long start = System.nanoTime();
         turnInterface.startTurn(currentPlayer, new ArrayList<>(players), board);
         scoreAllKilled();
         board.replaceAll();
@@ -239,6 +828,60 @@ public class DeathmatchController implements SuspensionListener, ScoreListener {
         }
         emptyKilledList();
         updateAllPlayers(fullUpdate());
+        if (!replaying)
+            ServerMetrics.turns().recordSince(start);
+        snapshot();
+    }
+
+    /**
+     * Takes a snapshot of the match, that is written in background.
+     * The snapshot is taken at the end of a turn, when the board is ready for
+     * the next one: only the state of the model and the position of the
+     * turns are saved. Nothing is taken while replaying, the journal is
+     * ahead of the match.
+     */
+    private void snapshot() {
+        if (snapshots == null || replaying)
+            return;
+        SnapshotOutput out = new SnapshotOutput(players);
+        out.writeByte(phase.ordinal());
+        iterator.save(out);
+        out.writePlayer(currentPlayer);
+        out.writeByte(whoTriggered);
+        out.writeBoolean(frenzy);
+        out.writeBoolean(gameOver);
+        out.writePlayers(suspendedPlayers);
+        board.save(out);
+        players.forEach(p -> p.save(out));
+        snapshots.write(new MatchSnapshot(seed, journal.size(), out.toByteArray()));
+    }
+
+    /**
+     * Restores the state saved in the provided snapshot, before the start.
+     *
+     * @param snapshot the snapshot of this match
+     * @return false if the snapshot could not be restored
+     */
+    private boolean restore(MatchSnapshot snapshot) {
+        try {
+            SnapshotInput in = new SnapshotInput(snapshot.getState(), players, board.getAllSquares());
+            phase = Phase.values()[in.readByte()];
+            iterator = new PlayerIterator(in);
+            currentPlayer = in.readPlayer();
+            whoTriggered = in.readByte();
+            frenzy = in.readBoolean();
+            gameOver = in.readBoolean();
+            suspendedPlayers = in.readPlayers();
+            board.restore(in);
+            for (Player p : players)
+                p.restore(in);
+            if (!in.isOver())
+                throw new IllegalArgumentException("Not the state of this match");
+            return true;
+        } catch (RuntimeException e) {
+            ServerMain.getLog().log(Level.WARNING, "Snapshot not restored: " + journal.getFile(), e);
+            return false;
+        }
     }
 
     /**
@@ -247,10 +890,26 @@ public class DeathmatchController implements SuspensionListener, ScoreListener {
     @Override
     public void playerSuspension(String player) {
         for (Player p : players)
-            if (p.getName().equals(player) && !suspendedPlayers.contains(p)) {
-                suspendedPlayers.add(p);
-                break;
+            if (p.getName().equals(player)) {
+                onMatchThread(() -> {
+                    if (!suspendedPlayers.contains(p)) {
+                        suspend(p);
+                        record(JournalRecord.suspension(player, true));
+                    }
+                });
+                return;
             }
+    }
+
+    /**
+     * Suspends the provided player, the game is over if less than three
+     * players are left.
+     *
+     * @param player the player to suspend
+     */
+    private void suspend(Player player) {
+        if (!suspendedPlayers.contains(player))
+            suspendedPlayers.add(player);
         if (players.size() - suspendedPlayers.size() < 3) {
             gameOver = true;
         }
@@ -263,22 +922,41 @@ public class DeathmatchController implements SuspensionListener, ScoreListener {
     public void playerResumption(String player) {
         for (Player p : players)
             if (p.getName().equals(player)) {
-                suspendedPlayers.remove(p);
-                updateAllPlayers(fullUpdate());
+                onMatchThread(() -> resume(p));
                 return;
             }
     }
 
+    /**
+     * Resumes the provided player and sends the whole state to everyone.
+     *
+     * @param player the player back online
+     */
+    private void resume(Player player) {
+        if (suspendedPlayers.remove(player))
+            record(JournalRecord.suspension(player.getName(), false));
+        updateAllPlayers(fullUpdate());
+    }
+
     /**
      * {@inheritDoc}
+     * <p>
+     * While the match is replayed from its journal, the player will resume
+     * when the replay is over.
      */
     @Override
     public boolean playerUpdate(String player, ToClientInterface newConnection) {
         for (Player p : players)
             if (p.getName().equals(player)) {
-                suspendedPlayers.remove(p);
-                p.setToClient(newConnection);
-                updateAllPlayers(fullUpdate());
+                JournalingClient client = journaled.get(player);
+                if (client == null) {
+                    p.setToClient(newConnection);
+                } else {
+                    client.setClient(newConnection);
+                    if (replaying)
+                        return true;
+                }
+                onMatchThread(() -> resume(p));
                 return true;
             }
         return false;
@@ -354,6 +1032,41 @@ public class DeathmatchController implements SuspensionListener, ScoreListener {
         killedInTurn.clear();
     }
 
+    /**
+     * Returns the provided users by name, in the same order.
+     *
+     * @param users the users
+     * @return the users by name
+     */
+    private static Map<String, User> byName(List<? extends User> users) {
+        Map<String, User> clients = new LinkedHashMap<>();
+        users.forEach(u -> clients.put(u.getName(), u));
+        return clients;
+    }
+
+    /**
+     * The listener of the matches started by the hall, it removes them from
+     * the hall when they are over.
+     */
+    private static class HallListener implements MatchListener {
+        @Override
+        public void turnStarted(Player current) {
+            /*The hall does not follow the turns*/
+        }
+
+        @Override
+        public void matchOver(DeathmatchController match, List<Player> players) {
+            ServerMain.getDeathMatchHall().removeMatch(match);
+        }
+    }
+
+    /**
+     * The phases of the match.
+     */
+    private enum Phase {
+        FIRST, NORMAL, FRENZY
+    }
+
     /**
      * This iterates over the player in the match that are not suspended.
      */
@@ -391,8 +1104,40 @@ public class DeathmatchController implements SuspensionListener, ScoreListener {
             next = validNext(from);
         }
 
+        /**
+         * An iterator in the state saved by {@link #save(SnapshotOutput)}.
+         *
+         * @param in where the state is read
+         */
+        PlayerIterator(SnapshotInput in) {
+            isCircular = in.readBoolean();
+            start = in.readByte();
+            index = in.readByte();
+            next = in.readPlayer();
+        }
+
+        /**
+         * Saves the state of this iterator.
+         *
+         * @param out where the state is saved
+         */
+        void save(SnapshotOutput out) {
+            out.writeBoolean(isCircular);
+            out.writeByte(start);
+            out.writeByte(index);
+            out.writePlayer(next);
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * If the match is not recorded, the suspensions notified meanwhile
+         * are applied first.
+         */
         @Override
         public boolean hasNext() {
+            if (journal == null)
+                applyPending();
             if (suspendedPlayers.contains(next))
                 next = validNext(next);
             return next != null && !gameOver;
@@ -0,0 +1,377 @@
+package it.polimi.ingsw.server.controller;
+
+import it.polimi.ingsw.communication.ChoiceRefusedException;
+import it.polimi.ingsw.communication.CommunicationHelper;
+import it.polimi.ingsw.communication.ToClientException;
+import it.polimi.ingsw.communication.ToClientInterface;
+import it.polimi.ingsw.communication.UpdateBuilder;
+import it.polimi.ingsw.communication.protocol.MessageType;
+import it.polimi.ingsw.communication.protocol.Notification;
+import it.polimi.ingsw.server.controller.effects.Action;
+import it.polimi.ingsw.server.model.Damageable;
+import it.polimi.ingsw.server.model.board.Square;
+import it.polimi.ingsw.server.model.cards.PowerupCard;
+import it.polimi.ingsw.server.model.cards.WeaponCard;
+import it.polimi.ingsw.server.persistency.JournalRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The interface of a player in a journaled match: the questions are passed
+ * to the client of the player and the answers are recorded by the
+ * controller.
+ * <p>
+ * The answers are recorded by the keys of the chosen option, so they can be
+ * found again even if the options are offered in another order. While the
+ * controller is replaying its journal, the questions are answered from the
+ * journal and the client is not asked.
+ * <p>
+ * The client can be replaced when the player reconnects, and is missing
+ * for the players of a recovered match until they reconnect: the updates
+ * are dropped and the questions wait for the player until a deadline, then
+ * the player is suspended.
+ *
+ * @author Abbo Giulio A.
+ * @see DeathmatchController
+ */
+class JournalingClient implements ToClientInterface {
+    /**
+     * Translates the options into keys.
+     */
+    private static final CommunicationHelper HELPER = new CommunicationHelper();
+    /**
+     * The name of the player.
+     */
+    private final String name;
+    /**
+     * The controller recording and replaying the answers.
+     */
+    private final DeathmatchController controller;
+    /**
+     * The client of the player, null if the player did not reconnect after a
+     * recovery.
+     */
+    private ToClientInterface client;
+    /**
+     * Until when, in nanoseconds, a question waits for a missing client.
+     */
+    private long deadline;
+
+    /**
+     * Creates the interface of a player.
+     *
+     * @param name       the name of the player
+     * @param client     the client of the player, null if it is missing
+     * @param controller the controller recording the answers
+     */
+    JournalingClient(String name, ToClientInterface client, DeathmatchController controller) {
+        this.name = name;
+        this.client = client;
+        this.controller = controller;
+        deadline = System.nanoTime();
+    }
+
+    /**
+     * Replaces the client of the player.
+     *
+     * @param client the new client
+     */
+    synchronized void setClient(ToClientInterface client) {
+        this.client = client;
+        notifyAll();
+    }
+
+    /**
+     * Returns whether the client of the player is present.
+     *
+     * @return false if the player did not reconnect after a recovery
+     */
+    synchronized boolean hasClient() {
+        return client != null;
+    }
+
+    /**
+     * Sets until when the questions wait for a missing client.
+     *
+     * @param deadline the deadline, as given by {@linkplain System#nanoTime()}
+     */
+    synchronized void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns the client, waiting for it until the deadline if it is missing.
+     *
+     * @return the client or null if it did not come back in time
+     */
+    private synchronized ToClientInterface awaitClient() {
+        long left = deadline - System.nanoTime();
+        while (client == null && left > 0) {
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            left = deadline - System.nanoTime();
+        }
+        return client;
+    }
+
+    /**
+     * Returns the client without waiting; nothing is sent while replaying,
+     * the players receive everything when the replay is over.
+     *
+     * @return the client, null if it is missing or the match is replayed
+     */
+    private synchronized ToClientInterface currentClient() {
+        return controller.isReplaying() ? null : client;
+    }
+
+    /**
+     * Answers a question from the journal or asks it to the client,
+     * recording the answer.
+     *
+     * @param question the question
+     * @param options  the options offered
+     * @param keys     the keys of each option
+     * @param choice   asks the question to a client
+     * @param <T>      the type of the options
+     * @return the chosen option
+     * @throws ToClientException      if the player could not answer
+     * @throws ChoiceRefusedException if the player refused
+     */
+    private <T> T ask(MessageType question, List<T> options, List<List<String>> keys,
+                      Choice<T> choice) throws ToClientException, ChoiceRefusedException {
+        JournalRecord replayed = controller.replay(name, question);
+        if (replayed != null) {
+            T chosen = replay(replayed, options, keys);
+            if (chosen != null)
+                return chosen;
+            controller.diverged(replayed);
+        }
+
+        ToClientInterface current = awaitClient();
+        if (current == null) {
+
+            /*The player did not come back after the recovery*/
+            controller.playerSuspension(name);
+            controller.record(JournalRecord.failed(name, question));
+            throw new ToClientException("Not reconnected after the recovery");
+        }
+        try {
+            T chosen = choice.choose(current);
+            int index = indexOf(options, chosen);
+            controller.record(JournalRecord.choice(name, question, index,
+                    index < 0 ? Collections.emptyList() : keys.get(index)));
+            return chosen;
+        } catch (ChoiceRefusedException e) {
+            controller.record(JournalRecord.refused(name, question));
+            throw e;
+        } catch (ToClientException e) {
+            controller.record(JournalRecord.failed(name, question));
+            throw e;
+        } finally {
+
+            /*The suspensions notified meanwhile follow the answer*/
+            controller.applyPending();
+        }
+    }
+
+    /**
+     * Asks a question that can not be refused.
+     *
+     * @param question the question
+     * @param options  the options offered
+     * @param keys     the keys of each option
+     * @param choice   asks the question to a client
+     * @param <T>      the type of the options
+     * @return the chosen option
+     * @throws ToClientException if the player could not answer
+     */
+    private <T> T askNotRefusable(MessageType question, List<T> options, List<List<String>> keys,
+                                  Choice<T> choice) throws ToClientException {
+        try {
+            return ask(question, options, keys, choice);
+        } catch (ChoiceRefusedException e) {
+            throw new UnsupportedOperationException(e);
+        }
+    }
+
+    /**
+     * Returns the option recorded in the journal.
+     *
+     * @param replayed the record of the answer
+     * @param options  the options offered
+     * @param keys     the keys of each option
+     * @param <T>      the type of the options
+     * @return the recorded option, null if it is not among the options
+     * @throws ToClientException      if the player did not answer
+     * @throws ChoiceRefusedException if the player refused
+     */
+    private static <T> T replay(JournalRecord replayed, List<T> options, List<List<String>> keys)
+            throws ToClientException, ChoiceRefusedException {
+        switch (replayed.getType()) {
+            case REFUSED:
+                throw new ChoiceRefusedException();
+            case FAILED:
+                throw new ToClientException("Not answered in the journal");
+            default:
+                break;
+        }
+
+        /*The same position if the keys are the same, else the first one with the same keys*/
+        List<String> recorded = replayed.getKeys();
+        int index = replayed.getIndex();
+        if (index >= 0 && index < keys.size() && keys.get(index).equals(recorded))
+            return options.get(index);
+        for (int i = 0; i < keys.size(); i++)
+            if (keys.get(i).equals(recorded))
+                return options.get(i);
+
+        /*The targets can be listed in another order*/
+        List<String> sorted = new ArrayList<>(recorded);
+        Collections.sort(sorted);
+        for (int i = 0; i < keys.size(); i++) {
+            List<String> option = new ArrayList<>(keys.get(i));
+            Collections.sort(option);
+            if (option.equals(sorted))
+                return options.get(i);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the position of the chosen option.
+     *
+     * @param options the options offered
+     * @param chosen  the chosen option
+     * @param <T>     the type of the options
+     * @return the position of the chosen option, -1 if it is not an option
+     */
+    private static <T> int indexOf(List<T> options, T chosen) {
+        for (int i = 0; i < options.size(); i++)
+            if (options.get(i) == chosen)
+                return i;
+        return options.indexOf(chosen);
+    }
+
+    @Override
+    public Action chooseEffectsSequence(List<Action> options) throws ToClientException {
+        return askNotRefusable(MessageType.EFFECTS_SEQUENCE, options, HELPER.askEffect(options),
+                c -> c.chooseEffectsSequence(options));
+    }
+
+    @Override
+    public PowerupCard chooseSpawn(List<PowerupCard> options) throws ToClientException {
+        return askNotRefusable(MessageType.SPAWN, options, HELPER.askPowerup(options, false),
+                c -> c.chooseSpawn(options));
+    }
+
+    @Override
+    public PowerupCard choosePowerup(List<PowerupCard> options) throws ToClientException, ChoiceRefusedException {
+        return ask(MessageType.POWERUP, options, HELPER.askPowerup(options, false),
+                c -> c.choosePowerup(options));
+    }
+
+    @Override
+    public Square chooseDestination(List<Square> options) throws ToClientException {
+        return askNotRefusable(MessageType.DESTINATION, options, HELPER.askSquare(options),
+                c -> c.chooseDestination(options));
+    }
+
+    @Override
+    public WeaponCard chooseWeaponCard(List<WeaponCard> options) throws ToClientException {
+        return askNotRefusable(MessageType.WEAPON, options, HELPER.askWeapon(options, false),
+                c -> c.chooseWeaponCard(options));
+    }
+
+    @Override
+    public WeaponCard chooseWeaponToBuy(List<WeaponCard> options) throws ToClientException {
+        return askNotRefusable(MessageType.WEAPON_TO_BUY, options, HELPER.askWeapon(options, false),
+                c -> c.chooseWeaponToBuy(options));
+    }
+
+    @Override
+    public WeaponCard chooseWeaponToDiscard(List<WeaponCard> options) throws ToClientException {
+        return askNotRefusable(MessageType.WEAPON_TO_DISCARD, options, HELPER.askWeapon(options, false),
+                c -> c.chooseWeaponToDiscard(options));
+    }
+
+    @Override
+    public WeaponCard chooseWeaponToReload(List<WeaponCard> options) throws ToClientException, ChoiceRefusedException {
+        return ask(MessageType.WEAPON_TO_RELOAD, options, HELPER.askWeapon(options, false),
+                c -> c.chooseWeaponToReload(options));
+    }
+
+    @Override
+    public Action chooseAction(List<Action> options) throws ToClientException {
+        return askNotRefusable(MessageType.ACTION, options, HELPER.askAction(options),
+                c -> c.chooseAction(options));
+    }
+
+    @Override
+    public PowerupCard choosePowerupForPaying(List<PowerupCard> options) throws ToClientException {
+        return askNotRefusable(MessageType.POWERUP_FOR_PAYING, options, HELPER.askPowerup(options, false),
+                c -> c.choosePowerupForPaying(options));
+    }
+
+    @Override
+    public PowerupCard askUseTagback(List<PowerupCard> options) throws ToClientException, ChoiceRefusedException {
+        return ask(MessageType.USE_TAGBACK, options, HELPER.askPowerup(options, false),
+                c -> c.askUseTagback(options));
+    }
+
+    @Override
+    public List<Damageable> chooseTarget(List<List<Damageable>> options) throws ToClientException {
+        return askNotRefusable(MessageType.TARGET, options, HELPER.askDamageableList(options),
+                c -> c.chooseTarget(options));
+    }
+
+    @Override
+    public String chooseUserName() {
+        return name;
+    }
+
+    @Override
+    public void quit() throws ToClientException {
+        ToClientInterface current = currentClient();
+        if (current != null)
+            current.quit();
+    }
+
+    @Override
+    public void sendNotification(Notification.NotificationType type) throws ToClientException {
+        ToClientInterface current = currentClient();
+        if (current != null)
+            current.sendNotification(type);
+    }
+
+    @Override
+    public void sendUpdate(UpdateBuilder update) throws ToClientException {
+        ToClientInterface current = currentClient();
+        if (current != null)
+            current.sendUpdate(update);
+    }
+
+    /**
+     * A question asked to a client.
+     *
+     * @param <T> the type of the options
+     */
+    @FunctionalInterface
+    private interface Choice<T> {
+        /**
+         * Asks the question.
+         *
+         * @param client the client of the player
+         * @return the chosen option
+         * @throws ToClientException      if the player could not answer
+         * @throws ChoiceRefusedException if the player refused
+         */
+        T choose(ToClientInterface client) throws ToClientException, ChoiceRefusedException;
+    }
+}
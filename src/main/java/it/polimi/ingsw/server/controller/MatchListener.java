@@ -0,0 +1,34 @@
+package it.polimi.ingsw.server.controller;
+
+import it.polimi.ingsw.server.model.player.Player;
+
+import java.util.List;
+
+/**
+ * Classes implementing this will follow the progress of a match: they are
+ * notified when a turn starts and when the match is over.
+ * <p>
+ * The methods are called by the thread running the match, so they should
+ * return quickly.
+ *
+ * @author Abbo Giulio A.
+ * @see DeathmatchController
+ */
+public interface MatchListener {
+
+    /**
+     * Notifies that the provided player is starting a turn.
+     * The respawns are part of the turn in which the players were killed.
+     *
+     * @param current the player that will play the turn
+     */
+    void turnStarted(Player current);
+
+    /**
+     * Notifies that the match is over and everything has been scored.
+     *
+     * @param match   the controller of the match
+     * @param players the players of the match, in the order of the turns
+     */
+    void matchOver(DeathmatchController match, List<Player> players);
+}
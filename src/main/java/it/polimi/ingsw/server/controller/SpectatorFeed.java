@@ -0,0 +1,292 @@
+package it.polimi.ingsw.server.controller;
+
+import it.polimi.ingsw.communication.ToClientException;
+import it.polimi.ingsw.communication.ToClientInterface;
+import it.polimi.ingsw.communication.UpdateBuilder;
+import it.polimi.ingsw.communication.protocol.Notification;
+import it.polimi.ingsw.communication.protocol.Update;
+import it.polimi.ingsw.server.serverlogic.ServerMain;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the updates of a match to its spectators.
+ * <p>
+ * The updates are published once in a ring shared by all the spectators,
+ * with the private fields of the players hidden; each spectator has its own
+ * cursor in the ring and is served by a small pool of threads, that sends
+ * at once everything it has not received yet. Publishing never waits for
+ * the spectators: a spectator that falls behind more than the ring holds
+ * loses the updates in between and receives the public state of the match
+ * instead, shared by the spectators that resync at the same point.
+ * <p>
+ * Publishing is done by one thread, the one running the match.
+ *
+ * @author Abbo Giulio A.
+ * @see DeathmatchController
+ */
+class SpectatorFeed {
+    /**
+     * The updates held by the ring when nothing else is specified.
+     */
+    static final int DEFAULT_CAPACITY = 256;
+    /**
+     * The threads that send to the spectators of all the matches.
+     */
+    private static final ExecutorService SENDERS;
+    /**
+     * The last updates published, the one with sequence number {@code n} is
+     * at {@code n % ring.length}.
+     */
+    private final Slot[] ring;
+    /**
+     * The sequence number of the next update, written only after its slot.
+     */
+    private volatile long published;
+    /**
+     * The last public value of each field, by type and by player; the
+     * fields that do not involve a player have a null key.
+     */
+    private final Map<Update.UpdateType, Map<String, Update>> state;
+    /**
+     * The last copy of the state, shared by the spectators that resync
+     * before the next update.
+     */
+    private Update[] snapshot;
+    /**
+     * The sequence number the last copy of the state was taken at.
+     */
+    private long snapshotSequence;
+    /**
+     * The spectators watching the match.
+     */
+    private final List<Subscriber> subscribers;
+    /**
+     * Whether the match is over.
+     */
+    private volatile boolean closed;
+
+    static {
+        AtomicInteger count = new AtomicInteger();
+        SENDERS = Executors.newFixedThreadPool(8, r -> {
+            Thread thread = new Thread(r, "spectator-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a feed holding {@linkplain #DEFAULT_CAPACITY} updates.
+     */
+    SpectatorFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a feed holding the provided number of updates.
+     *
+     * @param capacity the updates a spectator can be behind before it
+     *                 needs to resync
+     */
+    SpectatorFeed(int capacity) {
+        ring = new Slot[capacity];
+        state = new EnumMap<>(Update.UpdateType.class);
+        subscribers = new CopyOnWriteArrayList<>();
+        snapshotSequence = -1;
+    }
+
+    /**
+     * Publishes the provided updates and wakes up the spectators.
+     * The private fields are hidden; this never waits for the spectators.
+     *
+     * @param updates the updates sent to the players
+     */
+    void publish(Update[] updates) {
+        Update[] visible = Arrays.stream(updates).map(u -> u.visibleTo(null)).toArray(Update[]::new);
+        if (visible.length == 0)
+            return;
+        synchronized (state) {
+            for (Update update : visible)
+                state.computeIfAbsent(update.getType(), t -> new HashMap<>()).put(update.getNickname(), update);
+            ring[(int) (published % ring.length)] = new Slot(published, visible);
+            published++;
+        }
+        subscribers.forEach(this::wake);
+    }
+
+    /**
+     * Adds a spectator, it will receive the state of the match and then
+     * the next updates.
+     *
+     * @param spectator the interface of the spectator
+     */
+    void subscribe(ToClientInterface spectator) {
+        Subscriber subscriber = new Subscriber(spectator);
+        subscribers.add(subscriber);
+        wake(subscriber);
+    }
+
+    /**
+     * Ends the feed: the spectators are sent what is left and then asked to
+     * quit.
+     */
+    void close() {
+        closed = true;
+        subscribers.forEach(this::wake);
+    }
+
+    /**
+     * Returns the number of spectators.
+     *
+     * @return the spectators watching the match
+     */
+    int size() {
+        return subscribers.size();
+    }
+
+    /**
+     * Schedules the sends to the provided spectator, unless they are
+     * already scheduled.
+     *
+     * @param subscriber the spectator
+     */
+    private void wake(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true))
+            SENDERS.execute(() -> drain(subscriber));
+    }
+
+    /**
+     * Sends to the provided spectator what it has not received yet, then
+     * schedules it again if something was published meanwhile.
+     *
+     * @param subscriber the spectator
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            if (!subscriber.started) {
+                subscriber.started = true;
+                subscriber.client.sendNotification(Notification.NotificationType.GAME_STARTING);
+            }
+            if (subscriber.cursor < published)
+                subscriber.client.sendUpdate(UpdateBuilder.of(pending(subscriber)));
+            else if (closed) {
+                subscribers.remove(subscriber);
+                subscriber.client.sendNotification(Notification.NotificationType.QUIT);
+                return;
+            }
+        } catch (ToClientException e) {
+            subscribers.remove(subscriber);
+            ServerMain.getLog().info("Spectator disconnected");
+            return;
+        }
+        subscriber.scheduled.set(false);
+        if (subscriber.cursor < published || closed)
+            wake(subscriber);
+    }
+
+    /**
+     * Returns the updates the provided spectator has not received and moves
+     * its cursor after them; if they are no longer in the ring, the state of
+     * the match is returned.
+     *
+     * @param subscriber the spectator
+     * @return the updates to send, in order
+     */
+    private Update[] pending(Subscriber subscriber) {
+        long from = subscriber.cursor;
+        long to = published;
+        if (from >= 0 && to - from <= ring.length) {
+            List<Update> updates = new ArrayList<>();
+            long i = from;
+            for (; i < to; i++) {
+
+                /*Checking the stamp: the slot can be overwritten while reading*/
+                Slot slot = ring[(int) (i % ring.length)];
+                if (slot == null || slot.sequence != i)
+                    break;
+                updates.addAll(Arrays.asList(slot.updates));
+            }
+            if (i == to) {
+                subscriber.cursor = to;
+                return updates.toArray(new Update[0]);
+            }
+        }
+        if (from >= 0)
+            ServerMain.getLog().fine("Spectator resyncing");
+        synchronized (state) {
+            if (snapshotSequence != published) {
+                List<Update> updates = new ArrayList<>();
+                state.values().forEach(byPlayer -> updates.addAll(byPlayer.values()));
+                snapshot = updates.toArray(new Update[0]);
+                snapshotSequence = published;
+            }
+            subscriber.cursor = snapshotSequence;
+            return snapshot;
+        }
+    }
+
+    /**
+     * The updates published together, stamped with their sequence number so
+     * that a reader can tell whether the slot was overwritten.
+     */
+    private static class Slot {
+        /**
+         * The sequence number of the updates.
+         */
+        private final long sequence;
+        /**
+         * The public updates.
+         */
+        private final Update[] updates;
+
+        /**
+         * Creates a slot.
+         *
+         * @param sequence the sequence number of the updates
+         * @param updates  the public updates
+         */
+        Slot(long sequence, Update[] updates) {
+            this.sequence = sequence;
+            this.updates = updates;
+        }
+    }
+
+    /**
+     * A spectator and its position in the ring.
+     */
+    private static class Subscriber {
+        /**
+         * The interface of the spectator.
+         */
+        private final ToClientInterface client;
+        /**
+         * Whether its sends are scheduled or running.
+         */
+        private final AtomicBoolean scheduled;
+        /**
+         * The sequence number of the next update to send, -1 if it needs
+         * the state of the match.
+         */
+        private long cursor;
+        /**
+         * Whether it has been told that the match started.
+         */
+        private boolean started;
+
+        /**
+         * Creates a spectator that needs the state of the match.
+         *
+         * @param client the interface of the spectator
+         */
+        Subscriber(ToClientInterface client) {
+            this.client = client;
+            scheduled = new AtomicBoolean();
+            cursor = -1;
+        }
+    }
+}
@@ -34,6 +34,11 @@ public class Action implements Iterable<EffectInterface> {
      * The cost of this action, sum of the costs of the effects.
      */
     private List<AmmoCube> totalCost;
+    /**
+     * The cost of this action, sorted: actions with the same key can be
+     * afforded by the same players.
+     */
+    private List<AmmoCube> costKey;
 
     /**
      * Constructs an Action composed by multiple effects.
@@ -45,8 +50,10 @@ public class Action implements Iterable<EffectInterface> {
     public Action(String name, List<EffectInterface> effects) {
         this.name = name;
         this.effects = effects;
-        totalCost = effects.stream().flatMap(effectInterface ->
-                effectInterface.getCost().stream()).collect(Collectors.toList());
+        totalCost = Collections.unmodifiableList(effects.stream().flatMap(effectInterface ->
+                effectInterface.getCost().stream()).collect(Collectors.toList()));
+        costKey = Collections.unmodifiableList(totalCost.stream().sorted()
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -98,6 +105,17 @@ public class Action implements Iterable<EffectInterface> {
         return totalCost;
     }
 
+    /**
+     * Returns the cost of this action with the cubes sorted.
+     * This can be used to check only once whether a player can afford
+     * actions that cost the same.
+     *
+     * @return the sorted cost of this action
+     */
+    List<AmmoCube> getCostKey() {
+        return costKey;
+    }
+
     /**
      * Returns an iterator over the steps in this action.
      *
@@ -70,7 +70,7 @@ public class Grab implements EffectInterface {
             /*Adding the weapons that the player can buy to weaponsAffordable*/
             List<WeaponCard> weaponsAffordable = weaponAvailable.stream()
                     .filter(weaponCard -> subjectPlayer.canAfford(weaponCard.getCost(), true) ||
-                            !subjectPlayer.canAffordWithPowerups(weaponCard.getCost(), true).isEmpty())
+                            !subjectPlayer.canAffordWithOnePowerup(weaponCard.getCost(), true).isEmpty())
                     .collect(Collectors.toList());
 
             /*If there are no weapons it is player's mistake and he grabs nothing*/
@@ -88,9 +88,9 @@ public class Grab implements EffectInterface {
 
             /*If necessary, choosing a powerup to pay*/
             PowerupCard powerupToPay = null;
-            if (!subjectPlayer.canAfford(weaponToBuy.getCost(), true) && !subjectPlayer.canAffordWithPowerups(weaponToBuy.getCost(), true).isEmpty()) {
+            if (!subjectPlayer.canAfford(weaponToBuy.getCost(), true) && !subjectPlayer.canAffordWithOnePowerup(weaponToBuy.getCost(), true).isEmpty()) {
                 powerupToPay = subjectPlayer.getToClient().choosePowerupForPaying(
-                        subjectPlayer.canAffordWithPowerups(weaponToBuy.getCost(), true));
+                        subjectPlayer.canAffordWithOnePowerup(weaponToBuy.getCost(), true));
             }
 
             /*The player buys the weapon with the chosen powerup*/
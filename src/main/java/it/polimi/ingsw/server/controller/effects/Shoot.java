@@ -11,7 +11,9 @@ import it.polimi.ingsw.server.model.player.Player;
 import it.polimi.ingsw.server.persistency.FromFile;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -38,8 +40,11 @@ public class Shoot implements EffectInterface {
 
         WeaponCard weaponChosen = subjectPlayer.getToClient().chooseWeaponCard(
                 subjectPlayer.getLoadedWeapons());
+        /*Checking each different cost only once*/
+        Map<List<AmmoCube>, Boolean> affordable = new HashMap<>();
         List<Action> effectsPlayerCanAfford = weaponChosen.getPossibleSequences().stream().filter(s ->
-                subjectPlayer.canAfford(s.getTotalCost(), false)).collect(Collectors.toList());
+                affordable.computeIfAbsent(s.getCostKey(), k -> subjectPlayer.canAfford(k, false)))
+                .collect(Collectors.toList());
         if (effectsPlayerCanAfford.isEmpty()) return;
 
         Action effectChosen = subjectPlayer.getToClient().chooseEffectsSequence(effectsPlayerCanAfford);
@@ -64,12 +64,10 @@ enum SquaresPolicy {
                                      List<? extends Damageable> alreadyTargeted) throws AgainstRulesException {
         switch (this) {
             case VISIBLE:
-                return new HashSet<>(subject.getPosition().listOfVisibles(board));
+                return board.getSquares(board.getVisibleMask(subject.getPosition()));
             case VISIBLE_NOT_SELF:
-                Set<Square> visible = new HashSet<>(
-                        subject.getPosition().listOfVisibles(board));
-                visible.remove(subject.getPosition());
-                return visible;
+                return board.getSquares(board.getVisibleMask(subject.getPosition()) &
+                        ~board.getSquareMask(subject.getPosition()));
             case TO_PREVIOUS:
                 try {
                     return new HashSet<>(Collections.singletonList(alreadyTargeted.get(alreadyTargeted.size() - 1).getPosition()));
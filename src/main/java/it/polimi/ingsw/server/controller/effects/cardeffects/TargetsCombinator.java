@@ -0,0 +1,160 @@
+package it.polimi.ingsw.server.controller.effects.cardeffects;
+
+import it.polimi.ingsw.server.model.Damageable;
+import it.polimi.ingsw.server.model.board.GameBoard;
+import it.polimi.ingsw.server.model.board.Square;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the combinations of targets that can be chosen for an effect.
+ * Each combination is generated once, by choosing the elements to leave out
+ * in the order they are provided; the branches that can not lead to an
+ * allowed combination are not explored.
+ *
+ * @author Abbo Giulio A.
+ * @see CardEffect
+ */
+class TargetsCombinator {
+    /**
+     * The square from which the directions are evaluated.
+     */
+    private final Square origin;
+    /**
+     * Whether the targets must be on different squares.
+     */
+    private final boolean differentSquares;
+    /**
+     * Whether two targets must be in a single direction from the origin.
+     */
+    private final boolean singleDirection;
+    /**
+     * Whether the walls are ignored when evaluating the direction.
+     */
+    private final boolean ignoreWalls;
+    /**
+     * The board of the targets.
+     */
+    private final GameBoard board;
+
+    /**
+     * Creates a combinator with the provided constraints.
+     *
+     * @param origin           the square from which the directions are evaluated
+     * @param differentSquares whether the targets must be on different squares
+     * @param singleDirection  whether two targets must be in a single
+     *                         direction from the origin
+     * @param ignoreWalls      whether the walls are ignored when evaluating
+     *                         the direction
+     * @param board            the board of the targets
+     */
+    TargetsCombinator(Square origin, boolean differentSquares,
+                      boolean singleDirection, boolean ignoreWalls, GameBoard board) {
+        this.origin = origin;
+        this.differentSquares = differentSquares;
+        this.singleDirection = singleDirection;
+        this.ignoreWalls = ignoreWalls;
+        this.board = board;
+    }
+
+    /**
+     * Returns all the allowed combinations of the provided elements with a
+     * size between {@code min} and {@code max}.
+     * The combinations keep the order of the elements and are sorted by the
+     * elements they leave out: the first is the one with all the elements,
+     * followed by the one without the first element, and so on.
+     *
+     * @param elements the elements of the combinations, without duplicates
+     * @param min      the minimum number of elements allowed
+     * @param max      the maximum number of elements allowed
+     * @return all the allowed combinations
+     */
+    List<List<Damageable>> combinations(List<? extends Damageable> elements, int min, int max) {
+        List<List<Damageable>> collector = new ArrayList<>();
+        Damageable[] all = elements.toArray(new Damageable[0]);
+
+        /*Memorizing the square of each element, not on the board is 0*/
+        long[] squares = new long[all.length];
+        for (int i = 0; i < all.length; i++)
+            if (differentSquares && all[i].getPosition() != null)
+                squares[i] = board.getSquareMask(all[i].getPosition());
+
+        combinations(all, squares, new boolean[all.length], -1, 0, 0,
+                Math.max(min, 0), max, collector);
+        return collector;
+    }
+
+    /**
+     * Recursive method that adds the combination without the removed
+     * elements, and then removes one more element after the last removed in
+     * all the ways that can still lead to an allowed combination.
+     *
+     * @param all       the elements of the combinations
+     * @param squares   the mask of the square of each element
+     * @param removed   the elements left out of the combination
+     * @param last      the last element removed, -1 if none
+     * @param count     the number of elements removed
+     * @param kept      the mask of the squares of the elements kept up to
+     *                  {@code last}
+     * @param min       the minimum number of elements allowed
+     * @param max       the maximum number of elements allowed
+     * @param collector where the combinations will be stored
+     */
+    private void combinations(Damageable[] all, long[] squares, boolean[] removed,
+                              int last, int count, long kept, int min, int max,
+                              List<? super List<Damageable>> collector) {
+        int size = all.length - count;
+        if (size >= min && size <= max)
+            add(all, squares, removed, last, kept, collector);
+
+        /*Stopping if removing one more element leaves too few*/
+        if (size - 1 < min)
+            return;
+
+        long fixed = kept;
+        for (int i = last + 1; i < all.length; i++) {
+
+            /*The elements before i are all kept: stopping if they are too
+            many or on the same square*/
+            if (i - count > max)
+                return;
+            removed[i] = true;
+            combinations(all, squares, removed, i, count + 1, fixed, min, max, collector);
+            removed[i] = false;
+            if ((fixed & squares[i]) != 0)
+                return;
+            fixed |= squares[i];
+        }
+    }
+
+    /**
+     * Adds the combination without the removed elements if it is allowed.
+     *
+     * @param all       the elements of the combinations
+     * @param squares   the mask of the square of each element
+     * @param removed   the elements left out of the combination
+     * @param last      the last element removed, -1 if none
+     * @param kept      the mask of the squares of the elements kept up to
+     *                  {@code last}
+     * @param collector where the combination will be stored
+     */
+    private void add(Damageable[] all, long[] squares, boolean[] removed, int last,
+                     long kept, List<? super List<Damageable>> collector) {
+
+        /*Checking the squares of the elements after the last removed*/
+        for (int i = last + 1; i < all.length; i++) {
+            if ((kept & squares[i]) != 0)
+                return;
+            kept |= squares[i];
+        }
+
+        List<Damageable> combination = new ArrayList<>();
+        for (int i = 0; i < all.length; i++)
+            if (!removed[i])
+                combination.add(all[i]);
+        if (!singleDirection || combination.size() != 2 ||
+                origin.straight(combination.get(0).getPosition(), combination.get(1).getPosition(), ignoreWalls))
+            collector.add(combination);
+    }
+}
@@ -3,7 +3,6 @@ package it.polimi.ingsw.server.controller.effects.cardeffects;
 import it.polimi.ingsw.server.model.AgainstRulesException;
 import it.polimi.ingsw.server.model.Damageable;
 import it.polimi.ingsw.server.model.board.GameBoard;
-import it.polimi.ingsw.server.model.board.Square;
 import it.polimi.ingsw.server.model.player.Player;
 
 import java.util.HashSet;
@@ -101,9 +100,11 @@ enum TargetsPolicy {
     private Set<Damageable> getVisibleTargetsBy(Damageable subject,
                                                 Set<? extends Damageable> allTargets,
                                                 GameBoard board) {
+        long visible = board.getVisibleMask(subject.getPosition());
         Set<Damageable> targets = new HashSet<>();
-        for (Square s : subject.getPosition().listOfVisibles(board))
-            targets.addAll(board.getPlayerInSquare(s, allTargets));
+        for (Damageable d : allTargets)
+            if (d.getPosition() != null && (visible & board.getSquareMask(d.getPosition())) != 0)
+                targets.add(d);
         return targets;
     }
 }
@@ -108,7 +108,7 @@ public class NormalTurn implements TurnInterface {
         /*Taking the reloadable weapons that the player can afford*/
         List<WeaponCard> weaponCards = player.getReloadableWeapons().stream()
                 .filter(x -> player.canAfford(x.getCost(), false) ||
-                        !player.canAffordWithPowerups(x.getCost(), false).isEmpty())
+                        !player.canAffordWithOnePowerup(x.getCost(), false).isEmpty())
                 .collect(Collectors.toList());
 
         /*Choosing the card to reload*/
@@ -123,7 +123,7 @@ public class NormalTurn implements TurnInterface {
         PowerupCard toPay = null;
         if (!player.canAfford(cardToReload.getCost(), false))
             toPay = player.getToClient().choosePowerupForPaying(
-                    player.canAffordWithPowerups(cardToReload.getCost(), false));
+                    player.canAffordWithOnePowerup(cardToReload.getCost(), false));
 
         player.reload(cardToReload, toPay);
         updater.accept(new UpdateBuilder()
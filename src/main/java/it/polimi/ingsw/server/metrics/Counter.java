@@ -0,0 +1,59 @@
+package it.polimi.ingsw.server.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only grows, such as the number of timeouts.
+ *
+ * @author Abbo Giulio A.
+ * @see MetricsRegistry#counter(String, String, String)
+ */
+public class Counter implements Metric {
+    /**
+     * The count.
+     */
+    private final LongAdder count;
+
+    /**
+     * Creates a counter at zero.
+     */
+    Counter() {
+        count = new LongAdder();
+    }
+
+    /**
+     * Adds one to the count.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds the provided amount to the count.
+     *
+     * @param amount the amount, not negative
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public void add(long amount) {
+        if (amount < 0)
+            throw new IllegalArgumentException("A counter can not decrease");
+        count.add(amount);
+    }
+
+    /**
+     * Returns the count.
+     *
+     * @return the count
+     */
+    public long get() {
+        return count.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        MetricsRegistry.sample(out, name, labels, get());
+    }
+}
@@ -0,0 +1,73 @@
+package it.polimi.ingsw.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A value that goes up and down, such as the number of users connected.
+ * The value is either set by the caller or read from a source at each
+ * scrape.
+ *
+ * @author Abbo Giulio A.
+ * @see MetricsRegistry#gauge(String, String, String)
+ */
+public class Gauge implements Metric {
+    /**
+     * The value set by the caller.
+     */
+    private final AtomicLong value;
+    /**
+     * Gives the value, null if it is set by the caller.
+     */
+    private final LongSupplier source;
+
+    /**
+     * Creates a gauge at zero.
+     *
+     * @param source gives the value, null if it is set by the caller
+     */
+    Gauge(LongSupplier source) {
+        value = new AtomicLong();
+        this.source = source;
+    }
+
+    /**
+     * Adds one to the value.
+     */
+    public void increment() {
+        value.incrementAndGet();
+    }
+
+    /**
+     * Subtracts one from the value.
+     */
+    public void decrement() {
+        value.decrementAndGet();
+    }
+
+    /**
+     * Sets the value.
+     *
+     * @param value the new value
+     */
+    public void set(long value) {
+        this.value.set(value);
+    }
+
+    /**
+     * Returns the value.
+     *
+     * @return the value
+     */
+    public long get() {
+        return source == null ? value.get() : source.getAsLong();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        MetricsRegistry.sample(out, name, labels, get());
+    }
+}
@@ -0,0 +1,84 @@
+package it.polimi.ingsw.server.metrics;
+
+import it.polimi.ingsw.communication.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The distribution of a value, such as the duration of the turns.
+ * The values are counted in a {@link LatencyHistogram}, so the memory does
+ * not depend on their number; they are written as a summary, with the
+ * median, the 90th and the 99th percentile, the sum and the count.
+ *
+ * @author Abbo Giulio A.
+ * @see MetricsRegistry#histogram(String, String, String, double)
+ */
+public class Histogram implements Metric {
+    /**
+     * The value recorded for one second, when recording nanoseconds.
+     */
+    public static final double SECONDS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * The percentiles written, as fractions.
+     */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    /**
+     * The values recorded.
+     */
+    private final LatencyHistogram values;
+    /**
+     * The value recorded for one unit of the output.
+     */
+    private final double unitScale;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param unitScale the value recorded for one unit of the output
+     */
+    Histogram(double unitScale) {
+        values = new LatencyHistogram();
+        this.unitScale = unitScale;
+    }
+
+    /**
+     * Records a value.
+     * Negative values are recorded as zero.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        values.record(value);
+    }
+
+    /**
+     * Records the time elapsed since the provided instant, in nanoseconds.
+     *
+     * @param start the {@linkplain System#nanoTime()} at the beginning
+     */
+    public void recordSince(long start) {
+        values.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the number of values recorded
+     */
+    public long getCount() {
+        return values.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double quantile : QUANTILES)
+            MetricsRegistry.sample(out, name, labels + separator + "quantile=\"" + quantile + "\"",
+                    values.getValueAtPercentile(quantile * 100) / unitScale);
+        MetricsRegistry.sample(out, name + "_sum", labels, values.getSum() / unitScale);
+        MetricsRegistry.sample(out, name + "_count", labels, values.getCount());
+    }
+}
@@ -0,0 +1,17 @@
+package it.polimi.ingsw.server.metrics;
+
+/**
+ * A metric held by a {@link MetricsRegistry}.
+ *
+ * @author Abbo Giulio A.
+ */
+interface Metric {
+    /**
+     * Writes the samples of this metric in the text format of Prometheus.
+     *
+     * @param out    where to write
+     * @param name   the name of the family
+     * @param labels the labels of this metric, empty if none
+     */
+    void write(StringBuilder out, String name, String labels);
+}
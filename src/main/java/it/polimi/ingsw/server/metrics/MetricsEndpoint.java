@@ -0,0 +1,100 @@
+package it.polimi.ingsw.server.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the metrics of a {@link MetricsRegistry} over HTTP, in the text
+ * format read by Prometheus.
+ * The endpoint only accepts connections from the same machine and answers
+ * {@code GET /metrics} on one thread.
+ *
+ * @author Abbo Giulio A.
+ */
+public class MetricsEndpoint implements AutoCloseable {
+    /**
+     * The path of the metrics.
+     */
+    public static final String PATH = "/metrics";
+    /**
+     * The content type of the text format.
+     */
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    /**
+     * The server answering the requests.
+     */
+    private final HttpServer server;
+    /**
+     * The thread answering the requests.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Starts serving the provided registry on the loopback address.
+     *
+     * @param registry the metrics to serve
+     * @param port     the port, 0 for any free one
+     * @throws IOException if the port can not be bound
+     */
+    public MetricsEndpoint(MetricsRegistry registry, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(PATH, exchange -> answer(exchange, registry));
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Answers a request with the metrics.
+     *
+     * @param exchange the request
+     * @param registry the metrics to serve
+     * @throws IOException if the answer can not be sent
+     */
+    private static void answer(HttpExchange exchange, MetricsRegistry registry) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns the port the metrics are served on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops serving the metrics.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+}
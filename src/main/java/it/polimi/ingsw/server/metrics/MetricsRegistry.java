@@ -0,0 +1,238 @@
+package it.polimi.ingsw.server.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the metrics of the server and writes them in the text format read
+ * by Prometheus.
+ * <p>
+ * A metric is identified by its name and by its labels; the metrics with
+ * the same name form a family, that has one type and one description.
+ * Asking twice for the same metric returns the same object, so the metrics
+ * can be looked up where they are updated.
+ * The metrics can be updated by many threads at the same time and are
+ * never removed.
+ *
+ * @author Abbo Giulio A.
+ * @see MetricsEndpoint
+ * @see ServerMetrics
+ */
+public class MetricsRegistry {
+    /**
+     * The registry of the server.
+     */
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    /**
+     * The families of the metrics, by name.
+     */
+    private final Map<String, Family> families;
+
+    /**
+     * Creates an empty registry.
+     */
+    public MetricsRegistry() {
+        families = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Returns the registry of the server.
+     *
+     * @return the registry of the server
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the labels with the provided name and value, in the format of
+     * Prometheus.
+     *
+     * @param name  the name of the label
+     * @param value the value of the label
+     * @return the label, to be used as the labels of a metric
+     */
+    public static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Returns the counter with the provided name and labels, creating it if
+     * needed.
+     *
+     * @param name   the name of the counter, ending with {@code _total}
+     * @param help   the description of the family
+     * @param labels the labels, empty if none
+     * @return the counter
+     * @throws IllegalArgumentException if the name is used by another type
+     */
+    public Counter counter(String name, String help, String labels) {
+        return get(name, help, Type.COUNTER, labels, l -> new Counter(), Counter.class);
+    }
+
+    /**
+     * Returns the gauge with the provided name and labels, creating it if
+     * needed; its value is set by the caller.
+     *
+     * @param name   the name of the gauge
+     * @param help   the description of the family
+     * @param labels the labels, empty if none
+     * @return the gauge
+     * @throws IllegalArgumentException if the name is used by another type
+     */
+    public Gauge gauge(String name, String help, String labels) {
+        return get(name, help, Type.GAUGE, labels, l -> new Gauge(null), Gauge.class);
+    }
+
+    /**
+     * Sets the gauge with the provided name and labels to be read from the
+     * provided source at each scrape, replacing the previous one.
+     *
+     * @param name   the name of the gauge
+     * @param help   the description of the family
+     * @param labels the labels, empty if none
+     * @param source gives the value of the gauge
+     * @throws IllegalArgumentException if the name is used by another type
+     */
+    public void gauge(String name, String help, String labels, LongSupplier source) {
+        family(name, help, Type.GAUGE).metrics.put(labels, new Gauge(source));
+    }
+
+    /**
+     * Returns the histogram with the provided name and labels, creating it
+     * if needed.
+     *
+     * @param name      the name of the histogram, with the unit of the
+     *                  output
+     * @param help      the description of the family
+     * @param labels    the labels, empty if none
+     * @param unitScale the value recorded for one unit of the output, for
+     *                  example 1000000000 to record nanoseconds and write
+     *                  seconds
+     * @return the histogram
+     * @throws IllegalArgumentException if the name is used by another type
+     */
+    public Histogram histogram(String name, String help, String labels, double unitScale) {
+        return get(name, help, Type.SUMMARY, labels, l -> new Histogram(unitScale), Histogram.class);
+    }
+
+    /**
+     * Returns the metric with the provided name and labels, creating it if
+     * needed.
+     *
+     * @param name    the name of the family
+     * @param help    the description of the family
+     * @param type    the type of the family
+     * @param labels  the labels of the metric
+     * @param factory creates the metric
+     * @param kind    the class of the metric
+     * @param <T>     the type of the metric
+     * @return the metric
+     */
+    private <T extends Metric> T get(String name, String help, Type type, String labels,
+                                     Function<String, T> factory, Class<T> kind) {
+        return kind.cast(family(name, help, type).metrics.computeIfAbsent(labels, factory));
+    }
+
+    /**
+     * Returns the family with the provided name, creating it if needed.
+     *
+     * @param name the name of the family
+     * @param help the description of the family
+     * @param type the type of the family
+     * @return the family
+     * @throws IllegalArgumentException if the name is used by another type
+     */
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(help, type));
+        if (family.type != type)
+            throw new IllegalArgumentException(name + " is a " + family.type.text);
+        return family;
+    }
+
+    /**
+     * Writes all the metrics in the text format of Prometheus.
+     *
+     * @return the metrics, one sample per line
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        families.forEach((name, family) -> {
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type.text).append('\n');
+            family.metrics.forEach((labels, metric) -> metric.write(out, name, labels));
+        });
+        return out.toString();
+    }
+
+    /**
+     * Writes a sample.
+     *
+     * @param out    where to write
+     * @param name   the name of the sample
+     * @param labels the labels, empty if none
+     * @param value  the value
+     */
+    static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty())
+            out.append('{').append(labels).append('}');
+        out.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            out.append((long) value);
+        else
+            out.append(String.format(Locale.ROOT, "%.9g", value));
+        out.append('\n');
+    }
+
+    /**
+     * The metrics with the same name.
+     */
+    private static class Family {
+        /**
+         * The description of the metrics.
+         */
+        private final String help;
+        /**
+         * The type of the metrics.
+         */
+        private final Type type;
+        /**
+         * The metrics, by labels.
+         */
+        private final Map<String, Metric> metrics;
+
+        /**
+         * Creates a family without metrics.
+         *
+         * @param help the description of the metrics
+         * @param type the type of the metrics
+         */
+        Family(String help, Type type) {
+            this.help = help;
+            this.type = type;
+            metrics = new ConcurrentSkipListMap<>();
+        }
+    }
+
+    /**
+     * The types of the families, as written for Prometheus.
+     */
+    private enum Type {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        SUMMARY("summary");
+
+        /**
+         * The name of the type in the text format.
+         */
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package it.polimi.ingsw.server.metrics;
+
+import it.polimi.ingsw.communication.LatencyRecorder;
+import it.polimi.ingsw.communication.protocol.MessageType;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * The metrics of the server, in the {@linkplain MetricsRegistry#getInstance()
+ * registry of the server}.
+ * The metrics updated at each message are looked up once.
+ *
+ * @author Abbo Giulio A.
+ * @see MetricsEndpoint
+ */
+public class ServerMetrics {
+    /**
+     * The users connected, by transport.
+     */
+    private static final Map<LatencyRecorder.Transport, Gauge> CONNECTED;
+    /**
+     * The bytes of each update sent through a socket.
+     */
+    private static final Histogram UPDATE_BYTES;
+    /**
+     * The time the users took to answer, by type of message.
+     */
+    private static final Map<MessageType, Histogram> INTERACTIONS;
+    /**
+     * The interactions that timed out, by type of message.
+     */
+    private static final Map<MessageType, Counter> TIMEOUTS;
+    /**
+     * The users suspended because they did not answer in time.
+     */
+    private static final Counter SUSPENDED_TIMEOUT;
+    /**
+     * The users suspended because the connection failed.
+     */
+    private static final Counter SUSPENDED_ERROR;
+    /**
+     * The duration of the turns.
+     */
+    private static final Histogram TURNS;
+    /**
+     * The time taken to build a full update.
+     */
+    private static final Histogram FULL_UPDATES;
+
+    static {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        CONNECTED = new EnumMap<>(LatencyRecorder.Transport.class);
+        for (LatencyRecorder.Transport transport : LatencyRecorder.Transport.values())
+            CONNECTED.put(transport, registry.gauge("adrenaline_connected_users", "Users connected, by transport",
+                    MetricsRegistry.label("transport", transport.name().toLowerCase(Locale.ROOT))));
+        UPDATE_BYTES = registry.histogram("adrenaline_update_bytes", "Bytes of each update sent, by transport",
+                MetricsRegistry.label("transport", "socket"), 1);
+        INTERACTIONS = new EnumMap<>(MessageType.class);
+        TIMEOUTS = new EnumMap<>(MessageType.class);
+        for (MessageType type : MessageType.values()) {
+            String labels = MetricsRegistry.label("type", type.name());
+            INTERACTIONS.put(type, registry.histogram("adrenaline_interaction_latency_seconds",
+                    "Time taken by the users to answer, by type of message", labels, Histogram.SECONDS));
+            TIMEOUTS.put(type, registry.counter("adrenaline_interaction_timeouts_total",
+                    "Interactions not answered in time, by type of message", labels));
+        }
+        SUSPENDED_TIMEOUT = registry.counter("adrenaline_suspensions_total",
+                "Users suspended, by cause", MetricsRegistry.label("cause", "timeout"));
+        SUSPENDED_ERROR = registry.counter("adrenaline_suspensions_total",
+                "Users suspended, by cause", MetricsRegistry.label("cause", "error"));
+        TURNS = registry.histogram("adrenaline_turn_duration_seconds",
+                "Duration of the turns", "", Histogram.SECONDS);
+        FULL_UPDATES = registry.histogram("adrenaline_full_update_build_seconds",
+                "Time taken to build a full update of a match", "", Histogram.SECONDS);
+    }
+
+    private ServerMetrics() {
+    }
+
+    /**
+     * Returns the users connected through the provided transport.
+     *
+     * @param transport the transport
+     * @return the gauge of the users connected
+     */
+    public static Gauge connected(LatencyRecorder.Transport transport) {
+        return CONNECTED.get(transport);
+    }
+
+    /**
+     * Returns the bytes of the updates sent through a socket; the size of
+     * the updates sent through RMI is not known.
+     *
+     * @return the histogram of the bytes
+     */
+    public static Histogram updateBytes() {
+        return UPDATE_BYTES;
+    }
+
+    /**
+     * Returns the time taken by the users to answer the provided type of
+     * message, in nanoseconds.
+     *
+     * @param type the type of message
+     * @return the histogram of the latencies
+     */
+    public static Histogram interaction(MessageType type) {
+        return INTERACTIONS.get(type);
+    }
+
+    /**
+     * Returns the interactions of the provided type that timed out.
+     *
+     * @param type the type of message
+     * @return the counter of the timeouts
+     */
+    public static Counter timeouts(MessageType type) {
+        return TIMEOUTS.get(type);
+    }
+
+    /**
+     * Returns the users suspended for the provided cause.
+     *
+     * @param timeout true for the users that did not answer in time, false
+     *                for the ones whose connection failed
+     * @return the counter of the suspensions
+     */
+    public static Counter suspensions(boolean timeout) {
+        return timeout ? SUSPENDED_TIMEOUT : SUSPENDED_ERROR;
+    }
+
+    /**
+     * Returns the duration of the turns, in nanoseconds.
+     *
+     * @return the histogram of the durations
+     */
+    public static Histogram turns() {
+        return TURNS;
+    }
+
+    /**
+     * Returns the time taken to build the full updates, in nanoseconds.
+     *
+     * @return the histogram of the times
+     */
+    public static Histogram fullUpdates() {
+        return FULL_UPDATES;
+    }
+
+    /**
+     * Sets where the users waiting in the lobby and the matches running are
+     * counted, replacing the previous hall.
+     *
+     * @param lobby   gives the users waiting for a match
+     * @param matches gives the matches running
+     */
+    public static void watchHall(LongSupplier lobby, LongSupplier matches) {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("adrenaline_lobby_users", "Users waiting for a match", "", lobby);
+        registry.gauge("adrenaline_running_matches", "Matches running or waiting for their players",
+                "", matches);
+    }
+}
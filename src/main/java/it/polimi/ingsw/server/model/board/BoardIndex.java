@@ -0,0 +1,187 @@
+package it.polimi.ingsw.server.model.board;
+
+import it.polimi.ingsw.server.model.AmmoCube;
+
+import java.util.*;
+
+/**
+ * Indexes the squares and the rooms of a board by the id of the squares, so
+ * that the lookups of {@linkplain GameBoard} are array accesses.
+ * The masks and the spawns come from the {@linkplain MapTopology} of the
+ * configuration, that can be shared; this only holds the squares and the
+ * rooms of a single board.
+ * This is built once for each board and is immutable: changes to the rooms
+ * after its creation are not seen.
+ *
+ * @author Abbo Giulio A.
+ * @see GameBoard
+ * @see MapTopology
+ */
+final class BoardIndex {
+    /**
+     * The topology of the configuration.
+     */
+    private final MapTopology topology;
+    /**
+     * The squares, indexed by id.
+     */
+    private final Square[] squares;
+    /**
+     * The room of each square, indexed by the id of the square.
+     */
+    private final Room[] rooms;
+    /**
+     * The squares of the room of each square, indexed by the id of the
+     * square.
+     */
+    private final List<List<Square>> roomSquares;
+    /**
+     * All the squares of the configuration.
+     */
+    private final Set<Square> all;
+
+    /**
+     * Creates the index for the provided squares.
+     *
+     * @param topology the topology of the configuration
+     * @param squares  the squares indexed by id
+     * @param rooms    the rooms indexed by the id of their squares
+     */
+    private BoardIndex(MapTopology topology, Square[] squares, Room[] rooms) {
+        this.topology = topology;
+        this.squares = squares;
+        this.rooms = rooms;
+        Map<Room, List<Square>> squaresByRoom = new IdentityHashMap<>();
+        roomSquares = new ArrayList<>(Collections.nCopies(squares.length, null));
+        Set<Square> allSquares = new HashSet<>();
+
+        for (int id = 0; id < squares.length; id++) {
+            if (squares[id] == null)
+                continue;
+            roomSquares.set(id, squaresByRoom.computeIfAbsent(rooms[id],
+                    r -> Collections.unmodifiableList(r.getAllSquares())));
+            allSquares.add(squares[id]);
+        }
+        all = Collections.unmodifiableSet(allSquares);
+    }
+
+    /**
+     * Creates the index for the provided configuration.
+     *
+     * @param configuration the rooms of the board
+     * @param topology      the topology of the configuration
+     * @return the index, or null if the squares are not the ones of the
+     * topology
+     */
+    static BoardIndex of(List<? extends Room> configuration, MapTopology topology) {
+        Square[] squares = new Square[topology.getSize()];
+        Room[] rooms = new Room[topology.getSize()];
+        int found = 0;
+        for (Room room : configuration)
+            for (Square square : room.getAllSquares()) {
+                int id = square.getIntID();
+                if (!topology.contains(id) || squares[id] != null)
+                    return null;
+                squares[id] = square;
+                rooms[id] = room;
+                found++;
+            }
+        if (found != topology.getSquaresNumber())
+            return null;
+        return new BoardIndex(topology, squares, rooms);
+    }
+
+    /**
+     * Returns the position of a square in the arrays.
+     *
+     * @param square the square
+     * @return the id of the square
+     * @throws IllegalArgumentException if the square is not indexed
+     */
+    private int indexOf(Square square) {
+        int id = square.getIntID();
+        if (id < 0 || id >= squares.length || squares[id] == null)
+            throw new IllegalArgumentException("Room not found for square " + id);
+        return id;
+    }
+
+    /**
+     * Returns the room of a square.
+     *
+     * @param square the square
+     * @return the room containing a square with the same id
+     * @throws IllegalArgumentException if the square is not indexed
+     */
+    Room getRoom(Square square) {
+        return rooms[indexOf(square)];
+    }
+
+    /**
+     * Returns the mask of the squares in the room of a square.
+     *
+     * @param square the square
+     * @return the mask of the squares in the same room, spawn included
+     * @throws IllegalArgumentException if the square is not indexed
+     */
+    long getRoomMask(Square square) {
+        return topology.getRoomMask(indexOf(square));
+    }
+
+    /**
+     * Returns the mask of the squares visible from a square.
+     *
+     * @param square the square
+     * @return the mask of the visible squares, the square included
+     * @throws IllegalArgumentException if the square is not indexed
+     */
+    long getVisibleMask(Square square) {
+        return topology.getVisibleMask(indexOf(square));
+    }
+
+    /**
+     * Returns the squares in a mask.
+     *
+     * @param mask the mask of the squares
+     * @return the squares whose bit is set, ignoring the bits of no square
+     */
+    Set<Square> getSquares(long mask) {
+        Set<Square> found = new HashSet<>();
+        for (long left = mask; left != 0; left &= left - 1) {
+            int id = Long.numberOfTrailingZeros(left);
+            if (id < squares.length && squares[id] != null)
+                found.add(squares[id]);
+        }
+        return found;
+    }
+
+    /**
+     * Returns the squares in the room of a square, spawn included.
+     *
+     * @param square the square
+     * @return the squares in the same room, unmodifiable
+     * @throws IllegalArgumentException if the square is not indexed
+     */
+    List<Square> getSquaresInRoom(Square square) {
+        return roomSquares.get(indexOf(square));
+    }
+
+    /**
+     * Returns the spawn square of a color.
+     *
+     * @param color the color of the spawn
+     * @return the spawn square, or null if there is none
+     */
+    SpawnSquare getSpawn(AmmoCube color) {
+        int id = color == null ? -1 : topology.getSpawn(color);
+        return id >= 0 && squares[id] instanceof SpawnSquare ? (SpawnSquare) squares[id] : null;
+    }
+
+    /**
+     * Returns all the squares.
+     *
+     * @return all the squares, unmodifiable
+     */
+    Set<Square> getAllSquares() {
+        return all;
+    }
+}
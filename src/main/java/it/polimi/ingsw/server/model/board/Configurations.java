@@ -16,4 +16,18 @@ public enum Configurations {
     public int getId() {
         return id;
     }
+
+    /**
+     * Returns the configuration with the provided id.
+     *
+     * @param id the id of the configuration
+     * @return the configuration
+     * @throws IllegalArgumentException if no configuration has the id
+     */
+    public static Configurations of(int id) {
+        for (Configurations configuration : values())
+            if (configuration.id == id)
+                return configuration;
+        throw new IllegalArgumentException("Unknown configuration: " + id);
+    }
 }
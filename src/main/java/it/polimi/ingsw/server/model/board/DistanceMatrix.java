@@ -0,0 +1,151 @@
+package it.polimi.ingsw.server.model.board;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Contains the minimum distances between all the squares of a configuration,
+ * both following the walls and ignoring them.
+ * The distances are indexed by the ids of the squares and are computed once,
+ * when this is created, so that each query is answered by an array access.
+ * This is immutable and can be shared by all the boards using the same
+ * configuration.
+ *
+ * @author Abbo Giulio A.
+ * @see GameBoard#minimumDistance(Square, Square, Boolean)
+ */
+public final class DistanceMatrix {
+    /**
+     * The distance between squares that can not reach each other.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    /**
+     * The number of rows and columns of the matrices, the highest id plus one.
+     */
+    private final int size;
+    /**
+     * The distances following the walls, the row is the starting square.
+     */
+    private final int[] walls;
+    /**
+     * The distances ignoring the walls, the row is the starting square.
+     */
+    private final int[] noWalls;
+
+    /**
+     * Computes the distances between all the squares in the provided rooms.
+     * The squares must be already linked with their neighbours.
+     *
+     * @param rooms the rooms of the configuration
+     * @throws IllegalArgumentException if a square has a negative id or two
+     *                                  squares have the same id
+     */
+    public DistanceMatrix(List<? extends Room> rooms) {
+        Square[] squares = new Square[rooms.stream()
+                .flatMap(r -> r.getAllSquares().stream())
+                .mapToInt(DistanceMatrix::id).max().orElse(-1) + 1];
+        for (Room room : rooms)
+            for (Square square : room.getAllSquares()) {
+                int id = id(square);
+                if (id < 0 || squares[id] != null)
+                    throw new IllegalArgumentException("Invalid id for square " + id);
+                squares[id] = square;
+            }
+
+        size = squares.length;
+        walls = new int[size * size];
+        noWalls = new int[size * size];
+        Arrays.fill(walls, UNREACHABLE);
+        Arrays.fill(noWalls, UNREACHABLE);
+        for (int start = 0; start < size; start++) {
+            if (squares[start] != null) {
+                visit(squares, start, false, walls);
+                visit(squares, start, true, noWalls);
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the provided square as an int.
+     *
+     * @param square the square
+     * @return the id of the square
+     */
+    private static int id(Square square) {
+        return square.getIntID();
+    }
+
+    /**
+     * Fills the row of the {@code start} square with a breadth first visit.
+     *
+     * @param squares     the squares indexed by id
+     * @param start       the id of the starting square
+     * @param ignoreWalls whether the walls can be crossed
+     * @param matrix      the matrix to fill
+     */
+    private void visit(Square[] squares, int start, boolean ignoreWalls, int[] matrix) {
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        matrix[start * size + start] = 0;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            Square current = squares[queue[head++]];
+            int dist = matrix[start * size + id(current)];
+            for (Square next : new Square[]{
+                    step(current.getNorth(), current.getNorthBorder(), ignoreWalls),
+                    step(current.getEast(), current.getEastBorder(), ignoreWalls),
+                    step(current.getSouth(), current.getSouthBorder(), ignoreWalls),
+                    step(current.getWest(), current.getWestBorder(), ignoreWalls)}) {
+                /*Skipping the neighbours that are not in the rooms*/
+                if (next == null || id(next) < 0 || id(next) >= size || squares[id(next)] == null)
+                    continue;
+                int cell = start * size + id(next);
+                if (matrix[cell] == UNREACHABLE) {
+                    matrix[cell] = dist + 1;
+                    queue[tail++] = id(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the neighbour if it can be reached.
+     *
+     * @param neighbour   the neighbour in one direction
+     * @param border      the border in the same direction
+     * @param ignoreWalls whether the walls can be crossed
+     * @return the neighbour or null if it can not be reached
+     */
+    private static Square step(Square neighbour, Border border, boolean ignoreWalls) {
+        return ignoreWalls || border != Border.WALL ? neighbour : null;
+    }
+
+    /**
+     * Returns whether the provided square has a row in this.
+     *
+     * @param square the square to check
+     * @return true if the distances from the square are known
+     */
+    public boolean contains(Square square) {
+        int id = id(square);
+        return id >= 0 && id < size && walls[id * size + id] == 0;
+    }
+
+    /**
+     * Gets the minimum distance between two squares of the configuration.
+     *
+     * @param start       the starting square
+     * @param end         the destination
+     * @param ignoreWalls whether the walls can be crossed
+     * @return the distance, or {@linkplain #UNREACHABLE} if there is no path
+     * @throws ArrayIndexOutOfBoundsException if a square is not
+     *                                        {@linkplain #contains(Square)
+     *                                        contained}
+     */
+    public int get(Square start, Square end, boolean ignoreWalls) {
+        int cell = id(start) * size + id(end);
+        return ignoreWalls ? noWalls[cell] : walls[cell];
+    }
+}
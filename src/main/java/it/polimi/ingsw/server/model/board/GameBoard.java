@@ -5,6 +5,8 @@ import it.polimi.ingsw.server.model.AmmoCube;
 import it.polimi.ingsw.server.model.Damageable;
 import it.polimi.ingsw.server.model.cards.*;
 import it.polimi.ingsw.server.model.player.Player;
+import it.polimi.ingsw.server.persistency.SnapshotInput;
+import it.polimi.ingsw.server.persistency.SnapshotOutput;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -51,21 +53,61 @@ public class GameBoard implements ReplaceListener {
      * Track used during the game. It defines the mode in which the game is played.
      */
     private AbstractTrack track;
+    /**
+     * The precomputed distances between the squares, null if they must be
+     * computed for each query.
+     */
+    private DistanceMatrix distances;
+    /**
+     * The index of the squares and rooms of the configuration, null if the
+     * squares can not be indexed.
+     */
+    private BoardIndex index;
 
     /**
      * Construct a GameBoard using the {@code track} which defines the mode and the {@code configuration} of the rooms .
+     * The topology of the configuration is computed for this board only.
      *
      * @param track         defines the mode in which the game will be played. {@see KillshotTrack} {@see DominationTrack} {@see TurretTrack}
      * @param configuration defines the rooms which compose the boards. Note that rooms are composed squares.
      */
     public GameBoard(AbstractTrack track, List<Room> configuration) {
+        this(track, configuration, MapTopology.of(configuration));
+    }
+
+    /**
+     * Construct a GameBoard using the {@code track} which defines the mode and the {@code configuration} of the rooms .
+     * The rooms, the visible squares and the distances are taken from {@code topology}, that can be shared by all the
+     * boards with the same configuration; if the squares are not the ones of the topology, they are computed for each query.
+     *
+     * @param track         defines the mode in which the game will be played. {@see KillshotTrack} {@see DominationTrack} {@see TurretTrack}
+     * @param configuration defines the rooms which compose the boards. Note that rooms are composed squares.
+     * @param topology      the topology of the configuration, null if everything must be computed for each query
+     */
+    public GameBoard(AbstractTrack track, List<Room> configuration, MapTopology topology) {
+        this(track, configuration, topology, new Random().nextLong());
+    }
+
+    /**
+     * Construct a GameBoard like {@link #GameBoard(AbstractTrack, List, MapTopology)}, whose decks are shuffled
+     * from {@code seed}: boards with the same seed draw the same cards, as long as the same cards are discarded.
+     *
+     * @param track         defines the mode in which the game will be played
+     * @param configuration defines the rooms which compose the boards
+     * @param topology      the topology of the configuration, null if everything must be computed for each query
+     * @param seed          the seed of the shuffles of all the decks
+     */
+    public GameBoard(AbstractTrack track, List<Room> configuration, MapTopology topology, long seed) {
         this.track = track;
         this.configuration = configuration;
+        index = topology == null ? null : BoardIndex.of(configuration, topology);
+        distances = index == null ? null : topology.getDistances();
         configuration.stream().flatMap(room -> room.getAllSquares().stream()).forEach(square -> square.setReplacer(this));
-        // Decks are shuffled when created
-        powerupDeck = new PowerupDeck(this);
-        weaponDeck = new WeaponDeck();
-        ammoDeck = new AmmoDeck(this);
+        // Decks are shuffled when created, each with its own generator
+        Random seeds = new Random(seed);
+        powerupDeck = new PowerupDeck(this, seeds.nextLong());
+        weaponDeck = new WeaponDeck(seeds.nextLong());
+        ammoDeck = new AmmoDeck(this, seeds.nextLong());
 
         //Discarded cards
         discardedPowerups = new ArrayList<>();
@@ -91,7 +133,16 @@ public class GameBoard implements ReplaceListener {
         return configuration;
     }
 
+    /**
+     * Returns the room containing the provided square.
+     *
+     * @param square the square
+     * @return the room containing a square with the same id
+     * @throws IllegalArgumentException if the square is not on the board
+     */
     public Room getRoom(Square square) {
+        if (index != null)
+            return index.getRoom(square);
         for (Room room : configuration) {
             for (Square s : room.getAllSquares()) {
                 if (s.getID().equals(square.getID()))
@@ -101,12 +152,28 @@ public class GameBoard implements ReplaceListener {
         throw new IllegalArgumentException("Room not found for square " + square.getID());
     }
 
+    /**
+     * Returns all the squares in the room of the provided square, spawn included.
+     *
+     * @param square the square
+     * @return the squares in the same room, unmodifiable
+     * @throws IllegalArgumentException if the square is not on the board
+     */
+    public List<Square> getSquaresInRoom(Square square) {
+        if (index != null)
+            return index.getSquaresInRoom(square);
+        return Collections.unmodifiableList(getRoom(square).getAllSquares());
+    }
+
     /**
      * @param destination is the square that will be checked
      * @return 1 if the destination square is visible from the calling square, 0 otherwise
      */
     public boolean checkVisible(Square departure, Square destination) {
 
+        if (index != null)
+            return (index.getVisibleMask(departure) & getSquareMask(destination)) != 0;
+
         if (getRoom(departure) == getRoom(destination))
             return true;
 
@@ -122,6 +189,71 @@ public class GameBoard implements ReplaceListener {
         return departure.getWestBorder() == Border.DOOR && getRoom(departure.getWest()) == getRoom(destination);
     }
 
+    /**
+     * Returns the mask of a single square.
+     * A mask is a set of squares where the bit of each square is given by its id: masks can be combined with the
+     * bitwise operators and converted back to squares with {@link GameBoard#getSquares(long)}.
+     *
+     * @param square the square
+     * @return the mask containing only the square
+     * @throws IllegalArgumentException if the id of the square does not fit in a mask
+     */
+    public long getSquareMask(Square square) {
+        int id = square.getIntID();
+        if (id < 0 || id >= Long.SIZE)
+            throw new IllegalArgumentException("No mask for square " + id);
+        return 1L << id;
+    }
+
+    /**
+     * Returns the mask of the squares in the room of the provided square, spawn included.
+     *
+     * @param square the square
+     * @return the mask of the squares in the same room
+     * @throws IllegalArgumentException if the square is not on the board
+     * @see GameBoard#getSquareMask(Square)
+     */
+    public long getRoomMask(Square square) {
+        if (index != null)
+            return index.getRoomMask(square);
+        long mask = 0;
+        for (Square s : getSquaresInRoom(square))
+            mask |= getSquareMask(s);
+        return mask;
+    }
+
+    /**
+     * Returns the mask of the squares visible from the provided square, the square included.
+     *
+     * @param square the square
+     * @return the mask of the visible squares
+     * @throws IllegalArgumentException if the square is not on the board
+     * @see GameBoard#getSquareMask(Square)
+     */
+    public long getVisibleMask(Square square) {
+        if (index != null)
+            return index.getVisibleMask(square);
+        long mask = 0;
+        for (Square s : square.listOfVisibles(this))
+            mask |= getSquareMask(s);
+        return mask;
+    }
+
+    /**
+     * Returns the squares of the board in the provided mask.
+     *
+     * @param mask the mask of the squares
+     * @return a new set with the squares whose bit is set
+     * @see GameBoard#getSquareMask(Square)
+     */
+    public Set<Square> getSquares(long mask) {
+        if (index != null)
+            return index.getSquares(mask);
+        return getAllSquares().stream()
+                .filter(s -> (getSquareMask(s) & mask) != 0)
+                .collect(Collectors.toSet());
+    }
+
     /**
      * Gets a random Ammo Card from the Ammo Deck. Note that Ammo Card can always be drawn. {@see AmmoDeck}
      *
@@ -166,6 +298,8 @@ public class GameBoard implements ReplaceListener {
      * @return a {@code Square} which contains the {@code Spawn} of the given {@code SquareColor}
      */
     public SpawnSquare findSpawn(AmmoCube color) {
+        if (index != null && index.getSpawn(color) != null)
+            return index.getSpawn(color);
         List<SpawnSquare> spawns = configuration.stream()
                 .filter(Room::hasSpawnSquare).map(Room::getSpawnSquare).filter(x -> x.getSpawnColor() == color).collect(Collectors.toList());
 
@@ -396,28 +530,38 @@ public class GameBoard implements ReplaceListener {
 
     /**
      * Gets the minimum distance between two squares, ignoring the wall according to the {@code ignoreWalls} parameter.
+     * If the board has a {@link DistanceMatrix} containing both squares, the distance is read from it.
      *
      * @param ignoreWalls boolean indicating if the path should ignore walls or not
-     * @return an int representing the minimum distance between two squares.
+     * @return an int representing the minimum distance between two squares, {@link DistanceMatrix#UNREACHABLE} if
+     * there is no path between them.
      */
     public int minimumDistance(Square start, Square end, Boolean ignoreWalls) {
-        if (start.equals(end) || start == null || end == null)
+        if (start == null || end == null || start.equals(end))
             return 0;
+        if (distances != null && distances.contains(start) && distances.contains(end))
+            return distances.get(start, end, ignoreWalls);
 
+        /*Visiting the board one distance at a time*/
         int dist = 0;
-        List<Square> objects = new ArrayList<>();
-        List<Square> neighbours = new ArrayList<>();
-
-        objects.add(start);
-        while (!objects.contains(end)) {
+        Set<Square> visited = new HashSet<>();
+        List<Square> frontier = new ArrayList<>();
+        visited.add(start);
+        frontier.add(start);
+        while (!frontier.isEmpty()) {
             dist++;
-            for (Square s : objects) {
-                neighbours.addAll(getNeighbours(s, ignoreWalls));
+            List<Square> next = new ArrayList<>();
+            for (Square s : frontier) {
+                for (Square neighbour : getNeighbours(s, ignoreWalls)) {
+                    if (neighbour.equals(end))
+                        return dist;
+                    if (visited.add(neighbour))
+                        next.add(neighbour);
+                }
             }
-            objects.addAll(neighbours);
-            neighbours.clear();
+            frontier = next;
         }
-        return dist;
+        return DistanceMatrix.UNREACHABLE;
     }
 
     /**
@@ -456,13 +600,74 @@ public class GameBoard implements ReplaceListener {
     /**
      * Gets all the square composing the board.
      *
-     * @return all squares composing the board
+     * @return all squares composing the board, unmodifiable
      */
     public Set<Square> getAllSquares() {
+        if (index != null)
+            return index.getAllSquares();
         return configuration.stream()
                 .map(Room::getAllSquares)
                 .flatMap(List::stream)
-                .collect(Collectors.toSet());
+                .collect(Collectors.toUnmodifiableSet());
     }
 
-}
\ No newline at end of file
+    /**
+     * Saves the state of this board: the cards on the squares, the discarded ones, the decks and the track.
+     * The rooms and the squares are not saved, they are the same for all the boards with the same configuration.
+     *
+     * @param out where the state is saved
+     * @throws UnsupportedOperationException if the track is not a {@link KillshotTrack}
+     */
+    public void save(SnapshotOutput out) {
+        if (!(track instanceof KillshotTrack))
+            throw new UnsupportedOperationException("Can not save the track " + track.getGameMode());
+        for (Room room : configuration)
+            for (Square square : room.getAllSquares()) {
+                out.writeAmmoCard(square.peekAmmoCard());
+                if (square instanceof SpawnSquare)
+                    out.writeWeapons(((SpawnSquare) square).getMarket().getCards());
+            }
+        out.writeSquares(squareNewAmmoCard);
+        out.writeSquares(squareNewWeaponCard);
+        out.writePowerups(discardedPowerups);
+        out.writeAmmoCards(discardedAmmos);
+        powerupDeck.save(out);
+        weaponDeck.save(out);
+        ammoDeck.save(out);
+        ((KillshotTrack) track).save(out);
+    }
+
+    /**
+     * Restores the state saved by a board with the same configuration.
+     *
+     * @param in where the state is read
+     * @throws UnsupportedOperationException if the track is not a {@link KillshotTrack}
+     * @throws IllegalArgumentException      if the state is not of a board with the same configuration
+     */
+    public void restore(SnapshotInput in) {
+        if (!(track instanceof KillshotTrack))
+            throw new UnsupportedOperationException("Can not restore the track " + track.getGameMode());
+        for (Room room : configuration)
+            for (Square square : room.getAllSquares()) {
+                square.setAmmoCard(in.readAmmoCard());
+                if (square instanceof SpawnSquare) {
+                    List<WeaponCard> market = ((SpawnSquare) square).getMarket().getCards();
+                    List<WeaponCard> saved = in.readWeapons();
+                    if (saved.size() != market.size())
+                        throw new IllegalArgumentException("Not a market of this board: " + saved);
+                    for (int i = 0; i < saved.size(); i++)
+                        market.set(i, saved.get(i));
+                }
+            }
+        squareNewAmmoCard = in.readSquares();
+        squareNewWeaponCard = new ArrayList<>();
+        for (Square square : in.readSquares())
+            squareNewWeaponCard.add((SpawnSquare) square);
+        discardedPowerups = in.readPowerups();
+        discardedAmmos = in.readAmmoCards();
+        powerupDeck.restore(in);
+        weaponDeck.restore(in);
+        ammoDeck.restore(in);
+        ((KillshotTrack) track).restore(in);
+    }
+}
@@ -1,6 +1,8 @@
 package it.polimi.ingsw.server.model.board;
 
 import it.polimi.ingsw.server.model.player.Player;
+import it.polimi.ingsw.server.persistency.SnapshotInput;
+import it.polimi.ingsw.server.persistency.SnapshotOutput;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -157,4 +159,28 @@ public class KillshotTrack implements AbstractTrack {
         return new ArrayList<>(tokenTrack);
     }
 
+    /**
+     * Saves the skulls left and the tokens.
+     *
+     * @param out where the state is saved
+     */
+    public void save(SnapshotOutput out) {
+        out.writeByte(skullsLeft);
+        out.writeCount(tokenTrack.size());
+        tokenTrack.forEach(out::writePlayers);
+    }
+
+    /**
+     * Restores the skulls left and the tokens.
+     *
+     * @param in where the state is read
+     */
+    public void restore(SnapshotInput in) {
+        skullsLeft = in.readByte();
+        int kills = in.readCount();
+        tokenTrack = new ArrayList<>(kills);
+        for (int i = 0; i < kills; i++)
+            tokenTrack.add(in.readPlayers());
+    }
+
 }
\ No newline at end of file
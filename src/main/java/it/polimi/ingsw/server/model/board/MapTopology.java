@@ -0,0 +1,287 @@
+package it.polimi.ingsw.server.model.board;
+
+import it.polimi.ingsw.server.model.AmmoCube;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Contains the static part of a configuration: how the squares are linked,
+ * the rooms, the squares visible from each square, the spawn of each color
+ * and the distances.
+ * This is built once for each configuration and is immutable, so it can be
+ * shared by all the boards using the configuration; each match gets its
+ * own rooms with {@linkplain #createRooms()}, that only have to be linked.
+ * <p>
+ * Everything is indexed by the ids of the squares and sets of squares are
+ * represented as masks of bits, where the bit of a square is given by its
+ * id; as a consequence the ids must be lower than {@value Long#SIZE}.
+ *
+ * @author Abbo Giulio A.
+ * @see GameBoard
+ * @see DistanceMatrix
+ */
+public final class MapTopology {
+    /**
+     * The value of the missing neighbours and spawns.
+     */
+    private static final int NONE = -1;
+    /**
+     * The number of neighbours of each square.
+     */
+    private static final int DIRECTIONS = 4;
+    /**
+     * The rooms copied by {@linkplain #createRooms()}, never given out.
+     */
+    private final Room[] templates;
+    /**
+     * The number of ids, the highest id plus one.
+     */
+    private final int size;
+    /**
+     * The squares in the configuration.
+     */
+    private final long allMask;
+    /**
+     * The ids of the neighbours of each square in north, east, south and west
+     * order, {@value #NONE} if there is none.
+     */
+    private final int[] neighbours;
+    /**
+     * The mask of the room of each square, indexed by the id of the square.
+     */
+    private final long[] roomMasks;
+    /**
+     * The mask of the squares visible from each square, indexed by the id of
+     * the square.
+     */
+    private final long[] visibleMasks;
+    /**
+     * The id of the spawn square of each color, indexed by the ordinal of
+     * the color, {@value #NONE} if there is none.
+     */
+    private final int[] spawns;
+    /**
+     * The distances between the squares.
+     */
+    private final DistanceMatrix distances;
+
+    /**
+     * Creates the topology of the provided rooms.
+     * The squares must be already linked with their neighbours; the rooms
+     * are kept to create the rooms of each match and must not be modified.
+     *
+     * @param rooms the rooms of the configuration
+     * @throws IllegalArgumentException if a square has a negative id, an id
+     *                                  too high to be in a mask or the same
+     *                                  id of another square
+     */
+    public MapTopology(List<? extends Room> rooms) {
+        templates = rooms.toArray(new Room[0]);
+
+        /*Finding the squares by id*/
+        Square[] squares = new Square[rooms.stream()
+                .flatMap(r -> r.getAllSquares().stream())
+                .mapToInt(Square::getIntID).max().orElse(-1) + 1];
+        if (squares.length > Long.SIZE)
+            throw new IllegalArgumentException("Invalid id for square " + (squares.length - 1));
+        size = squares.length;
+        roomMasks = new long[size];
+        long all = 0;
+        for (Room room : rooms) {
+            long roomMask = 0;
+            for (Square square : room.getAllSquares()) {
+                int id = square.getIntID();
+                if (id < 0 || squares[id] != null)
+                    throw new IllegalArgumentException("Invalid id for square " + id);
+                squares[id] = square;
+                roomMask |= 1L << id;
+            }
+            for (Square square : room.getAllSquares())
+                roomMasks[square.getIntID()] = roomMask;
+            all |= roomMask;
+        }
+        allMask = all;
+        distances = new DistanceMatrix(rooms);
+
+        /*Memorizing the neighbours and the squares visible through the doors*/
+        neighbours = new int[size * DIRECTIONS];
+        visibleMasks = new long[size];
+        Arrays.fill(neighbours, NONE);
+        for (int id = 0; id < size; id++) {
+            Square square = squares[id];
+            if (square == null)
+                continue;
+            link(id, 0, square.getNorth());
+            link(id, 1, square.getEast());
+            link(id, 2, square.getSouth());
+            link(id, 3, square.getWest());
+            visibleMasks[id] = roomMasks[id] |
+                    through(id, 0, square.getNorthBorder()) |
+                    through(id, 1, square.getEastBorder()) |
+                    through(id, 2, square.getSouthBorder()) |
+                    through(id, 3, square.getWestBorder());
+        }
+
+        /*The first spawn of each color*/
+        spawns = new int[AmmoCube.values().length];
+        Arrays.fill(spawns, NONE);
+        for (Room room : rooms)
+            if (room.getSpawnSquare() != null) {
+                int color = room.getSpawnSquare().getSpawnColor().ordinal();
+                if (spawns[color] == NONE)
+                    spawns[color] = room.getSpawnSquare().getIntID();
+            }
+    }
+
+    /**
+     * Returns the topology of the provided rooms, if it can be created.
+     *
+     * @param rooms the rooms of the configuration
+     * @return the topology, or null if the ids of the squares are not unique
+     * or can not be in a mask
+     */
+    public static MapTopology of(List<? extends Room> rooms) {
+        try {
+            return new MapTopology(rooms);
+        } catch (IllegalArgumentException e) {
+            /*The squares can not be indexed*/
+            return null;
+        }
+    }
+
+    /**
+     * Memorizes a neighbour of a square, if it is in the configuration.
+     *
+     * @param id        the id of the square
+     * @param direction the position of the neighbour
+     * @param neighbour the neighbour, could be null
+     */
+    private void link(int id, int direction, Square neighbour) {
+        if (neighbour != null && contains(neighbour.getIntID()))
+            neighbours[id * DIRECTIONS + direction] = neighbour.getIntID();
+    }
+
+    /**
+     * Returns the mask of the room seen through a border.
+     *
+     * @param id        the id of the square
+     * @param direction the position of the border
+     * @param border    the border
+     * @return the mask of the room of the neighbour if the border is a door
+     */
+    private long through(int id, int direction, Border border) {
+        int neighbour = neighbours[id * DIRECTIONS + direction];
+        return border == Border.DOOR && neighbour != NONE ? roomMasks[neighbour] : 0;
+    }
+
+    /**
+     * Creates the rooms of a new board, with their squares already linked.
+     * The rooms are new at each call, so they can hold the cards of a single
+     * match; the spawn squares have an empty market.
+     *
+     * @return the rooms of the configuration
+     */
+    public List<Room> createRooms() {
+        List<Room> rooms = new ArrayList<>(templates.length);
+        Square[] squares = new Square[size];
+        for (Room template : templates) {
+            Room room = new Room(template);
+            rooms.add(room);
+            for (Square square : room.getAllSquares())
+                squares[square.getIntID()] = square;
+        }
+        for (int id = 0; id < size; id++) {
+            if (squares[id] == null)
+                continue;
+            squares[id].setNorth(neighbour(squares, id, 0));
+            squares[id].setEast(neighbour(squares, id, 1));
+            squares[id].setSouth(neighbour(squares, id, 2));
+            squares[id].setWest(neighbour(squares, id, 3));
+            if (squares[id] instanceof SpawnSquare)
+                ((SpawnSquare) squares[id]).emptyMarket();
+        }
+        return rooms;
+    }
+
+    /**
+     * Returns a neighbour of a square.
+     *
+     * @param squares   the squares, indexed by id
+     * @param id        the id of the square
+     * @param direction the position of the neighbour
+     * @return the neighbour, or null if there is none
+     */
+    private Square neighbour(Square[] squares, int id, int direction) {
+        int neighbour = neighbours[id * DIRECTIONS + direction];
+        return neighbour == NONE ? null : squares[neighbour];
+    }
+
+    /**
+     * Returns the distances between the squares of the configuration.
+     *
+     * @return the distances between the squares
+     */
+    public DistanceMatrix getDistances() {
+        return distances;
+    }
+
+    /**
+     * Returns whether a square with the provided id is in the configuration.
+     *
+     * @param id the id of the square
+     * @return true if there is a square with the id
+     */
+    boolean contains(int id) {
+        return id >= 0 && id < size && (allMask & 1L << id) != 0;
+    }
+
+    /**
+     * Returns the number of squares in the configuration.
+     *
+     * @return the number of squares
+     */
+    int getSquaresNumber() {
+        return Long.bitCount(allMask);
+    }
+
+    /**
+     * Returns the number of ids, the highest id plus one.
+     *
+     * @return the number of ids
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the mask of the squares in the room of a square.
+     *
+     * @param id the id of the square
+     * @return the mask of the squares in the same room, spawn included
+     */
+    long getRoomMask(int id) {
+        return roomMasks[id];
+    }
+
+    /**
+     * Returns the mask of the squares visible from a square.
+     *
+     * @param id the id of the square
+     * @return the mask of the visible squares, the square included
+     */
+    long getVisibleMask(int id) {
+        return visibleMasks[id];
+    }
+
+    /**
+     * Returns the id of the spawn square of a color.
+     *
+     * @param color the color of the spawn
+     * @return the id of the spawn square, or -1 if there is none
+     */
+    int getSpawn(AmmoCube color) {
+        return spawns[color.ordinal()];
+    }
+}
@@ -105,13 +105,20 @@ public class SpawnSquare extends Square {
      */
     void refresh(List<? extends Room> rooms) {
         if (market == null)
-            market = new WeaponMarket(new ArrayList<>(Arrays.asList(null, null, null)));
+            emptyMarket();
         setNorth(Square.getSquare(rooms, getIdNorth()));
         setEast(Square.getSquare(rooms, getIdEast()));
         setSouth(Square.getSquare(rooms, getIdSouth()));
         setWest(Square.getSquare(rooms, getIdWest()));
     }
 
+    /**
+     * Sets a new market, with three empty places for weapons.
+     */
+    void emptyMarket() {
+        market = new WeaponMarket(new ArrayList<>(Arrays.asList(null, null, null)));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -122,8 +129,14 @@ public class SpawnSquare extends Square {
                 Objects.equals(spawn, that.spawn);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The market is left out: it changes during the game and has no hash of
+     * its own, so the hash would change with it and between matches.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(market, spawn);
+        return Objects.hash(super.hashCode(), spawn);
     }
 }
\ No newline at end of file
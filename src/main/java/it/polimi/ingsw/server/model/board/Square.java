@@ -140,7 +140,7 @@ public class Square {
     public static Square getSquare(List<? extends Room> rooms, int idSquare) {
         for (Room room : rooms)
             for (Square s : room.getAllSquares())
-                if (Integer.parseInt(s.getID()) == idSquare)
+                if (s.ID == idSquare)
                     return s;
         return null;
     }
@@ -258,6 +258,15 @@ public class Square {
         return Integer.toString(ID);
     }
 
+    /**
+     * Returns the id of this square without converting it to a string.
+     *
+     * @return the id of this square
+     */
+    public int getIntID() {
+        return ID;
+    }
+
     public AmmoCard peekAmmoCard() {
         return ammoCard;
     }
@@ -328,16 +337,16 @@ public class Square {
     public List<Square> listOfVisibles(GameBoard gb) {
 
         /*All the square in the same room are visible*/
-        List<Square> visibleSquares = new ArrayList<>(gb.getRoom(this).getAllSquares());
+        List<Square> visibleSquares = new ArrayList<>(gb.getSquaresInRoom(this));
 
         if (northBorder == Border.DOOR)
-            visibleSquares.addAll(gb.getRoom(north).getAllSquares());
+            visibleSquares.addAll(gb.getSquaresInRoom(north));
         if (eastBorder == Border.DOOR)
-            visibleSquares.addAll(gb.getRoom(east).getAllSquares());
+            visibleSquares.addAll(gb.getSquaresInRoom(east));
         if (southBorder == Border.DOOR)
-            visibleSquares.addAll(gb.getRoom(south).getAllSquares());
+            visibleSquares.addAll(gb.getSquaresInRoom(south));
         if (westBorder == Border.DOOR)
-            visibleSquares.addAll(gb.getRoom(west).getAllSquares());
+            visibleSquares.addAll(gb.getSquaresInRoom(west));
 
         return visibleSquares;
     }
@@ -2,9 +2,13 @@ package it.polimi.ingsw.server.model.cards;
 
 import it.polimi.ingsw.server.model.board.GameBoard;
 import it.polimi.ingsw.server.persistency.FromFile;
+import it.polimi.ingsw.server.persistency.SnapshotInput;
+import it.polimi.ingsw.server.persistency.SnapshotOutput;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Represent an AmmoDeck. It takes care of creating the cards and shuffling them.
@@ -21,16 +25,32 @@ public class AmmoDeck implements AbstractDeck {
      * Game Board
      */
     private GameBoard board;
+    /**
+     * Shuffles the deck, when it is created and when the discarded cards are reused.
+     */
+    private DeckRandom random;
 
     /**
      * Constructs an AmmoDeck already shuffled. It takes care of creating the cards.
      * A new Ammo Deck contains 36 cards.
      */
     public AmmoDeck(GameBoard board) {
+        this(board, new Random().nextLong());
+    }
+
+    /**
+     * Constructs an AmmoDeck shuffled from {@code seed}: decks with the same seed give the same
+     * cards in the same order, as long as the same cards are discarded.
+     *
+     * @param board the board holding the discarded cards
+     * @param seed  the seed of all the shuffles of this deck
+     */
+    public AmmoDeck(GameBoard board, long seed) {
         this.board = board;
+        random = new DeckRandom(seed);
 
-        deck = FromFile.ammoCards().getAll();
-        Collections.shuffle(deck);
+        deck = new ArrayList<>(FromFile.ammoCards().getAll());
+        Collections.shuffle(deck, random);
     }
 
     /**
@@ -42,7 +62,7 @@ public class AmmoDeck implements AbstractDeck {
     public AmmoCard drawCard() {
         if (deck.isEmpty()) {
             deck = board.getDiscardedAmmos();
-            Collections.shuffle(deck);
+            Collections.shuffle(deck, random);
         }
         AmmoCard drawnCard = deck.get(deck.size() - 1);
         deck.remove(drawnCard);
@@ -59,6 +79,25 @@ public class AmmoDeck implements AbstractDeck {
         return deck.size();
     }
 
+    /**
+     * Saves the cards left and the state of the generator.
+     *
+     * @param out where the state is saved
+     */
+    public void save(SnapshotOutput out) {
+        out.writeLong(random.getInitialSeed());
+        out.writeLong(random.getDraws());
+        out.writeAmmoCards(deck);
+    }
 
+    /**
+     * Restores the cards left and the state of the generator.
+     *
+     * @param in where the state is read
+     */
+    public void restore(SnapshotInput in) {
+        long seed = in.readLong();
+        random = new DeckRandom(seed, in.readLong());
+        deck = in.readAmmoCards();
+    }
 }
-
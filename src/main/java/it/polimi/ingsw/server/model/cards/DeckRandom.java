@@ -0,0 +1,70 @@
+package it.polimi.ingsw.server.model.cards;
+
+import java.util.Random;
+
+/**
+ * The generator shuffling a deck, whose state can be saved.
+ * It gives the same values as a {@link Random} with the same seed and counts
+ * the values drawn: a generator created with the seed and the count of
+ * another one goes on like it.
+ *
+ * @author Abbo Giulio A.
+ */
+class DeckRandom extends Random {
+    private static final long serialVersionUID = 2719355410935498014L;
+    /**
+     * The seed this was created with.
+     */
+    private final long initialSeed;
+    /**
+     * The values drawn since the creation.
+     */
+    private long draws;
+
+    /**
+     * Creates a generator with the provided seed.
+     *
+     * @param seed the seed
+     */
+    DeckRandom(long seed) {
+        super(seed);
+        initialSeed = seed;
+    }
+
+    /**
+     * Creates a generator in the state of the one that was created with the
+     * provided seed and drew the provided values.
+     *
+     * @param seed  the seed of the other generator
+     * @param draws the values drawn by the other generator
+     */
+    DeckRandom(long seed, long draws) {
+        this(seed);
+        for (long i = 0; i < draws; i++)
+            next(Integer.SIZE);
+    }
+
+    @Override
+    protected int next(int bits) {
+        draws++;
+        return super.next(bits);
+    }
+
+    /**
+     * Returns the seed this was created with.
+     *
+     * @return the seed
+     */
+    long getInitialSeed() {
+        return initialSeed;
+    }
+
+    /**
+     * Returns the values drawn since the creation.
+     *
+     * @return the count of the values drawn
+     */
+    long getDraws() {
+        return draws;
+    }
+}
@@ -2,9 +2,13 @@ package it.polimi.ingsw.server.model.cards;
 
 import it.polimi.ingsw.server.model.board.GameBoard;
 import it.polimi.ingsw.server.persistency.FromFile;
+import it.polimi.ingsw.server.persistency.SnapshotInput;
+import it.polimi.ingsw.server.persistency.SnapshotOutput;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Represents the Powerup Deck. It takes care of creating the cards and shuffles them.
@@ -18,6 +22,10 @@ public class PowerupDeck implements AbstractDeck {
      * Game Board used/
      */
     private GameBoard board;
+    /**
+     * Shuffles the deck, when it is created and when the discarded cards are reused.
+     */
+    private DeckRandom random;
 
     /**
      * Constructs a Powerup Deck. It takes care of creating the cards and shuffling them.
@@ -26,10 +34,22 @@ public class PowerupDeck implements AbstractDeck {
      * This means that a call to method {@code drawCard()} will always be successful.
      */
     public PowerupDeck(GameBoard board) {
+        this(board, new Random().nextLong());
+    }
+
+    /**
+     * Constructs a Powerup Deck shuffled from {@code seed}: decks with the same seed give the same
+     * cards in the same order, as long as the same cards are discarded.
+     *
+     * @param board the board holding the discarded cards
+     * @param seed  the seed of all the shuffles of this deck
+     */
+    public PowerupDeck(GameBoard board, long seed) {
         this.board = board;
+        random = new DeckRandom(seed);
 
-        deck = FromFile.powerups().getAll();
-        Collections.shuffle(deck);
+        deck = new ArrayList<>(FromFile.powerups().getAll());
+        Collections.shuffle(deck, random);
     }
 
 
@@ -44,8 +64,8 @@ public class PowerupDeck implements AbstractDeck {
     public PowerupCard drawCard() {
         if (deck.isEmpty()) {
             deck = board.getDiscardedPowerups();
-            Collections.shuffle(deck);
-            if (deck.isEmpty()) deck = FromFile.powerups().getAll();
+            Collections.shuffle(deck, random);
+            if (deck.isEmpty()) deck = new ArrayList<>(FromFile.powerups().getAll());
         }
 
         PowerupCard drawnCard = deck.get(deck.size() - 1);
@@ -64,4 +84,25 @@ public class PowerupDeck implements AbstractDeck {
         return deck.size();
     }
 
-}
\ No newline at end of file
+    /**
+     * Saves the cards left and the state of the generator.
+     *
+     * @param out where the state is saved
+     */
+    public void save(SnapshotOutput out) {
+        out.writeLong(random.getInitialSeed());
+        out.writeLong(random.getDraws());
+        out.writePowerups(deck);
+    }
+
+    /**
+     * Restores the cards left and the state of the generator.
+     *
+     * @param in where the state is read
+     */
+    public void restore(SnapshotInput in) {
+        long seed = in.readLong();
+        random = new DeckRandom(seed, in.readLong());
+        deck = in.readPowerups();
+    }
+}
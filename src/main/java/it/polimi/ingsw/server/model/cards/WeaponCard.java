@@ -57,6 +57,13 @@ public class WeaponCard extends AbstractCard {
      */
     private boolean onlySpecifiedOrder;
 
+    /**
+     * The sequences of effects resolved from {@linkplain #effectIdSequences},
+     * null if they have not been compiled.
+     * This field is not loaded from the file.
+     */
+    private transient List<Action> sequences;
+
     /**
      * Constructor used for testing, effects are initialized to [["Test"]].
      *
@@ -87,14 +94,41 @@ public class WeaponCard extends AbstractCard {
      * next element of the sequence.
      * For example, if the possible sequences are ABC, BBB, ABA, then the lis
      * will contain A, B, A (this one with different links from the first A).
+     * <p>
+     * If the sequences have been compiled the same list is returned every
+     * time, otherwise the effects are resolved on each call.
      *
      * @return a list of all the possible sequences of effect allowed
      */
     public List<Action> getPossibleSequences() {
-        return Arrays.stream(effectIdSequences).map(effectIdSequence ->
+        List<Action> compiled = sequences;
+        return compiled != null ? compiled : resolveSequences();
+    }
+
+    /**
+     * Resolves the effects of all the sequences once, so that
+     * {@linkplain #getPossibleSequences()} returns always the same actions.
+     * The effects do not keep the state of their runs, thus the actions can
+     * be shared.
+     * This must be called after {@linkplain #runPermutation()}.
+     *
+     * @throws java.util.NoSuchElementException if an effect can not be found
+     */
+    public void compileSequences() {
+        sequences = resolveSequences();
+    }
+
+    /**
+     * Returns the actions composed by the effects of each sequence.
+     *
+     * @return the actions of the sequences, not modifiable
+     * @throws java.util.NoSuchElementException if an effect can not be found
+     */
+    private List<Action> resolveSequences() {
+        return Collections.unmodifiableList(Arrays.stream(effectIdSequences).map(effectIdSequence ->
                 new Action("", Arrays.stream(effectIdSequence).map(s ->
                         FromFile.effects().get(s)).collect(Collectors.toList())))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -126,6 +160,7 @@ public class WeaponCard extends AbstractCard {
             /*Storing the permutations and ensuring that this method does not run again*/
             effectIdSequences = permutationsList.stream().map(e -> e.toArray(new String[0])).toArray(String[][]::new);
             onlySpecifiedOrder = true;
+            sequences = null;
         }
     }
 
@@ -2,9 +2,13 @@ package it.polimi.ingsw.server.model.cards;
 
 import it.polimi.ingsw.server.model.AgainstRulesException;
 import it.polimi.ingsw.server.persistency.FromFile;
+import it.polimi.ingsw.server.persistency.SnapshotInput;
+import it.polimi.ingsw.server.persistency.SnapshotOutput;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Represents a WeaponDeck. It takes care of creating the cards and shuffles them.
@@ -25,8 +29,18 @@ public class WeaponDeck implements AbstractDeck {
      * A new Weapon Deck contains 21 cards.
      */
     public WeaponDeck() {
-        deck = FromFile.weapons().getAll();
-        Collections.shuffle(deck);
+        this(new Random().nextLong());
+    }
+
+    /**
+     * Constructs a Weapon Deck shuffled from {@code seed}: decks with the same seed give the same
+     * cards in the same order.
+     *
+     * @param seed the seed of the shuffle
+     */
+    public WeaponDeck(long seed) {
+        deck = new ArrayList<>(FromFile.weapons().getAll());
+        Collections.shuffle(deck, new Random(seed));
     }
 
 
@@ -50,4 +64,22 @@ public class WeaponDeck implements AbstractDeck {
     public int cardsLeft() {
         return deck.size();
     }
+
+    /**
+     * Saves the cards left, the deck is never shuffled again.
+     *
+     * @param out where the state is saved
+     */
+    public void save(SnapshotOutput out) {
+        out.writeWeapons(deck);
+    }
+
+    /**
+     * Restores the cards left.
+     *
+     * @param in where the state is read
+     */
+    public void restore(SnapshotInput in) {
+        deck = in.readWeapons();
+    }
 }
\ No newline at end of file
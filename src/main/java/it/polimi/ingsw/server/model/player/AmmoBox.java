@@ -1,6 +1,8 @@
 package it.polimi.ingsw.server.model.player;
 
 import it.polimi.ingsw.server.model.AmmoCube;
+import it.polimi.ingsw.server.persistency.SnapshotInput;
+import it.polimi.ingsw.server.persistency.SnapshotOutput;
 
 import java.util.EnumMap;
 import java.util.List;
@@ -180,6 +182,28 @@ class AmmoBox {
         return remaining;
     }
 
+    /**
+     * Saves the cubes in this box.
+     *
+     * @param out where the state is saved
+     */
+    void save(SnapshotOutput out) {
+        out.writeByte(blue);
+        out.writeByte(red);
+        out.writeByte(yellow);
+    }
+
+    /**
+     * Restores the cubes in this box.
+     *
+     * @param in where the state is read
+     */
+    void restore(SnapshotInput in) {
+        blue = in.readByte();
+        red = in.readByte();
+        yellow = in.readByte();
+    }
+
     /**
      * Checks if a cube can be added.
      *
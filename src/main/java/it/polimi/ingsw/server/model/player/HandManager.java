@@ -4,6 +4,8 @@ import it.polimi.ingsw.server.model.AmmoCube;
 import it.polimi.ingsw.server.model.cards.AbstractCard;
 import it.polimi.ingsw.server.model.cards.PowerupCard;
 import it.polimi.ingsw.server.model.cards.WeaponCard;
+import it.polimi.ingsw.server.persistency.SnapshotInput;
+import it.polimi.ingsw.server.persistency.SnapshotOutput;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -253,6 +255,33 @@ class HandManager {
         return usable;
     }
 
+    /**
+     * Saves the cards in this hand.
+     *
+     * @param out where the state is saved
+     */
+    void save(SnapshotOutput out) {
+        out.writeWeapons(loadedWeapons);
+        out.writeWeapons(unloadedWeapons);
+        out.writePowerups(powerups);
+    }
+
+    /**
+     * Restores the cards in this hand, the powerups are counted again.
+     *
+     * @param in where the state is read
+     */
+    void restore(SnapshotInput in) {
+        loadedWeapons = in.readWeapons();
+        unloadedWeapons = in.readWeapons();
+        powerups = in.readPowerups();
+        bluePowerups = 0;
+        redPowerups = 0;
+        yellowPowerups = 0;
+        for (PowerupCard card : powerups)
+            increaseCount(card.getCube());
+    }
+
     /**
      * Increases the counter for the powerup cards with the specified cube.
      *
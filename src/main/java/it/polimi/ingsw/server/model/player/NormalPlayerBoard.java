@@ -1,5 +1,8 @@
 package it.polimi.ingsw.server.model.player;
 
+import it.polimi.ingsw.server.persistency.SnapshotInput;
+import it.polimi.ingsw.server.persistency.SnapshotOutput;
+
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -273,4 +276,28 @@ public class NormalPlayerBoard implements PlayerBoardInterface {
     public int getSkulls() {
         return skulls;
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param out {@inheritDoc}
+     */
+    @Override
+    public void save(SnapshotOutput out) {
+        out.writeByte(skulls);
+        out.writePlayers(damage);
+        out.writePlayers(marks);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param in {@inheritDoc}
+     */
+    @Override
+    public void restore(SnapshotInput in) {
+        skulls = in.readByte();
+        damage = in.readPlayers();
+        marks = in.readPlayers();
+    }
 }
\ No newline at end of file
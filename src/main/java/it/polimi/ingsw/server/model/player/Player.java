@@ -11,6 +11,8 @@ import it.polimi.ingsw.server.model.Damageable;
 import it.polimi.ingsw.server.model.board.Square;
 import it.polimi.ingsw.server.model.cards.PowerupCard;
 import it.polimi.ingsw.server.model.cards.WeaponCard;
+import it.polimi.ingsw.server.persistency.SnapshotInput;
+import it.polimi.ingsw.server.persistency.SnapshotOutput;
 
 import java.util.*;
 
@@ -376,6 +378,30 @@ public class Player implements Damageable {
                 cost));
     }
 
+    /**
+     * Returns the powerups that, used alone, let this player pay the
+     * {@code cost} with the cubes left.
+     * Like {@linkplain #canAffordWithPowerups(List, boolean)}, this should be
+     * used after {@linkplain #canAfford(List, boolean)}; it is needed where
+     * only one card can be used to pay.
+     *
+     * @param cost      the cubes to be payed
+     * @param skipFirst indicates whether the first element of the list must
+     *                  be taken into account
+     * @return a list of the powerups that pay enough alone, empty if there are
+     * none
+     */
+    public List<PowerupCard> canAffordWithOnePowerup(List<AmmoCube> cost, boolean skipFirst) {
+        List<AmmoCube> toPay = (skipFirst) ? cost.subList(1, cost.size()) : cost;
+        List<PowerupCard> usable = new ArrayList<>();
+        for (PowerupCard card : canAffordWithPowerups(cost, skipFirst)) {
+            List<AmmoCube> left = new ArrayList<>(toPay);
+            if (left.remove(card.getCube()) && ammoBox.checkPrice(left))
+                usable.add(card);
+        }
+        return usable;
+    }
+
     /**
      * Adds the given card to this player and pays its price.
      * A cube of type {@code ANY} can not be payed, first it is necessary to
@@ -395,7 +421,7 @@ public class Player implements Damageable {
         if (canAfford(card.getCost(), true)) {
             ammoBox.pay(cost);
             hand.addWeaponCard(card);
-        } else if (!canAffordWithPowerups(card.getCost(), true).isEmpty()) {
+        } else if (!canAffordWithOnePowerup(card.getCost(), true).isEmpty()) {
             hand.removePowerup(asCubes);
             cost.remove(asCubes.getCube());
             ammoBox.pay(cost);
@@ -442,7 +468,7 @@ public class Player implements Damageable {
     public void reload(WeaponCard weapon, PowerupCard asCubes) {
         List<AmmoCube> cost = new ArrayList<>(weapon.getCost());
         if (!canAfford(weapon.getCost(), false)) {
-            if (!canAffordWithPowerups(weapon.getCost(), false).isEmpty()) {
+            if (!canAffordWithOnePowerup(weapon.getCost(), false).isEmpty()) {
                 hand.removePowerup(asCubes);
                 cost.remove(asCubes.getCube());
             } else
@@ -595,6 +621,41 @@ public class Player implements Damageable {
         return frenzyState == 1;
     }
 
+    /**
+     * Saves the state of this player: the score, the position, the player
+     * board, the cards and the cubes.
+     * The name and the communication interface are not saved.
+     *
+     * @param out where the state is saved
+     */
+    public void save(SnapshotOutput out) {
+        out.writeInt(score);
+        out.writeSquare(position);
+        out.writeByte(frenzyState);
+        out.writeBoolean(playerBoard instanceof FrenzyPlayerBoard);
+        playerBoard.save(out);
+        hand.save(out);
+        ammoBox.save(out);
+    }
+
+    /**
+     * Restores the state saved by a player of a match with the same players.
+     * The player board, the hand and the ammo box are replaced.
+     *
+     * @param in where the state is read
+     */
+    public void restore(SnapshotInput in) {
+        score = in.readInt();
+        position = in.readSquare();
+        frenzyState = in.readByte();
+        playerBoard = in.readBoolean() ? new FrenzyPlayerBoard() : new NormalPlayerBoard();
+        playerBoard.restore(in);
+        hand = new HandManager();
+        hand.restore(in);
+        ammoBox = new AmmoBox();
+        ammoBox.restore(in);
+    }
+
     /**
      * Two players are the same if they have the same name.
      *
@@ -1,5 +1,8 @@
 package it.polimi.ingsw.server.model.player;
 
+import it.polimi.ingsw.server.persistency.SnapshotInput;
+import it.polimi.ingsw.server.persistency.SnapshotOutput;
+
 import java.util.List;
 
 /**
@@ -112,4 +115,18 @@ public interface PlayerBoardInterface {
     List<Player> getDamage();
 
     int getSkulls();
+
+    /**
+     * Saves the damage, the marks and the skulls.
+     *
+     * @param out where the state is saved
+     */
+    void save(SnapshotOutput out);
+
+    /**
+     * Restores the damage, the marks and the skulls.
+     *
+     * @param in where the state is read
+     */
+    void restore(SnapshotInput in);
 }
@@ -5,11 +5,9 @@ import it.polimi.ingsw.server.model.cards.AmmoCard;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
 
 /**
  * Loads ammo cards from a json file.
@@ -32,9 +30,9 @@ import java.util.stream.Collectors;
  */
 public class AmmoCardLoader implements BasicLoader<AmmoCard> {
     /**
-     * The loaded cards (could be empty).
+     * The loaded cards (could be empty), by identifier.
      */
-    private AmmoCard[] ammoCards;
+    private final IdIndex<AmmoCard> ammoCards;
 
     /**
      * This constructor loads the cards from a stream.
@@ -42,8 +40,8 @@ public class AmmoCardLoader implements BasicLoader<AmmoCard> {
      * @param inputStream the stream for the input file
      */
     AmmoCardLoader(InputStream inputStream) {
-        ammoCards = new Gson().fromJson(new InputStreamReader(inputStream),
-                AmmoCard[].class);
+        ammoCards = new IdIndex<>(Arrays.asList(new Gson().fromJson(
+                new InputStreamReader(inputStream), AmmoCard[].class)), AmmoCard::getId);
     }
 
     /**
@@ -52,7 +50,7 @@ public class AmmoCardLoader implements BasicLoader<AmmoCard> {
      * @throws NoSuchElementException {@inheritDoc}
      */
     @Override
-    public synchronized AmmoCard get(String id) {
+    public AmmoCard get(String id) {
         List<AmmoCard> list = getAll(id);
         if (list.isEmpty())
             throw new NoSuchElementException("Can not find ammo card: " + id);
@@ -61,19 +59,21 @@ public class AmmoCardLoader implements BasicLoader<AmmoCard> {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The returned list can not be modified.
      */
     @Override
-    public synchronized List<AmmoCard> getAll() {
-        return new ArrayList<>(Arrays.asList(ammoCards));
+    public List<AmmoCard> getAll() {
+        return ammoCards.getAll();
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The returned list can not be modified.
      */
     @Override
-    public synchronized List<AmmoCard> getAll(String id) {
-        return getAll().stream()
-                .filter(c -> c.getId().equalsIgnoreCase(id))
-                .collect(Collectors.toList());
+    public List<AmmoCard> getAll(String id) {
+        return ammoCards.getAll(id);
     }
 }
@@ -10,8 +10,6 @@ import it.polimi.ingsw.server.model.AmmoCube;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Loads card effects from a json file.
@@ -44,15 +42,12 @@ import java.util.stream.Stream;
  */
 public class EffectLoader implements BasicLoader<EffectInterface> {
     /**
-     * The effects not present in the json.
-     * This effects do not have an internal state, thus can be used multiple
+     * The loaded effects followed by the effects not present in the json,
+     * by identifier.
+     * No effect keeps an internal state, thus all can be used multiple
      * times.
      */
-    private List<EffectInterface> otherEffects;
-    /**
-     * The loaded effects (could be empty).
-     */
-    private CardEffect[] cardEffects;
+    private final IdIndex<EffectInterface> effects;
 
     /**
      * This constructor loads the effects from a stream.
@@ -63,7 +58,7 @@ public class EffectLoader implements BasicLoader<EffectInterface> {
      */
     EffectLoader(InputStream inputStream) {
         /*Loading from file*/
-        cardEffects = new Gson().fromJson(new InputStreamReader(inputStream),
+        CardEffect[] cardEffects = new Gson().fromJson(new InputStreamReader(inputStream),
                 CardEffect[].class);
 
         /*Checking the cardEffects*/
@@ -73,23 +68,22 @@ public class EffectLoader implements BasicLoader<EffectInterface> {
                         effect.getName());
 
         /*Adding the other effects*/
-        otherEffects = new ArrayList<>();
-        otherEffects.add(new MoveSelfEffect("cyberblade_shadowstep", 1, new ArrayList<>()));
-        otherEffects.add(new MoveSelfEffect("rocketLauncher_rocketJump", 2, Collections.singletonList(AmmoCube.BLUE)));
-        otherEffects.add(new MoveSelfEffect("plasmaGun_phaseGlide", 2, new ArrayList<>()));
-        otherEffects.add(new MoveSelfEffect("teleporter", -1, new ArrayList<>()));
-        otherEffects.add(new TagbackEffect("tagbackGrenade"));
+        List<EffectInterface> all = new ArrayList<>(Arrays.asList(cardEffects));
+        all.add(new MoveSelfEffect("cyberblade_shadowstep", 1, new ArrayList<>()));
+        all.add(new MoveSelfEffect("rocketLauncher_rocketJump", 2, Collections.singletonList(AmmoCube.BLUE)));
+        all.add(new MoveSelfEffect("plasmaGun_phaseGlide", 2, new ArrayList<>()));
+        all.add(new MoveSelfEffect("teleporter", -1, new ArrayList<>()));
+        all.add(new TagbackEffect("tagbackGrenade"));
+        effects = new IdIndex<>(all, EffectInterface::getName);
     }
 
     /**
      * {@inheritDoc}
-     * <p>
-     * This returns a copy of the effect.
      *
      * @throws NoSuchElementException {@inheritDoc}
      */
     @Override
-    public synchronized EffectInterface get(String id) {
+    public EffectInterface get(String id) {
         List<EffectInterface> list = getAll(id);
         if (list.isEmpty())
             throw new NoSuchElementException("Can not find effect: " + id);
@@ -99,28 +93,20 @@ public class EffectLoader implements BasicLoader<EffectInterface> {
     /**
      * {@inheritDoc}
      * <p>
-     * This returns a copy of the effects.
+     * The returned list can not be modified.
      */
     @Override
-    public synchronized List<EffectInterface> getAll() {
-        return Stream.concat(Arrays.stream(cardEffects)
-                        .map(CardEffect::new),
-                otherEffects.stream()
-        ).collect(Collectors.toList());
+    public List<EffectInterface> getAll() {
+        return effects.getAll();
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * This returns a copy of the effects.
+     * The returned list can not be modified.
      */
     @Override
-    public synchronized List<EffectInterface> getAll(String id) {
-        return Stream.concat(Arrays.stream(cardEffects)
-                        .filter(c -> c.getName().equalsIgnoreCase(id))
-                        .map(CardEffect::new),
-                otherEffects.stream()
-                        .filter(c -> c.getName().equalsIgnoreCase(id))
-        ).collect(Collectors.toList());
+    public List<EffectInterface> getAll(String id) {
+        return effects.getAll(id);
     }
 }
@@ -1,13 +1,10 @@
 package it.polimi.ingsw.server.persistency;
 
 import it.polimi.ingsw.server.controller.effects.EffectInterface;
-import it.polimi.ingsw.server.model.board.Room;
 import it.polimi.ingsw.server.model.cards.AmmoCard;
 import it.polimi.ingsw.server.model.cards.PowerupCard;
 import it.polimi.ingsw.server.model.cards.WeaponCard;
 
-import java.util.List;
-
 /**
  * Ensures that the resources from file are loaded in the right order.
  * This class uses classes implementing {@link BasicLoader} as singletons,
@@ -42,27 +39,6 @@ public class FromFile {
      */
     private static final String MAPS = "maps.json";
 
-    /**
-     * The only instance of an ammo card loader.
-     */
-    private static AmmoCardLoader ammoCardLoader;
-    /**
-     * The only instance of a powerup card loader.
-     */
-    private static PowerupLoader powerupLoader;
-    /**
-     * The only instance of a weapon card loader.
-     */
-    private static WeaponLoader weaponLoader;
-    /**
-     * The only instance of an effects loader.
-     */
-    private static EffectLoader effectLoader;
-    /**
-     * The only instance of a map loader.
-     */
-    private static MapLoader mapLoader;
-
     /**
      * Private constructor: this class can not be instantiated.
      */
@@ -74,10 +50,8 @@ public class FromFile {
      *
      * @return a basic loader for ammo cards
      */
-    public static synchronized BasicLoader<AmmoCard> ammoCards() {
-        if (ammoCardLoader == null)
-            setup();
-        return ammoCardLoader;
+    public static BasicLoader<AmmoCard> ammoCards() {
+        return Loaders.AMMO_CARD_LOADER;
     }
 
     /**
@@ -85,10 +59,8 @@ public class FromFile {
      *
      * @return a basic loader for powerup cards
      */
-    public static synchronized BasicLoader<PowerupCard> powerups() {
-        if (powerupLoader == null)
-            setup();
-        return powerupLoader;
+    public static BasicLoader<PowerupCard> powerups() {
+        return Loaders.POWERUP_LOADER;
     }
 
     /**
@@ -96,10 +68,8 @@ public class FromFile {
      *
      * @return a basic loader for weapon cards
      */
-    public static synchronized BasicLoader<WeaponCard> weapons() {
-        if (weaponLoader == null)
-            setup();
-        return weaponLoader;
+    public static BasicLoader<WeaponCard> weapons() {
+        return Loaders.WEAPON_LOADER;
     }
 
     /**
@@ -107,36 +77,59 @@ public class FromFile {
      *
      * @return a basic loader for the effects
      */
-    public static synchronized BasicLoader<EffectInterface> effects() {
-        if (effectLoader == null)
-            setup();
-        return effectLoader;
+    public static BasicLoader<EffectInterface> effects() {
+        return Loaders.EFFECT_LOADER;
     }
 
     /**
-     * Returns a basic loader for the map.
+     * Returns a loader for the map, that also provides the distances between
+     * the squares.
      *
-     * @return a basic loader for the map
+     * @return a loader for the map
      */
-    public static synchronized BasicLoader<List<Room>> maps() {
-        if (mapLoader == null)
-            setup();
-        return mapLoader;
+    public static MapLoader maps() {
+        return Loaders.MAP_LOADER;
     }
 
     /**
-     * Loads the  resources from file in the right order.
-     */
-    private static void setup() {
-        effectLoader =
+     * Holds the loaders, that are created the first time one of them is
+     * requested.
+     * The initialization of the class is done once by the JVM, so the
+     * loaders can then be read by all the threads without locking.
+     * The loaders are created in the right order: the effects are needed by
+     * the cards.
+     */
+    private static final class Loaders {
+        /**
+         * The only instance of an effects loader.
+         */
+        private static final EffectLoader EFFECT_LOADER =
                 new EffectLoader(FromFile.class.getResourceAsStream(EFFECTS));
-        weaponLoader =
+        /**
+         * The only instance of a weapon card loader.
+         */
+        private static final WeaponLoader WEAPON_LOADER =
                 new WeaponLoader(FromFile.class.getResourceAsStream(WEAPON_CARDS));
-        powerupLoader =
+        /**
+         * The only instance of a powerup card loader.
+         */
+        private static final PowerupLoader POWERUP_LOADER =
                 new PowerupLoader(FromFile.class.getResourceAsStream(POWERUP_CARDS));
-        ammoCardLoader =
+        /**
+         * The only instance of an ammo card loader.
+         */
+        private static final AmmoCardLoader AMMO_CARD_LOADER =
                 new AmmoCardLoader(FromFile.class.getResourceAsStream(AMMO_CARDS));
-        mapLoader =
+        /**
+         * The only instance of a map loader.
+         */
+        private static final MapLoader MAP_LOADER =
                 new MapLoader(FromFile.class.getResourceAsStream(MAPS));
+
+        /**
+         * Private constructor: this class can not be instantiated.
+         */
+        private Loaders() {
+        }
     }
 }
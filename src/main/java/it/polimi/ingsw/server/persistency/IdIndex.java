@@ -0,0 +1,76 @@
+package it.polimi.ingsw.server.persistency;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * An immutable index of the objects loaded from file, by identifier.
+ * The identifiers are normalised in lower case, so that the lookups ignore
+ * case as required by {@link BasicLoader}; the index is built once and can
+ * be read by multiple threads without synchronization.
+ *
+ * @param <T> the type of the indexed objects
+ * @author Abbo Giulio A.
+ * @see BasicLoader
+ */
+final class IdIndex<T> {
+    /**
+     * All the objects, in the order they were loaded.
+     */
+    private final List<T> all;
+    /**
+     * The objects with the same normalised identifier, in the order they
+     * were loaded.
+     */
+    private final Map<String, List<T>> byId;
+
+    /**
+     * Creates the index of the provided objects.
+     *
+     * @param elements the objects to be indexed
+     * @param id       the function returning the identifier of an object
+     */
+    IdIndex(List<? extends T> elements, Function<? super T, String> id) {
+        all = Collections.unmodifiableList(new ArrayList<>(elements));
+
+        /*Grouping the elements, keeping the order*/
+        Map<String, List<T>> groups = new HashMap<>();
+        for (T element : all)
+            groups.computeIfAbsent(normalise(id.apply(element)),
+                    k -> new ArrayList<>()).add(element);
+        for (Map.Entry<String, List<T>> entry : groups.entrySet())
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        byId = groups;
+    }
+
+    /**
+     * Returns all the indexed objects.
+     *
+     * @return an unmodifiable list of all the objects
+     */
+    List<T> getAll() {
+        return all;
+    }
+
+    /**
+     * Returns all the objects with a matching {@code id} ignoring case.
+     *
+     * @param id the identifier of the requested objects
+     * @return an unmodifiable list of the objects found, empty if none
+     */
+    List<T> getAll(String id) {
+        if (id == null)
+            return Collections.emptyList();
+        return byId.getOrDefault(normalise(id), Collections.emptyList());
+    }
+
+    /**
+     * Returns the identifier used as key, in lower case.
+     *
+     * @param id the identifier of an object
+     * @return the normalised identifier
+     */
+    private static String normalise(String id) {
+        return id == null ? null : id.toLowerCase(Locale.ROOT);
+    }
+}
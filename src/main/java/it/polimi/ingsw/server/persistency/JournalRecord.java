@@ -0,0 +1,279 @@
+package it.polimi.ingsw.server.persistency;
+
+import it.polimi.ingsw.communication.protocol.MessageType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents one event in the {@linkplain MatchJournal} of a match.
+ * <p>
+ * A match is rebuilt by playing it again from the {@linkplain Type#START}
+ * record, whose seed shuffles the decks as they were, and by answering
+ * each question with the recorded choice: moves, grabs, damage and scores
+ * follow from the rules. The suspensions are recorded as they happen,
+ * because they change who plays the next turns.
+ * <p>
+ * The records are stored as json; the fields that are not used by a type
+ * are null.
+ *
+ * @author Abbo Giulio A.
+ * @see MatchJournal
+ */
+public class JournalRecord {
+    /**
+     * The kind of record.
+     */
+    private Type type;
+    /**
+     * The player who answered, was suspended or is playing the turn.
+     */
+    private String player;
+    /**
+     * The question answered.
+     */
+    private MessageType question;
+    /**
+     * The position of the chosen option among the options offered.
+     */
+    private int index;
+    /**
+     * The keys of the chosen option, as given by the {@linkplain
+     * it.polimi.ingsw.communication.CommunicationHelper}.
+     */
+    private List<String> keys;
+    /**
+     * The players of the match, in the order of the turns.
+     */
+    private List<String> players;
+    /**
+     * The skulls on the board at the start of the match.
+     */
+    private int skulls;
+    /**
+     * The id of the configuration of the board.
+     */
+    private int configuration;
+    /**
+     * The seed of the decks.
+     */
+    private long seed;
+    /**
+     * The final scores, in the order of the turns.
+     */
+    private List<Integer> scores;
+
+    /**
+     * Used by the factory methods.
+     *
+     * @param type the kind of record
+     */
+    private JournalRecord(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns the first record of a match.
+     *
+     * @param players       the players, in the order of the turns
+     * @param skulls        the skulls on the board
+     * @param configuration the id of the configuration of the board
+     * @param seed          the seed of the decks
+     * @return the record
+     */
+    public static JournalRecord start(List<String> players, int skulls, int configuration, long seed) {
+        JournalRecord record = new JournalRecord(Type.START);
+        record.players = new ArrayList<>(players);
+        record.skulls = skulls;
+        record.configuration = configuration;
+        record.seed = seed;
+        return record;
+    }
+
+    /**
+     * Returns the record of an answer.
+     *
+     * @param player   the player who answered
+     * @param question the question
+     * @param index    the position of the chosen option
+     * @param keys     the keys of the chosen option
+     * @return the record
+     */
+    public static JournalRecord choice(String player, MessageType question, int index, List<String> keys) {
+        JournalRecord record = new JournalRecord(Type.CHOICE);
+        record.player = player;
+        record.question = question;
+        record.index = index;
+        record.keys = new ArrayList<>(keys);
+        return record;
+    }
+
+    /**
+     * Returns the record of a question refused.
+     *
+     * @param player   the player who refused
+     * @param question the question
+     * @return the record
+     */
+    public static JournalRecord refused(String player, MessageType question) {
+        JournalRecord record = new JournalRecord(Type.REFUSED);
+        record.player = player;
+        record.question = question;
+        return record;
+    }
+
+    /**
+     * Returns the record of a question not answered, because the player
+     * could not be reached.
+     *
+     * @param player   the player who did not answer
+     * @param question the question
+     * @return the record
+     */
+    public static JournalRecord failed(String player, MessageType question) {
+        JournalRecord record = new JournalRecord(Type.FAILED);
+        record.player = player;
+        record.question = question;
+        return record;
+    }
+
+    /**
+     * Returns the record of a suspension or of a resumption.
+     *
+     * @param player    the player
+     * @param suspended whether the player was suspended or is back
+     * @return the record
+     */
+    public static JournalRecord suspension(String player, boolean suspended) {
+        JournalRecord record = new JournalRecord(suspended ? Type.SUSPENDED : Type.RESUMED);
+        record.player = player;
+        return record;
+    }
+
+    /**
+     * Returns the record of the start of a turn.
+     *
+     * @param player the player of the turn
+     * @return the record
+     */
+    public static JournalRecord turn(String player) {
+        JournalRecord record = new JournalRecord(Type.TURN);
+        record.player = player;
+        return record;
+    }
+
+    /**
+     * Returns the last record of a match.
+     *
+     * @param scores the final scores, in the order of the turns
+     * @return the record
+     */
+    public static JournalRecord end(List<Integer> scores) {
+        JournalRecord record = new JournalRecord(Type.END);
+        record.scores = new ArrayList<>(scores);
+        return record;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    public MessageType getQuestion() {
+        return question;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the keys of the chosen option.
+     *
+     * @return the keys of the chosen option, empty if this is not a choice
+     */
+    public List<String> getKeys() {
+        return keys == null ? Collections.emptyList() : Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * Returns the players of the match.
+     *
+     * @return the players in the order of the turns, empty if this is not
+     * the start
+     */
+    public List<String> getPlayers() {
+        return players == null ? Collections.emptyList() : Collections.unmodifiableList(players);
+    }
+
+    public int getSkulls() {
+        return skulls;
+    }
+
+    public int getConfiguration() {
+        return configuration;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the final scores.
+     *
+     * @return the scores in the order of the turns, empty if this is not the
+     * end
+     */
+    public List<Integer> getScores() {
+        return scores == null ? Collections.emptyList() : Collections.unmodifiableList(scores);
+    }
+
+    @Override
+    public String toString() {
+        return type + (player == null ? "" : " " + player) +
+                (question == null ? "" : " " + question) +
+                (keys == null ? "" : " " + index + " " + keys);
+    }
+
+    /**
+     * The kinds of records.
+     */
+    public enum Type {
+        /**
+         * The players, the board and the seed of the match.
+         */
+        START,
+        /**
+         * A question answered.
+         */
+        CHOICE,
+        /**
+         * A question refused.
+         */
+        REFUSED,
+        /**
+         * A question not answered.
+         */
+        FAILED,
+        /**
+         * A player was suspended.
+         */
+        SUSPENDED,
+        /**
+         * A player is back.
+         */
+        RESUMED,
+        /**
+         * A turn is starting.
+         */
+        TURN,
+        /**
+         * The match is over.
+         */
+        END
+    }
+}
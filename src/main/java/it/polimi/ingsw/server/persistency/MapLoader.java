@@ -1,6 +1,7 @@
 package it.polimi.ingsw.server.persistency;
 
 import com.google.gson.Gson;
+import it.polimi.ingsw.server.model.board.MapTopology;
 import it.polimi.ingsw.server.model.board.Room;
 
 import java.io.InputStream;
@@ -21,9 +22,9 @@ import java.util.stream.Collectors;
  */
 public class MapLoader implements BasicLoader<List<Room>> {
     /**
-     * The loaded configurations (could be empty).
+     * The topology of each loaded configuration (could be empty).
      */
-    private Room[][] maps;
+    private final MapTopology[] topologies;
 
     /**
      * This constructor loads the maps from a file.
@@ -33,21 +34,42 @@ public class MapLoader implements BasicLoader<List<Room>> {
      */
     MapLoader(InputStream inputStream) {
         /*Loading the cards from file*/
-        maps = new Gson().fromJson(new InputStreamReader(inputStream),
+        Room[][] maps = new Gson().fromJson(new InputStreamReader(inputStream),
                 Room[][].class);
+
+        /*Linking the squares and computing the topology once for each
+        configuration*/
+        topologies = new MapTopology[maps.length];
+        for (int i = 0; i < maps.length; i++) {
+            List<Room> rooms = Arrays.stream(maps[i])
+                    .map(Room::new).collect(Collectors.toList());
+            Room.refresh(rooms);
+            topologies[i] = new MapTopology(rooms);
+        }
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * Returns the configuration with a matching {@code id}, refreshed.
+     * Returns new rooms for the configuration with a matching {@code id},
+     * already linked.
      */
     @Override
     public List<Room> get(String id) {
-        List<Room> rooms = Arrays.stream(maps[Integer.parseInt(id)])
-                .map(Room::new).collect(Collectors.toList());
-        Room.refresh(rooms);
-        return rooms;
+        return getTopology(id).createRooms();
+    }
+
+    /**
+     * Returns the topology of the configuration with a matching {@code id}:
+     * the rooms, the visible squares and the distances between the squares.
+     * The same object is returned for each call and can be shared by all the
+     * boards using the configuration.
+     *
+     * @param id the identifier of the configuration
+     * @return the topology of the configuration
+     */
+    public MapTopology getTopology(String id) {
+        return topologies[Integer.parseInt(id)];
     }
 
     /**
@@ -57,13 +79,8 @@ public class MapLoader implements BasicLoader<List<Room>> {
      */
     @Override
     public List<List<Room>> getAll() {
-        List<List<Room>> mapsList = Arrays.stream(maps)
-                .map(a -> Arrays.stream(a).map(Room::new).collect(Collectors.toList()))
+        return Arrays.stream(topologies).map(MapTopology::createRooms)
                 .collect(Collectors.toList());
-        for (List<Room> rooms : mapsList) {
-            Room.refresh(rooms);
-        }
-        return mapsList;
     }
 
     /**
@@ -0,0 +1,306 @@
+package it.polimi.ingsw.server.persistency;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import it.polimi.ingsw.server.serverlogic.ServerMain;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the {@linkplain JournalRecord}s of one match,
+ * written through a memory-mapped region of its file.
+ * <p>
+ * Each record is stored as its length, the checksum of its content and
+ * the content in json; the length is written last, so that a record is
+ * either complete or followed only by zeros. When the region is full the
+ * next one is mapped after the last record. The writes reach the file even
+ * if the process dies; {@linkplain #force()} also protects them from a
+ * crash of the system.
+ * <p>
+ * Reading stops at the first record that is empty, truncated or whose
+ * checksum is wrong: what follows it was not completely written.
+ * <p>
+ * If the file can not be written the error is logged and the next records
+ * are dropped, the match goes on without a journal.
+ *
+ * @author Abbo Giulio A.
+ * @see JournalRecord
+ */
+public class MatchJournal implements Closeable {
+    /**
+     * The extension of the files of the journals.
+     */
+    public static final String EXTENSION = ".journal";
+    /**
+     * The size of the mapped regions.
+     */
+    static final int REGION = 1 << 20;
+    /**
+     * The bytes before the content of a record: the length and the checksum.
+     */
+    private static final int HEADER = 2 * Integer.BYTES;
+    /**
+     * Translates the records.
+     */
+    private static final Gson GSON = new Gson();
+    /**
+     * The file of the journal.
+     */
+    private final Path file;
+    /**
+     * The channel of the file, null once closed.
+     */
+    private FileChannel channel;
+    /**
+     * The region of the file being written.
+     */
+    private MappedByteBuffer region;
+    /**
+     * The position in the file of the first byte of {@linkplain #region}.
+     */
+    private long regionStart;
+    /**
+     * The position in the file of the next record.
+     */
+    private long position;
+    /**
+     * The records in the file when it was opened.
+     */
+    private final List<JournalRecord> records;
+    /**
+     * The records in the file, the appended ones included.
+     */
+    private int size;
+
+    /**
+     * Opens the provided file, keeping the complete records and dropping
+     * what follows them.
+     *
+     * @param file the file of the journal
+     * @throws IOException if the file can not be opened
+     */
+    private MatchJournal(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        records = new ArrayList<>();
+        position = read(channel, records);
+        size = records.size();
+        channel.truncate(position);
+        map(position, REGION);
+    }
+
+    /**
+     * Creates an empty journal in a new file.
+     *
+     * @param file the file of the journal, it must not exist
+     * @return the journal
+     * @throws IOException if the file exists or can not be created
+     */
+    public static MatchJournal create(Path file) throws IOException {
+        Files.createFile(file);
+        return new MatchJournal(file);
+    }
+
+    /**
+     * Opens an existing journal, the next records are appended after the
+     * complete ones.
+     *
+     * @param file the file of the journal
+     * @return the journal
+     * @throws IOException if the file can not be opened
+     */
+    public static MatchJournal open(Path file) throws IOException {
+        if (!Files.exists(file))
+            throw new IOException("No journal in " + file);
+        return new MatchJournal(file);
+    }
+
+    /**
+     * Reads the complete records of the provided file.
+     *
+     * @param file the file of the journal
+     * @return the records in the order they were appended
+     * @throws IOException if the file can not be read
+     */
+    public static List<JournalRecord> read(Path file) throws IOException {
+        List<JournalRecord> read = new ArrayList<>();
+        try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            read(readChannel, read);
+        }
+        return read;
+    }
+
+    /**
+     * Returns the journals in the provided directory, in the order of their
+     * names.
+     *
+     * @param directory the directory of the journals
+     * @return the files of the journals, empty if the directory does not
+     * exist
+     * @throws IOException if the directory can not be read
+     */
+    public static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory))
+            return Collections.emptyList();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(EXTENSION))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Adds the complete records of the channel to the provided list.
+     *
+     * @param channel the channel of the file
+     * @param read    the list of the records
+     * @return the position after the last complete record
+     * @throws IOException if the file can not be read
+     */
+    private static long read(FileChannel channel, List<JournalRecord> read) throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (offset + HEADER <= size) {
+            header.clear();
+            channel.read(header, offset);
+            int length = header.getInt(0);
+            int checksum = header.getInt(Integer.BYTES);
+            if (length <= 0 || offset + HEADER + length > size)
+                break;
+
+            ByteBuffer content = ByteBuffer.allocate(length);
+            channel.read(content, offset + HEADER);
+            if (checksum(content.array()) != checksum)
+                break;
+            try {
+                read.add(GSON.fromJson(new String(content.array(), StandardCharsets.UTF_8), JournalRecord.class));
+            } catch (JsonParseException e) {
+                break;
+            }
+            offset += HEADER + length;
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the checksum of the provided content.
+     *
+     * @param content the content of a record
+     * @return the checksum
+     */
+    private static int checksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Maps a region of the file for writing.
+     *
+     * @param start  the position of the region in the file
+     * @param length the size of the region
+     * @throws IOException if the region can not be mapped
+     */
+    private void map(long start, int length) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, length);
+        regionStart = start;
+    }
+
+    /**
+     * Returns the file of this journal.
+     *
+     * @return the file of this journal
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the records that were in the file when it was opened.
+     *
+     * @return the records in the order they were appended
+     */
+    public List<JournalRecord> getRecords() {
+        return Collections.unmodifiableList(records);
+    }
+
+    /**
+     * Returns the number of records in the journal.
+     *
+     * @return the records read when it was opened and the ones appended
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Appends a record to the journal.
+     *
+     * @param record the record
+     */
+    public synchronized void append(JournalRecord record) {
+        if (channel == null)
+            return;
+        byte[] content = GSON.toJson(record).getBytes(StandardCharsets.UTF_8);
+        try {
+            if (position + HEADER + content.length > regionStart + region.capacity()) {
+                region.force();
+                map(position, Math.max(REGION, HEADER + content.length));
+            }
+            int offset = (int) (position - regionStart);
+            region.position(offset + HEADER);
+            region.put(content);
+            region.putInt(offset + Integer.BYTES, checksum(content));
+            region.putInt(offset, content.length);
+            position += HEADER + content.length;
+            size++;
+        } catch (IOException e) {
+            ServerMain.getLog().log(Level.SEVERE, "Journal dropped: " + file, e);
+            close();
+        }
+    }
+
+    /**
+     * Ensures that the records appended so far are written on the storage.
+     */
+    public synchronized void force() {
+        if (channel != null)
+            region.force();
+    }
+
+    /**
+     * Writes the records on the storage and closes the file.
+     * The space mapped after the last record is released; the next records
+     * are dropped.
+     */
+    @Override
+    public synchronized void close() {
+        if (channel == null)
+            return;
+        try {
+            region.force();
+            region = null;
+            channel.truncate(position);
+            channel.close();
+        } catch (IOException e) {
+            ServerMain.getLog().log(Level.WARNING, "Journal not closed: " + file, e);
+        }
+        channel = null;
+    }
+}
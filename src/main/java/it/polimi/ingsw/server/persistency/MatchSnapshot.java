@@ -0,0 +1,173 @@
+package it.polimi.ingsw.server.persistency;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The state of a match at the end of a turn, with the position in its
+ * {@linkplain MatchJournal journal} where the match went on.
+ * <p>
+ * A match is recovered from its snapshot restoring the state and replaying
+ * only the records that follow it. The file of the snapshot is next to the
+ * one of the journal; it holds the seed of the match, the number of
+ * records, the length and the checksum of the state and the state written
+ * by a {@link SnapshotOutput}. The file is replaced at once, so it is either
+ * the previous snapshot or the new one.
+ *
+ * @author Abbo Giulio A.
+ * @see SnapshotWriter
+ * @see MatchJournal
+ */
+public class MatchSnapshot {
+    /**
+     * The extension of the files of the snapshots.
+     */
+    public static final String EXTENSION = ".snapshot";
+    /**
+     * The first bytes of a snapshot, they change with the format.
+     */
+    private static final int MAGIC = 0x41445331;
+    /**
+     * The bytes before the state.
+     */
+    private static final int HEADER = Integer.BYTES + Long.BYTES + 3 * Integer.BYTES;
+    /**
+     * The seed of the match.
+     */
+    private final long seed;
+    /**
+     * The records in the journal when the snapshot was taken.
+     */
+    private final int records;
+    /**
+     * The state of the match.
+     */
+    private final byte[] state;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param seed    the seed of the match
+     * @param records the records in the journal when the snapshot was taken
+     * @param state   the state written by a {@link SnapshotOutput}
+     */
+    public MatchSnapshot(long seed, int records, byte[] state) {
+        this.seed = seed;
+        this.records = records;
+        this.state = state;
+    }
+
+    /**
+     * Returns the file of the snapshot of the match recorded in the provided
+     * journal.
+     *
+     * @param journal the file of the journal
+     * @return the file of the snapshot, in the same directory
+     */
+    public static Path fileOf(Path journal) {
+        String name = journal.getFileName().toString();
+        if (name.endsWith(MatchJournal.EXTENSION))
+            name = name.substring(0, name.length() - MatchJournal.EXTENSION.length());
+        return journal.resolveSibling(name + EXTENSION);
+    }
+
+    /**
+     * Reads the snapshot in the provided file.
+     *
+     * @param file the file of the snapshot
+     * @return the snapshot, null if there is no file
+     * @throws IOException if the file can not be read or is not a complete
+     *                     snapshot
+     */
+    public static MatchSnapshot read(Path file) throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        if (content.length < HEADER || buffer.getInt() != MAGIC)
+            throw new IOException("Not a snapshot: " + file);
+        long seed = buffer.getLong();
+        int records = buffer.getInt();
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length != buffer.remaining())
+            throw new IOException("Truncated snapshot: " + file);
+        byte[] state = new byte[length];
+        buffer.get(state);
+        if (checksum(state) != checksum)
+            throw new IOException("Corrupted snapshot: " + file);
+        return new MatchSnapshot(seed, records, state);
+    }
+
+    /**
+     * Writes this in the provided file, replacing the previous snapshot
+     * only when this is on the storage.
+     *
+     * @param file the file of the snapshot
+     * @throws IOException if the file can not be written
+     */
+    void write(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + state.length);
+        buffer.putInt(MAGIC).putLong(seed).putInt(records).putInt(state.length).putInt(checksum(state));
+        buffer.put(state).flip();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the checksum of the provided state.
+     *
+     * @param state the state
+     * @return the checksum
+     */
+    private static int checksum(byte[] state) {
+        CRC32 crc = new CRC32();
+        crc.update(state);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Returns the seed of the match.
+     *
+     * @return the seed of the match
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the records in the journal when the snapshot was taken, the
+     * match goes on from the next one.
+     *
+     * @return the number of records before the snapshot
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the state of the match.
+     *
+     * @return the bytes written by a {@link SnapshotOutput}
+     */
+    public byte[] getState() {
+        return state.clone();
+    }
+}
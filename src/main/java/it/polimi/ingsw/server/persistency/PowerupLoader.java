@@ -5,11 +5,9 @@ import it.polimi.ingsw.server.model.cards.PowerupCard;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
 
 /**
  * Loads powerup cards from a json file.
@@ -35,9 +33,9 @@ import java.util.stream.Collectors;
  */
 public class PowerupLoader implements BasicLoader<PowerupCard> {
     /**
-     * The loaded cards (could be empty).
+     * The loaded cards (could be empty), by identifier.
      */
-    private PowerupCard[] powerupCards;
+    private final IdIndex<PowerupCard> powerupCards;
 
     /**
      * This constructor loads the cards from a file.
@@ -48,16 +46,17 @@ public class PowerupLoader implements BasicLoader<PowerupCard> {
      */
     PowerupLoader(InputStream inputStream) {
         /*Loading the cards from file*/
-        powerupCards = new Gson().fromJson(new InputStreamReader(inputStream),
+        PowerupCard[] cards = new Gson().fromJson(new InputStreamReader(inputStream),
                 PowerupCard[].class);
 
         /*Checking if all effects are present*/
-        for (PowerupCard card : powerupCards)
+        for (PowerupCard card : cards)
             try {
                 card.getEffect();
             } catch (NoSuchElementException e) {
                 throw new WrongFileInputException("Powerup cards", card.getId(), e);
             }
+        powerupCards = new IdIndex<>(Arrays.asList(cards), PowerupCard::getId);
     }
 
     /**
@@ -66,7 +65,7 @@ public class PowerupLoader implements BasicLoader<PowerupCard> {
      * @throws NoSuchElementException {@inheritDoc}
      */
     @Override
-    public synchronized PowerupCard get(String id) {
+    public PowerupCard get(String id) {
         List<PowerupCard> list = getAll(id);
         if (list.isEmpty())
             throw new NoSuchElementException("Can not find powerup card: " + id);
@@ -75,19 +74,21 @@ public class PowerupLoader implements BasicLoader<PowerupCard> {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The returned list can not be modified.
      */
     @Override
-    public synchronized List<PowerupCard> getAll() {
-        return new ArrayList<>(Arrays.asList(powerupCards));
+    public List<PowerupCard> getAll() {
+        return powerupCards.getAll();
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The returned list can not be modified.
      */
     @Override
-    public synchronized List<PowerupCard> getAll(String id) {
-        return getAll().stream()
-                .filter(c -> c.getId().equalsIgnoreCase(id))
-                .collect(Collectors.toList());
+    public List<PowerupCard> getAll(String id) {
+        return powerupCards.getAll(id);
     }
 }
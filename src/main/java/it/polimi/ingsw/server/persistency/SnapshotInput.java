@@ -0,0 +1,235 @@
+package it.polimi.ingsw.server.persistency;
+
+import it.polimi.ingsw.server.model.board.Square;
+import it.polimi.ingsw.server.model.cards.AmmoCard;
+import it.polimi.ingsw.server.model.cards.PowerupCard;
+import it.polimi.ingsw.server.model.cards.WeaponCard;
+import it.polimi.ingsw.server.model.player.Player;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Reads the state of a match written by a {@link SnapshotOutput}.
+ * The players and the squares are taken from the match being restored, the
+ * cards from the ones loaded {@linkplain FromFile from file}.
+ * <p>
+ * The values must be read in the same order they were written; reading
+ * more than what was written or an element that does not exist throws an
+ * {@link IllegalArgumentException}.
+ *
+ * @author Abbo Giulio A.
+ * @see SnapshotOutput
+ * @see MatchSnapshot
+ */
+public class SnapshotInput {
+    /**
+     * The bytes to read.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * The players of the match, in the order of the turns.
+     */
+    private final List<Player> players;
+    /**
+     * The squares of the board, by id.
+     */
+    private final Map<Integer, Square> squares;
+
+    /**
+     * Creates an input reading the provided bytes.
+     *
+     * @param state   the bytes written by a {@link SnapshotOutput}
+     * @param players the players of the match, in the order of the turns
+     * @param squares the squares of the board
+     */
+    public SnapshotInput(byte[] state, List<Player> players, Collection<? extends Square> squares) {
+        buffer = ByteBuffer.wrap(state);
+        this.players = players;
+        this.squares = new HashMap<>();
+        for (Square square : squares)
+            this.squares.put(square.getIntID(), square);
+    }
+
+    /**
+     * Reads a number written as a byte, between -128 and 127.
+     *
+     * @return the number
+     */
+    public int readByte() {
+        check(1);
+        return buffer.get();
+    }
+
+    /**
+     * Reads a count written as a byte, between 0 and 255.
+     *
+     * @return the count
+     */
+    public int readCount() {
+        return readByte() & 0xFF;
+    }
+
+    /**
+     * Reads a boolean.
+     *
+     * @return the boolean
+     */
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    /**
+     * Reads an int.
+     *
+     * @return the int
+     */
+    public int readInt() {
+        check(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a long.
+     *
+     * @return the long
+     */
+    public long readLong() {
+        check(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a player of the match.
+     *
+     * @return the player, can be null
+     */
+    public Player readPlayer() {
+        return get(readByte(), players, "player");
+    }
+
+    /**
+     * Reads a list of players of the match.
+     *
+     * @return a new list of the players
+     */
+    public List<Player> readPlayers() {
+        int count = readCount();
+        List<Player> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            list.add(readPlayer());
+        return list;
+    }
+
+    /**
+     * Reads a square of the board.
+     *
+     * @return the square, can be null
+     */
+    public Square readSquare() {
+        int id = readByte();
+        if (id < 0)
+            return null;
+        Square square = squares.get(id);
+        if (square == null)
+            throw new IllegalArgumentException("No square " + id);
+        return square;
+    }
+
+    /**
+     * Reads a list of squares of the board.
+     *
+     * @return a new list of the squares
+     */
+    public List<Square> readSquares() {
+        int count = readCount();
+        List<Square> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            list.add(readSquare());
+        return list;
+    }
+
+    /**
+     * Reads a list of weapon cards.
+     *
+     * @return a new list of the weapons, the empty slots are null
+     */
+    public List<WeaponCard> readWeapons() {
+        int count = readCount();
+        List<WeaponCard> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            list.add(get(readByte(), FromFile.weapons().getAll(), "weapon"));
+        return list;
+    }
+
+    /**
+     * Reads a list of powerup cards.
+     *
+     * @return a new list of the powerups
+     */
+    public List<PowerupCard> readPowerups() {
+        int count = readCount();
+        List<PowerupCard> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            list.add(get(readByte(), FromFile.powerups().getAll(), "powerup"));
+        return list;
+    }
+
+    /**
+     * Reads an ammo card.
+     *
+     * @return the card, can be null
+     */
+    public AmmoCard readAmmoCard() {
+        return get(readByte(), FromFile.ammoCards().getAll(), "ammo card");
+    }
+
+    /**
+     * Reads a list of ammo cards.
+     *
+     * @return a new list of the cards
+     */
+    public List<AmmoCard> readAmmoCards() {
+        int count = readCount();
+        List<AmmoCard> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            list.add(readAmmoCard());
+        return list;
+    }
+
+    /**
+     * Returns whether everything written was read.
+     *
+     * @return true if nothing is left to read
+     */
+    public boolean isOver() {
+        return !buffer.hasRemaining();
+    }
+
+    /**
+     * Returns the element in the provided position.
+     *
+     * @param index the position, -1 for null
+     * @param list  the list of the elements
+     * @param what  what the elements are, for the error
+     * @param <T>   the type of the elements
+     * @return the element, null if the position is -1
+     */
+    private static <T> T get(int index, List<T> list, String what) {
+        if (index == -1)
+            return null;
+        if (index < 0 || index >= list.size())
+            throw new IllegalArgumentException("No " + what + " " + index);
+        return list.get(index);
+    }
+
+    /**
+     * Checks that the provided bytes are left.
+     *
+     * @param bytes the bytes that will be read
+     */
+    private void check(int bytes) {
+        if (buffer.remaining() < bytes)
+            throw new IllegalArgumentException("The snapshot is truncated");
+    }
+}
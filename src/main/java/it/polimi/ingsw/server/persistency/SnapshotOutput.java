@@ -0,0 +1,231 @@
+package it.polimi.ingsw.server.persistency;
+
+import it.polimi.ingsw.server.model.board.Square;
+import it.polimi.ingsw.server.model.cards.AmmoCard;
+import it.polimi.ingsw.server.model.cards.PowerupCard;
+import it.polimi.ingsw.server.model.cards.WeaponCard;
+import it.polimi.ingsw.server.model.player.Player;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the state of a match in a compact binary form, read back by a
+ * {@link SnapshotInput}.
+ * <p>
+ * Only what changes during the match is written: the players are written
+ * as their position in the list of the players, the squares as their id and
+ * the cards as their position in the cards loaded {@linkplain FromFile from
+ * file}, that are the same objects in every match. Small numbers and counts
+ * take one byte.
+ *
+ * @author Abbo Giulio A.
+ * @see SnapshotInput
+ * @see MatchSnapshot
+ */
+public class SnapshotOutput {
+    /**
+     * The players of the match, in the order of the turns.
+     */
+    private final List<Player> players;
+    /**
+     * The bytes written, only the first {@linkplain #size} are valid.
+     */
+    private byte[] buffer;
+    /**
+     * The number of bytes written.
+     */
+    private int size;
+
+    /**
+     * Creates an empty output for the state of the match of the provided
+     * players.
+     *
+     * @param players the players of the match, in the order of the turns
+     */
+    public SnapshotOutput(List<Player> players) {
+        this.players = players;
+        buffer = new byte[1024];
+    }
+
+    /**
+     * Writes a number between -128 and 127.
+     *
+     * @param value the number
+     * @throws IllegalArgumentException if the number does not fit in a byte
+     */
+    public void writeByte(int value) {
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Not a byte: " + value);
+        ensure(1);
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Writes a count between 0 and 255.
+     *
+     * @param count the count
+     * @throws IllegalArgumentException if the count does not fit in a byte
+     */
+    public void writeCount(int count) {
+        if (count < 0 || count > 0xFF)
+            throw new IllegalArgumentException("Not a count: " + count);
+        ensure(1);
+        buffer[size++] = (byte) count;
+    }
+
+    /**
+     * Writes a boolean.
+     *
+     * @param value the boolean
+     */
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes an int.
+     *
+     * @param value the int
+     */
+    public void writeInt(int value) {
+        ensure(Integer.BYTES);
+        for (int shift = Integer.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE)
+            buffer[size++] = (byte) (value >>> shift);
+    }
+
+    /**
+     * Writes a long.
+     *
+     * @param value the long
+     */
+    public void writeLong(long value) {
+        writeInt((int) (value >>> Integer.SIZE));
+        writeInt((int) value);
+    }
+
+    /**
+     * Writes a player of the match.
+     *
+     * @param player the player, can be null
+     * @throws IllegalArgumentException if the player is not in the match
+     */
+    public void writePlayer(Player player) {
+        writeByte(indexOf(player, players));
+    }
+
+    /**
+     * Writes a list of players of the match.
+     *
+     * @param list the players, in order
+     * @throws IllegalArgumentException if a player is not in the match
+     */
+    public void writePlayers(List<Player> list) {
+        writeCount(list.size());
+        list.forEach(this::writePlayer);
+    }
+
+    /**
+     * Writes a square of the board.
+     *
+     * @param square the square, can be null
+     */
+    public void writeSquare(Square square) {
+        writeByte(square == null ? -1 : square.getIntID());
+    }
+
+    /**
+     * Writes a list of squares of the board.
+     *
+     * @param list the squares, in order
+     */
+    public void writeSquares(List<? extends Square> list) {
+        writeCount(list.size());
+        list.forEach(this::writeSquare);
+    }
+
+    /**
+     * Writes a list of weapon cards.
+     *
+     * @param list the weapons, in order; the empty slots are null
+     * @throws IllegalArgumentException if a weapon was not loaded from file
+     */
+    public void writeWeapons(List<WeaponCard> list) {
+        writeCount(list.size());
+        for (WeaponCard card : list)
+            writeByte(indexOf(card, FromFile.weapons().getAll()));
+    }
+
+    /**
+     * Writes a list of powerup cards.
+     *
+     * @param list the powerups, in order
+     * @throws IllegalArgumentException if a powerup was not loaded from file
+     */
+    public void writePowerups(List<PowerupCard> list) {
+        writeCount(list.size());
+        for (PowerupCard card : list)
+            writeByte(indexOf(card, FromFile.powerups().getAll()));
+    }
+
+    /**
+     * Writes an ammo card.
+     *
+     * @param card the card, can be null
+     * @throws IllegalArgumentException if the card was not loaded from file
+     */
+    public void writeAmmoCard(AmmoCard card) {
+        writeByte(indexOf(card, FromFile.ammoCards().getAll()));
+    }
+
+    /**
+     * Writes a list of ammo cards.
+     *
+     * @param list the cards, in order
+     * @throws IllegalArgumentException if a card was not loaded from file
+     */
+    public void writeAmmoCards(List<AmmoCard> list) {
+        writeCount(list.size());
+        list.forEach(this::writeAmmoCard);
+    }
+
+    /**
+     * Returns the bytes written so far.
+     *
+     * @return a copy of the bytes written
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Returns the position of the provided element, looking for the same
+     * object first.
+     *
+     * @param element the element, can be null
+     * @param list    the list of the elements
+     * @return the position of the element, -1 if it is null
+     * @throws IllegalArgumentException if the element is not in the list
+     */
+    private static int indexOf(Object element, List<?> list) {
+        if (element == null)
+            return -1;
+        for (int i = 0; i < list.size(); i++)
+            if (list.get(i) == element)
+                return i;
+        int index = list.indexOf(element);
+        if (index < 0)
+            throw new IllegalArgumentException("Can not be saved: " + element);
+        return index;
+    }
+
+    /**
+     * Ensures that the provided bytes can be written.
+     *
+     * @param bytes the bytes that will be written
+     */
+    private void ensure(int bytes) {
+        if (size + bytes > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, size + bytes));
+    }
+}
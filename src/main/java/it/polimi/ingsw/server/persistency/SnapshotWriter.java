@@ -0,0 +1,118 @@
+package it.polimi.ingsw.server.persistency;
+
+import it.polimi.ingsw.server.serverlogic.ServerMain;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+/**
+ * Writes the {@linkplain MatchSnapshot snapshots} of a match in background.
+ * <p>
+ * The snapshots of all the matches are written by one thread, so that the
+ * threads of the matches never wait for the storage. Only the last
+ * snapshot of a match is kept: if a newer one is taken while the previous
+ * one is waiting to be written, the previous one is dropped.
+ * <p>
+ * If a snapshot can not be written the error is logged; the match can
+ * still be recovered from the previous snapshot or from its journal.
+ *
+ * @author Abbo Giulio A.
+ * @see MatchSnapshot
+ */
+public class SnapshotWriter {
+    /**
+     * The thread writing the snapshots of all the matches.
+     */
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * The file of the snapshots.
+     */
+    private final Path file;
+    /**
+     * The snapshot waiting to be written, null if there is none.
+     */
+    private final AtomicReference<MatchSnapshot> pending;
+    /**
+     * Whether the next snapshots are dropped.
+     */
+    private volatile boolean deleted;
+
+    /**
+     * Creates a writer of the snapshots in the provided file.
+     *
+     * @param file the file of the snapshots
+     */
+    public SnapshotWriter(Path file) {
+        this.file = file;
+        pending = new AtomicReference<>();
+    }
+
+    /**
+     * Waits until the snapshots taken so far are written.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return false if the time elapsed before
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public static boolean awaitWritten(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            WRITER.submit(() -> {
+                /*Everything submitted before has been written*/
+            }).get(timeout, unit);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the provided snapshot in background, replacing the one still
+     * waiting.
+     *
+     * @param snapshot the snapshot
+     */
+    public void write(MatchSnapshot snapshot) {
+        if (!deleted && pending.getAndSet(snapshot) == null)
+            WRITER.execute(this::flush);
+    }
+
+    /**
+     * Writes the snapshot waiting, if any.
+     */
+    private void flush() {
+        MatchSnapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null || deleted)
+            return;
+        try {
+            snapshot.write(file);
+        } catch (IOException e) {
+            ServerMain.getLog().log(Level.WARNING, "Snapshot not written: " + file, e);
+        }
+    }
+
+    /**
+     * Deletes the file of the snapshots once the ones waiting are done, the
+     * next snapshots are dropped.
+     * This is used when the match is over.
+     */
+    public void delete() {
+        deleted = true;
+        WRITER.execute(() -> {
+            pending.set(null);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                ServerMain.getLog().log(Level.WARNING, "Snapshot not deleted: " + file, e);
+            }
+        });
+    }
+}
@@ -5,11 +5,9 @@ import it.polimi.ingsw.server.model.cards.WeaponCard;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
 
 /**
  * Loads weapon cards from a json file.
@@ -36,9 +34,9 @@ import java.util.stream.Collectors;
  */
 public class WeaponLoader implements BasicLoader<WeaponCard> {
     /**
-     * The loaded cards (could be empty).
+     * The loaded cards (could be empty), by identifier.
      */
-    private WeaponCard[] weaponCards;
+    private final IdIndex<WeaponCard> weaponCards;
 
     /**
      * This constructor loads the cards from a file.
@@ -46,17 +44,19 @@ public class WeaponLoader implements BasicLoader<WeaponCard> {
      * @param inputStream the stream for the input file
      */
     WeaponLoader(InputStream inputStream) {
-        weaponCards = new Gson().fromJson(new InputStreamReader(inputStream),
+        WeaponCard[] cards = new Gson().fromJson(new InputStreamReader(inputStream),
                 WeaponCard[].class);
 
-        /*Setting the sequences and checking if all effects are present*/
-        for (WeaponCard card : weaponCards)
+        /*Setting the sequences and resolving the effects once, this also
+        checks if all effects are present*/
+        for (WeaponCard card : cards)
             try {
                 card.runPermutation();
-                card.getPossibleSequences();
+                card.compileSequences();
             } catch (NoSuchElementException e) {
                 throw new WrongFileInputException("Weapon card", card.getId(), e);
             }
+        weaponCards = new IdIndex<>(Arrays.asList(cards), WeaponCard::getId);
     }
 
     /**
@@ -65,7 +65,7 @@ public class WeaponLoader implements BasicLoader<WeaponCard> {
      * @throws NoSuchElementException {@inheritDoc}
      */
     @Override
-    public synchronized WeaponCard get(String id) {
+    public WeaponCard get(String id) {
         List<WeaponCard> list = getAll(id);
         if (list.isEmpty())
             throw new NoSuchElementException("Can not find weapon card: " + id);
@@ -74,20 +74,21 @@ public class WeaponLoader implements BasicLoader<WeaponCard> {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The returned list can not be modified.
      */
     @Override
-    public synchronized List<WeaponCard> getAll() {
-        return new ArrayList<>(Arrays.asList(weaponCards));
-
+    public List<WeaponCard> getAll() {
+        return weaponCards.getAll();
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The returned list can not be modified.
      */
     @Override
-    public synchronized List<WeaponCard> getAll(String id) {
-        return getAll().stream()
-                .filter(c -> c.getId().equalsIgnoreCase(id))
-                .collect(Collectors.toList());
+    public List<WeaponCard> getAll(String id) {
+        return weaponCards.getAll(id);
     }
 }
@@ -0,0 +1,287 @@
+package it.polimi.ingsw.server.serverlogic;
+
+import it.polimi.ingsw.communication.ToClientException;
+import it.polimi.ingsw.communication.UpdateBuilder;
+import it.polimi.ingsw.communication.User;
+import it.polimi.ingsw.communication.protocol.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Represents one of the waiting rooms of a {@linkplain ServerHall}.
+ * <p>
+ * A match is started when at least {@linkplain #MINIMUM_PLAYERS} users
+ * are waiting and {@linkplain #secondsWaitingRoom} are elapsed, or when
+ * {@linkplain #MAXIMUM_PLAYERS} are waiting.
+ * <p>
+ * The monitor of the shard only guards the list of users and the timer;
+ * the messages to the users are queued, while holding it, on a thread of
+ * the shard that sends them in order, so that a slow client never blocks
+ * who joins or leaves.
+ *
+ * @author Fahed B. Tej
+ * @author Abbo Giulio A.
+ */
+class LobbyShard {
+    /**
+     * The minimum number of player for a match to start.
+     */
+    static final int MINIMUM_PLAYERS = 3;
+    /**
+     * The maximum number of player for a match to start.
+     */
+    static final int MAXIMUM_PLAYERS = 5;
+    /**
+     * The seconds before starting a game having enough players.
+     */
+    private final int secondsWaitingRoom;
+    /**
+     * The scheduler running the timer.
+     */
+    private final MatchScheduler scheduler;
+    /**
+     * Starts a match with the users provided, called on the thread of the
+     * shard.
+     */
+    private final Consumer<List<User>> matchStarter;
+    /**
+     * The thread sending the messages of this shard.
+     */
+    private final ExecutorService outbox;
+    /**
+     * Users waiting for a match to start.
+     */
+    private final List<User> waiting;
+    /**
+     * The number of users waiting, readable without the monitor.
+     */
+    private volatile int size;
+    /**
+     * Status of the shard.
+     */
+    private GameStatus statusNextGame;
+    /**
+     * The task that will fire {@linkplain #timeOut()} after a delay.
+     */
+    private Future<?> timer;
+
+    /**
+     * Creates an empty shard.
+     *
+     * @param id                 the number of the shard, used in the name
+     *                           of its thread
+     * @param secondsWaitingRoom the amount of seconds to wait for a match
+     *                           with the minimum number of players to start
+     * @param scheduler          the scheduler running the timer
+     * @param matchStarter       starts a match with the provided users
+     */
+    LobbyShard(int id, int secondsWaitingRoom, MatchScheduler scheduler, Consumer<List<User>> matchStarter) {
+        this.secondsWaitingRoom = secondsWaitingRoom;
+        this.scheduler = scheduler;
+        this.matchStarter = matchStarter;
+        outbox = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "lobby-" + id);
+            thread.setDaemon(true);
+            return thread;
+        });
+        waiting = new ArrayList<>();
+        statusNextGame = GameStatus.NOT_STARTED;
+        timer = null;
+    }
+
+    /**
+     * Returns how many users are waiting, without locking the shard.
+     *
+     * @return the number of users waiting
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a user to the waiting room.
+     * If the maximum number of user is reached the match starts.
+     *
+     * @param user the connected user
+     */
+    synchronized void add(User user) {
+        waiting.add(user);
+        if (waiting.size() >= MAXIMUM_PLAYERS)
+            startMatch();
+        changed();
+    }
+
+    /**
+     * Removes a user that can not be reached.
+     * Nothing is done if the user is no longer waiting.
+     *
+     * @param user the user to remove
+     */
+    private synchronized void remove(User user) {
+        if (waiting.remove(user))
+            changed();
+    }
+
+    /**
+     * Updates the state after the users changed and sends the names of the
+     * users waiting.
+     */
+    private void changed() {
+        size = waiting.size();
+        List<User> receivers = new ArrayList<>(waiting);
+        UpdateBuilder builder = UpdateBuilder.of(new UpdateBuilder().setPlayersNames(
+                receivers.stream().map(User::getName).collect(Collectors.toList())).build());
+        outbox.execute(() -> sendUpdate(receivers, builder));
+        statusNextGame = statusNextGame.nextState(waiting);
+        statusNextGame.act(this);
+    }
+
+    /**
+     * Sends an update to the provided users, removing the ones that can
+     * not be reached.
+     *
+     * @param receivers the users
+     * @param update    the update
+     */
+    private void sendUpdate(List<User> receivers, UpdateBuilder update) {
+        for (User u : receivers) {
+            try {
+                u.sendUpdate(update);
+            } catch (ToClientException e) {
+                remove(u);
+            }
+        }
+    }
+
+    /**
+     * Sends a notification to the provided users, removing the ones that
+     * can not be reached.
+     *
+     * @param receivers the users
+     * @param type      the notification
+     */
+    private void sendNotification(List<User> receivers, Notification.NotificationType type) {
+        for (User u : receivers) {
+            try {
+                u.sendNotification(type);
+            } catch (ToClientException e) {
+                remove(u);
+            }
+        }
+    }
+
+    /**
+     * Hands the users waiting to a new match, on the thread of the shard.
+     */
+    private void startMatch() {
+        stopTimer();
+        List<User> players = new ArrayList<>(waiting);
+        waiting.clear();
+        statusNextGame = GameStatus.NOT_STARTED;
+        outbox.execute(() -> matchStarter.accept(players));
+    }
+
+    /**
+     * Ensures that the timer after which the match will start is running.
+     */
+    private void startTimer() {
+        if (timer == null || timer.isDone()) {
+            timer = scheduler.schedule(this::timeOut, secondsWaitingRoom, TimeUnit.SECONDS);
+            ServerMain.getLog().info("Timer starting");
+            List<User> receivers = new ArrayList<>(waiting);
+            UpdateBuilder builder = UpdateBuilder.of(new UpdateBuilder().setTimer(secondsWaitingRoom).build());
+            outbox.execute(() -> {
+                sendNotification(receivers, Notification.NotificationType.TIMER_STARTING);
+                sendUpdate(receivers, builder);
+            });
+        }
+    }
+
+    /**
+     * Ensure that the timer after which the match will start is not running.
+     */
+    private void stopTimer() {
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+            ServerMain.getLog().info("Timer stopped");
+            List<User> receivers = new ArrayList<>(waiting);
+            outbox.execute(() -> sendNotification(receivers, Notification.NotificationType.TIMER_STOPPED));
+        }
+    }
+
+    /**
+     * This method is called when the time is over: if there are still enough
+     * players the match is started.
+     */
+    private synchronized void timeOut() {
+        if (waiting.size() >= MINIMUM_PLAYERS)
+            startMatch();
+        changed();
+    }
+
+    /**
+     * Represents the status of the {@linkplain LobbyShard}.
+     */
+    private enum GameStatus {
+        /**
+         * Game is not started.
+         */
+        NOT_STARTED {
+            @Override
+            void act(LobbyShard shard) {
+                shard.stopTimer();
+            }
+        },
+        /**
+         * Game has started and it's waiting for the minimum number of players.
+         */
+        WAITING {
+            @Override
+            void act(LobbyShard shard) {
+                shard.stopTimer();
+            }
+        },
+        /**
+         * Game is waiting for the timer to expire so it can start the game.
+         */
+        TIMER_STARTED {
+            @Override
+            void act(LobbyShard shard) {
+                shard.startTimer();
+            }
+        };
+
+        /**
+         * Runs the right commands based on the state.
+         *
+         * @param shard the shard that is calling this
+         */
+        abstract void act(LobbyShard shard);
+
+        /**
+         * Returns the next state of the shard.
+         * The state returned is based on the number of waiting users and
+         * the current state.
+         *
+         * @param connected the list of waiting users
+         * @return the next state
+         */
+        private GameStatus nextState(List<User> connected) {
+            if (connected.isEmpty()) {
+                return NOT_STARTED;
+            }
+            if (connected.size() < MINIMUM_PLAYERS) {
+                return WAITING;
+            }
+            return TIMER_STARTED;
+        }
+    }
+}
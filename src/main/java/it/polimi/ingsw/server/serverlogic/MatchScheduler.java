@@ -0,0 +1,235 @@
+package it.polimi.ingsw.server.serverlogic;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * This runs the matches and the timers of the halls for the whole server.
+ * At most a fixed number of matches run at one time, each on its own named
+ * thread; the others wait in a queue, in the order they were started, for
+ * a running match to be over.
+ * A single timer thread runs the delayed tasks of the halls.
+ * <p>
+ * On shutdown no more matches are accepted, while the queued and the
+ * running ones are played to the end. On a {@linkplain #shutdownNow()
+ * forced shutdown} the queued matches are dropped, each one running what
+ * was provided for that case, and the running ones are interrupted.
+ *
+ * @author Abbo Giulio A.
+ * @see ServerHall
+ */
+public class MatchScheduler {
+    /**
+     * The matches running at one time when nothing else is specified.
+     */
+    public static final int DEFAULT_MATCHES = 64;
+    /**
+     * Seconds between two reports of the metrics in the log.
+     */
+    private static final int REPORT_PERIOD = 60;
+    /**
+     * The threads that run the matches.
+     */
+    private final ThreadPoolExecutor matches;
+    /**
+     * The thread that runs the timers of the halls.
+     */
+    private final ScheduledThreadPoolExecutor timers;
+    /**
+     * How many matches are running.
+     */
+    private final AtomicInteger running;
+    /**
+     * How many matches are over.
+     */
+    private final AtomicLong finished;
+
+    /**
+     * Creates a scheduler that runs up to the provided number of matches at
+     * one time.
+     *
+     * @param maxRunning the maximum number of matches running at one time
+     */
+    public MatchScheduler(int maxRunning) {
+        AtomicInteger count = new AtomicInteger();
+        matches = new ThreadPoolExecutor(maxRunning, maxRunning, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> new Thread(r, "match-" + count.incrementAndGet()));
+        matches.allowCoreThreadTimeOut(true);
+
+        timers = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "hall-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timers.setRemoveOnCancelPolicy(true);
+        timers.scheduleAtFixedRate(() -> ServerMain.getLog().fine(this::report),
+                REPORT_PERIOD, REPORT_PERIOD, TimeUnit.SECONDS);
+
+        running = new AtomicInteger();
+        finished = new AtomicLong();
+    }
+
+    /**
+     * Runs the provided match as soon as fewer than the maximum number of
+     * matches are running.
+     *
+     * @param match the match to play
+     * @return false if the scheduler is shut down and the match will not run
+     */
+    public boolean submit(Runnable match) {
+        return submit(match, () -> {
+            /*Nothing to do*/
+        });
+    }
+
+    /**
+     * Runs the provided match as soon as fewer than the maximum number of
+     * matches are running; if it is still queued on a {@linkplain
+     * #shutdownNow() forced shutdown}, the other task is run instead.
+     *
+     * @param match   the match to play
+     * @param dropped run if the match is dropped before starting
+     * @return false if the scheduler is shut down and the match will not run
+     */
+    public boolean submit(Runnable match, Runnable dropped) {
+        try {
+            matches.execute(new Match(match, dropped));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs the provided task after a delay, on the timer thread.
+     *
+     * @param task  the task to run
+     * @param delay the time before running the task
+     * @param unit  the unit of {@code delay}
+     * @return the pending task, that can be cancelled
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return timers.schedule(task, delay, unit);
+    }
+
+    /**
+     * Returns how many matches are running.
+     *
+     * @return the number of matches running
+     */
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    /**
+     * Returns how many matches are waiting for a running one to be over.
+     *
+     * @return the number of matches queued
+     */
+    public int getQueuedCount() {
+        return matches.getQueue().size();
+    }
+
+    /**
+     * Returns how many matches are over.
+     *
+     * @return the number of matches finished
+     */
+    public long getFinishedCount() {
+        return finished.get();
+    }
+
+    /**
+     * Returns a line with the current metrics.
+     *
+     * @return the metrics of this scheduler
+     */
+    public String report() {
+        return "Matches: queued " + getQueuedCount() + ", running " + getRunningCount() +
+                ", finished " + getFinishedCount();
+    }
+
+    /**
+     * Stops accepting matches and timers.
+     * The matches already submitted are still played.
+     */
+    public void shutdown() {
+        matches.shutdown();
+        timers.shutdownNow();
+    }
+
+    /**
+     * Waits for the submitted matches to be over, after a {@linkplain
+     * #shutdown()}.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of {@code timeout}
+     * @return true if all the matches are over, false if the time elapsed
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return matches.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Stops accepting matches, drops the queued ones and interrupts the
+     * running ones.
+     * The queued matches run what was provided for when they are dropped,
+     * on the calling thread.
+     *
+     * @return the number of matches dropped
+     */
+    public int shutdownNow() {
+        List<Runnable> queued = matches.shutdownNow();
+        timers.shutdownNow();
+        for (Runnable match : queued) {
+            try {
+                ((Match) match).dropped.run();
+            } catch (RuntimeException e) {
+                ServerMain.getLog().log(Level.WARNING, "Dropped match not closed", e);
+            }
+        }
+        return queued.size();
+    }
+
+    /**
+     * A match submitted, counted while it runs.
+     */
+    private class Match implements Runnable {
+        /**
+         * Plays the match.
+         */
+        private final Runnable match;
+        /**
+         * Run if the match is dropped before starting.
+         */
+        private final Runnable dropped;
+
+        /**
+         * Creates a match to submit.
+         *
+         * @param match   plays the match
+         * @param dropped run if the match is dropped before starting
+         */
+        Match(Runnable match, Runnable dropped) {
+            this.match = match;
+            this.dropped = dropped;
+        }
+
+        @Override
+        public void run() {
+            running.incrementAndGet();
+            try {
+                match.run();
+            } catch (RuntimeException e) {
+                ServerMain.getLog().log(Level.SEVERE, "Match ended by an exception", e);
+            } finally {
+                running.decrementAndGet();
+                finished.incrementAndGet();
+            }
+        }
+    }
+}
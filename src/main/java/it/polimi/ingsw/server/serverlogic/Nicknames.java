@@ -62,6 +62,18 @@ public class Nicknames implements SuspensionListener {
         return -1;
     }
 
+    /**
+     * Registers the nickname of a player that is in a match but not
+     * connected, as for the players of a recovered match: when the player
+     * connects with this nickname he takes his place back.
+     *
+     * @param nickname the nickname of the player
+     */
+    public synchronized void addOfflineNickname(String nickname) {
+        if (!onlineNames.contains(nickname) && !offlineNames.contains(nickname))
+            offlineNames.add(nickname);
+    }
+
     /**
      * {@inheritDoc}
      * <p>
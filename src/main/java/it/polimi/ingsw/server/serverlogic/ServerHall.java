@@ -5,113 +5,255 @@ import it.polimi.ingsw.communication.UpdateBuilder;
 import it.polimi.ingsw.communication.User;
 import it.polimi.ingsw.communication.protocol.Notification;
 import it.polimi.ingsw.server.controller.DeathmatchController;
+import it.polimi.ingsw.server.metrics.ServerMetrics;
 import it.polimi.ingsw.server.model.board.Configurations;
+import it.polimi.ingsw.server.persistency.JournalRecord;
+import it.polimi.ingsw.server.persistency.MatchJournal;
+import it.polimi.ingsw.server.persistency.MatchSnapshot;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
 
 /**
  * Represents the place where Users gather to create a Game.
  * <p>
- * A Game is created when at least {@linkplain #MINIMUM_PLAYERS} users
- * are connected and {@linkplain #secondsWaitingRoom} are elapsed, or when
- * {@linkplain #MAXIMUM_PLAYERS} are connected.
+ * The users wait in one of several {@linkplain LobbyShard}s, each with its
+ * own lock, timer and thread for the messages; there the rules for
+ * starting a match are applied.
+ * The users joining are put in a queue without locking, and the thread of
+ * the hall moves them to the shard with the fewest users, taking the shards
+ * in turn when they are even, so that the users and the messages of the
+ * lobby are spread over the threads of all the shards; a shard fills up
+ * until its match starts. With few users, fewer shards make the matches
+ * start sooner.
+ * <p>
+ * The matches and the timers are run by a {@linkplain MatchScheduler}; the
+ * players of a new match are told it is starting on the thread of the
+ * match, so that a slow client does not hold up the thread of its shard.
+ * <p>
+ * Spectators watch the match that has the most of them, so that they
+ * gather on a featured match; if there is no match they wait for the next
+ * one.
+ * <p>
+ * The users waiting and the matches running are counted in the
+ * {@link ServerMetrics}.
+ * <p>
+ * If a directory for the journals is provided, each match is recorded in
+ * a {@linkplain MatchJournal}; the matches that were not over when the
+ * server stopped can be {@linkplain #recoverMatches() recovered} from it.
+ * The journals of the matches that are over are moved to an archive, if
+ * one is provided, or deleted.
  *
  * @author Fahed B. Tej
  * @author Abbo Giulio A.
  */
 public class ServerHall implements Runnable {
     /**
-     * The minimum number of player for a match to start.
+     * The shards used when nothing else is specified.
      */
-    private static final int MINIMUM_PLAYERS = 3;
+    public static final int DEFAULT_SHARDS = 4;
     /**
-     * The maximum number of player for a match to start.
+     * Users that joined and are not in a shard yet.
      */
-    private static final int MAXIMUM_PLAYERS = 5;
+    private final Queue<User> joining;
     /**
-     * The seconds before starting a game having enough players.
+     * The waiting rooms.
      */
-    private int secondsWaitingRoom;
+    private final LobbyShard[] shards;
     /**
-     * Connected Users waiting for a match to start.
+     * All the matches running.
      */
-    private List<User> connectedUsers;
+    private final Set<DeathmatchController> startedGames;
     /**
-     * All the matches running.
+     * Spectators waiting for a match to start.
      */
-    private List<DeathmatchController> startedGames;
+    private final Queue<User> spectators;
     /**
-     * Status of the hall.
+     * The scheduler running the matches.
      */
-    private GameStatus statusNextGame;
+    private final MatchScheduler scheduler;
     /**
-     * Whether the hall is still running.
+     * The thread moving the users to the shards, null before it runs.
      */
-    private boolean running;
+    private volatile Thread dispatcher;
     /**
-     * The task that will fire {@linkplain #timeOut()} after a delay.
+     * The shard looked at first by the next {@linkplain #pickShard()}, only
+     * used by the thread of the hall.
      */
-    private Future timer;
+    private int nextShard;
+    /**
+     * The directory of the journals of the matches, null if the matches are
+     * not recorded.
+     */
+    private final Path journals;
+    /**
+     * The directory where the journals of the matches that are over are
+     * moved, null if they are deleted.
+     */
+    private final Path archive;
 
     /**
      * Constructs a server hall for a death match with the provided waiting time.
      *
      * @param secondsWaitingRoom the amount of seconds to wait for a match
      *                           with the minimum number of players to start
+     * @param scheduler          the scheduler running the matches and the
+     *                           timers
+     * @param shards             the number of waiting rooms
+     */
+    ServerHall(int secondsWaitingRoom, MatchScheduler scheduler, int shards) {
+        this(secondsWaitingRoom, scheduler, shards, null);
+    }
+
+    /**
+     * Constructs a server hall that records its matches in the provided
+     * directory.
+     *
+     * @param secondsWaitingRoom the amount of seconds to wait for a match
+     *                           with the minimum number of players to start
+     * @param scheduler          the scheduler running the matches and the
+     *                           timers
+     * @param shards             the number of waiting rooms
+     * @param journals           the directory of the journals, null if the
+     *                           matches are not recorded
      */
-    ServerHall(int secondsWaitingRoom) {
-        this.secondsWaitingRoom = secondsWaitingRoom;
-        connectedUsers = new ArrayList<>();
-        startedGames = new ArrayList<>();
-        statusNextGame = GameStatus.NOT_STARTED;
-        timer = null;
+    ServerHall(int secondsWaitingRoom, MatchScheduler scheduler, int shards, Path journals) {
+        this(secondsWaitingRoom, scheduler, shards, journals, null);
     }
 
     /**
-     * This method can be run in another thread, handles the state of the hall.
+     * Constructs a server hall that records its matches in the provided
+     * directory and keeps the journals of the matches that are over in the
+     * provided archive.
+     *
+     * @param secondsWaitingRoom the amount of seconds to wait for a match
+     *                           with the minimum number of players to start
+     * @param scheduler          the scheduler running the matches and the
+     *                           timers
+     * @param shards             the number of waiting rooms
+     * @param journals           the directory of the journals, null if the
+     *                           matches are not recorded
+     * @param archive            the directory of the journals of the
+     *                           matches that are over, null to delete them
+     */
+    ServerHall(int secondsWaitingRoom, MatchScheduler scheduler, int shards, Path journals, Path archive) {
+        this.scheduler = scheduler;
+        this.journals = journals;
+        this.archive = archive;
+        joining = new ConcurrentLinkedQueue<>();
+        startedGames = ConcurrentHashMap.newKeySet();
+        spectators = new ConcurrentLinkedQueue<>();
+        this.shards = new LobbyShard[shards];
+        for (int i = 0; i < shards; i++)
+            this.shards[i] = new LobbyShard(i, secondsWaitingRoom, scheduler, this::startMatch);
+        ServerMetrics.watchHall(this::lobbySize, startedGames::size);
+    }
+
+    /**
+     * Returns the users waiting for a match, in the shards or joining.
+     *
+     * @return the number of users waiting
+     */
+    private long lobbySize() {
+        long size = joining.size();
+        for (LobbyShard shard : shards)
+            size += shard.size();
+        return size;
+    }
+
+    /**
+     * This method can be run in another thread, moves the users that joined
+     * to the shards until the thread is interrupted.
      */
     @Override
     public void run() {
-        running = true;
-        synchronized (this) {
-            while (running) {
-                statusNextGame = statusNextGame.nextState(connectedUsers);
-                statusNextGame.act(this);
-                try {
-                    wait();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+        dispatcher = Thread.currentThread();
+        while (!Thread.currentThread().isInterrupted()) {
+            User user = joining.poll();
+            while (user != null) {
+                pickShard().add(user);
+                user = joining.poll();
             }
+            LockSupport.park(this);
         }
     }
 
+    /**
+     * Returns the shard with the fewest users; among the ones with the same
+     * number of users, the first after the shard picked last time.
+     * A shard is never full, its match starts as soon as it is.
+     *
+     * @return the shard for the next user
+     */
+    private LobbyShard pickShard() {
+        LobbyShard best = null;
+        for (int i = 0; i < shards.length; i++) {
+            LobbyShard shard = shards[(nextShard + i) % shards.length];
+            if (best == null || shard.size() < best.size())
+                best = shard;
+        }
+        nextShard = (nextShard + 1) % shards.length;
+        return best;
+    }
+
+    /**
+     * Returns how many users are waiting in each shard.
+     *
+     * @return the number of users of each shard, by id
+     */
+    int[] getShardSizes() {
+        int[] sizes = new int[shards.length];
+        for (int i = 0; i < shards.length; i++)
+            sizes[i] = shards[i].size();
+        return sizes;
+    }
+
     /**
      * Adds the connected user to the waiting room.
-     * If the maximum number of user is reached the match starts.
+     * This does not wait for locks or for the network.
      *
      * @param user the connected user
      */
-    public synchronized void addUser(User user) {
-        connectedUsers.add(user);
-        if (connectedUsers.size() >= MAXIMUM_PLAYERS)
-            startMatch();
-        updateAll();
-        notifyAll();
+    public void addUser(User user) {
+        joining.add(user);
+        Thread thread = dispatcher;
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    /**
+     * Adds a spectator to the match with the most spectators, or to the
+     * next match if none is running.
+     *
+     * @param spectator the connected spectator
+     */
+    public void addSpectator(User spectator) {
+        startedGames.stream()
+                .max(Comparator.comparingInt(DeathmatchController::getSpectators))
+                .ifPresentOrElse(c -> c.addSpectator(spectator), () -> spectators.add(spectator));
     }
 
     /**
      * Notifies that the specified match controller is no longer active.
+     * Its journal, that records the end of the match, is archived.
      *
      * @param controller the controller of the match that is over
      */
-    public synchronized void removeMatch(DeathmatchController controller) {
-        startedGames.remove(controller);
+    public void removeMatch(DeathmatchController controller) {
+        if (startedGames.remove(controller) && controller.getJournalFile() != null)
+            archiveJournal(controller.getJournalFile());
     }
 
     /**
@@ -123,7 +265,7 @@ public class ServerHall implements Runnable {
      * @param name    the name of the player that is back online
      * @param newUser the new user that takes the place of the one offline
      */
-    public synchronized void notifyMatchesPlayerResumption(String name, User newUser) {
+    public void notifyMatchesPlayerResumption(String name, User newUser) {
         for (DeathmatchController controller : startedGames) {
             if (controller.playerUpdate(name, newUser)) {
                 newUser.setMatchSuspensionListener(controller);
@@ -134,174 +276,196 @@ public class ServerHall implements Runnable {
     }
 
     /**
-     * Sends am update to all the users that are waiting.
-     * The update contains a list of all the users waiting.
+     * Starts a death match with the provided users.
+     * This is called by the shard the users were waiting in, on its thread;
+     * the users are told the match is starting by the match itself, when it
+     * runs.
+     *
+     * @param players the users in the match
      */
-    private void updateAll() {
-        UpdateBuilder builder = new UpdateBuilder().setPlayersNames(
-                connectedUsers.stream().map(User::getName).collect(Collectors.toList()));
-        for (User u : connectedUsers) {
-            try {
-                u.sendUpdate(builder);
-            } catch (ToClientException e) {
-                connectedUsers.remove(u);
-                updateAll();
-                break;
+    private void startMatch(List<User> players) {
+        long seed = ThreadLocalRandom.current().nextLong();
+        Configurations configuration = getConfiguration(players.size(), seed);
+        DeathmatchController controller = new DeathmatchController(players, 8, configuration, seed, createJournal());
+        startedGames.add(controller);
+        for (User u : players)
+            u.setMatchSuspensionListener(controller);
+        Runnable match = () -> {
+            announceMatch(players, configuration);
+            controller.start();
+        };
+        if (scheduler.submit(match, () -> dropMatch(controller, players))) {
+            User spectator = spectators.poll();
+            while (spectator != null) {
+                controller.addSpectator(spectator);
+                spectator = spectators.poll();
             }
+            ServerMain.getLog().info(() -> "Match starting. " + scheduler.report());
+            return;
         }
+
+        /*The server is shutting down*/
+        ServerMain.getLog().warning("Match refused, the server is shutting down");
+        dropMatch(controller, players);
     }
 
     /**
-     * Sends am update to all the users that are waiting.
+     * Tells the players that their match is starting and sends them its
+     * board configuration.
+     *
+     * @param players       the users in the match
+     * @param configuration the configuration of the board
      */
-    private void updateAll(UpdateBuilder builder) {
-        for (User u : connectedUsers) {
+    private static void announceMatch(List<User> players, Configurations configuration) {
+        UpdateBuilder update = UpdateBuilder.of(new UpdateBuilder()
+                .setConfigurationId(configuration.getId()).build());
+        for (User u : players) {
             try {
-                u.sendUpdate(builder);
+                u.sendNotification(Notification.NotificationType.GAME_STARTING);
+                u.sendUpdate(update);
             } catch (ToClientException e) {
-                connectedUsers.remove(u);
-                updateAll();
+                /*The match will handle the suspension*/
             }
         }
     }
 
-    private void notifyAll(Notification.NotificationType type) {
-        for (User u : connectedUsers) {
+    /**
+     * Removes a match that will not start because the server is shutting
+     * down and sends its players away; its journal is deleted, there is
+     * nothing to recover.
+     *
+     * @param controller the controller of the match
+     * @param players    the users in the match
+     */
+    private void dropMatch(DeathmatchController controller, List<User> players) {
+        startedGames.remove(controller);
+        for (User u : players) {
             try {
-                u.sendNotification(type);
+                u.quit();
             } catch (ToClientException e) {
-                connectedUsers.remove(u);
-                updateAll();
+                /*The player is already away*/
+            }
+        }
+        if (controller.getJournalFile() != null) {
+            try {
+                Files.deleteIfExists(controller.getJournalFile());
+            } catch (IOException e) {
+                ServerMain.getLog().log(Level.WARNING, "Journal not deleted", e);
             }
         }
     }
 
-
     /**
-     * Starts a death match.
+     * Creates the journal of a new match.
+     *
+     * @return the journal, null if the matches are not recorded or the
+     * journal can not be created
      */
-    private synchronized void startMatch() {
-        stopTimer();
-
-        Configurations configuration = getConfiguration();
-        DeathmatchController controller = new DeathmatchController(connectedUsers, 8, configuration);
-        startedGames.add(controller);
-        for (User u : connectedUsers)
-            u.setMatchSuspensionListener(controller);
-        notifyAll(Notification.NotificationType.GAME_STARTING);
-        updateAll(new UpdateBuilder().setConfigurationId(configuration.getId()));
-        connectedUsers.clear();
-        statusNextGame = GameStatus.NOT_STARTED;
-        new Thread(controller::start).start();
-        ServerMain.getLog().info("Match starting");
+    private MatchJournal createJournal() {
+        if (journals == null)
+            return null;
+        try {
+            Files.createDirectories(journals);
+            return MatchJournal.create(Files.createTempFile(journals, "match-", MatchJournal.EXTENSION));
+        } catch (IOException e) {
+            ServerMain.getLog().log(Level.WARNING, "Match not recorded", e);
+            return null;
+        }
     }
 
     /**
-     * Returns a board configuration based on the number of players.
+     * Starts again the matches whose journals are not over.
+     * Each match is replayed up to its last record, from its last snapshot
+     * if it has one, then waits for its players to reconnect; their
+     * nicknames are reserved so that they return to their match.
      *
-     * @return a board configuration based on the number of players
+     * @return the number of matches recovered
      */
-    private Configurations getConfiguration() {
-        if (connectedUsers.size() == 4)
-            return Configurations.ADVISED34;
-        if (connectedUsers.size() == 5)
-            return Configurations.ADVISED45;
-        return ((System.currentTimeMillis() / 100) % 2 == 0) ?
-                Configurations.STANDARD1 :
-                Configurations.STANDARD2;
-    }
+    public int recoverMatches() {
+        if (journals == null)
+            return 0;
+        List<Path> files;
+        try {
+            files = MatchJournal.list(journals);
+        } catch (IOException e) {
+            ServerMain.getLog().log(Level.WARNING, "Journals not read", e);
+            return 0;
+        }
 
-    /**
-     * Ensures that the timer after which the match will start is running.
-     */
-    private void startTimer() {
-        if (timer == null || timer.isDone()) {
-            timer = Executors.newSingleThreadScheduledExecutor().schedule(
-                    this::timeOut, secondsWaitingRoom, TimeUnit.SECONDS);
-            ServerMain.getLog().info("Timer starting");
-            notifyAll(Notification.NotificationType.TIMER_STARTING);
-            updateAll(new UpdateBuilder().setTimer(secondsWaitingRoom));
+        int recovered = 0;
+        for (Path file : files) {
+            try {
+                MatchJournal journal = MatchJournal.open(file);
+                if (isOver(journal)) {
+                    journal.close();
+                    Files.deleteIfExists(MatchSnapshot.fileOf(file));
+                    archiveJournal(file);
+                    continue;
+                }
+                DeathmatchController controller = DeathmatchController.recover(journal);
+                controller.getPlayerNames().forEach(Nicknames.getInstance()::addOfflineNickname);
+                startedGames.add(controller);
+                if (scheduler.submit(controller::start, () -> startedGames.remove(controller))) {
+                    recovered++;
+                } else {
+                    startedGames.remove(controller);
+                    journal.close();
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                ServerMain.getLog().log(Level.WARNING, e, () -> "Match not recovered: " + file);
+            }
         }
+        return recovered;
     }
 
     /**
-     * Ensure that the timer after which the match will start is not running.
+     * Moves the journal of a match that is over to the archive, or deletes
+     * it if there is no archive, so that it is not opened again at the next
+     * recovery.
+     *
+     * @param file the file of the journal, already closed
      */
-    private void stopTimer() {
-        if (timer != null) {
-            timer.cancel(false);
-            timer = null;
-            ServerMain.getLog().info("Timer stopped");
-            notifyAll(Notification.NotificationType.TIMER_STOPPED);
+    private void archiveJournal(Path file) {
+        try {
+            if (archive == null) {
+                Files.deleteIfExists(file);
+            } else {
+                Files.createDirectories(archive);
+                Files.move(file, archive.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            ServerMain.getLog().log(Level.WARNING, e, () -> "Journal not archived: " + file);
         }
     }
 
     /**
-     * This method is called when the time is over: if there are still enough
-     * players the match is started.
+     * Returns whether the provided journal records a match that is over or
+     * did not even start.
+     *
+     * @param journal the journal
+     * @return true if the match is not to be recovered
      */
-    private synchronized void timeOut() {
-        updateAll();
-        if (connectedUsers.size() >= MINIMUM_PLAYERS)
-            startMatch();
-        notifyAll();
+    private static boolean isOver(MatchJournal journal) {
+        List<JournalRecord> records = journal.getRecords();
+        return records.isEmpty() || records.get(records.size() - 1).getType() == JournalRecord.Type.END;
     }
 
     /**
-     * Represents the status of the {@linkplain ServerHall}.
+     * Returns a board configuration based on the number of players.
+     * The same seed, that also shuffles the decks of the match, gives the
+     * same configuration.
+     *
+     * @param players the number of players
+     * @param seed    the seed of the match
+     * @return a board configuration based on the number of players
      */
-    private enum GameStatus {
-        /**
-         * Game is not started.
-         */
-        NOT_STARTED {
-            @Override
-            void act(ServerHall hall) {
-                hall.stopTimer();
-            }
-        },
-        /**
-         * Game has started and it's waiting for the minimum number of players.
-         */
-        WAITING {
-            @Override
-            void act(ServerHall hall) {
-                hall.stopTimer();
-            }
-        },
-        /**
-         * Game is waiting for the timer to expire so it can start the game.
-         */
-        TIMER_STARTED {
-            @Override
-            void act(ServerHall hall) {
-                hall.startTimer();
-            }
-        };
-
-        /**
-         * Runs the right commands based on the state.
-         *
-         * @param hall the server hall that is calling this
-         */
-        abstract void act(ServerHall hall);
-
-        /**
-         * Returns the next state of the hall.
-         * The state returned is based on the number of connected users and
-         * the current state.
-         *
-         * @param connected the list of connected users
-         * @return the next state
-         */
-        private GameStatus nextState(List connected) {
-            if (connected.isEmpty()) {
-                return NOT_STARTED;
-            }
-            if (connected.size() < MINIMUM_PLAYERS) {
-                return WAITING;
-            }
-            return TIMER_STARTED;
-        }
+    static Configurations getConfiguration(int players, long seed) {
+        if (players == 4)
+            return Configurations.ADVISED34;
+        if (players == 5)
+            return Configurations.ADVISED45;
+        return new SplittableRandom(seed).nextBoolean() ?
+                Configurations.STANDARD1 :
+                Configurations.STANDARD2;
     }
 }
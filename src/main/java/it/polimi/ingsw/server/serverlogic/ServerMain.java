@@ -2,16 +2,27 @@ package it.polimi.ingsw.server.serverlogic;
 
 import it.polimi.ingsw.client.clientlogic.ClientMain;
 import it.polimi.ingsw.client.resources.R;
+import it.polimi.ingsw.communication.InteractionScheduler;
 import it.polimi.ingsw.communication.User;
 import it.polimi.ingsw.communication.rmi.RmiInversion;
+import it.polimi.ingsw.communication.socket.NioSocketDispatcher;
 import it.polimi.ingsw.communication.socket.SocketDispatcher;
+import it.polimi.ingsw.communication.socket.SocketToClient;
+import it.polimi.ingsw.server.controller.DeathmatchController;
+import it.polimi.ingsw.server.metrics.MetricsEndpoint;
+import it.polimi.ingsw.server.metrics.MetricsRegistry;
+import it.polimi.ingsw.server.persistency.SnapshotWriter;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.nio.file.Paths;
+import java.nio.channels.ServerSocketChannel;
 import java.rmi.AlreadyBoundException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +32,9 @@ import java.util.logging.Logger;
  * and the time a user has to take a decision; the values are taken from
  * command line.
  * <p>
+ * If a port for the metrics is set, the {@linkplain MetricsRegistry metrics}
+ * of the server are served on it, only to the same machine.
+ * <p>
  * It contains a {@link ServerHall} which is a lobby for players.
  * If multiple types of game will be implemented, this will contain a
  * {@link ServerHall} for each type.
@@ -42,18 +56,32 @@ public class ServerMain {
      * ServerHall used to manage the connected users.
      */
     private static ServerHall deathMatchHall;
+    /**
+     * Scheduler running the matches of all the halls.
+     */
+    private static MatchScheduler matchScheduler;
+    /**
+     * Serves the metrics of the server, null if they are not served.
+     */
+    private static MetricsEndpoint metrics;
 
     /**
      * This constructor will fire two thread, for socket and RMI.
      * After this call the server will be ready to handle connections.
      *
-     * @param socketPort the port to which socket connection are accepted
-     * @param rmiPort    the port for rmi
+     * @param socketPort      the port to which socket connection are accepted
+     * @param socketTransport "nio" for the selector based transport, anything
+     *                        else for the thread per connection one
+     * @param rmiPort         the port for rmi
      */
-    private ServerMain(int socketPort, int rmiPort) {
+    private ServerMain(int socketPort, String socketTransport, int rmiPort) {
         /*Setting up Socket*/
         try {
-            new SocketDispatcher(new ServerSocket(socketPort)).start();
+            if ("nio".equalsIgnoreCase(socketTransport))
+                new NioSocketDispatcher(ServerSocketChannel.open()
+                        .bind(new InetSocketAddress(socketPort))).start();
+            else
+                new SocketDispatcher(new ServerSocket(socketPort)).start();
         } catch (IOException e) {
             LOG.log(Level.SEVERE, "Exception when setting up socket", e);
             System.exit(-1);
@@ -80,7 +108,43 @@ public class ServerMain {
 
         secondsWaitingRoom = Integer.parseInt(R.properties("settings").getProperty("secondsForWaitingRoom"));
         User.setWaitingTime(Integer.parseInt(R.properties("settings").getProperty("secondsForUserChoice")));
-        new ServerMain(Integer.parseInt(R.properties("settings").getProperty("serverSocketPort")), Integer.parseInt(R.properties("settings").getProperty("rmiPort")));
+        SocketToClient.setBinaryAllowed(!"json".equalsIgnoreCase(R.properties("settings")
+                .getProperty("socketCodec", "binary")));
+        DeathmatchController.setBroadcastDeadline(Integer.parseInt(R.properties("settings")
+                .getProperty("millisForBroadcastAck", "1000")));
+        User.setScheduler(new InteractionScheduler(Integer.parseInt(R.properties("settings")
+                .getProperty("interactionThreads", Integer.toString(InteractionScheduler.DEFAULT_THREADS)))));
+        int secondsForShutdown = Integer.parseInt(R.properties("settings")
+                .getProperty("secondsForShutdown", "0"));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(secondsForShutdown), "shutdown"));
+        DeathmatchController.setSecondsForReconnection(Integer.parseInt(R.properties("settings")
+                .getProperty("secondsForReconnection", "60")));
+        startMetrics(Integer.parseInt(R.properties("settings").getProperty("metricsPort", "0")));
+
+        /*Recovering the matches before the players can reconnect*/
+        int recovered = getDeathMatchHall().recoverMatches();
+        if (recovered > 0)
+            LOG.info(() -> "Matches recovered from the journals: " + recovered);
+        new ServerMain(Integer.parseInt(R.properties("settings").getProperty("serverSocketPort")),
+                R.properties("settings").getProperty("socketTransport", "blocking"),
+                Integer.parseInt(R.properties("settings").getProperty("rmiPort")));
+    }
+
+    /**
+     * Serves the metrics of the server on the provided port of the loopback
+     * address; if the port can not be bound the server goes on without.
+     *
+     * @param port the port, 0 to not serve the metrics
+     */
+    private static void startMetrics(int port) {
+        if (port <= 0)
+            return;
+        try {
+            metrics = new MetricsEndpoint(MetricsRegistry.getInstance(), port);
+            LOG.info(() -> "Metrics served on port " + port + MetricsEndpoint.PATH);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Metrics not served", e);
+        }
     }
 
     /**
@@ -90,14 +154,65 @@ public class ServerMain {
      *
      * @return the hall for the standard match
      */
-    public static ServerHall getDeathMatchHall() {
+    public static synchronized ServerHall getDeathMatchHall() {
         if (deathMatchHall == null) {
-            deathMatchHall = new ServerHall(secondsWaitingRoom);
-            new Thread(deathMatchHall).start();
+            String journals = R.properties("settings").getProperty("journalDirectory", "");
+            String archive = R.properties("settings").getProperty("journalArchive", "");
+            deathMatchHall = new ServerHall(secondsWaitingRoom, getMatchScheduler(),
+                    Integer.parseInt(R.properties("settings").getProperty("lobbyShards",
+                            Integer.toString(ServerHall.DEFAULT_SHARDS))),
+                    journals.isEmpty() ? null : Paths.get(journals),
+                    archive.isEmpty() ? null : Paths.get(archive));
+            new Thread(deathMatchHall, "deathmatch-hall").start();
         }
         return deathMatchHall;
     }
 
+    /**
+     * Returns the scheduler of the matches.
+     * If it does not exist yet, it is created with the maximum number of
+     * matches in the settings.
+     *
+     * @return the scheduler of the matches
+     */
+    public static synchronized MatchScheduler getMatchScheduler() {
+        if (matchScheduler == null)
+            matchScheduler = new MatchScheduler(Integer.parseInt(R.properties("settings").getProperty(
+                    "maxConcurrentMatches", Integer.toString(MatchScheduler.DEFAULT_MATCHES))));
+        return matchScheduler;
+    }
+
+    /**
+     * Stops starting new matches and waits for the running ones to be over,
+     * up to the provided time; then the queued matches are dropped, their
+     * players being asked to quit, the running ones are interrupted, the
+     * last snapshots of the matches are written and the metrics are no
+     * longer served.
+     * <p>
+     * A match lasts much longer than the usual {@code secondsForShutdown}:
+     * the wait only lets the matches about to end finish, the others are
+     * interrupted without telling their players. If the matches are
+     * recorded, the interrupted ones are recovered from their journals at
+     * the next start and their players can reconnect.
+     *
+     * @param seconds the maximum time to wait for the matches
+     */
+    private static void shutdown(int seconds) {
+        MatchScheduler scheduler = getMatchScheduler();
+        LOG.info(() -> "Shutting down. " + scheduler.report());
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(seconds, TimeUnit.SECONDS))
+                scheduler.shutdownNow();
+            SnapshotWriter.awaitWritten(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (metrics != null)
+            metrics.close();
+    }
+
     /**
      * Returns the logger for the server.
      *
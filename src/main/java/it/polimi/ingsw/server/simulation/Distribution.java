@@ -0,0 +1,95 @@
+package it.polimi.ingsw.server.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Collects values and describes how they are distributed: count, mean,
+ * minimum, percentiles and maximum.
+ * This is not thread safe, the values are added by a single thread.
+ *
+ * @author Abbo Giulio A.
+ */
+class Distribution {
+    /**
+     * The values, only the first {@linkplain #count} are valid.
+     */
+    private long[] values;
+    /**
+     * The number of values added.
+     */
+    private int count;
+    /**
+     * Whether the values are sorted.
+     */
+    private boolean sorted;
+
+    /**
+     * Creates an empty distribution.
+     */
+    Distribution() {
+        values = new long[64];
+        count = 0;
+        sorted = true;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     */
+    void add(long value) {
+        if (count == values.length)
+            values = Arrays.copyOf(values, count * 2);
+        values[count++] = value;
+        sorted = false;
+    }
+
+    /**
+     * Returns the number of values added.
+     *
+     * @return the number of values
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Returns the value below which the provided fraction of values lies.
+     *
+     * @param fraction the fraction, between 0 and 1
+     * @return the percentile, 0 if there are no values
+     */
+    long percentile(double fraction) {
+        if (count == 0)
+            return 0;
+        if (!sorted) {
+            Arrays.sort(values, 0, count);
+            sorted = true;
+        }
+        return values[Math.min(count - 1, Math.max(0, (int) Math.ceil(fraction * count) - 1))];
+    }
+
+    /**
+     * Returns the mean of the values.
+     *
+     * @return the mean, 0 if there are no values
+     */
+    double mean() {
+        long sum = 0;
+        for (int i = 0; i < count; i++)
+            sum += values[i];
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Describes the distribution in a single line.
+     *
+     * @return the count, mean, minimum, median, 90th and 99th percentiles
+     * and maximum
+     */
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1f min=%d p50=%d p90=%d p99=%d max=%d", count, mean(),
+                percentile(0), percentile(0.5), percentile(0.9), percentile(0.99), percentile(1));
+    }
+}
@@ -0,0 +1,79 @@
+package it.polimi.ingsw.server.simulation;
+
+import it.polimi.ingsw.communication.protocol.MessageType;
+import it.polimi.ingsw.server.controller.effects.Action;
+
+import java.util.List;
+
+/**
+ * Tries to deal as much damage as possible: half of the times it shoots,
+ * it always hits the most targets it can and it never refuses to reload,
+ * to use a tagback or a powerup. The other choices are random.
+ *
+ * @author Abbo Giulio A.
+ */
+public class GreedyStrategy extends RandomStrategy {
+    /**
+     * The name of the action used to shoot.
+     */
+    private static final String SHOOT = "Shoot";
+
+    /**
+     * Creates a strategy whose choices depend only on the seed.
+     *
+     * @param seed the seed of the random choices
+     */
+    public GreedyStrategy(long seed) {
+        super(seed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int choose(MessageType question, List<?> options, boolean refusable) {
+        switch (question) {
+            case ACTION:
+                return shoot(options);
+            case TARGET:
+                return mostTargets(options);
+            case WEAPON_TO_RELOAD:
+            case USE_TAGBACK:
+            case POWERUP:
+                return nextInt(options.size());
+            default:
+                return super.choose(question, options, refusable);
+        }
+    }
+
+    /**
+     * Chooses the action to shoot half of the times, the others are random
+     * so that the player also moves and grabs weapons.
+     *
+     * @param options the actions
+     * @return the index of the chosen action
+     */
+    private int shoot(List<?> options) {
+        if (nextInt(2) == 0)
+            for (int i = 0; i < options.size(); i++)
+                if (SHOOT.equals(((Action) options.get(i)).getName()))
+                    return i;
+        return nextInt(options.size());
+    }
+
+    /**
+     * Chooses randomly among the options with the most targets.
+     *
+     * @param options the lists of targets
+     * @return the index of the chosen list
+     */
+    private int mostTargets(List<?> options) {
+        int most = options.stream().mapToInt(o -> ((List<?>) o).size()).max().orElse(0);
+        int[] best = new int[options.size()];
+        int found = 0;
+        for (int i = 0; i < options.size(); i++)
+            if (((List<?>) options.get(i)).size() == most)
+                best[found++] = i;
+        return best[nextInt(found)];
+    }
+}
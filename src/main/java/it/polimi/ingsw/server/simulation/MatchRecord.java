@@ -0,0 +1,158 @@
+package it.polimi.ingsw.server.simulation;
+
+import it.polimi.ingsw.server.controller.DeathmatchController;
+import it.polimi.ingsw.server.controller.MatchListener;
+import it.polimi.ingsw.server.model.board.Configurations;
+import it.polimi.ingsw.server.model.player.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Follows a simulated match and keeps how long it and its turns lasted and
+ * the final scores.
+ * The record is filled by the thread of the match and read after it is
+ * over.
+ *
+ * @author Abbo Giulio A.
+ * @see MatchSimulator
+ */
+class MatchRecord implements MatchListener {
+    /**
+     * The configuration of the board.
+     */
+    private final Configurations configuration;
+    /**
+     * When the match started, in nanoseconds.
+     */
+    private final long start;
+    /**
+     * When the current turn started, in nanoseconds, 0 before the first.
+     */
+    private long turnStart;
+    /**
+     * The lengths of the turns, in nanoseconds.
+     */
+    private final List<Long> turns;
+    /**
+     * The length of the match, in nanoseconds, -1 if it is not over.
+     */
+    private long length;
+    /**
+     * The final scores, in the order of the turns.
+     */
+    private List<Integer> scores;
+    /**
+     * The number of choices taken by the players.
+     */
+    private int answers;
+
+    /**
+     * Creates the record of a match that is starting.
+     *
+     * @param configuration the configuration of the board
+     */
+    MatchRecord(Configurations configuration) {
+        this.configuration = configuration;
+        start = System.nanoTime();
+        turnStart = 0;
+        turns = new ArrayList<>();
+        length = -1;
+        scores = Collections.emptyList();
+        answers = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void turnStarted(Player current) {
+        endTurn();
+        turnStart = System.nanoTime();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void matchOver(DeathmatchController match, List<Player> players) {
+        endTurn();
+        length = System.nanoTime() - start;
+        scores = new ArrayList<>();
+        players.forEach(p -> scores.add(p.getScore()));
+    }
+
+    /**
+     * Records the length of the current turn, if there is one.
+     */
+    private void endTurn() {
+        if (turnStart != 0)
+            turns.add(System.nanoTime() - turnStart);
+        turnStart = 0;
+    }
+
+    /**
+     * Returns the configuration of the board.
+     *
+     * @return the configuration of the board
+     */
+    Configurations getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Returns whether the match is over.
+     *
+     * @return true if the match is over
+     */
+    boolean isOver() {
+        return length >= 0;
+    }
+
+    /**
+     * Returns the length of the match.
+     *
+     * @return the length in nanoseconds, -1 if it is not over
+     */
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the lengths of the turns.
+     *
+     * @return the lengths in nanoseconds
+     */
+    List<Long> getTurns() {
+        return Collections.unmodifiableList(turns);
+    }
+
+    /**
+     * Returns the final scores.
+     *
+     * @return the scores in the order of the turns, empty if the match is not
+     * over
+     */
+    List<Integer> getScores() {
+        return Collections.unmodifiableList(scores);
+    }
+
+    /**
+     * Returns the number of choices taken by the players.
+     *
+     * @return the number of choices
+     */
+    int getAnswers() {
+        return answers;
+    }
+
+    /**
+     * Sets the number of choices taken by the players.
+     *
+     * @param answers the number of choices
+     */
+    void setAnswers(int answers) {
+        this.answers = answers;
+    }
+}
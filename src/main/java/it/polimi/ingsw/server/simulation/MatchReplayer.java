@@ -0,0 +1,267 @@
+package it.polimi.ingsw.server.simulation;
+
+import it.polimi.ingsw.client.resources.R;
+import it.polimi.ingsw.server.controller.DeathmatchController;
+import it.polimi.ingsw.server.model.board.Configurations;
+import it.polimi.ingsw.server.persistency.JournalRecord;
+import it.polimi.ingsw.server.persistency.MatchJournal;
+import it.polimi.ingsw.server.serverlogic.ServerMain;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Plays again the matches recorded in the {@linkplain MatchJournal}s of a
+ * directory and checks that each one ends with the recorded scores.
+ * <p>
+ * A match is rebuilt from the seed in its journal, that shuffles the decks
+ * as they were, and the questions are answered from the journal: there is
+ * no client, nothing is sent and nobody is waited for, so the matches run
+ * on all the cores as fast as the rules allow. A match that asks something
+ * that is not in its journal, or ends with other scores, shows that the
+ * rules changed or are not deterministic.
+ *
+ * @author Abbo Giulio A.
+ * @see DeathmatchController#replay(List, it.polimi.ingsw.server.controller.MatchListener)
+ */
+public class MatchReplayer {
+
+    /**
+     * Hiding the public constructor.
+     */
+    private MatchReplayer() {
+    }
+
+    /**
+     * Replays the journals and prints the outcome.
+     * The exit status is 0 only if all the matches are reproduced. By
+     * default the journals archived by the server are replayed, or the ones
+     * in the directory of the journals if there is no archive.
+     *
+     * @param args Usage: java MatchReplayer [directory of the journals]
+     *             [threads]
+     */
+    public static void main(String[] args) {
+        String archive = R.properties("settings").getProperty("journalArchive", "");
+        Path directory = Paths.get(args.length > 0 ? args[0] : archive.isEmpty() ?
+                R.properties("settings").getProperty("journalDirectory") : archive);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<Path> files;
+        try {
+            files = MatchJournal.list(directory);
+        } catch (IOException e) {
+            ServerMain.getLog().log(Level.SEVERE, "Journals not read", e);
+            System.exit(1);
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<Replay> replays = replayAll(files, threads);
+        long elapsed = System.nanoTime() - start;
+
+        List<Replay> wrong = new ArrayList<>();
+        for (Replay replay : replays)
+            if (replay.isFailed() || (replay.isOver() && !replay.isReproduced()))
+                wrong.add(replay);
+        wrong.forEach(r -> ServerMain.getLog().warning(r::toString));
+        ServerMain.getLog().info(report(replays, threads, elapsed));
+        System.exit(wrong.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Replays the provided journals on the provided number of threads.
+     *
+     * @param files   the files of the journals
+     * @param threads the number of threads running the replays
+     * @return the outcome of each replay, in the order of the files
+     */
+    static List<Replay> replayAll(List<Path> files, int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "replay-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<Replay>> futures = new ArrayList<>();
+        for (Path file : files)
+            futures.add(executor.submit(() -> replay(file)));
+
+        /*Collecting the outcomes, an exception in the rules is an outcome too*/
+        List<Replay> replays = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                replays.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                ServerMain.getLog().log(Level.WARNING, "Replay failed: " + files.get(i), e.getCause());
+                replays.add(new Replay(files.get(i), e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        executor.shutdownNow();
+        return replays;
+    }
+
+    /**
+     * Plays again the match recorded in the provided journal.
+     *
+     * @param file the file of the journal
+     * @return the outcome of the replay
+     * @throws IOException if the journal can not be read
+     */
+    static Replay replay(Path file) throws IOException {
+        List<JournalRecord> records = MatchJournal.read(file);
+        if (records.isEmpty() || records.get(0).getType() != JournalRecord.Type.START)
+            throw new IOException("Not the journal of a match: " + file);
+
+        JournalRecord last = records.get(records.size() - 1);
+        MatchRecord record = new MatchRecord(Configurations.of(records.get(0).getConfiguration()));
+        DeathmatchController controller = DeathmatchController.replay(records, record);
+        controller.start();
+        return new Replay(file, last.getType() == JournalRecord.Type.END ? last.getScores() : null,
+                record, controller.getDivergence());
+    }
+
+    /**
+     * Describes the outcome of the replays.
+     *
+     * @param replays the outcomes
+     * @param threads the number of threads running the replays
+     * @param elapsed the nanoseconds taken by all the replays
+     * @return the description
+     */
+    static String report(List<Replay> replays, int threads, long elapsed) {
+        int reproduced = 0;
+        int different = 0;
+        int notOver = 0;
+        int failed = 0;
+        Distribution replayMicros = new Distribution();
+        for (Replay replay : replays) {
+            if (replay.isFailed())
+                failed++;
+            else if (!replay.isOver())
+                notOver++;
+            else if (replay.isReproduced())
+                reproduced++;
+            else
+                different++;
+            if (replay.record != null)
+                replayMicros.add(TimeUnit.NANOSECONDS.toMicros(replay.record.getLength()));
+        }
+
+        double seconds = elapsed / 1e9;
+        return String.format("%d journals on %d threads in %.1f s, %.0f replays per second%n" +
+                        "reproduced:         %d%n" +
+                        "different:          %d%n" +
+                        "not over:           %d%n" +
+                        "failed:             %d%n" +
+                        "replay length (us): %s",
+                replays.size(), threads, seconds, seconds > 0 ? replays.size() / seconds : 0,
+                reproduced, different, notOver, failed, replayMicros);
+    }
+
+    /**
+     * The outcome of the replay of a journal.
+     */
+    static class Replay {
+        /**
+         * The file of the journal.
+         */
+        private final Path file;
+        /**
+         * The scores in the journal, null if the match was not over.
+         */
+        private final List<Integer> expected;
+        /**
+         * The record of the replayed match, null if it failed.
+         */
+        private final MatchRecord record;
+        /**
+         * The record expected when the match diverged, null if it did not.
+         */
+        private final String divergence;
+        /**
+         * The exception that stopped the replay, null if it did not fail.
+         */
+        private final Throwable failure;
+
+        /**
+         * Creates the outcome of a replay that got to the end.
+         *
+         * @param file       the file of the journal
+         * @param expected   the scores in the journal, null if not over
+         * @param record     the record of the replayed match
+         * @param divergence the record expected when the match diverged
+         */
+        Replay(Path file, List<Integer> expected, MatchRecord record, String divergence) {
+            this.file = file;
+            this.expected = expected;
+            this.record = record;
+            this.divergence = divergence;
+            failure = null;
+        }
+
+        /**
+         * Creates the outcome of a replay that failed.
+         *
+         * @param file    the file of the journal
+         * @param failure the exception that stopped the replay
+         */
+        Replay(Path file, Throwable failure) {
+            this.file = file;
+            this.failure = failure;
+            expected = null;
+            record = null;
+            divergence = null;
+        }
+
+        /**
+         * Returns whether the journal records the end of the match.
+         *
+         * @return false if the match was not over or the replay failed
+         */
+        boolean isOver() {
+            return expected != null;
+        }
+
+        /**
+         * Returns whether the replay was stopped by an exception.
+         *
+         * @return true if the replay failed
+         */
+        boolean isFailed() {
+            return failure != null;
+        }
+
+        /**
+         * Returns whether the replay followed the journal and ended with the
+         * same scores.
+         *
+         * @return true if the match was reproduced
+         */
+        boolean isReproduced() {
+            return failure == null && divergence == null && expected != null &&
+                    record.isOver() && expected.equals(record.getScores());
+        }
+
+        List<Integer> getScores() {
+            return record == null ? null : record.getScores();
+        }
+
+        @Override
+        public String toString() {
+            if (failure != null)
+                return file + ": failed with " + failure;
+            return file + ": expected " + expected + ", replayed " + record.getScores() +
+                    (divergence == null ? "" : ", diverged at " + divergence);
+        }
+    }
+}
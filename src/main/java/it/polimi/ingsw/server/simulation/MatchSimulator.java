@@ -0,0 +1,207 @@
+package it.polimi.ingsw.server.simulation;
+
+import it.polimi.ingsw.client.resources.R;
+import it.polimi.ingsw.server.controller.DeathmatchController;
+import it.polimi.ingsw.server.model.board.Configurations;
+import it.polimi.ingsw.server.persistency.MatchJournal;
+import it.polimi.ingsw.server.serverlogic.ServerMain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Runs many complete matches in this process, with {@linkplain
+ * SimulatedClient}s instead of users, and describes how long the matches
+ * and the turns lasted and how they were scored.
+ * There is no network and no waiting: the matches run on all the cores and
+ * measure the throughput of the rules, and any exception in the rules is
+ * reported.
+ * <p>
+ * Each match is set up only from its seed: the number of players, between
+ * three and five, the configuration of the board, the strategy of each
+ * player, random or greedy, and the shuffles of the decks. The matches can
+ * be recorded in journals, to be replayed by the {@linkplain
+ * MatchReplayer}.
+ *
+ * @author Abbo Giulio A.
+ * @see SimulatedClient
+ * @see Strategy
+ */
+public class MatchSimulator {
+    /**
+     * The minimum number of players in a match.
+     */
+    private static final int MINIMUM_PLAYERS = 3;
+    /**
+     * The maximum number of players in a match.
+     */
+    private static final int MAXIMUM_PLAYERS = 5;
+    /**
+     * The skulls on the board at the start of each match.
+     */
+    private static final int SKULLS = 8;
+
+    /**
+     * Hiding the public constructor.
+     */
+    private MatchSimulator() {
+    }
+
+    /**
+     * Runs the matches and prints the distributions.
+     *
+     * @param args Usage: java MatchSimulator [matches] [threads] [seed]
+     *             [directory of the journals]
+     */
+    public static void main(String[] args) {
+        int matches = Integer.parseInt(args.length > 0 ? args[0] :
+                R.properties("settings").getProperty("simulatorMatches"));
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        Path journals = args.length > 3 ? Paths.get(args[3]) : null;
+
+        /*Running the matches on a thread per core*/
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "simulation-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        List<Future<MatchRecord>> futures = new ArrayList<>();
+        for (int i = 0; i < matches; i++) {
+            long matchSeed = seed + i;
+            futures.add(executor.submit(() -> play(matchSeed, journals)));
+        }
+
+        /*Collecting the records*/
+        List<MatchRecord> records = new ArrayList<>();
+        int failed = 0;
+        for (Future<MatchRecord> future : futures) {
+            try {
+                records.add(future.get());
+            } catch (ExecutionException e) {
+                failed++;
+                ServerMain.getLog().log(Level.WARNING, "Simulated match failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdownNow();
+
+        ServerMain.getLog().info(report(records, failed, threads, elapsed));
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    /**
+     * Plays a complete match, set up from the provided seed.
+     *
+     * @param seed the seed of the match
+     * @return the record of the match
+     */
+    static MatchRecord play(long seed) {
+        try {
+            return play(seed, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Plays a complete match, set up from the provided seed, recording it in
+     * the provided directory.
+     *
+     * @param seed     the seed of the match
+     * @param journals the directory of the journals, null if the match is
+     *                 not recorded
+     * @return the record of the match
+     * @throws IOException if the journal can not be created
+     */
+    static MatchRecord play(long seed, Path journals) throws IOException {
+        /*Consecutive seeds give unrelated matches*/
+        SplittableRandom random = new SplittableRandom(seed);
+        Configurations configuration = Configurations.values()[random.nextInt(Configurations.values().length)];
+        int players = MINIMUM_PLAYERS + random.nextInt(MAXIMUM_PLAYERS - MINIMUM_PLAYERS + 1);
+
+        Map<String, SimulatedClient> clients = new LinkedHashMap<>();
+        for (int i = 0; i < players; i++) {
+            Strategy strategy = random.nextBoolean() ?
+                    new RandomStrategy(random.nextLong()) : new GreedyStrategy(random.nextLong());
+            clients.put("player" + i, new SimulatedClient("player" + i, strategy));
+        }
+
+        MatchJournal journal = null;
+        if (journals != null) {
+            Files.createDirectories(journals);
+            journal = MatchJournal.create(journals.resolve("match-" + seed + MatchJournal.EXTENSION));
+        }
+
+        MatchRecord record = new MatchRecord(configuration);
+        new DeathmatchController(clients, SKULLS, configuration, record, random.nextLong(), journal).start();
+        record.setAnswers(clients.values().stream().mapToInt(SimulatedClient::getAnswers).sum());
+        return record;
+    }
+
+    /**
+     * Describes the distributions of the provided matches.
+     *
+     * @param records the records of the matches
+     * @param failed  the number of matches that failed
+     * @param threads the number of threads running the matches
+     * @param elapsed the nanoseconds taken by all the matches
+     * @return the description
+     */
+    static String report(List<MatchRecord> records, int failed, int threads, long elapsed) {
+        Distribution matchTurns = new Distribution();
+        Distribution matchMillis = new Distribution();
+        Distribution turnMicros = new Distribution();
+        Distribution scores = new Distribution();
+        Distribution winningScores = new Distribution();
+        Distribution answers = new Distribution();
+        int[] winsByPosition = new int[MAXIMUM_PLAYERS];
+        Map<Configurations, Integer> byConfiguration = new EnumMap<>(Configurations.class);
+
+        for (MatchRecord record : records) {
+            matchTurns.add(record.getTurns().size());
+            matchMillis.add(TimeUnit.NANOSECONDS.toMillis(record.getLength()));
+            record.getTurns().forEach(t -> turnMicros.add(TimeUnit.NANOSECONDS.toMicros(t)));
+            record.getScores().forEach(scores::add);
+            answers.add(record.getAnswers());
+            byConfiguration.merge(record.getConfiguration(), 1, Integer::sum);
+
+            /*The first in the order of the turns wins the ties*/
+            int winner = 0;
+            for (int i = 1; i < record.getScores().size(); i++)
+                if (record.getScores().get(i) > record.getScores().get(winner))
+                    winner = i;
+            if (!record.getScores().isEmpty()) {
+                winningScores.add(record.getScores().get(winner));
+                winsByPosition[winner]++;
+            }
+        }
+
+        double minutes = elapsed / (double) TimeUnit.MINUTES.toNanos(1);
+        return String.format("%d matches (%d failed) on %d threads in %.1f s, %.0f matches per minute%n" +
+                        "turns per match:    %s%n" +
+                        "match length (ms):  %s%n" +
+                        "turn length (us):   %s%n" +
+                        "choices per match:  %s%n" +
+                        "final scores:       %s%n" +
+                        "winning scores:     %s%n" +
+                        "wins by position:   %s%n" +
+                        "configurations:     %s",
+                records.size() + failed, failed, threads, elapsed / 1e9,
+                minutes > 0 ? records.size() / minutes : 0,
+                matchTurns, matchMillis, turnMicros, answers, scores, winningScores,
+                Arrays.toString(winsByPosition), byConfiguration);
+    }
+}
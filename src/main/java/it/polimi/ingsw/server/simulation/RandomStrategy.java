@@ -0,0 +1,47 @@
+package it.polimi.ingsw.server.simulation;
+
+import it.polimi.ingsw.communication.protocol.MessageType;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Chooses uniformly among the options; when the choice can be refused,
+ * refusing is as likely as any other option.
+ *
+ * @author Abbo Giulio A.
+ */
+public class RandomStrategy implements Strategy {
+    /**
+     * The source of the choices.
+     */
+    private final Random random;
+
+    /**
+     * Creates a strategy whose choices depend only on the seed.
+     *
+     * @param seed the seed of the random choices
+     */
+    public RandomStrategy(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int choose(MessageType question, List<?> options, boolean refusable) {
+        int choice = random.nextInt(options.size() + (refusable ? 1 : 0));
+        return choice == options.size() ? -1 : choice;
+    }
+
+    /**
+     * Returns a random index lower than the provided bound.
+     *
+     * @param bound the number of indexes
+     * @return a random index
+     */
+    int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+}
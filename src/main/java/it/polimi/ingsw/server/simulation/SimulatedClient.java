@@ -0,0 +1,196 @@
+package it.polimi.ingsw.server.simulation;
+
+import it.polimi.ingsw.communication.ChoiceRefusedException;
+import it.polimi.ingsw.communication.ToClientException;
+import it.polimi.ingsw.communication.ToClientInterface;
+import it.polimi.ingsw.communication.UpdateBuilder;
+import it.polimi.ingsw.communication.protocol.MessageType;
+import it.polimi.ingsw.communication.protocol.Notification;
+import it.polimi.ingsw.server.controller.effects.Action;
+import it.polimi.ingsw.server.model.Damageable;
+import it.polimi.ingsw.server.model.board.Square;
+import it.polimi.ingsw.server.model.cards.PowerupCard;
+import it.polimi.ingsw.server.model.cards.WeaponCard;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A client in the same process of the match, whose choices are taken by a
+ * {@link Strategy}.
+ * Choices are answered immediately on the thread of the match, without a
+ * connection and without the scheduler of the {@link
+ * it.polimi.ingsw.communication.User}; updates and notifications are only
+ * counted.
+ * <p>
+ * A choice that can be refused is refused when there are no options; a
+ * choice that can not be refused and has no options ends the turn, as if
+ * the client was unreachable.
+ *
+ * @author Abbo Giulio A.
+ * @see MatchSimulator
+ */
+public class SimulatedClient implements ToClientInterface {
+    /**
+     * The name of the player.
+     */
+    private final String name;
+    /**
+     * Takes the decisions.
+     */
+    private final Strategy strategy;
+    /**
+     * The number of choices taken, only changed by the thread of the match.
+     */
+    private int answers;
+    /**
+     * The number of updates received, they are sent by other threads.
+     */
+    private final AtomicInteger updates;
+
+    /**
+     * Creates a client with the provided name and strategy.
+     *
+     * @param name     the name of the player
+     * @param strategy takes the decisions
+     */
+    public SimulatedClient(String name, Strategy strategy) {
+        this.name = name;
+        this.strategy = strategy;
+        updates = new AtomicInteger();
+    }
+
+    /**
+     * Returns the number of choices taken.
+     *
+     * @return the number of choices taken
+     */
+    public int getAnswers() {
+        return answers;
+    }
+
+    /**
+     * Returns the number of updates received.
+     *
+     * @return the number of updates received
+     */
+    public int getUpdates() {
+        return updates.get();
+    }
+
+    /**
+     * Asks the strategy a choice that can not be refused.
+     *
+     * @param question the kind of choice
+     * @param options  the options to choose from
+     * @param <T>      the type of the options
+     * @return the chosen option
+     * @throws ToClientException if there are no options
+     */
+    private <T> T ask(MessageType question, List<T> options) throws ToClientException {
+        if (options.isEmpty())
+            throw new ToClientException("no options for " + question);
+        answers++;
+        return options.get(strategy.choose(question, options, false));
+    }
+
+    /**
+     * Asks the strategy a choice that can be refused.
+     *
+     * @param question the kind of choice
+     * @param options  the options to choose from
+     * @param <T>      the type of the options
+     * @return the chosen option
+     * @throws ChoiceRefusedException if the strategy refuses or there are no
+     *                                options
+     */
+    private <T> T askRefusable(MessageType question, List<T> options) throws ChoiceRefusedException {
+        if (options.isEmpty())
+            throw new ChoiceRefusedException();
+        answers++;
+        int choice = strategy.choose(question, options, true);
+        if (choice < 0)
+            throw new ChoiceRefusedException();
+        return options.get(choice);
+    }
+
+    @Override
+    public Action chooseEffectsSequence(List<Action> options) throws ToClientException {
+        return ask(MessageType.EFFECTS_SEQUENCE, options);
+    }
+
+    @Override
+    public PowerupCard chooseSpawn(List<PowerupCard> options) throws ToClientException {
+        return ask(MessageType.SPAWN, options);
+    }
+
+    @Override
+    public PowerupCard choosePowerup(List<PowerupCard> options) throws ChoiceRefusedException {
+        return askRefusable(MessageType.POWERUP, options);
+    }
+
+    @Override
+    public Square chooseDestination(List<Square> options) throws ToClientException {
+        return ask(MessageType.DESTINATION, options);
+    }
+
+    @Override
+    public WeaponCard chooseWeaponCard(List<WeaponCard> options) throws ToClientException {
+        return ask(MessageType.WEAPON, options);
+    }
+
+    @Override
+    public WeaponCard chooseWeaponToBuy(List<WeaponCard> options) throws ToClientException {
+        return ask(MessageType.WEAPON_TO_BUY, options);
+    }
+
+    @Override
+    public WeaponCard chooseWeaponToDiscard(List<WeaponCard> options) throws ToClientException {
+        return ask(MessageType.WEAPON_TO_DISCARD, options);
+    }
+
+    @Override
+    public WeaponCard chooseWeaponToReload(List<WeaponCard> options) throws ChoiceRefusedException {
+        return askRefusable(MessageType.WEAPON_TO_RELOAD, options);
+    }
+
+    @Override
+    public Action chooseAction(List<Action> options) throws ToClientException {
+        return ask(MessageType.ACTION, options);
+    }
+
+    @Override
+    public PowerupCard choosePowerupForPaying(List<PowerupCard> options) throws ToClientException {
+        return ask(MessageType.POWERUP_FOR_PAYING, options);
+    }
+
+    @Override
+    public PowerupCard askUseTagback(List<PowerupCard> options) throws ChoiceRefusedException {
+        return askRefusable(MessageType.USE_TAGBACK, options);
+    }
+
+    @Override
+    public List<Damageable> chooseTarget(List<List<Damageable>> options) throws ToClientException {
+        return ask(MessageType.TARGET, options);
+    }
+
+    @Override
+    public String chooseUserName() {
+        return name;
+    }
+
+    @Override
+    public void quit() {
+        /*Nothing to close*/
+    }
+
+    @Override
+    public void sendNotification(Notification.NotificationType type) {
+        /*Notifications do not change the choices*/
+    }
+
+    @Override
+    public void sendUpdate(UpdateBuilder update) {
+        updates.incrementAndGet();
+    }
+}
@@ -0,0 +1,29 @@
+package it.polimi.ingsw.server.simulation;
+
+import it.polimi.ingsw.communication.protocol.MessageType;
+
+import java.util.List;
+
+/**
+ * Classes implementing this take the decisions of a simulated player.
+ * A strategy is used by a single {@link SimulatedClient}, so it does not
+ * need to be thread safe.
+ *
+ * @author Abbo Giulio A.
+ * @see SimulatedClient
+ */
+public interface Strategy {
+
+    /**
+     * Chooses one of the provided options.
+     * The options are the same objects given to the client, so they can be
+     * inspected to make the choice.
+     *
+     * @param question  the kind of choice
+     * @param options   the options to choose from, never empty
+     * @param refusable whether the choice can be refused
+     * @return the index of the chosen option, or a negative number to refuse
+     * if {@code refusable} is true
+     */
+    int choose(MessageType question, List<?> options, boolean refusable);
+}
@@ -0,0 +1,70 @@
+package it.polimi.ingsw.client.interaction;
+
+import it.polimi.ingsw.client.clientlogic.MatchState;
+import it.polimi.ingsw.communication.protocol.Update;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the bot gives valid answers and notices the end of the match.
+ */
+class BotTest {
+    private Bot bot;
+    private MatchState model;
+
+    @BeforeEach
+    void setUp() {
+        bot = new Bot("bot", 0, 0);
+        model = new MatchState();
+        bot.setModel(model);
+    }
+
+    /*Testing that the answers are valid indexes*/
+    @Test
+    void pick() {
+        List<List<String>> options = Arrays.asList(Collections.singletonList("a"),
+                Collections.singletonList("b"), Collections.singletonList("c"));
+        for (int i = 0; i < 100; i++) {
+            int answer = bot.chooseAction(options);
+            assertTrue(answer >= 0 && answer < options.size());
+        }
+        assertEquals(-1, bot.chooseWeapon(Collections.emptyList()));
+        assertEquals(101, bot.getAnswers());
+    }
+
+    /*Testing that the options with more targets are preferred*/
+    @Test
+    void chooseTarget() {
+        List<List<String>> options = Arrays.asList(Collections.singletonList("a"),
+                Arrays.asList("a", "b"), Collections.singletonList("b"));
+        for (int i = 0; i < 100; i++)
+            assertEquals(1, bot.chooseTarget(options));
+    }
+
+    /*Testing that a new name is given when asked again*/
+    @Test
+    void askName() {
+        assertEquals("bot", bot.askName());
+        assertNotEquals("bot", bot.askName());
+    }
+
+    /*Testing the end of the match from an update and from a notification*/
+    @Test
+    void isOver() {
+        assertFalse(bot.isOver());
+        model.handleUpdate(new Update[]{new Update(Update.UpdateType.GAME_OVER,
+                Collections.singletonList("bot"), null)});
+        assertTrue(bot.isOver());
+
+        Bot other = new Bot("other", 0, 0);
+        other.sendNotification("GAME_OVER");
+        assertTrue(other.isOver());
+    }
+}
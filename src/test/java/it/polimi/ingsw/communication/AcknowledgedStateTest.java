@@ -0,0 +1,60 @@
+package it.polimi.ingsw.communication;
+
+import it.polimi.ingsw.communication.protocol.Update;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: if only the changed fields are sent.
+ */
+class AcknowledgedStateTest {
+    private AcknowledgedState state;
+    private Update[] snapshot;
+
+    @BeforeEach
+    void setUp() {
+        state = new AcknowledgedState();
+        snapshot = new Update[]{
+                new Update(Update.UpdateType.CONFIGURATION_ID, "1"),
+                new Update(Update.UpdateType.DAMAGE_ARRAY, Arrays.asList("b", "c"), "a"),
+                new Update(Update.UpdateType.DAMAGE_ARRAY, Arrays.asList("a"), "b")
+        };
+    }
+
+    /*Testing the first update*/
+    @Test
+    void changed_empty() {
+        assertArrayEquals(snapshot, state.changed(snapshot));
+    }
+
+    /*Testing if acknowledged fields are not sent again*/
+    @Test
+    void changed_acknowledged() {
+        state.acknowledge(snapshot);
+        assertEquals(0, state.changed(snapshot).length);
+
+        Update damage = new Update(Update.UpdateType.DAMAGE_ARRAY, Arrays.asList("a", "a"), "b");
+        assertArrayEquals(new Update[]{damage}, state.changed(new Update[]{snapshot[0], snapshot[1], damage}));
+    }
+
+    /*Testing if events are always sent*/
+    @Test
+    void changed_event() {
+        Update[] timer = {new Update(Update.UpdateType.HALL_TIMER, "10")};
+        state.acknowledge(timer);
+        assertArrayEquals(timer, state.changed(timer));
+    }
+
+    /*Testing the fallback to a full snapshot*/
+    @Test
+    void clear() {
+        state.acknowledge(snapshot);
+        state.clear();
+        assertArrayEquals(snapshot, state.changed(snapshot));
+    }
+}
@@ -0,0 +1,106 @@
+package it.polimi.ingsw.communication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: if the interactions are run and cancelled correctly.
+ */
+class InteractionSchedulerTest {
+    private InteractionScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new InteractionScheduler(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    /*Testing normal behaviour*/
+    @Test
+    void call() throws Exception {
+        assertEquals("done", scheduler.call(() -> "done", 1));
+        assertEquals(1, scheduler.getSubmittedCount());
+        assertEquals(0, scheduler.getTimedOutCount());
+    }
+
+    /*Testing if the exceptions are forwarded*/
+    @Test
+    void call_exception() {
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> scheduler.call(() -> {
+                    throw new ToClientException("test");
+                }, 1));
+        assertEquals(ToClientException.class, e.getCause().getClass());
+    }
+
+    /*Testing if late interactions are interrupted*/
+    @Test
+    void call_timeout() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        assertThrows(TimeoutException.class, () -> scheduler.call(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }, 1));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(1, scheduler.getTimedOutCount());
+    }
+
+    /*Testing that the time of an interaction starts when a thread runs it*/
+    @Test
+    void call_queued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread[] busy = new Thread[2];
+        for (int i = 0; i < busy.length; i++) {
+            busy[i] = new Thread(() -> assertThrows(TimeoutException.class, () -> scheduler.call(() -> {
+                release.await();
+                return null;
+            }, 2)));
+            busy[i].start();
+        }
+        Thread.sleep(200);
+
+        /*Waiting more than its time for a free thread, then answering at once*/
+        assertEquals("done", scheduler.call(() -> "done", 1));
+        for (Thread thread : busy)
+            thread.join();
+        release.countDown();
+        assertEquals(2, scheduler.getTimedOutCount());
+    }
+
+    /*Testing that the action provided runs when the time is over*/
+    @Test
+    void call_onTimeout() throws InterruptedException {
+        CountDownLatch unblocked = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        assertThrows(TimeoutException.class, () -> scheduler.call(() -> {
+            while (closed.getCount() > 0)
+                Thread.onSpinWait();
+            unblocked.countDown();
+            return null;
+        }, 1, closed::countDown));
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertTrue(unblocked.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,78 @@
+package it.polimi.ingsw.communication;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: the percentiles and the output of the histogram.
+ */
+class LatencyHistogramTest {
+    private LatencyHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    /*Testing that every value is in the bucket starting at or below it, within one percent*/
+    @Test
+    void index() {
+        for (long value = 0; value < 1L << 40; value = value * 3 / 2 + 1) {
+            long lowest = LatencyHistogram.lowestValue(LatencyHistogram.index(value));
+            assertTrue(lowest <= value);
+            assertTrue(value - lowest <= value / 64);
+        }
+    }
+
+    /*Testing the percentiles of the values from 1 to 10000*/
+    @Test
+    void getValueAtPercentile() {
+        for (long value = 1; value <= 10000; value++)
+            histogram.record(value);
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5000.5, histogram.getMean(), 1e-9);
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(5000, histogram.getValueAtPercentile(50), 5000 / 64.0);
+        assertEquals(9900, histogram.getValueAtPercentile(99), 9900 / 64.0);
+        assertEquals(9990, histogram.getValueAtPercentile(99.9), 9990 / 64.0);
+        assertEquals(10000, histogram.getValueAtPercentile(100));
+    }
+
+    /*Testing an empty histogram*/
+    @Test
+    void getValueAtPercentile_empty() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean());
+    }
+
+    /*Testing the HDR format: header, percentiles up to the last value and footer*/
+    @Test
+    void outputPercentileDistribution() {
+        for (long value = 1; value <= 1000; value++)
+            histogram.record(value * 1000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        histogram.outputPercentileDistribution(new PrintStream(bytes), 1000);
+        List<String> lines = Arrays.asList(bytes.toString().split("\\R"));
+
+        assertTrue(lines.get(0).trim().startsWith("Value"));
+        assertTrue(lines.get(1).isEmpty());
+        String[] first = lines.get(2).trim().split(" +");
+        assertEquals(1, Double.parseDouble(first[0]), 1 / 64.0);
+        assertEquals("0.000000000000", first[1]);
+        assertEquals("1", first[2]);
+        assertEquals("1000.000 1.000000000000 1000", lines.get(lines.size() - 4).trim().replaceAll(" +", " "));
+        assertTrue(lines.get(lines.size() - 3).startsWith("#[Mean    =      500.500"));
+        assertTrue(lines.get(lines.size() - 2).endsWith("Total count    =         1000]"));
+    }
+}
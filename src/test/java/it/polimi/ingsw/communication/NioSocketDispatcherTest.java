@@ -0,0 +1,91 @@
+package it.polimi.ingsw.communication;
+
+import com.google.gson.Gson;
+import it.polimi.ingsw.communication.protocol.MessageType;
+import it.polimi.ingsw.communication.protocol.Notification;
+import it.polimi.ingsw.communication.protocol.ProtocolMessage;
+import it.polimi.ingsw.communication.socket.NioSocketDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: if the non-blocking sockets are handled correctly.
+ */
+class NioSocketDispatcherTest {
+    private static final int PORT = 8375;
+
+    private ServerSocketChannel channel;
+    private NioSocketDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            channel = ServerSocketChannel.open().bind(new InetSocketAddress(PORT));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        try {
+            if (dispatcher.isAlive()) {
+                dispatcher.stopListening();
+                dispatcher.join();
+            }
+            channel.close();
+        } catch (IOException | NullPointerException | InterruptedException ignored) {
+        }
+    }
+
+    /*Testing if ServerMain is notified of an exception*/
+    @Test
+    void run_socketException() {
+
+        /*Closing the channel*/
+        try {
+            channel.close();
+            dispatcher = new NioSocketDispatcher(channel);
+            assertThrows(UncheckedIOException.class, dispatcher::run);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /*Testing normal behaviour*/
+    @Test
+    void run() {
+        dispatcher = new NioSocketDispatcher(channel);
+        dispatcher.start();
+
+        assertDoesNotThrow(() -> new Socket("localhost", PORT).close());
+    }
+
+    /*Testing if the greeting is framed in a single line*/
+    @Test
+    void run_greet() {
+        dispatcher = new NioSocketDispatcher(channel);
+        dispatcher.start();
+
+        try (Socket socket = new Socket("localhost", PORT)) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            ProtocolMessage message = new Gson().fromJson(in.readLine(), ProtocolMessage.class);
+
+            assertEquals(MessageType.NOTIFICATION, message.getCommand());
+            assertEquals(Notification.NotificationType.GREET, message.getNotifications()[0].getType());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package it.polimi.ingsw.communication;
+
+import com.google.gson.Gson;
+import it.polimi.ingsw.communication.protocol.Update;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: who can receive an update, what the others receive of a private
+ * one and that its encoding is computed once without being sent.
+ */
+class UpdateTest {
+
+    /*Testing that public fields are received by everyone*/
+    @Test
+    void isVisibleTo_public() {
+        Update update = new Update(Update.UpdateType.DAMAGE_ARRAY,
+                Collections.singletonList("b"), "a");
+        assertTrue(update.isVisibleTo("a"));
+        assertTrue(update.isVisibleTo("b"));
+    }
+
+    /*Testing that private fields are received only by the owner*/
+    @Test
+    void isVisibleTo_private() {
+        Update update = new Update(Update.UpdateType.POWERUPS,
+                Collections.singletonList("teleporter"), "a");
+        assertTrue(update.isVisibleTo("a"));
+        assertFalse(update.isVisibleTo("b"));
+    }
+
+    /*Testing that the others receive only how many elements a private field has*/
+    @Test
+    void visibleTo() {
+        Update update = new Update(Update.UpdateType.POWERUPS,
+                Arrays.asList("teleporter", "newton"), "a");
+        assertSame(update, update.visibleTo("a"));
+        Update hidden = update.visibleTo("b");
+        assertEquals(Arrays.asList(Update.HIDDEN, Update.HIDDEN), hidden.getNewValue());
+        assertEquals("a", hidden.getNickname());
+        assertSame(hidden, update.visibleTo(null));
+    }
+
+    /*Testing that the encoding is computed once and is not part of the json*/
+    @Test
+    void encodeOnce() {
+        Gson gson = new Gson();
+        Update update = new Update(Update.UpdateType.DAMAGE_ARRAY,
+                Collections.singletonList("b"), "a");
+        String plain = gson.toJson(update);
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals(plain, update.encodeOnce(u -> {
+            calls.incrementAndGet();
+            return gson.toJson(u);
+        }));
+        assertSame(update.encodeOnce(gson::toJson), update.encodeOnce(gson::toJson));
+        assertEquals(1, calls.get());
+        assertEquals(plain, gson.toJson(update));
+    }
+}
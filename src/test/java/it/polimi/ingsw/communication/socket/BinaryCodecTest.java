@@ -0,0 +1,90 @@
+package it.polimi.ingsw.communication.socket;
+
+import it.polimi.ingsw.communication.protocol.MessageType;
+import it.polimi.ingsw.communication.protocol.Notification;
+import it.polimi.ingsw.communication.protocol.ProtocolMessage;
+import it.polimi.ingsw.communication.protocol.Update;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: if the messages are the same after being encoded and decoded.
+ */
+class BinaryCodecTest {
+
+    /*Testing a message with updates, with repeated and null values*/
+    @Test
+    void decode_updates() throws IOException {
+        Update[] updates = {
+                new Update(Update.UpdateType.DAMAGE_ARRAY, Arrays.asList("bob", "bob", "àlice"), "carl"),
+                new Update(Update.UpdateType.AMMO_CARD_ARRAY, Arrays.asList("notSet", null, "notSet"))
+        };
+        ProtocolMessage decoded = BinaryCodec.decode(BinaryCodec.encode(new ProtocolMessage(updates)));
+
+        assertEquals(MessageType.UPDATE, decoded.getCommand());
+        for (int i = 0; i < updates.length; i++) {
+            assertEquals(updates[i].getType(), decoded.getUpdates()[i].getType());
+            assertEquals(updates[i].getNickname(), decoded.getUpdates()[i].getNickname());
+            assertEquals(updates[i].getNewValue(), decoded.getUpdates()[i].getNewValue());
+        }
+    }
+
+    /*Testing a message with notifications*/
+    @Test
+    void decode_notifications() throws IOException {
+        ProtocolMessage decoded = BinaryCodec.decode(BinaryCodec.encode(new ProtocolMessage(new Notification[]{
+                new Notification(Notification.NotificationType.GREET), new Notification(null)})));
+
+        assertEquals(MessageType.NOTIFICATION, decoded.getCommand());
+        assertEquals(Notification.NotificationType.GREET, decoded.getNotifications()[0].getType());
+        assertNull(decoded.getNotifications()[1].getType());
+    }
+
+    /*Testing a question and its answer*/
+    @Test
+    void decode_question() throws IOException {
+        List<List<String>> options = Arrays.asList(Arrays.asList("a", "b"), Collections.singletonList("refuse"));
+        ProtocolMessage question = BinaryCodec.decode(BinaryCodec.encode(
+                new ProtocolMessage(MessageType.TARGET, options)));
+        ProtocolMessage answer = BinaryCodec.decode(BinaryCodec.encode(
+                new ProtocolMessage(MessageType.TARGET, "1")));
+
+        assertEquals(MessageType.TARGET, question.getCommand());
+        assertArrayEquals(new String[][]{{"a", "b"}, {"refuse"}}, question.getOptions());
+        assertEquals("1", answer.getUserChoice());
+    }
+
+    /*Testing that a malformed payload is refused*/
+    @Test
+    void decode_malformed() {
+        assertThrows(IOException.class, () -> BinaryCodec.decode(new byte[]{5}));
+    }
+
+    /*Testing that the frames are rebuilt from arbitrary chunks*/
+    @Test
+    void feed_chunks() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] first = BinaryCodec.encode(new ProtocolMessage(MessageType.NICKNAME, "bob"));
+        byte[] second = BinaryCodec.encode(new ProtocolMessage(MessageType.UPDATE));
+        BinaryCodec.writeFrame(out, first);
+        BinaryCodec.writeFrame(out, second);
+        byte[] stream = out.toByteArray();
+
+        LengthFramer framer = new LengthFramer();
+        List<byte[]> frames = framer.feed(ByteBuffer.wrap(stream, 0, 3));
+        assertTrue(frames.isEmpty());
+        frames = framer.feed(ByteBuffer.wrap(stream, 3, stream.length - 3));
+        assertEquals(2, frames.size());
+        assertArrayEquals(first, frames.get(0));
+        assertArrayEquals(second, frames.get(1));
+    }
+}
@@ -0,0 +1,218 @@
+package it.polimi.ingsw.server.controller;
+
+import it.polimi.ingsw.communication.ToClientInterface;
+import it.polimi.ingsw.communication.UpdateBuilder;
+import it.polimi.ingsw.communication.protocol.Notification;
+import it.polimi.ingsw.communication.protocol.Update;
+import it.polimi.ingsw.server.controller.effects.Action;
+import it.polimi.ingsw.server.model.Damageable;
+import it.polimi.ingsw.server.model.board.Square;
+import it.polimi.ingsw.server.model.cards.PowerupCard;
+import it.polimi.ingsw.server.model.cards.WeaponCard;
+import it.polimi.ingsw.server.model.player.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: if the broadcasts are not stalled by slow players, keep the
+ * order for each player and let a slow player catch up.
+ */
+class BroadcasterTest {
+    private Broadcaster broadcaster;
+    private MockToClient fast;
+    private MockToClient slow;
+    private List<Player> players;
+
+    @BeforeEach
+    void setUp() {
+        Broadcaster.setDeadline(200);
+        broadcaster = new Broadcaster(2);
+        fast = new MockToClient(0);
+        slow = new MockToClient(2000);
+        players = Arrays.asList(new Player("fast", fast, null),
+                new Player("slow", slow, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        Broadcaster.setDeadline(1000);
+    }
+
+    /*Testing that a slow player is marked as lagging without stalling*/
+    @Test
+    void notify_lagging() {
+        long start = System.nanoTime();
+        broadcaster.notify(players, Notification.NotificationType.OK, UpdateBuilder::new);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+        assertEquals(Collections.singleton("slow"), broadcaster.getLagging());
+        assertTrue(broadcaster.getLatencies().containsKey("fast"));
+    }
+
+    /*Testing that the sends to a player keep their order*/
+    @Test
+    void notify_order() throws InterruptedException {
+        broadcaster.notify(players, Notification.NotificationType.OK, UpdateBuilder::new);
+        broadcaster.notify(players, Notification.NotificationType.QUIT, UpdateBuilder::new);
+
+        assertTrue(slow.done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(Notification.NotificationType.OK,
+                Notification.NotificationType.QUIT), slow.received);
+    }
+
+    /*Testing that a busy player receives a full update later*/
+    @Test
+    void update_stale() throws InterruptedException {
+        UpdateBuilder partial = new UpdateBuilder();
+        UpdateBuilder full = new UpdateBuilder();
+        broadcaster.notify(players, Notification.NotificationType.OK, UpdateBuilder::new);
+        broadcaster.update(players, partial, () -> full);
+        assertEquals(Collections.singletonList(partial), fast.updates);
+
+        assertTrue(slow.first.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        broadcaster.update(players, partial, () -> full);
+        Thread.sleep(300);
+        assertEquals(1, slow.updates.size());
+        assertNotSame(partial, slow.updates.get(0));
+    }
+
+    /*Testing that a busy player receives the winners before quitting*/
+    @Test
+    void notify_stale() throws InterruptedException {
+        UpdateBuilder full = new UpdateBuilder().setWinners(players);
+        broadcaster.notify(players, Notification.NotificationType.OK, UpdateBuilder::new);
+        broadcaster.update(players, new UpdateBuilder().setWinners(players), () -> full);
+        assertTrue(slow.updates.isEmpty());
+        broadcaster.notify(players, Notification.NotificationType.QUIT, () -> full);
+
+        assertTrue(slow.done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, slow.updates.size());
+        assertEquals(Update.UpdateType.GAME_OVER, slow.updates.get(0).build()[0].getType());
+        assertEquals(1, fast.updates.size());
+    }
+
+    /*Testing that a send failing unexpectedly does not stop the next ones*/
+    @Test
+    void notify_afterFailure() {
+        broadcaster.notify(players, Notification.NotificationType.GAME_OVER, UpdateBuilder::new);
+        broadcaster.notify(players, Notification.NotificationType.QUIT, UpdateBuilder::new);
+
+        assertEquals(Collections.singletonList(Notification.NotificationType.QUIT), fast.received);
+        assertFalse(broadcaster.getLagging().contains("fast"));
+    }
+
+    /*A client that answers after a delay, failing on the game over*/
+    private static class MockToClient implements ToClientInterface {
+        private final long delay;
+        private final List<Notification.NotificationType> received = Collections.synchronizedList(new ArrayList<>());
+        private final List<UpdateBuilder> updates = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch first = new CountDownLatch(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        MockToClient(long delay) {
+            this.delay = delay;
+        }
+
+        private void waitDelay() {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public Action chooseEffectsSequence(List<Action> options) {
+            return null;
+        }
+
+        @Override
+        public PowerupCard chooseSpawn(List<PowerupCard> options) {
+            return null;
+        }
+
+        @Override
+        public PowerupCard choosePowerup(List<PowerupCard> options) {
+            return null;
+        }
+
+        @Override
+        public Square chooseDestination(List<Square> options) {
+            return null;
+        }
+
+        @Override
+        public WeaponCard chooseWeaponCard(List<WeaponCard> options) {
+            return null;
+        }
+
+        @Override
+        public WeaponCard chooseWeaponToBuy(List<WeaponCard> options) {
+            return null;
+        }
+
+        @Override
+        public WeaponCard chooseWeaponToDiscard(List<WeaponCard> options) {
+            return null;
+        }
+
+        @Override
+        public WeaponCard chooseWeaponToReload(List<WeaponCard> options) {
+            return null;
+        }
+
+        @Override
+        public Action chooseAction(List<Action> options) {
+            return null;
+        }
+
+        @Override
+        public PowerupCard choosePowerupForPaying(List<PowerupCard> options) {
+            return null;
+        }
+
+        @Override
+        public PowerupCard askUseTagback(List<PowerupCard> options) {
+            return null;
+        }
+
+        @Override
+        public List<Damageable> chooseTarget(List<List<Damageable>> options) {
+            return null;
+        }
+
+        @Override
+        public String chooseUserName() {
+            return null;
+        }
+
+        @Override
+        public void quit() {
+        }
+
+        @Override
+        public void sendNotification(Notification.NotificationType type) {
+            waitDelay();
+            if (type == Notification.NotificationType.GAME_OVER)
+                throw new IllegalStateException("Unexpected failure");
+            received.add(type);
+            first.countDown();
+            if (received.size() == 2)
+                done.countDown();
+        }
+
+        @Override
+        public void sendUpdate(UpdateBuilder update) {
+            updates.add(update);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package it.polimi.ingsw.server.controller;
+
+import it.polimi.ingsw.server.model.board.Configurations;
+import it.polimi.ingsw.server.model.player.Player;
+import it.polimi.ingsw.server.persistency.JournalRecord;
+import it.polimi.ingsw.server.persistency.MatchJournal;
+import it.polimi.ingsw.server.persistency.MatchSnapshot;
+import it.polimi.ingsw.server.persistency.SnapshotWriter;
+import it.polimi.ingsw.server.simulation.RandomStrategy;
+import it.polimi.ingsw.server.simulation.SimulatedClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Using following classes and relying on their behaviour:
+ * SimulatedClient, RandomStrategy, MatchJournal, MatchSnapshot.
+ * Testing: that a recorded match is rebuilt from its journal, or from its
+ * last snapshot and the records after it, and goes on with the players
+ * that reconnect.
+ */
+class DeathmatchControllerTest {
+    private static final String[] NAMES = {"anna", "bruno", "carla", "dario"};
+
+    @TempDir
+    Path directory;
+    private List<Integer> scores;
+    private int turns;
+    private MatchListener listener;
+
+    @BeforeEach
+    void setUp() {
+        DeathmatchController.setSecondsForReconnection(0);
+        scores = new ArrayList<>();
+        listener = new MatchListener() {
+            @Override
+            public void turnStarted(Player current) {
+                turns++;
+            }
+
+            @Override
+            public void matchOver(DeathmatchController match, List<Player> players) {
+                players.forEach(p -> scores.add(p.getScore()));
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        DeathmatchController.setSecondsForReconnection(60);
+    }
+
+    private static Map<String, SimulatedClient> clients(long seed) {
+        Map<String, SimulatedClient> clients = new LinkedHashMap<>();
+        for (int i = 0; i < NAMES.length; i++)
+            clients.put(NAMES[i], new SimulatedClient(NAMES[i], new RandomStrategy(seed + i)));
+        return clients;
+    }
+
+    /*Plays a recorded match and returns its records*/
+    private List<JournalRecord> play(Path file) throws IOException {
+        new DeathmatchController(clients(0), 8, Configurations.STANDARD1, listener, 7,
+                MatchJournal.create(file)).start();
+        return MatchJournal.read(file);
+    }
+
+    /*Writes the first records in a new journal, as if the server stopped after them*/
+    private MatchJournal crashedAfter(List<JournalRecord> records, int count) throws IOException {
+        Path file = directory.resolve("crashed" + MatchJournal.EXTENSION);
+        try (MatchJournal journal = MatchJournal.create(file)) {
+            records.subList(0, count).forEach(journal::append);
+        }
+        return MatchJournal.open(file);
+    }
+
+    /*Plays a recorded match until the server stops at the provided answer, in the middle of a turn*/
+    private void crash(Path file, int answers) throws IOException, InterruptedException {
+        AtomicInteger count = new AtomicInteger();
+        Map<String, SimulatedClient> clients = new LinkedHashMap<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            RandomStrategy random = new RandomStrategy(i);
+            clients.put(NAMES[i], new SimulatedClient(NAMES[i], (question, options, refusable) -> {
+                if (count.incrementAndGet() == answers)
+                    throw new ServerStopped();
+                return random.choose(question, options, refusable);
+            }));
+        }
+        MatchJournal journal = MatchJournal.create(file);
+        DeathmatchController controller = new DeathmatchController(clients, 8, Configurations.STANDARD1,
+                listener, 7, journal);
+        assertThrows(ServerStopped.class, controller::start);
+        journal.close();
+        assertTrue(SnapshotWriter.awaitWritten(10, TimeUnit.SECONDS));
+    }
+
+    /*Recovers the match, the players reconnect at once; returns the journal at the end*/
+    private List<JournalRecord> recoverReconnected(Path file) throws IOException {
+        DeathmatchController controller = DeathmatchController.recover(MatchJournal.open(file), listener);
+        clients(100).forEach(controller::playerUpdate);
+        controller.start();
+        return MatchJournal.read(file);
+    }
+
+    /*The server stopping: an error, so that the effects of the cards do not catch it*/
+    private static class ServerStopped extends Error {
+    }
+
+    private static List<String> describe(List<JournalRecord> records) {
+        return records.stream().map(JournalRecord::toString).collect(Collectors.toList());
+    }
+
+    /*Testing that the match is recorded from the start to the scores*/
+    @Test
+    void start_recorded() throws IOException {
+        List<JournalRecord> records = play(directory.resolve("match" + MatchJournal.EXTENSION));
+        assertEquals(JournalRecord.Type.START, records.get(0).getType());
+        assertEquals(Arrays.asList(NAMES), records.get(0).getPlayers());
+        assertEquals(7, records.get(0).getSeed());
+        assertTrue(records.stream().anyMatch(r -> r.getType() == JournalRecord.Type.CHOICE));
+        assertTrue(records.stream().anyMatch(r -> r.getType() == JournalRecord.Type.TURN));
+        assertEquals(JournalRecord.Type.END, records.get(records.size() - 1).getType());
+        assertEquals(scores, records.get(records.size() - 1).getScores());
+    }
+
+    /*Testing that replaying the whole journal gives the same scores*/
+    @Test
+    void recover_wholeJournal() throws IOException {
+        List<JournalRecord> records = play(directory.resolve("match" + MatchJournal.EXTENSION));
+        List<Integer> original = new ArrayList<>(scores);
+        scores.clear();
+
+        MatchJournal journal = crashedAfter(records, records.size() - 1);
+        DeathmatchController.recover(journal, listener).start();
+        assertEquals(original, scores);
+        assertEquals(describe(records), describe(MatchJournal.read(journal.getFile())));
+    }
+
+    /*Testing that the players reconnecting during the replay go on with the match*/
+    @Test
+    void recover_reconnected() throws IOException {
+        List<JournalRecord> records = play(directory.resolve("match" + MatchJournal.EXTENSION));
+        int half = records.size() / 2;
+        scores.clear();
+
+        MatchJournal journal = crashedAfter(records, half);
+        DeathmatchController controller = DeathmatchController.recover(journal, listener);
+        assertEquals(Arrays.asList(NAMES), controller.getPlayerNames());
+        clients(100).forEach((name, client) -> assertTrue(controller.playerUpdate(name, client)));
+        assertFalse(controller.playerUpdate("nobody", new SimulatedClient("nobody", new RandomStrategy(0))));
+        controller.start();
+
+        List<JournalRecord> recovered = MatchJournal.read(journal.getFile());
+        assertEquals(describe(records.subList(0, half)), describe(recovered.subList(0, half)));
+        assertTrue(recovered.size() > half);
+        assertEquals(JournalRecord.Type.END, recovered.get(recovered.size() - 1).getType());
+        assertEquals(NAMES.length, scores.size());
+    }
+
+    /*Testing that the players not reconnecting are suspended and the match ends*/
+    @Test
+    void recover_notReconnected() throws IOException {
+        List<JournalRecord> records = play(directory.resolve("match" + MatchJournal.EXTENSION));
+        int half = records.size() / 2;
+
+        MatchJournal journal = crashedAfter(records, half);
+        DeathmatchController.recover(journal, listener).start();
+
+        List<JournalRecord> recovered = MatchJournal.read(journal.getFile());
+        List<JournalRecord> tail = recovered.subList(half, recovered.size());
+        assertTrue(tail.stream().anyMatch(r -> r.getType() == JournalRecord.Type.SUSPENDED));
+        assertTrue(tail.stream().noneMatch(r -> r.getType() == JournalRecord.Type.CHOICE));
+        assertEquals(JournalRecord.Type.END, recovered.get(recovered.size() - 1).getType());
+    }
+
+    /*Testing that the snapshot is deleted when the match is over*/
+    @Test
+    void start_snapshotDeleted() throws IOException, InterruptedException {
+        Path file = directory.resolve("match" + MatchJournal.EXTENSION);
+        play(file);
+        assertTrue(SnapshotWriter.awaitWritten(10, TimeUnit.SECONDS));
+        assertFalse(Files.exists(MatchSnapshot.fileOf(file)));
+    }
+
+    /*Testing that the match goes on from its snapshot as it would from the whole journal*/
+    @Test
+    void recover_snapshot() throws IOException, InterruptedException {
+        Path file = directory.resolve("match" + MatchJournal.EXTENSION);
+        crash(file, 150);
+        MatchSnapshot snapshot = MatchSnapshot.read(MatchSnapshot.fileOf(file));
+        int recorded = MatchJournal.read(file).size();
+        assertNotNull(snapshot);
+        assertEquals(7, snapshot.getSeed());
+        assertTrue(snapshot.getRecords() > 1 && snapshot.getRecords() < recorded);
+
+        /*The same journal without the snapshot*/
+        Path copy = Files.createDirectory(directory.resolve("copy")).resolve(file.getFileName());
+        Files.copy(file, copy);
+
+        turns = 0;
+        List<JournalRecord> fromSnapshot = recoverReconnected(file);
+        List<Integer> snapshotScores = new ArrayList<>(scores);
+        int snapshotTurns = turns;
+        scores.clear();
+        turns = 0;
+        List<JournalRecord> fromJournal = recoverReconnected(copy);
+
+        assertEquals(describe(fromJournal), describe(fromSnapshot));
+        assertEquals(JournalRecord.Type.END, fromSnapshot.get(fromSnapshot.size() - 1).getType());
+        assertEquals(scores, snapshotScores);
+        assertTrue(snapshotTurns < turns);
+    }
+
+    /*Testing that a corrupted snapshot is ignored and the whole journal is replayed*/
+    @Test
+    void recover_corruptedSnapshot() throws IOException, InterruptedException {
+        Path file = directory.resolve("match" + MatchJournal.EXTENSION);
+        crash(file, 150);
+        Path copy = Files.createDirectory(directory.resolve("copy")).resolve(file.getFileName());
+        Files.copy(file, copy);
+
+        /*Corrupting the last byte of the state*/
+        try (RandomAccessFile raw = new RandomAccessFile(MatchSnapshot.fileOf(file).toFile(), "rw")) {
+            raw.seek(raw.length() - 1);
+            int last = raw.read();
+            raw.seek(raw.length() - 1);
+            raw.write(last ^ 0xFF);
+        }
+        assertEquals(describe(recoverReconnected(copy)), describe(recoverReconnected(file)));
+    }
+}
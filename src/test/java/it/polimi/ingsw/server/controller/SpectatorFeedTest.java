@@ -0,0 +1,227 @@
+package it.polimi.ingsw.server.controller;
+
+import it.polimi.ingsw.communication.ToClientInterface;
+import it.polimi.ingsw.communication.UpdateBuilder;
+import it.polimi.ingsw.communication.protocol.Notification;
+import it.polimi.ingsw.communication.protocol.Update;
+import it.polimi.ingsw.server.controller.effects.Action;
+import it.polimi.ingsw.server.model.Damageable;
+import it.polimi.ingsw.server.model.board.Square;
+import it.polimi.ingsw.server.model.cards.PowerupCard;
+import it.polimi.ingsw.server.model.cards.WeaponCard;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the spectators receive the public updates in order, that a
+ * slow spectator resyncs from the state of the match without slowing the
+ * publisher down and that the spectators leave when the match is over.
+ */
+class SpectatorFeedTest {
+    private static Update[] position(String player, int square) {
+        return new Update[]{new Update(Update.UpdateType.SQUARE_POSITION,
+                Collections.singletonList(Integer.toString(square)), player)};
+    }
+
+    private static Update[] powerups(String player) {
+        return new Update[]{new Update(Update.UpdateType.POWERUPS,
+                Collections.singletonList("powerup"), player)};
+    }
+
+    private static List<String> values(Update[] updates) {
+        List<String> values = new ArrayList<>();
+        for (Update u : updates)
+            values.add(u.getType() + " " + u.getNickname() + " " + u.getNewValue());
+        return values;
+    }
+
+    /*Testing that a new spectator receives the public state, then the next updates*/
+    @Test
+    void subscribe_state() throws InterruptedException {
+        SpectatorFeed feed = new SpectatorFeed(16);
+        feed.publish(new UpdateBuilder().setConfigurationId(2).build());
+        feed.publish(position("a", 1));
+        feed.publish(powerups("a"));
+        feed.publish(position("a", 3));
+
+        MockSpectator spectator = new MockSpectator(false);
+        feed.subscribe(spectator);
+        assertTrue(spectator.awaitUpdates(1));
+        assertEquals(Notification.NotificationType.GAME_STARTING, spectator.notifications.get(0));
+        assertEquals(Arrays.asList("CONFIGURATION_ID null [2]", "SQUARE_POSITION a [3]",
+                "POWERUPS a [" + Update.HIDDEN + "]"), values(spectator.updates.get(0)));
+
+        feed.publish(powerups("b"));
+        feed.publish(position("b", 4));
+        assertTrue(spectator.awaitUpdates(2));
+        assertEquals(Arrays.asList("POWERUPS b [" + Update.HIDDEN + "]", "SQUARE_POSITION b [4]"),
+                values(spectator.updates.get(1)));
+        assertEquals(1, feed.size());
+    }
+
+    /*Testing that a slow spectator falls behind and resyncs without blocking the publisher*/
+    @Test
+    void publish_slow() throws InterruptedException {
+        SpectatorFeed feed = new SpectatorFeed(4);
+        MockSpectator slow = new MockSpectator(true);
+        MockSpectator fast = new MockSpectator(false);
+        feed.subscribe(slow);
+        feed.subscribe(fast);
+        assertTrue(slow.entered.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= 20; i++)
+            feed.publish(position(i % 2 == 0 ? "a" : "b", i));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 250);
+        slow.release.countDown();
+
+        /*The updates in between are lost, the state is sent instead*/
+        assertTrue(slow.awaitUpdates(2));
+        List<String> resync = values(slow.updates.get(1));
+        Collections.sort(resync);
+        assertEquals(Arrays.asList("SQUARE_POSITION a [20]", "SQUARE_POSITION b [19]"), resync);
+
+        assertTrue(fast.awaitValue("SQUARE_POSITION a [20]"));
+    }
+
+    /*Testing that the spectators are asked to quit after the last update*/
+    @Test
+    void close() throws InterruptedException {
+        SpectatorFeed feed = new SpectatorFeed(16);
+        MockSpectator spectator = new MockSpectator(false);
+        feed.subscribe(spectator);
+        feed.publish(position("a", 1));
+        feed.close();
+
+        assertTrue(spectator.quit.await(5, TimeUnit.SECONDS));
+        assertEquals(Notification.NotificationType.QUIT,
+                spectator.notifications.get(spectator.notifications.size() - 1));
+        assertEquals("SQUARE_POSITION a [1]", values(spectator.updates.get(spectator.updates.size() - 1)).get(0));
+        assertEquals(0, feed.size());
+    }
+
+    /*A spectator that can be stuck on the first update until released*/
+    private static class MockSpectator implements ToClientInterface {
+        private final List<Notification.NotificationType> notifications = Collections.synchronizedList(new ArrayList<>());
+        private final List<Update[]> updates = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch quit = new CountDownLatch(1);
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        MockSpectator(boolean stuck) {
+            release = new CountDownLatch(stuck ? 1 : 0);
+        }
+
+        boolean awaitUpdates(int count) throws InterruptedException {
+            long end = System.currentTimeMillis() + 5000;
+            while (updates.size() < count && System.currentTimeMillis() < end)
+                Thread.sleep(10);
+            return updates.size() >= count;
+        }
+
+        boolean awaitValue(String value) throws InterruptedException {
+            long end = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < end) {
+                synchronized (updates) {
+                    if (!updates.isEmpty() && values(updates.get(updates.size() - 1)).contains(value))
+                        return true;
+                }
+                Thread.sleep(10);
+            }
+            return false;
+        }
+
+        @Override
+        public Action chooseEffectsSequence(List<Action> options) {
+            return null;
+        }
+
+        @Override
+        public PowerupCard chooseSpawn(List<PowerupCard> options) {
+            return null;
+        }
+
+        @Override
+        public PowerupCard choosePowerup(List<PowerupCard> options) {
+            return null;
+        }
+
+        @Override
+        public Square chooseDestination(List<Square> options) {
+            return null;
+        }
+
+        @Override
+        public WeaponCard chooseWeaponCard(List<WeaponCard> options) {
+            return null;
+        }
+
+        @Override
+        public WeaponCard chooseWeaponToBuy(List<WeaponCard> options) {
+            return null;
+        }
+
+        @Override
+        public WeaponCard chooseWeaponToDiscard(List<WeaponCard> options) {
+            return null;
+        }
+
+        @Override
+        public WeaponCard chooseWeaponToReload(List<WeaponCard> options) {
+            return null;
+        }
+
+        @Override
+        public Action chooseAction(List<Action> options) {
+            return null;
+        }
+
+        @Override
+        public PowerupCard choosePowerupForPaying(List<PowerupCard> options) {
+            return null;
+        }
+
+        @Override
+        public PowerupCard askUseTagback(List<PowerupCard> options) {
+            return null;
+        }
+
+        @Override
+        public List<Damageable> chooseTarget(List<List<Damageable>> options) {
+            return null;
+        }
+
+        @Override
+        public String chooseUserName() {
+            return null;
+        }
+
+        @Override
+        public void quit() {
+        }
+
+        @Override
+        public void sendNotification(Notification.NotificationType type) {
+            notifications.add(type);
+            if (type == Notification.NotificationType.QUIT)
+                quit.countDown();
+        }
+
+        @Override
+        public void sendUpdate(UpdateBuilder update) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            updates.add(update.build());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package it.polimi.ingsw.server.controller.effects.cardeffects;
+
+import it.polimi.ingsw.server.model.Damageable;
+import it.polimi.ingsw.server.model.board.GameBoard;
+import it.polimi.ingsw.server.model.board.KillshotTrack;
+import it.polimi.ingsw.server.model.board.Room;
+import it.polimi.ingsw.server.model.board.Square;
+import it.polimi.ingsw.server.model.player.Player;
+import it.polimi.ingsw.server.persistency.FromFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the combinations are the same, in the same order, of the
+ * ones obtained by removing one element at a time and filtering.
+ */
+class TargetsCombinatorTest {
+    private Square origin;
+    private List<Damageable> targets;
+    private GameBoard board;
+
+    @BeforeEach
+    void setUp() {
+        List<Room> configuration = FromFile.maps().get("1");
+        origin = Square.getSquare(configuration, 1);
+        targets = new ArrayList<>();
+        for (int i : new int[]{0, 2, 2, 5, 9, 4, 1}) {
+            Player player = new Player("player" + targets.size());
+            player.setPosition(Square.getSquare(configuration, i));
+            targets.add(player);
+        }
+        board = new GameBoard(new KillshotTrack(), configuration);
+    }
+
+    /*Testing all the ranges with all the constraints*/
+    @Test
+    void combinations() {
+        for (boolean differentSquares : new boolean[]{false, true})
+            for (boolean singleDirection : new boolean[]{false, true}) {
+                TargetsCombinator combinator = new TargetsCombinator(origin,
+                        differentSquares, singleDirection, false, board);
+                for (int min = 0; min <= targets.size(); min++)
+                    for (int max = min; max <= targets.size(); max++)
+                        assertEquals(expected(min, max, differentSquares, singleDirection),
+                                combinator.combinations(targets, min, max));
+            }
+    }
+
+    /*Testing that there are no combinations when there are too few elements*/
+    @Test
+    void combinations_empty() {
+        TargetsCombinator combinator = new TargetsCombinator(origin,
+                false, false, false, board);
+        assertTrue(combinator.combinations(targets, targets.size() + 1, targets.size() + 1).isEmpty());
+        assertEquals(1, combinator.combinations(new ArrayList<>(), 0, 2).size());
+    }
+
+    /**
+     * Returns the combinations obtained by removing one element at a time,
+     * without duplicates and filtered.
+     */
+    private List<List<Damageable>> expected(int min, int max, boolean differentSquares,
+                                            boolean singleDirection) {
+        List<List<Damageable>> collector = new ArrayList<>();
+        remove(targets, min, max, collector);
+        return collector.stream().filter(c -> {
+            if (differentSquares && c.stream().map(Damageable::getPosition)
+                    .distinct().count() != c.size())
+                return false;
+            return !singleDirection || c.size() != 2 ||
+                    origin.straight(c.get(0).getPosition(), c.get(1).getPosition(), false);
+        }).collect(Collectors.toList());
+    }
+
+    private void remove(List<Damageable> elements, int min, int max,
+                        List<List<Damageable>> collector) {
+        if (elements.size() >= min && elements.size() <= max && !collector.contains(elements))
+            collector.add(elements);
+        if (elements.size() > min)
+            for (Damageable d : elements) {
+                List<Damageable> sublist = new ArrayList<>(elements);
+                sublist.remove(d);
+                remove(sublist, min, max, collector);
+            }
+    }
+}
@@ -0,0 +1,48 @@
+package it.polimi.ingsw.server.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the metrics are served on the loopback address.
+ */
+class MetricsEndpointTest {
+    private static HttpURLConnection connect(MetricsEndpoint endpoint) throws IOException {
+        return (HttpURLConnection) new URL("http", InetAddress.getLoopbackAddress().getHostAddress(),
+                endpoint.getPort(), MetricsEndpoint.PATH).openConnection();
+    }
+
+    /*Testing that a scrape returns the metrics of the registry*/
+    @Test
+    void scrape() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("scrapes_total", "Scrapes", "").increment();
+        try (MetricsEndpoint endpoint = new MetricsEndpoint(registry, 0)) {
+            HttpURLConnection connection = connect(endpoint);
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            try (InputStream in = connection.getInputStream()) {
+                assertEquals(registry.scrape(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /*Testing that only the reads are answered*/
+    @Test
+    void scrape_post() throws IOException {
+        try (MetricsEndpoint endpoint = new MetricsEndpoint(new MetricsRegistry(), 0)) {
+            HttpURLConnection connection = connect(endpoint);
+            connection.setRequestMethod("POST");
+            assertEquals(405, connection.getResponseCode());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package it.polimi.ingsw.server.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the metrics are kept by name and labels and written in the
+ * text format of Prometheus.
+ */
+class MetricsRegistryTest {
+    private static List<String> lines(MetricsRegistry registry) {
+        return Arrays.asList(registry.scrape().split("\n"));
+    }
+
+    /*Testing that the same metric is returned and written once per family*/
+    @Test
+    void counter() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_total", "A test", MetricsRegistry.label("kind", "a")).increment();
+        registry.counter("test_total", "A test", MetricsRegistry.label("kind", "a")).add(2);
+        registry.counter("test_total", "A test", MetricsRegistry.label("kind", "b")).increment();
+
+        assertEquals(Arrays.asList("# HELP test_total A test", "# TYPE test_total counter",
+                "test_total{kind=\"a\"} 3", "test_total{kind=\"b\"} 1"), lines(registry));
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.counter("test_total", "A test", "").add(-1));
+    }
+
+    /*Testing that a gauge is set by the caller or read at each scrape*/
+    @Test
+    void gauge() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Gauge set = registry.gauge("set", "Set", "");
+        set.increment();
+        set.increment();
+        set.decrement();
+        AtomicLong source = new AtomicLong(5);
+        registry.gauge("read", "Read", "", source::get);
+        source.set(7);
+
+        List<String> lines = lines(registry);
+        assertTrue(lines.contains("set 1"));
+        assertTrue(lines.contains("read 7"));
+        assertTrue(lines.contains("# TYPE read gauge"));
+    }
+
+    /*Testing that a histogram is written as a summary in the unit of the output*/
+    @Test
+    void histogram() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("latency_seconds", "Latency",
+                MetricsRegistry.label("type", "x"), Histogram.SECONDS);
+        for (int i = 1; i <= 100; i++)
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+
+        List<String> lines = lines(registry);
+        assertTrue(lines.contains("# TYPE latency_seconds summary"));
+        assertTrue(lines.contains("latency_seconds_count{type=\"x\"} 100"));
+        assertTrue(lines.contains("latency_seconds_sum{type=\"x\"} 5.05000000"));
+        String median = lines.stream().filter(l -> l.startsWith("latency_seconds{type=\"x\",quantile=\"0.5\"}"))
+                .findFirst().orElseThrow();
+        assertEquals(0.05, Double.parseDouble(median.substring(median.indexOf(' ') + 1)), 0.001);
+    }
+
+    /*Testing that a name can not be used by two types and that the labels are escaped*/
+    @Test
+    void family_type() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("used_total", "Used", "");
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("used_total", "Used", ""));
+        assertEquals("name=\"a\\\"b\"", MetricsRegistry.label("name", "a\"b"));
+    }
+}
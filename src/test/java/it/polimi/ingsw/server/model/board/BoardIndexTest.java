@@ -0,0 +1,92 @@
+package it.polimi.ingsw.server.model.board;
+
+import it.polimi.ingsw.server.model.AmmoCube;
+import it.polimi.ingsw.server.persistency.FromFile;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the index finds the same rooms, squares and visible squares
+ * of the scan.
+ */
+class BoardIndexTest {
+
+    /*Testing all the squares of all the configurations*/
+    @Test
+    void getRoom() {
+        for (Configurations configuration : Configurations.values()) {
+            List<Room> rooms = FromFile.maps().get(Integer.toString(configuration.getId()));
+            BoardIndex index = BoardIndex.of(rooms, new MapTopology(rooms));
+            assertNotNull(index);
+
+            for (Room room : rooms)
+                for (Square square : room.getAllSquares()) {
+                    assertSame(room, index.getRoom(square));
+                    assertEquals(room.getAllSquares(), index.getSquaresInRoom(square));
+                }
+            for (AmmoCube color : new AmmoCube[]{AmmoCube.RED, AmmoCube.BLUE, AmmoCube.YELLOW})
+                assertEquals(color, index.getSpawn(color).getSpawnColor());
+            assertEquals(rooms.stream().mapToLong(r -> r.getAllSquares().size()).sum(),
+                    index.getAllSquares().size());
+        }
+    }
+
+    /*Testing that the visible masks contain the same squares of the lists*/
+    @Test
+    void getVisibleMask() {
+        for (Configurations configuration : Configurations.values()) {
+            List<Room> rooms = FromFile.maps().get(Integer.toString(configuration.getId()));
+            GameBoard board = new GameBoard(new KillshotTrack(), rooms);
+
+            for (Square from : board.getAllSquares()) {
+                Set<Square> visible = board.getSquares(board.getVisibleMask(from));
+                assertEquals(new HashSet<>(from.listOfVisibles(board)), visible);
+                for (Square to : board.getAllSquares())
+                    assertEquals(visible.contains(to), board.checkVisible(from, to));
+                assertEquals(new HashSet<>(board.getSquaresInRoom(from)),
+                        board.getSquares(board.getRoomMask(from)));
+            }
+        }
+    }
+
+    /*Testing squares that are not on the board*/
+    @Test
+    void getRoom_unknown() {
+        List<Room> rooms = FromFile.maps().get("0");
+        List<Room> first = rooms.subList(0, 1);
+        BoardIndex index = BoardIndex.of(first, new MapTopology(first));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> index.getRoom(rooms.get(1).getAllSquares().get(0)));
+        assertThrows(UnsupportedOperationException.class,
+                () -> index.getAllSquares().clear());
+    }
+
+    /*Testing that squares with the same id are not indexed*/
+    @Test
+    void of_duplicates() {
+        List<Square> squares = new ArrayList<>();
+        squares.add(new Square(SquareColor.RED));
+        squares.add(new Square(SquareColor.RED));
+
+        assertNull(MapTopology.of(List.of(new Room(squares))));
+    }
+
+    /*Testing that the index is not built on squares of another topology*/
+    @Test
+    void of_otherTopology() {
+        List<Room> rooms = FromFile.maps().get("0");
+        MapTopology topology = FromFile.maps().getTopology("1");
+
+        assertNull(BoardIndex.of(rooms, topology));
+        assertNull(BoardIndex.of(rooms.subList(0, 1), FromFile.maps().getTopology("0")));
+        assertNotNull(BoardIndex.of(rooms, FromFile.maps().getTopology("0")));
+    }
+}
@@ -0,0 +1,65 @@
+package it.polimi.ingsw.server.model.board;
+
+import it.polimi.ingsw.server.persistency.FromFile;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the precomputed distances are the same of the visit.
+ */
+class DistanceMatrixTest {
+
+    /*Testing all the couples of squares of all the configurations*/
+    @Test
+    void get() {
+        for (Configurations configuration : Configurations.values()) {
+            String id = Integer.toString(configuration.getId());
+            List<Room> rooms = FromFile.maps().get(id);
+            GameBoard computed = new GameBoard(new KillshotTrack(), rooms, null);
+            GameBoard precomputed = new GameBoard(new KillshotTrack(), rooms, FromFile.maps().getTopology(id));
+
+            for (Square a : computed.getAllSquares())
+                for (Square b : computed.getAllSquares())
+                    for (boolean ignoreWalls : new boolean[]{false, true})
+                        assertEquals(computed.minimumDistance(a, b, ignoreWalls),
+                                precomputed.minimumDistance(a, b, ignoreWalls));
+        }
+    }
+
+    /*Testing that the same matrix is shared*/
+    @Test
+    void getDistances() {
+        assertSame(FromFile.maps().getTopology("0").getDistances(),
+                FromFile.maps().getTopology("0").getDistances());
+    }
+
+    /*Testing squares that can not be reached and squares that are not known*/
+    @Test
+    void unreachable() {
+        List<Room> loaded = FromFile.maps().get("0");
+        /*The copies are not linked*/
+        List<Room> copies = loaded.stream().map(Room::new).collect(Collectors.toList());
+        DistanceMatrix matrix = new DistanceMatrix(copies.subList(0, 2));
+        Square a = copies.get(0).getAllSquares().get(0);
+        Square b = copies.get(1).getAllSquares().get(0);
+
+        assertTrue(matrix.contains(b));
+        assertEquals(0, matrix.get(a, a, true));
+        assertEquals(DistanceMatrix.UNREACHABLE, matrix.get(a, b, false));
+        assertEquals(DistanceMatrix.UNREACHABLE, matrix.get(a, b, true));
+
+        /*The squares not in the topology are visited*/
+        GameBoard board = new GameBoard(new KillshotTrack(), loaded, new MapTopology(copies.subList(0, 2)));
+        Square start = loaded.get(0).getAllSquares().get(0);
+        Square unknown = loaded.get(2).getAllSquares().get(0);
+        assertFalse(matrix.contains(unknown));
+        assertEquals(new GameBoard(new KillshotTrack(), loaded, null).minimumDistance(start, unknown, false),
+                board.minimumDistance(start, unknown, false));
+        assertNotEquals(DistanceMatrix.UNREACHABLE, board.minimumDistance(start, unknown, false));
+    }
+}
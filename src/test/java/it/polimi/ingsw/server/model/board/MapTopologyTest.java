@@ -0,0 +1,87 @@
+package it.polimi.ingsw.server.model.board;
+
+import com.google.gson.Gson;
+import it.polimi.ingsw.server.persistency.FromFile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the rooms created from the topology are linked as the
+ * refreshed copies and are not shared between boards, and that squares
+ * that can not be indexed are refused.
+ */
+class MapTopologyTest {
+
+    /*Testing all the configurations against the refreshed copies*/
+    @Test
+    void createRooms() {
+        for (Configurations configuration : Configurations.values()) {
+            MapTopology topology = FromFile.maps().getTopology(Integer.toString(configuration.getId()));
+            List<Room> created = topology.createRooms();
+            List<Room> refreshed = created.stream().map(Room::new).collect(Collectors.toList());
+            Room.refresh(refreshed);
+
+            assertEquals(refreshed.size(), created.size());
+            for (int i = 0; i < created.size(); i++)
+                for (int j = 0; j < created.get(i).getAllSquares().size(); j++) {
+                    Square a = created.get(i).getAllSquares().get(j);
+                    Square b = refreshed.get(i).getAllSquares().get(j);
+                    assertEquals(b.getID(), a.getID());
+                    assertEquals(id(b.getNorth()), id(a.getNorth()));
+                    assertEquals(id(b.getEast()), id(a.getEast()));
+                    assertEquals(id(b.getSouth()), id(a.getSouth()));
+                    assertEquals(id(b.getWest()), id(a.getWest()));
+                }
+        }
+    }
+
+    private String id(Square square) {
+        return square == null ? null : square.getID();
+    }
+
+    /*Testing that each board gets its own squares and markets*/
+    @Test
+    void createRooms_notShared() {
+        MapTopology topology = FromFile.maps().getTopology("0");
+        List<Room> first = topology.createRooms();
+        List<Room> second = topology.createRooms();
+
+        for (int i = 0; i < first.size(); i++) {
+            assertNotSame(first.get(i), second.get(i));
+            assertNotSame(first.get(i).getAllSquares().get(0), second.get(i).getAllSquares().get(0));
+            if (first.get(i).getSpawnSquare() != null) {
+                assertNotSame(first.get(i).getSpawnSquare().getMarket(),
+                        second.get(i).getSpawnSquare().getMarket());
+                assertEquals(3, first.get(i).getSpawnSquare().getMarket().getCards().size());
+            }
+        }
+    }
+
+    private static Square square(int id) {
+        return new Gson().fromJson("{\"ID\":" + id + ",\"squareColor\":\"BLUE\"}", Square.class);
+    }
+
+    /*Testing that a negative id is refused*/
+    @Test
+    void constructor_negativeId() {
+        List<Room> rooms = Collections.singletonList(new Room(Arrays.asList(square(0), square(-1))));
+        assertThrows(IllegalArgumentException.class, () -> new MapTopology(rooms));
+        assertNull(MapTopology.of(rooms));
+    }
+
+    /*Testing that two squares with the same id are refused*/
+    @Test
+    void constructor_duplicateId() {
+        List<Room> rooms = Arrays.asList(new Room(Arrays.asList(square(0), square(1))),
+                new Room(Collections.singletonList(square(1))));
+        assertThrows(IllegalArgumentException.class, () -> new MapTopology(rooms));
+        assertNull(MapTopology.of(rooms));
+    }
+}
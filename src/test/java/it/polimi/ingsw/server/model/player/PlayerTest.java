@@ -271,6 +271,25 @@ class PlayerTest {
                 .isEmpty());
     }
 
+    /*Testing that only the cards paying enough alone are returned*/
+    @Test
+    void canAffordWithOnePowerup() {
+        PowerupCard blue = new PowerupCard("card blue", "Effect", AmmoCube.BLUE);
+        PowerupCard red = new PowerupCard("card red", "Effect", AmmoCube.RED);
+        AHandManager.addPowerup(blue);
+        AHandManager.addPowerup(red);
+        AAmmoBox.addAmmo(AmmoCube.YELLOW);
+
+        assertEquals(Collections.singletonList(blue), APlayer.canAffordWithOnePowerup(
+                Arrays.asList(AmmoCube.YELLOW, AmmoCube.BLUE), false));
+
+        /*Two cards would be needed*/
+        assertFalse(APlayer.canAffordWithPowerups(
+                Arrays.asList(AmmoCube.RED, AmmoCube.BLUE), false).isEmpty());
+        assertTrue(APlayer.canAffordWithOnePowerup(
+                Arrays.asList(AmmoCube.RED, AmmoCube.BLUE), false).isEmpty());
+    }
+
     /*Testing with cubes ANY*/
     @Test
     void canAffordWithPowerups_ANY() {
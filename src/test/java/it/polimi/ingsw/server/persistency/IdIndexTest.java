@@ -0,0 +1,49 @@
+package it.polimi.ingsw.server.persistency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the lookups ignore case, keep the order of the elements and
+ * can not modify the index.
+ */
+class IdIndexTest {
+    private List<String> elements;
+    private IdIndex<String> index;
+
+    @BeforeEach
+    void setUp() {
+        elements = Arrays.asList("alpha:1", "Beta:2", "ALPHA:3", "gamma:4");
+        index = new IdIndex<>(elements, e -> e.split(":")[0]);
+    }
+
+    /*Testing that the case is ignored and the order is kept*/
+    @Test
+    void getAll_ignoreCase() {
+        assertEquals(Arrays.asList("alpha:1", "ALPHA:3"), index.getAll("Alpha"));
+        assertEquals(Arrays.asList("Beta:2"), index.getAll("BETA"));
+        assertEquals(elements, index.getAll());
+    }
+
+    /*Testing identifiers that are not present*/
+    @Test
+    void getAll_notExisting() {
+        assertTrue(index.getAll("delta").isEmpty());
+        assertTrue(index.getAll(null).isEmpty());
+    }
+
+    /*Testing that the returned lists can not be modified*/
+    @Test
+    void getAll_unmodifiable() {
+        assertThrows(UnsupportedOperationException.class,
+                () -> index.getAll().clear());
+        assertThrows(UnsupportedOperationException.class,
+                () -> index.getAll("alpha").clear());
+    }
+}
@@ -0,0 +1,109 @@
+package it.polimi.ingsw.server.persistency;
+
+import it.polimi.ingsw.communication.protocol.MessageType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the records are read back in order, across the mapped
+ * regions, and that a record not completely written is dropped.
+ */
+class MatchJournalTest {
+    @TempDir
+    Path directory;
+
+    private static List<JournalRecord> records(int count) {
+        List<JournalRecord> records = new ArrayList<>();
+        records.add(JournalRecord.start(Arrays.asList("a", "b", "c"), 8, 1, 42));
+        for (int i = 1; i < count; i++)
+            records.add(JournalRecord.choice("a", MessageType.ACTION, i, Collections.singletonList("key" + i)));
+        return records;
+    }
+
+    /*Testing that the records are read back, the file is not longer than them*/
+    @Test
+    void append() throws IOException {
+        Path file = directory.resolve("match" + MatchJournal.EXTENSION);
+        List<JournalRecord> written = records(10);
+        try (MatchJournal journal = MatchJournal.create(file)) {
+            written.forEach(journal::append);
+        }
+
+        List<JournalRecord> read = MatchJournal.read(file);
+        assertEquals(written.size(), read.size());
+        assertEquals(JournalRecord.Type.START, read.get(0).getType());
+        assertEquals(Arrays.asList("a", "b", "c"), read.get(0).getPlayers());
+        assertEquals(42, read.get(0).getSeed());
+        assertEquals(9, read.get(9).getIndex());
+        assertEquals(Collections.singletonList("key9"), read.get(9).getKeys());
+        assertTrue(Files.size(file) < MatchJournal.REGION);
+        assertEquals(Collections.singletonList(file), MatchJournal.list(directory));
+    }
+
+    /*Testing that the records go on in the next region when one is full*/
+    @Test
+    void append_regions() throws IOException {
+        Path file = directory.resolve("long" + MatchJournal.EXTENSION);
+        List<JournalRecord> written = records(20000);
+        try (MatchJournal journal = MatchJournal.create(file)) {
+            written.forEach(journal::append);
+        }
+        assertTrue(Files.size(file) > MatchJournal.REGION);
+
+        List<JournalRecord> read = MatchJournal.read(file);
+        assertEquals(written.size(), read.size());
+        for (int i = 1; i < read.size(); i++)
+            assertEquals(i, read.get(i).getIndex());
+    }
+
+    /*Testing that a torn record is dropped and the next ones are appended in its place*/
+    @Test
+    void open_tornTail() throws IOException {
+        Path file = directory.resolve("torn" + MatchJournal.EXTENSION);
+        try (MatchJournal journal = MatchJournal.create(file)) {
+            records(3).forEach(journal::append);
+        }
+        long complete = Files.size(file);
+        try (MatchJournal journal = MatchJournal.open(file)) {
+            journal.append(JournalRecord.turn("b"));
+        }
+
+        /*Corrupting the content of the last record*/
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(Files.size(file) - 2);
+            raw.write('X');
+        }
+
+        try (MatchJournal journal = MatchJournal.open(file)) {
+            assertEquals(3, journal.getRecords().size());
+            journal.append(JournalRecord.turn("c"));
+        }
+        List<JournalRecord> read = MatchJournal.read(file);
+        assertEquals(4, read.size());
+        assertEquals(JournalRecord.Type.TURN, read.get(3).getType());
+        assertEquals("c", read.get(3).getPlayer());
+        assertTrue(Files.size(file) > complete);
+    }
+
+    /*Testing that a journal can not be created twice or opened if missing*/
+    @Test
+    void create_existing() throws IOException {
+        Path file = directory.resolve("twice" + MatchJournal.EXTENSION);
+        MatchJournal.create(file).close();
+        assertThrows(IOException.class, () -> MatchJournal.create(file));
+        assertThrows(IOException.class, () -> MatchJournal.open(directory.resolve("missing")));
+        assertTrue(MatchJournal.list(directory.resolve("missing")).isEmpty());
+    }
+}
@@ -0,0 +1,89 @@
+package it.polimi.ingsw.server.persistency;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: that the snapshots are written in background and read back, that
+ * only the last one is kept and that a damaged file is not read.
+ */
+class MatchSnapshotTest {
+    @TempDir
+    Path directory;
+
+    private Path write(MatchSnapshot... snapshots) throws InterruptedException {
+        Path file = MatchSnapshot.fileOf(directory.resolve("match" + MatchJournal.EXTENSION));
+        SnapshotWriter writer = new SnapshotWriter(file);
+        for (MatchSnapshot snapshot : snapshots)
+            writer.write(snapshot);
+        assertTrue(SnapshotWriter.awaitWritten(10, TimeUnit.SECONDS));
+        return file;
+    }
+
+    /*Testing that the file of the snapshot is next to the journal*/
+    @Test
+    void fileOf() {
+        Path journal = directory.resolve("match" + MatchJournal.EXTENSION);
+        assertEquals(directory.resolve("match" + MatchSnapshot.EXTENSION), MatchSnapshot.fileOf(journal));
+    }
+
+    /*Testing that the last snapshot is read back*/
+    @Test
+    void write() throws IOException, InterruptedException {
+        Path file = write(new MatchSnapshot(7, 10, new byte[]{1, 2}),
+                new MatchSnapshot(7, 20, new byte[]{3, 4, 5}));
+
+        MatchSnapshot read = MatchSnapshot.read(file);
+        assertNotNull(read);
+        assertEquals(7, read.getSeed());
+        assertEquals(20, read.getRecords());
+        assertArrayEquals(new byte[]{3, 4, 5}, read.getState());
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+    }
+
+    /*Testing that a missing snapshot is null*/
+    @Test
+    void read_missing() throws IOException {
+        assertNull(MatchSnapshot.read(directory.resolve("missing" + MatchSnapshot.EXTENSION)));
+    }
+
+    /*Testing that a corrupted or truncated snapshot is not read*/
+    @Test
+    void read_damaged() throws IOException, InterruptedException {
+        Path file = write(new MatchSnapshot(7, 10, new byte[]{1, 2, 3}));
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(raw.length() - 1);
+            raw.write(9);
+        }
+        assertThrows(IOException.class, () -> MatchSnapshot.read(file));
+
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.setLength(raw.length() - 1);
+        }
+        assertThrows(IOException.class, () -> MatchSnapshot.read(file));
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> MatchSnapshot.read(file));
+    }
+
+    /*Testing that the snapshot is deleted and the next ones are dropped*/
+    @Test
+    void delete() throws InterruptedException {
+        Path file = MatchSnapshot.fileOf(directory.resolve("over" + MatchJournal.EXTENSION));
+        SnapshotWriter writer = new SnapshotWriter(file);
+        writer.write(new MatchSnapshot(1, 2, new byte[]{1}));
+        writer.delete();
+        writer.write(new MatchSnapshot(1, 3, new byte[]{2}));
+        assertTrue(SnapshotWriter.awaitWritten(10, TimeUnit.SECONDS));
+        assertFalse(Files.exists(file));
+    }
+}
@@ -79,6 +79,16 @@ class WeaponLoaderTest {
         }
     }
 
+    /*Testing that the sequences are resolved once, when loading*/
+    @Test
+    void get_compiledSequences() {
+        WeaponCard card = normalLoader.get(EXISTING_ID);
+
+        assertSame(card.getPossibleSequences(), card.getPossibleSequences());
+        assertThrows(UnsupportedOperationException.class,
+                () -> card.getPossibleSequences().clear());
+    }
+
     /*Testing not existing id*/
     @Test
     void get_notExisting() {
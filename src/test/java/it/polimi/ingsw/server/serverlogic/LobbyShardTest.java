@@ -0,0 +1,107 @@
+package it.polimi.ingsw.server.serverlogic;
+
+import it.polimi.ingsw.communication.UpdateBuilder;
+import it.polimi.ingsw.communication.User;
+import it.polimi.ingsw.server.simulation.RandomStrategy;
+import it.polimi.ingsw.server.simulation.SimulatedClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: the rules for starting a match and that a slow client does not block the others.
+ */
+class LobbyShardTest {
+    private MatchScheduler scheduler;
+    private BlockingQueue<List<User>> started;
+
+    @BeforeEach
+    void setUp() {
+        User.setWaitingTime(10);
+        scheduler = new MatchScheduler(1);
+        started = new LinkedBlockingQueue<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private User user(int i) {
+        return new User(new SimulatedClient("user" + i, new RandomStrategy(i)));
+    }
+
+    /*Testing that the maximum number of players starts the match at once*/
+    @Test
+    void add_maximum() throws InterruptedException {
+        LobbyShard shard = new LobbyShard(0, 60, scheduler, started::add);
+        for (int i = 0; i < LobbyShard.MAXIMUM_PLAYERS; i++)
+            shard.add(user(i));
+
+        assertEquals(0, shard.size());
+        List<User> players = started.poll(5, TimeUnit.SECONDS);
+        assertNotNull(players);
+        assertEquals(LobbyShard.MAXIMUM_PLAYERS, players.size());
+    }
+
+    /*Testing that the minimum number of players starts the match when the time is over*/
+    @Test
+    void add_timer() throws InterruptedException {
+        LobbyShard shard = new LobbyShard(0, 0, scheduler, started::add);
+        for (int i = 0; i < LobbyShard.MINIMUM_PLAYERS; i++)
+            shard.add(user(i));
+
+        List<User> players = started.poll(5, TimeUnit.SECONDS);
+        assertNotNull(players);
+        assertEquals(LobbyShard.MINIMUM_PLAYERS, players.size());
+        assertEquals(0, shard.size());
+    }
+
+    /*Testing that fewer players than the minimum keep waiting*/
+    @Test
+    void add_notEnough() throws InterruptedException {
+        LobbyShard shard = new LobbyShard(0, 0, scheduler, started::add);
+        for (int i = 0; i < LobbyShard.MINIMUM_PLAYERS - 1; i++)
+            shard.add(user(i));
+
+        assertNull(started.poll(300, TimeUnit.MILLISECONDS));
+        assertEquals(LobbyShard.MINIMUM_PLAYERS - 1, shard.size());
+    }
+
+    /*Testing that the users join while a client is not answering*/
+    @Test
+    void add_slowClient() throws InterruptedException {
+        CountDownLatch answer = new CountDownLatch(1);
+        User slow = new User(new SimulatedClient("slow", new RandomStrategy(0)) {
+            @Override
+            public void sendUpdate(UpdateBuilder update) {
+                try {
+                    answer.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        LobbyShard shard = new LobbyShard(0, 60, scheduler, started::add);
+        shard.add(slow);
+        for (int i = 1; i < LobbyShard.MAXIMUM_PLAYERS; i++)
+            shard.add(user(i));
+
+        /*All joined, the match waits for the messages before it*/
+        assertEquals(0, shard.size());
+        assertEquals(1, answer.getCount());
+        answer.countDown();
+        List<User> players = started.poll(5, TimeUnit.SECONDS);
+        assertNotNull(players);
+        assertEquals(LobbyShard.MAXIMUM_PLAYERS, players.size());
+    }
+}
@@ -0,0 +1,110 @@
+package it.polimi.ingsw.server.serverlogic;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Testing: the cap on the running matches, the counts and the shutdown.
+ */
+class MatchSchedulerTest {
+    private MatchScheduler scheduler;
+    private CountDownLatch release;
+    private CountDownLatch started;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new MatchScheduler(2);
+        release = new CountDownLatch(1);
+        started = new CountDownLatch(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private Runnable match() {
+        return () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    /*Testing that the matches over the cap are queued, then run*/
+    @Test
+    void submit() throws InterruptedException {
+        for (int i = 0; i < 3; i++)
+            assertTrue(scheduler.submit(match()));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.getRunningCount());
+        assertEquals(1, scheduler.getQueuedCount());
+        assertEquals(0, scheduler.getFinishedCount());
+
+        release.countDown();
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, scheduler.getRunningCount());
+        assertEquals(0, scheduler.getQueuedCount());
+        assertEquals(3, scheduler.getFinishedCount());
+    }
+
+    /*Testing that a failing match is counted and does not stop the others*/
+    @Test
+    void submit_exception() throws InterruptedException {
+        assertTrue(scheduler.submit(() -> {
+            throw new IllegalStateException();
+        }));
+        release.countDown();
+        assertTrue(scheduler.submit(match()));
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.getFinishedCount());
+    }
+
+    /*Testing that no match is accepted after the shutdown, while the running ones go on*/
+    @Test
+    void shutdown() throws InterruptedException {
+        assertTrue(scheduler.submit(match()));
+        scheduler.shutdown();
+        assertFalse(scheduler.submit(match()));
+        assertFalse(scheduler.awaitTermination(100, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, scheduler.getFinishedCount());
+    }
+
+    /*Testing that the queued matches are dropped on a forced shutdown, the running ones interrupted*/
+    @Test
+    void shutdownNow() throws InterruptedException {
+        CountDownLatch dropped = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++)
+            assertTrue(scheduler.submit(match(), () -> fail("Running match dropped")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduler.submit(() -> fail("Queued match started"), dropped::countDown));
+
+        assertEquals(1, scheduler.shutdownNow());
+        assertEquals(0, dropped.getCount());
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.getFinishedCount());
+    }
+
+    /*Testing the timer*/
+    @Test
+    void schedule() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        scheduler.schedule(fired::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+    }
+}
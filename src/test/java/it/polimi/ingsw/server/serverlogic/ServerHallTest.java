@@ -1,10 +1,27 @@
 package it.polimi.ingsw.server.serverlogic;
 
+import it.polimi.ingsw.communication.User;
+import it.polimi.ingsw.server.model.board.Configurations;
+import it.polimi.ingsw.server.persistency.JournalRecord;
+import it.polimi.ingsw.server.persistency.MatchJournal;
+import it.polimi.ingsw.server.simulation.RandomStrategy;
+import it.polimi.ingsw.server.simulation.SimulatedClient;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class ServerHallTest {
+    @TempDir
+    Path directory;
 
     @Test
     void run() {
@@ -17,4 +34,84 @@ class ServerHallTest {
     @Test
     void removeUser() {
     }
-}
\ No newline at end of file
+
+    /*Testing that the configuration depends only on the players and the seed*/
+    @Test
+    void getConfiguration() {
+        assertEquals(Configurations.ADVISED34, ServerHall.getConfiguration(4, 1));
+        assertEquals(Configurations.ADVISED45, ServerHall.getConfiguration(5, 1));
+        boolean[] seen = new boolean[2];
+        for (long seed = 0; seed < 32; seed++) {
+            Configurations configuration = ServerHall.getConfiguration(3, seed);
+            assertEquals(configuration, ServerHall.getConfiguration(3, seed));
+            assertTrue(configuration == Configurations.STANDARD1 || configuration == Configurations.STANDARD2);
+            seen[configuration == Configurations.STANDARD1 ? 0 : 1] = true;
+        }
+        assertTrue(seen[0] && seen[1]);
+    }
+
+    /*Testing that the journals of the matches that are over are archived instead of recovered*/
+    @Test
+    void recoverMatches_archived() throws IOException {
+        Path journals = directory.resolve("journals");
+        Path archive = directory.resolve("archive");
+        Files.createDirectories(journals);
+        Path file = journals.resolve("match" + MatchJournal.EXTENSION);
+        try (MatchJournal journal = MatchJournal.create(file)) {
+            journal.append(JournalRecord.start(Arrays.asList("a", "b", "c"), 8, 1, 7));
+            journal.append(JournalRecord.end(Arrays.asList(0, 0, 0)));
+        }
+
+        MatchScheduler scheduler = new MatchScheduler(1);
+        try {
+            assertEquals(0, new ServerHall(1, scheduler, 1, journals, archive).recoverMatches());
+        } finally {
+            scheduler.shutdownNow();
+        }
+        assertFalse(Files.exists(file));
+        assertEquals(2, MatchJournal.read(archive.resolve(file.getFileName())).size());
+    }
+
+    /*Testing that the users joining at the same time are spread over the shards*/
+    @Test
+    void addUser_spread() throws InterruptedException {
+        int users = 8;
+        MatchScheduler scheduler = new MatchScheduler(1);
+        ServerHall hall = new ServerHall(60, scheduler, 4);
+        Thread dispatcher = new Thread(hall);
+        dispatcher.start();
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> joining = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                User user = new User(new SimulatedClient("user" + i, new RandomStrategy(i)));
+                Thread thread = new Thread(() -> {
+                    try {
+                        go.await();
+                        hall.addUser(user);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                thread.start();
+                joining.add(thread);
+            }
+            go.countDown();
+            for (Thread thread : joining)
+                thread.join();
+
+            /*Waiting for the hall to move everyone*/
+            long deadline = System.currentTimeMillis() + 5000;
+            while (Arrays.stream(hall.getShardSizes()).sum() < users && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+
+            int[] sizes = hall.getShardSizes();
+            assertEquals(users, Arrays.stream(sizes).sum());
+            assertTrue(Arrays.stream(sizes).filter(size -> size > 0).count() > 1);
+            assertTrue(Arrays.stream(sizes).allMatch(size -> size < LobbyShard.MINIMUM_PLAYERS));
+        } finally {
+            dispatcher.interrupt();
+            scheduler.shutdownNow();
+        }
+    }
+}
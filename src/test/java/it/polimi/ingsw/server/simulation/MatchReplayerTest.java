@@ -0,0 +1,92 @@
+package it.polimi.ingsw.server.simulation;
+
+import it.polimi.ingsw.server.persistency.JournalRecord;
+import it.polimi.ingsw.server.persistency.MatchJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Using following classes and relying on their behaviour:
+ * MatchSimulator, DeathmatchController, MatchJournal.
+ * Testing: that recorded matches are replayed in parallel with the same
+ * scores, and that a journal not matching the replay is reported.
+ */
+class MatchReplayerTest {
+    @TempDir
+    Path directory;
+
+    /*Writes the provided records in a new journal*/
+    private Path write(String name, List<JournalRecord> records) throws IOException {
+        Path file = directory.resolve(name + MatchJournal.EXTENSION);
+        try (MatchJournal journal = MatchJournal.create(file)) {
+            records.forEach(journal::append);
+        }
+        return file;
+    }
+
+    /*Testing that the simulated matches are reproduced with the same scores*/
+    @Test
+    void replayAll() throws IOException {
+        List<List<Integer>> scores = new ArrayList<>();
+        for (long seed = 0; seed < 6; seed++)
+            scores.add(MatchSimulator.play(seed, directory).getScores());
+
+        List<Path> files = MatchJournal.list(directory);
+        List<MatchReplayer.Replay> replays = MatchReplayer.replayAll(files, 2);
+        assertEquals(6, replays.size());
+        for (int i = 0; i < replays.size(); i++) {
+            MatchReplayer.Replay replay = replays.get(i);
+            assertTrue(replay.isOver());
+            assertTrue(replay.isReproduced(), replay::toString);
+            assertEquals(scores.get(Integer.parseInt(files.get(i).getFileName().toString()
+                    .replaceAll("\\D", ""))), replay.getScores());
+        }
+        assertTrue(MatchReplayer.report(replays, 2, TimeUnit.SECONDS.toNanos(1))
+                .contains("reproduced:         6"));
+    }
+
+    /*Testing that other scores in the journal are reported*/
+    @Test
+    void replay_different() throws IOException {
+        MatchSimulator.play(3, directory);
+        List<JournalRecord> records = new ArrayList<>(MatchJournal.read(MatchJournal.list(directory).get(0)));
+        List<Integer> scores = new ArrayList<>(records.remove(records.size() - 1).getScores());
+        scores.set(0, scores.get(0) + 1);
+        records.add(JournalRecord.end(scores));
+
+        MatchReplayer.Replay replay = MatchReplayer.replay(write("changed", records));
+        assertTrue(replay.isOver());
+        assertFalse(replay.isReproduced());
+        assertFalse(replay.isFailed());
+    }
+
+    /*Testing that a journal whose match is not over is replayed but not compared*/
+    @Test
+    void replay_notOver() throws IOException {
+        MatchSimulator.play(4, directory);
+        List<JournalRecord> records = MatchJournal.read(MatchJournal.list(directory).get(0));
+
+        MatchReplayer.Replay replay = MatchReplayer.replay(write("cut", records.subList(0, records.size() / 2)));
+        assertFalse(replay.isOver());
+        assertFalse(replay.isReproduced());
+    }
+
+    /*Testing that a file that is not a journal of a match fails*/
+    @Test
+    void replayAll_notAMatch() throws IOException {
+        Path file = write("empty", Collections.singletonList(JournalRecord.turn("nobody")));
+        List<MatchReplayer.Replay> replays = MatchReplayer.replayAll(Collections.singletonList(file), 1);
+        assertTrue(replays.get(0).isFailed());
+        assertTrue(MatchReplayer.report(replays, 1, 1).contains("failed:             1"));
+    }
+}
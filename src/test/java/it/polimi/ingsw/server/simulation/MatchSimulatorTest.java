@@ -0,0 +1,68 @@
+package it.polimi.ingsw.server.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Author: Abbo Giulio A.
+ * Using following classes and relying on their behaviour:
+ * DeathmatchController, SimulatedClient, RandomStrategy, GreedyStrategy.
+ * Testing: that complete matches are played in process and described.
+ */
+class MatchSimulatorTest {
+
+    /*Testing that a few matches get to the end and are scored*/
+    @Test
+    void play() {
+        for (long seed = 0; seed < 4; seed++) {
+            MatchRecord record = MatchSimulator.play(seed);
+            assertTrue(record.isOver());
+            assertFalse(record.getTurns().isEmpty());
+            assertTrue(record.getScores().size() >= 3 && record.getScores().size() <= 5);
+            assertTrue(record.getScores().stream().anyMatch(s -> s > 0));
+            assertTrue(record.getAnswers() > 0);
+        }
+    }
+
+    /*Testing that the same seed sets up the same match*/
+    @Test
+    void play_sameSetup() {
+        MatchRecord first = MatchSimulator.play(42);
+        MatchRecord second = MatchSimulator.play(42);
+        assertEquals(first.getConfiguration(), second.getConfiguration());
+        assertEquals(first.getScores().size(), second.getScores().size());
+    }
+
+    /*Testing that the same seed plays the same match, decks included*/
+    @Test
+    void play_sameScores() {
+        for (long seed = 10; seed < 13; seed++)
+            assertEquals(MatchSimulator.play(seed).getScores(), MatchSimulator.play(seed).getScores());
+    }
+
+    /*Testing the percentiles*/
+    @Test
+    void distribution() {
+        Distribution distribution = new Distribution();
+        assertEquals(0, distribution.percentile(0.5));
+        for (int i = 100; i > 0; i--)
+            distribution.add(i);
+        assertEquals(100, distribution.count());
+        assertEquals(1, distribution.percentile(0));
+        assertEquals(50, distribution.percentile(0.5));
+        assertEquals(99, distribution.percentile(0.99));
+        assertEquals(100, distribution.percentile(1));
+        assertEquals(50.5, distribution.mean());
+    }
+
+    /*Testing the report without matches*/
+    @Test
+    void report_empty() {
+        String report = MatchSimulator.report(Collections.emptyList(), 0, 1, TimeUnit.SECONDS.toNanos(1));
+        assertTrue(report.startsWith("0 matches (0 failed)"));
+    }
+}